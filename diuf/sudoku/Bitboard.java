@@ -0,0 +1,126 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku;
+
+/**
+ * Bit-parallel view of the potential values of a {@link Grid}.
+ * <p>
+ * For each value, the cells where the value is still possible form an
+ * 81-bit plane, stored in two <tt>long</tt>s: the low word holds the cells
+ * 0 to 63 (bit <tt>i</tt> for cell <tt>i</tt>), the high word the cells
+ * 64 to 80 (bit <tt>i - 64</tt> for cell <tt>i</tt>). Regions and visible
+ * cells use the same representation, so that questions such as "where can
+ * this value go in this region" or "which peers of this cell still have
+ * this value" become a few word-wide operations.
+ * <p>
+ * The planes are maintained by the grid on every change of its potential
+ * values; a bitboard is a live view of them, not a copy.
+ * @see Grid#getBitboard()
+ * @see Topology#visibleCellBits
+ */
+public final class Bitboard {
+
+	// Cells of each region, indexed by (regionType * 9 + region) * 2, then low and high words
+	private static final long[] regionBits = new long[10 * 9 * 2];
+
+	static {
+		for (int regionTypeIndex = 0; regionTypeIndex < 10; regionTypeIndex++) {
+			Grid.Region[] regions = Grid.getRegions(regionTypeIndex);
+			for (int regionIndex = 0; regionIndex < regions.length; regionIndex++) {
+				int slot = (regionTypeIndex * 9 + regionIndex) * 2;
+				for (int i = 0; i < 9; i++) {
+					int cellIndex = regions[regionIndex].getCell(i).getIndex();
+					if (cellIndex < 64)
+						regionBits[slot] |= 1L << cellIndex;
+					else
+						regionBits[slot + 1] |= 1L << (cellIndex - 64);
+				}
+			}
+		}
+	}
+
+	// Shared with the grid: [2 * value] is the low word, [2 * value + 1] the high word
+	private final long[] planes;
+
+	Bitboard(long[] planes) {
+		this.planes = planes;
+	}
+
+	/**
+	 * Get the cells 0 to 63 where the given value is a potential value
+	 * @param value the value, between 1 and 9, inclusive
+	 * @return the low word of the plane of the value
+	 */
+	public long getLow(int value) {
+		return planes[value * 2];
+	}
+
+	/**
+	 * Get the cells 64 to 80 where the given value is a potential value
+	 * @param value the value, between 1 and 9, inclusive
+	 * @return the high word of the plane of the value
+	 */
+	public long getHigh(int value) {
+		return planes[value * 2 + 1];
+	}
+
+	/**
+	 * Whether the given value is a potential value of the given cell
+	 */
+	public boolean isPotential(int cellIndex, int value) {
+		if (cellIndex < 64)
+			return (planes[value * 2] & (1L << cellIndex)) != 0;
+		return (planes[value * 2 + 1] & (1L << (cellIndex - 64))) != 0;
+	}
+
+	/**
+	 * Get the number of cells where the given value is a potential value
+	 * @param value the value, between 1 and 9, inclusive
+	 * @return the number of potential positions of the value in the grid
+	 */
+	public int getCount(int value) {
+		return Long.bitCount(planes[value * 2]) + Long.bitCount(planes[value * 2 + 1]);
+	}
+
+	/**
+	 * Get the cells 0 to 63 of the given region
+	 */
+	public static long getRegionLow(Grid.Region region) {
+		return regionBits[(region.getRegionTypeIndex() * 9 + region.getRegionIndex()) * 2];
+	}
+
+	/**
+	 * Get the cells 64 to 80 of the given region
+	 */
+	public static long getRegionHigh(Grid.Region region) {
+		return regionBits[(region.getRegionTypeIndex() * 9 + region.getRegionIndex()) * 2 + 1];
+	}
+
+	/**
+	 * Get the index of the first cell of a plane
+	 * @param low the cells 0 to 63
+	 * @param high the cells 64 to 80
+	 * @return the lowest cell index, or -1 if the plane is empty
+	 */
+	public static int firstCell(long low, long high) {
+		if (low != 0)
+			return Long.numberOfTrailingZeros(low);
+		if (high != 0)
+			return 64 + Long.numberOfTrailingZeros(high);
+		return -1;
+	}
+
+	/**
+	 * Get the number of cells of a plane
+	 * @param low the cells 0 to 63
+	 * @param high the cells 64 to 80
+	 * @return the number of cells
+	 */
+	public static int count(long low, long high) {
+		return Long.bitCount(low) + Long.bitCount(high);
+	}
+
+}
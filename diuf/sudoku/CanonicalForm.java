@@ -0,0 +1,318 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku;
+
+import java.util.*;
+
+/**
+ * Canonical form of the values of a grid, the same for all the grids that
+ * are equivalent up to digit relabelling, row and column permutations within
+ * bands and stacks, band and stack permutations and transposition.
+ * <p>
+ * The canonical form is the lexicographically smallest 81-character string
+ * of all the equivalent grids, empty cells first (as <tt>'.'</tt>), the
+ * values being relabelled in their order of first appearance. It is
+ * computed row by row, keeping only the transformations that give the
+ * smallest rows so far.
+ * <p>
+ * Only plain Sudoku grids are supported: the variants and the Sukaku
+ * puzzles have other symmetries, see {@link #isSupported(Grid)}.
+ * @see Grid#getCanonicalForm()
+ */
+public final class CanonicalForm {
+
+	private static final int[][] triplets = new int[][] {
+		{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+	};
+
+	// Column permutations keeping the stacks: source column of each column
+	private static final int[][] columnPermutations = new int[6 * 6 * 6 * 6][];
+
+	static {
+		int n = 0;
+		for (int[] stacks : triplets) {
+			for (int[] columns0 : triplets) {
+				for (int[] columns1 : triplets) {
+					for (int[] columns2 : triplets) {
+						int[][] columns = new int[][] {columns0, columns1, columns2};
+						int[] permutation = new int[9];
+						for (int stack = 0; stack < 3; stack++)
+							for (int i = 0; i < 3; i++)
+								permutation[stack * 3 + i] = stacks[stack] * 3 + columns[stack][i];
+						columnPermutations[n++] = permutation;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A transformation being built: the source grid (transposed or not),
+	 * the column permutation, the rows chosen so far and the relabelling
+	 * of the values met so far.
+	 */
+	private static final class Candidate {
+
+		final int[] cells;
+		final int[] columns;
+		final int[] labels;
+		int nextLabel;
+		int usedRows;
+		int band;
+
+		Candidate(int[] cells, int[] columns, int row, int[] newLabels) {
+			this.cells = cells;
+			this.columns = columns;
+			this.labels = newLabels.clone();
+			this.nextLabel = 1;
+			for (int value = 1; value <= 9; value++)
+				if (newLabels[value] != 0)
+					nextLabel++;
+			this.usedRows = 1 << row;
+			this.band = row / 3;
+		}
+
+		Candidate(Candidate other) {
+			this.cells = other.cells;
+			this.columns = other.columns;
+			this.labels = other.labels.clone();
+			this.nextLabel = other.nextLabel;
+			this.usedRows = other.usedRows;
+			this.band = other.band;
+		}
+
+		/**
+		 * Get the given source row as a 9-digit number, relabelled after the
+		 * values met so far; the new values are labelled in the given array.
+		 */
+		int getRowCode(int row, int[] newLabels) {
+			return CanonicalForm.getRowCode(cells, columns, row, labels, nextLabel, newLabels);
+		}
+
+		/**
+		 * Get the source rows that can be the given row of the result
+		 */
+		int getAllowedRows(int resultRow) {
+			int bandRows;
+			if (resultRow % 3 == 0) {
+				bandRows = 0;
+				for (int b = 0; b < 3; b++)
+					if ((usedRows & (7 << (b * 3))) == 0)
+						bandRows |= 7 << (b * 3);
+			} else
+				bandRows = 7 << (band * 3);
+			return bandRows & ~usedRows;
+		}
+
+		Candidate extend(int row, int[] newLabels) {
+			Candidate result = new Candidate(this);
+			System.arraycopy(newLabels, 0, result.labels, 0, 10);
+			int next = 1;
+			for (int value = 1; value <= 9; value++)
+				if (newLabels[value] != 0)
+					next++;
+			result.nextLabel = next;
+			result.usedRows |= 1 << row;
+			result.band = row / 3;
+			return result;
+		}
+	}
+
+	private static int getRowCode(int[] cells, int[] columns, int row, int[] labels, int nextLabel, int[] newLabels) {
+		System.arraycopy(labels, 0, newLabels, 0, 10);
+		int code = 0;
+		for (int i = 0; i < 9; i++) {
+			int value = cells[row * 9 + columns[i]];
+			if (value != 0 && newLabels[value] == 0)
+				newLabels[value] = nextLabel++;
+			code = code * 10 + newLabels[value];
+		}
+		return code;
+	}
+
+	// Bit c set if column c of the row is not empty
+	private static int getPattern(int[] cells, int row) {
+		int result = 0;
+		for (int column = 0; column < 9; column++)
+			if (cells[row * 9 + column] != 0)
+				result |= 1 << column;
+		return result;
+	}
+
+	/*
+	 * Smallest pattern of the row, read from the first column (highest bit)
+	 * to the last one, over the column permutations: the stacks sorted by
+	 * their number of non-empty cells, these cells at the end of each stack.
+	 */
+	private static int getSmallestPattern(int pattern) {
+		int[] counts = new int[3];
+		for (int stack = 0; stack < 3; stack++)
+			counts[stack] = Integer.bitCount((pattern >> (stack * 3)) & 7);
+		Arrays.sort(counts);
+		int result = 0;
+		for (int stack = 0; stack < 3; stack++)
+			result = (result << 3) | ((1 << counts[stack]) - 1);
+		return result;
+	}
+
+	/*
+	 * In sparse grids many transformations tie, for instance when the chosen
+	 * rows are empty. Keep only one of those that will give the same remaining
+	 * rows with the same labels, as they cannot lead to different results.
+	 */
+	private static List<Candidate> removeEquivalent(List<Candidate> candidates) {
+		if (candidates.size() <= 4096)
+			return candidates;
+		List<Candidate> result = new ArrayList<Candidate>();
+		Set<String> keys = new HashSet<String>();
+		char[] key = new char[2 + 10 + 81];
+		for (Candidate candidate : candidates) {
+			int n = 0;
+			key[n++] = (char)candidate.usedRows;
+			key[n++] = (char)candidate.band;
+			for (int value = 0; value <= 9; value++)
+				key[n++] = (char)candidate.labels[value];
+			for (int row = 0; row < 9; row++) {
+				if ((candidate.usedRows & (1 << row)) != 0)
+					continue;
+				for (int column = 0; column < 9; column++)
+					key[n++] = (char)candidate.cells[row * 9 + candidate.columns[column]];
+			}
+			if (keys.add(new String(key, 0, n)))
+				result.add(candidate);
+		}
+		return result;
+	}
+
+	private final String string;
+	private final long key;
+
+	private CanonicalForm(String string, long key) {
+		this.string = string;
+		this.key = key;
+	}
+
+	/**
+	 * Whether the canonical form of the given grid can be computed:
+	 * only plain Sudoku grids are supported, not the variants or the Sukakus.
+	 */
+	public static boolean isSupported(Grid grid) {
+		return grid.isSudoku() == 1 && grid.getTopology().getVariants() == Topology.BLOCKS;
+	}
+
+	/**
+	 * Compute the canonical form of the values of the given grid.
+	 * The potential values are ignored.
+	 * @param grid the grid
+	 * @return the canonical form, or <tt>null</tt> if the grid is not
+	 * supported, see {@link #isSupported(Grid)}
+	 */
+	public static CanonicalForm of(Grid grid) {
+		if (!isSupported(grid))
+			return null;
+		int[] cells = new int[81];
+		int[] transposed = new int[81];
+		for (int i = 0; i < 81; i++) {
+			int value = grid.getCellValue(i);
+			cells[i] = value;
+			transposed[(i % 9) * 9 + i / 9] = value;
+		}
+		int[] rowCodes = new int[9];
+		int[] noLabels = new int[10];
+		int[] newLabels = new int[10];
+
+		/*
+		 * First row: any row of the grid or of the transposed grid, with any
+		 * column permutation. Without previous labels, the order of the first
+		 * rows is the order of their patterns of non-empty cells, so only the
+		 * rows having the smallest pattern are tried with all the permutations.
+		 */
+		List<Candidate> candidates = new ArrayList<Candidate>();
+		int[][] sources = new int[][] {cells, transposed};
+		int[] patterns = new int[18];
+		int bestPattern = Integer.MAX_VALUE;
+		for (int i = 0; i < 18; i++) {
+			patterns[i] = getPattern(sources[i / 9], i % 9);
+			bestPattern = Math.min(bestPattern, getSmallestPattern(patterns[i]));
+		}
+		for (int i = 0; i < 18; i++) {
+			if (getSmallestPattern(patterns[i]) != bestPattern)
+				continue;
+			for (int[] columns : columnPermutations) {
+				int pattern = 0;
+				for (int column = 0; column < 9; column++)
+					pattern = (pattern << 1) | ((patterns[i] >> columns[column]) & 1);
+				if (pattern == bestPattern) {
+					rowCodes[0] = getRowCode(sources[i / 9], columns, i % 9, noLabels, 1, newLabels);
+					candidates.add(new Candidate(sources[i / 9], columns, i % 9, newLabels));
+				}
+			}
+		}
+		candidates = removeEquivalent(candidates);
+		int best;
+
+		// Next rows: any remaining row of the current band, or of another band
+		for (int resultRow = 1; resultRow < 9; resultRow++) {
+			best = Integer.MAX_VALUE;
+			for (Candidate candidate : candidates) {
+				for (int rows = candidate.getAllowedRows(resultRow); rows != 0; rows &= rows - 1) {
+					int code = candidate.getRowCode(Integer.numberOfTrailingZeros(rows), newLabels);
+					if (code < best)
+						best = code;
+				}
+			}
+			List<Candidate> next = new ArrayList<Candidate>();
+			for (Candidate candidate : candidates) {
+				for (int rows = candidate.getAllowedRows(resultRow); rows != 0; rows &= rows - 1) {
+					int row = Integer.numberOfTrailingZeros(rows);
+					if (candidate.getRowCode(row, newLabels) == best)
+						next.add(candidate.extend(row, newLabels));
+				}
+			}
+			candidates = removeEquivalent(next);
+			rowCodes[resultRow] = best;
+		}
+
+		char[] chars = new char[81];
+		long key = 0;
+		for (int i = 80; i >= 0; i--) {
+			int label = rowCodes[i / 9] % 10;
+			rowCodes[i / 9] /= 10;
+			chars[i] = label == 0 ? '.' : (char)('0' + label);
+			key ^= Grid.zobristValueKeys[i * 10 + label];
+		}
+		return new CanonicalForm(new String(chars), key);
+	}
+
+	/**
+	 * Get a 64-bit key of this canonical form, the same for equivalent grids
+	 */
+	public long getKey() {
+		return key;
+	}
+
+	/**
+	 * Get the canonical form as 81 characters, <tt>'.'</tt> for the empty cells
+	 */
+	@Override
+	public String toString() {
+		return string;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof CanonicalForm))
+			return false;
+		CanonicalForm other = (CanonicalForm)o;
+		return key == other.key && string.equals(other.string);
+	}
+
+	@Override
+	public int hashCode() {
+		return (int)(key ^ (key >>> 32));
+	}
+
+}
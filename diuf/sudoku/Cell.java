@@ -6,6 +6,7 @@
 package diuf.sudoku;
 
 import diuf.sudoku.tools.CellSet;
+import diuf.sudoku.tools.ImmutableCellSet;
 
 public class Cell {
 
@@ -122,7 +123,7 @@ public class Cell {
 
 //SudokuMonster: Believe it or not this method is the most important one when you think of adding variants :)
 //Anti Chess will not require any changes as they have been included in Visible cells
-//Other forbidden pairs including non consecutive will require adjustments here
+//Other forbidden pairs including non consecutive will require adjustments in Grid.place() and Topology
 //@SudokuMonster: Changes to allow for FP (NC)    
 
     /**
@@ -136,54 +137,7 @@ public class Cell {
      */
     public void setValueAndCancel(int value, Grid targetGrid) {
         assert value != 0;
-        targetGrid.setCellValue(this.index, value);
-        targetGrid.clearCellPotentialValues(this.index);
-//SudokuMonster: Grid.visibleCellIndex[this.index].length changes with Variants and can be variable in some variants (i.e. Sudoku X)
-		int j = Grid.visibleCellIndex[this.index].length;
-        for(int i = 0; i < j; i++) {
-        	targetGrid.removeCellPotentialValue(Grid.visibleCellIndex[this.index][i], value);
-        }
-		if (Settings.getInstance().isForbiddenPairs()){
-			int statusNC = Settings.getInstance().whichNC();
-			if (statusNC > 0)
-				if(Settings.getInstance().isToroidal()) {
-					if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-						j = Grid.wazirCellsToroidal[this.index].length;
-					else
-						j = Grid.ferzCellsToroidal[this.index].length;
-					for(int i = 0; i < j; i++) {
-						if (statusNC == 2 || statusNC == 4 || value < 9)
-							if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-								targetGrid.removeCellPotentialValue(Grid.wazirCellsToroidal[this.index][i], value == 9 ? 1 : value + 1);
-							else
-								targetGrid.removeCellPotentialValue(Grid.ferzCellsToroidal[this.index][i], value == 9 ? 1 : value + 1);
-						if (statusNC == 2 || statusNC == 4 || value > 1)
-							if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-								targetGrid.removeCellPotentialValue(Grid.wazirCellsToroidal[this.index][i], value == 1 ? 9 : value - 1);
-							else
-								targetGrid.removeCellPotentialValue(Grid.ferzCellsToroidal[this.index][i], value == 1 ? 9 : value - 1);
-					}
-				}
-				else {
-					if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-						j = Grid.wazirCellsRegular[this.index].length;
-					else
-						j = Grid.ferzCellsRegular[this.index].length;						
-					for(int i = 0; i < j; i++) {
-						if (statusNC == 2 || statusNC == 4 || value < 9)
-							if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-								targetGrid.removeCellPotentialValue(Grid.wazirCellsRegular[this.index][i], value == 9 ? 1 : value + 1);
-							else
-								targetGrid.removeCellPotentialValue(Grid.ferzCellsRegular[this.index][i], value == 9 ? 1 : value + 1);
-						if (statusNC == 2 || statusNC == 4 || value > 1)
-							if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-								targetGrid.removeCellPotentialValue(Grid.wazirCellsRegular[this.index][i], value == 1 ? 9 : value - 1);
-							else
-								targetGrid.removeCellPotentialValue(Grid.ferzCellsRegular[this.index][i], value == 1 ? 9 : value - 1);
-					}					
-				}
-		}
-
+        targetGrid.place(this.index, value);
     }
 
     /**
@@ -193,7 +147,7 @@ public class Cell {
      * <p>
      * @return the cells that are controlled by this cell
      */
-    public CellSet getVisibleCells() {
+    public ImmutableCellSet getVisibleCells() {
         // Use a set to prevent duplicates (cells in both block and row/column)
     	//return new CellSet(Grid.visibleCellIndex[index]);
     	return Grid.visibleCellsSet[index];
@@ -226,7 +180,7 @@ public class Cell {
      * are always returned in the same order).
      * @return the cells that are controlled by this cell
      */
-    public CellSet getForwardVisibleCells() {
+    public ImmutableCellSet getForwardVisibleCells() {
         // Use a set to prevent duplicates (cells in both block and row/column)
     	//return new CellSet(Grid.visibleCellIndex[index]);
     	return Grid.forwardVisibleCellsSet[index];
@@ -8,7 +8,7 @@ package diuf.sudoku;
 
 import java.util.*;
 
-import diuf.sudoku.tools.CellSet;
+import diuf.sudoku.tools.ImmutableCellSet;
 
 /**
  * A Sudoku grid.
@@ -22,71 +22,95 @@ import diuf.sudoku.tools.CellSet;
  */
 public class Grid {
 
+    /*
+     * Zobrist keys of the (cell, value) pairs, for a placed value and for a
+     * potential value, indexed by cell * 10 + value. The key of a grid is the
+     * xor of the keys of all its values and potential values.
+     */
+    static final long[] zobristValueKeys = new long[81 * 10];
+    private static final long[] zobristPotentialKeys = new long[81 * 10];
+    static {
+        Random random = new Random(81L);
+        for (int i = 0; i < 81 * 10; i++) {
+            if (i % 10 == 0) continue; // an empty cell adds nothing
+            zobristValueKeys[i] = random.nextLong();
+            zobristPotentialKeys[i] = random.nextLong();
+        }
+    }
+
     /*
      * Cell values of the grid [0 .. 9]. 0 = unknown.
      */
     private int[] cellValues = new int[81];
 
     /*
-     * Cell potential values of the grid, bit 0 is unused.
+     * Cell potential values of the grid as bitmasks, bit <tt>v</tt> set
+     * for potential value <tt>v</tt>; bit 0 is unused.
      */
-    private BitSet[] cellPotentialValues = new BitSet[81];
+    private int[] cellPotentialMasks = new int[81];
+
+    /*
+     * Bitmask of all the potential values 1 to 9.
+     */
+    public static final int ALL_VALUES_MASK = 0x3FE;
 	private boolean[] isGiven = new boolean[81];
 
 	private int isSudoku;  // 1=isSudoku (default), 0=isSukaku (set when Sukaku is loaded)
+
+	// Topology of this grid, null to follow the default topology
+	private Topology topology;
+
+    /*
+     * Undo journal, recording while at least one mark is open (see mark()).
+     * Each entry holds the state of a cell before one change: the cell index
+     * in bits 11 and up, bit 10 set for a value change, and the old value or
+     * old potential values mask in bits 0..9.
+     */
+    private int[] journal;
+    private int journalSize = 0;
+    private int journalMarks = 0;
+    private static final int JOURNAL_VALUE = 1 << 10;
+
+    // Zobrist key of the cell values and potential values, kept up to date by every mutator
+    private long zobristKey = 0;
+
+    /*
+     * Cells where each value is a potential value, as two-word 81-bit planes:
+     * [2 * value] for cells 0..63, [2 * value + 1] for cells 64..80.
+     * See Bitboard.
+     */
+    private final long[] potentialPlanes = new long[20];
+    private Bitboard bitboard;
 	
-//    //cache for Region.getPotentialPositions(value)
-//    private valueCells valueCellsCache = new valueCells();
-//    private class valueCells {
-//        private BitSet[][][] valuePotentialCells = new BitSet[3][9][9]; //region type, region, value
-//
-//        private valueCells() {
-//            for(int regionType = 0; regionType < 3; regionType++) {
-//                for(int region = 0; region < 9; region++) {
-//    	            for(int cell = 0; cell < 9; cell++) {
-//	            		valuePotentialCells[regionType][region][cell] = new BitSet(9);
-//    	            }
-//                }
-//            }
-//        }
-//        public void invalidateCellValue(int cellIndex, int value) {
-//        	for(int t = 0; t < 3; t++) { //region types
-//        		valuePotentialCells[t][cellRegions[cellIndex][t]][value - 1].clear();
-//        	}
-//        }
-//        public void invalidateCell(int cellIndex) {
-//        	for(int t = 0; t < 3; t++) { //region types
-//        		for(int v = 0; v < 9; v++) { //values
-//        			valuePotentialCells[t][cellRegions[cellIndex][t]][v].clear();
-//        		}
-//        	}
-//        }
-//        public BitSet getRegionValueCells(Region region, int value) {
-//        	int regionType = region.getRegionTypeIndex();
-//        	int regionIndex = region.getRegionIndex();
-//        	BitSet result = valuePotentialCells[regionType][regionIndex][value - 1];
-//        	if(result.isEmpty()) { //build
-//        		result = new BitSet(9);
-//                for (int index = 0; index < 9; index++) {
-//                    result.set(index, hasCellPotentialValue(region.getCell(index).getIndex(), value));
-//                }
-//                valuePotentialCells[regionType][regionIndex][value - 1] = result; //store to cache
-//        	}
-//        	return result;
-//        }
-//    }
+    /*
+     * Potential positions of each value within each region, maintained
+     * incrementally by the potential values setters.
+     * Index is (regionType * 9 + region) * 10 + value, bit <tt>i</tt> is set
+     * when the cell at index <tt>i</tt> of the region has the value as potential.
+     */
+    private short[] regionValuePositions = new short[10 * 9 * 10];
+
+    /*
+     * For each cell, the base index in regionValuePositions of every region
+     * containing the cell, and the matching position bit within the region.
+     */
+    private static final int[][] cellRegionSlots;
+    private static final short[][] cellRegionBits;
+
     private static final Cell cells[];
     public static final int[][] regionCellIndex;
     public static final int[][] cellRegions;
+    // Visibility tables of the default topology, see changeVisibleCells()
+    private static volatile Topology defaultTopology;
     public static int[][] visibleCellIndex;
 	public static int[][] forwardVisibleCellIndex;
 	public static int[][] antiVisibleCellIndex;
-	private static final int [][] windowsVisibleCellIndex;
-	private static final int [][] DGVisibleCellIndex;
-	private static final int [][] XVisibleCellIndex;
-	private static final int [][] asteriskVisibleCellIndex;
-	private static final int [][] girandolaVisibleCellIndex;
-	private static final int [][] CDVisibleCellIndex;
+	static final int [][] windowsVisibleCellIndex;
+	static final int [][] DGVisibleCellIndex;
+	static final int [][] XVisibleCellIndex;
+	static final int [][] asteriskVisibleCellIndex;
+	static final int [][] girandolaVisibleCellIndex;
+	static final int [][] CDVisibleCellIndex;
 	public static final int [][] ferzCellIndex;
 	//private static final int [][] wazirCellIndex;
 	public static final int [][] knightCellIndex;
@@ -105,9 +129,9 @@ public class Grid {
 	private static final Asterisk[] asterisk;
 	private static final CD[] cd;
     public static final Region[][] regions;
-    public static CellSet[] visibleCellsSet;
-	public static CellSet[] forwardVisibleCellsSet;
-	public static CellSet[] antiVisibleCellsSet;
+    public static ImmutableCellSet[] visibleCellsSet;
+	public static ImmutableCellSet[] forwardVisibleCellsSet;
+	public static ImmutableCellSet[] antiVisibleCellsSet;
     static {
     	cells = new Cell[] {
     		new Cell(0), new Cell(1), new Cell(2), new Cell(3), new Cell(4), new Cell(5), new Cell(6), new Cell(7), new Cell(8),
@@ -122,89 +146,6 @@ public class Grid {
     		};
     	regionCellIndex = new int[81][10]; //[cell][getRegionTypeIndex()] //@sudokuMonster 5 is Temp
     	cellRegions = new int[81][10]; //[cell][getRegionTypeIndex()]//@sudokuMonster 5 is Temp
-    	visibleCellIndex = new int[][] {
-    		{ 1, 2, 3, 4, 5, 6, 7, 8, 9,10,11,18,19,20,27,36,45,54,63,72},
-    		{ 0, 2, 3, 4, 5, 6, 7, 8, 9,10,11,18,19,20,28,37,46,55,64,73},
-    		{ 0, 1, 3, 4, 5, 6, 7, 8, 9,10,11,18,19,20,29,38,47,56,65,74},
-    		{ 0, 1, 2, 4, 5, 6, 7, 8,12,13,14,21,22,23,30,39,48,57,66,75},
-    		{ 0, 1, 2, 3, 5, 6, 7, 8,12,13,14,21,22,23,31,40,49,58,67,76},
-    		{ 0, 1, 2, 3, 4, 6, 7, 8,12,13,14,21,22,23,32,41,50,59,68,77},
-    		{ 0, 1, 2, 3, 4, 5, 7, 8,15,16,17,24,25,26,33,42,51,60,69,78},
-    		{ 0, 1, 2, 3, 4, 5, 6, 8,15,16,17,24,25,26,34,43,52,61,70,79},
-    		{ 0, 1, 2, 3, 4, 5, 6, 7,15,16,17,24,25,26,35,44,53,62,71,80},
-    		{ 0, 1, 2,10,11,12,13,14,15,16,17,18,19,20,27,36,45,54,63,72},
-    		{ 0, 1, 2, 9,11,12,13,14,15,16,17,18,19,20,28,37,46,55,64,73},
-    		{ 0, 1, 2, 9,10,12,13,14,15,16,17,18,19,20,29,38,47,56,65,74},
-    		{ 3, 4, 5, 9,10,11,13,14,15,16,17,21,22,23,30,39,48,57,66,75},
-    		{ 3, 4, 5, 9,10,11,12,14,15,16,17,21,22,23,31,40,49,58,67,76},
-    		{ 3, 4, 5, 9,10,11,12,13,15,16,17,21,22,23,32,41,50,59,68,77},
-    		{ 6, 7, 8, 9,10,11,12,13,14,16,17,24,25,26,33,42,51,60,69,78},
-    		{ 6, 7, 8, 9,10,11,12,13,14,15,17,24,25,26,34,43,52,61,70,79},
-    		{ 6, 7, 8, 9,10,11,12,13,14,15,16,24,25,26,35,44,53,62,71,80},
-    		{ 0, 1, 2, 9,10,11,19,20,21,22,23,24,25,26,27,36,45,54,63,72},
-    		{ 0, 1, 2, 9,10,11,18,20,21,22,23,24,25,26,28,37,46,55,64,73},
-    		{ 0, 1, 2, 9,10,11,18,19,21,22,23,24,25,26,29,38,47,56,65,74},
-    		{ 3, 4, 5,12,13,14,18,19,20,22,23,24,25,26,30,39,48,57,66,75},
-    		{ 3, 4, 5,12,13,14,18,19,20,21,23,24,25,26,31,40,49,58,67,76},
-    		{ 3, 4, 5,12,13,14,18,19,20,21,22,24,25,26,32,41,50,59,68,77},
-    		{ 6, 7, 8,15,16,17,18,19,20,21,22,23,25,26,33,42,51,60,69,78},
-    		{ 6, 7, 8,15,16,17,18,19,20,21,22,23,24,26,34,43,52,61,70,79},
-    		{ 6, 7, 8,15,16,17,18,19,20,21,22,23,24,25,35,44,53,62,71,80},
-    		{ 0, 9,18,28,29,30,31,32,33,34,35,36,37,38,45,46,47,54,63,72},
-    		{ 1,10,19,27,29,30,31,32,33,34,35,36,37,38,45,46,47,55,64,73},
-    		{ 2,11,20,27,28,30,31,32,33,34,35,36,37,38,45,46,47,56,65,74},
-    		{ 3,12,21,27,28,29,31,32,33,34,35,39,40,41,48,49,50,57,66,75},
-    		{ 4,13,22,27,28,29,30,32,33,34,35,39,40,41,48,49,50,58,67,76},
-    		{ 5,14,23,27,28,29,30,31,33,34,35,39,40,41,48,49,50,59,68,77},
-    		{ 6,15,24,27,28,29,30,31,32,34,35,42,43,44,51,52,53,60,69,78},
-    		{ 7,16,25,27,28,29,30,31,32,33,35,42,43,44,51,52,53,61,70,79},
-    		{ 8,17,26,27,28,29,30,31,32,33,34,42,43,44,51,52,53,62,71,80},
-    		{ 0, 9,18,27,28,29,37,38,39,40,41,42,43,44,45,46,47,54,63,72},
-    		{ 1,10,19,27,28,29,36,38,39,40,41,42,43,44,45,46,47,55,64,73},
-    		{ 2,11,20,27,28,29,36,37,39,40,41,42,43,44,45,46,47,56,65,74},
-    		{ 3,12,21,30,31,32,36,37,38,40,41,42,43,44,48,49,50,57,66,75},
-    		{ 4,13,22,30,31,32,36,37,38,39,41,42,43,44,48,49,50,58,67,76},
-    		{ 5,14,23,30,31,32,36,37,38,39,40,42,43,44,48,49,50,59,68,77},
-    		{ 6,15,24,33,34,35,36,37,38,39,40,41,43,44,51,52,53,60,69,78},
-    		{ 7,16,25,33,34,35,36,37,38,39,40,41,42,44,51,52,53,61,70,79},
-    		{ 8,17,26,33,34,35,36,37,38,39,40,41,42,43,51,52,53,62,71,80},
-    		{ 0, 9,18,27,28,29,36,37,38,46,47,48,49,50,51,52,53,54,63,72},
-    		{ 1,10,19,27,28,29,36,37,38,45,47,48,49,50,51,52,53,55,64,73},
-    		{ 2,11,20,27,28,29,36,37,38,45,46,48,49,50,51,52,53,56,65,74},
-    		{ 3,12,21,30,31,32,39,40,41,45,46,47,49,50,51,52,53,57,66,75},
-    		{ 4,13,22,30,31,32,39,40,41,45,46,47,48,50,51,52,53,58,67,76},
-    		{ 5,14,23,30,31,32,39,40,41,45,46,47,48,49,51,52,53,59,68,77},
-    		{ 6,15,24,33,34,35,42,43,44,45,46,47,48,49,50,52,53,60,69,78},
-    		{ 7,16,25,33,34,35,42,43,44,45,46,47,48,49,50,51,53,61,70,79},
-    		{ 8,17,26,33,34,35,42,43,44,45,46,47,48,49,50,51,52,62,71,80},
-    		{ 0, 9,18,27,36,45,55,56,57,58,59,60,61,62,63,64,65,72,73,74},
-    		{ 1,10,19,28,37,46,54,56,57,58,59,60,61,62,63,64,65,72,73,74},
-    		{ 2,11,20,29,38,47,54,55,57,58,59,60,61,62,63,64,65,72,73,74},
-    		{ 3,12,21,30,39,48,54,55,56,58,59,60,61,62,66,67,68,75,76,77},
-    		{ 4,13,22,31,40,49,54,55,56,57,59,60,61,62,66,67,68,75,76,77},
-    		{ 5,14,23,32,41,50,54,55,56,57,58,60,61,62,66,67,68,75,76,77},
-    		{ 6,15,24,33,42,51,54,55,56,57,58,59,61,62,69,70,71,78,79,80},
-    		{ 7,16,25,34,43,52,54,55,56,57,58,59,60,62,69,70,71,78,79,80},
-    		{ 8,17,26,35,44,53,54,55,56,57,58,59,60,61,69,70,71,78,79,80},
-    		{ 0, 9,18,27,36,45,54,55,56,64,65,66,67,68,69,70,71,72,73,74},
-    		{ 1,10,19,28,37,46,54,55,56,63,65,66,67,68,69,70,71,72,73,74},
-    		{ 2,11,20,29,38,47,54,55,56,63,64,66,67,68,69,70,71,72,73,74},
-    		{ 3,12,21,30,39,48,57,58,59,63,64,65,67,68,69,70,71,75,76,77},
-    		{ 4,13,22,31,40,49,57,58,59,63,64,65,66,68,69,70,71,75,76,77},
-    		{ 5,14,23,32,41,50,57,58,59,63,64,65,66,67,69,70,71,75,76,77},
-    		{ 6,15,24,33,42,51,60,61,62,63,64,65,66,67,68,70,71,78,79,80},
-    		{ 7,16,25,34,43,52,60,61,62,63,64,65,66,67,68,69,71,78,79,80},
-    		{ 8,17,26,35,44,53,60,61,62,63,64,65,66,67,68,69,70,78,79,80},
-    		{ 0, 9,18,27,36,45,54,55,56,63,64,65,73,74,75,76,77,78,79,80},
-    		{ 1,10,19,28,37,46,54,55,56,63,64,65,72,74,75,76,77,78,79,80},
-    		{ 2,11,20,29,38,47,54,55,56,63,64,65,72,73,75,76,77,78,79,80},
-    		{ 3,12,21,30,39,48,57,58,59,66,67,68,72,73,74,76,77,78,79,80},
-    		{ 4,13,22,31,40,49,57,58,59,66,67,68,72,73,74,75,77,78,79,80},
-    		{ 5,14,23,32,41,50,57,58,59,66,67,68,72,73,74,75,76,78,79,80},
-    		{ 6,15,24,33,42,51,60,61,62,69,70,71,72,73,74,75,76,77,79,80},
-    		{ 7,16,25,34,43,52,60,61,62,69,70,71,72,73,74,75,76,77,78,80},
-    		{ 8,17,26,35,44,53,60,61,62,69,70,71,72,73,74,75,76,77,78,79}
-			};
 //@SudokuMonster: VisibleCellIndex for Windows groups
     	windowsVisibleCellIndex = new int[][] {			
 			{ 0, 4, 8, 36, 40, 44, 72, 76, 80},
@@ -1077,113 +1018,6 @@ public class Grid {
 		};
 
 //@SudokuMonster: Visible indexes >  Cell index; used to speed search and minimize repeats in some techniques (e.g WXYZ wing)
-    	forwardVisibleCellIndex = new int [][] {
-			{1,2,3,4,5,6,7,8,9,10,11,18,19,20,27,36,45,54,63,72},
-			{2,3,4,5,6,7,8,9,10,11,18,19,20,28,37,46,55,64,73},
-			{3,4,5,6,7,8,9,10,11,18,19,20,29,38,47,56,65,74},
-			{4,5,6,7,8,12,13,14,21,22,23,30,39,48,57,66,75},
-			{5,6,7,8,12,13,14,21,22,23,31,40,49,58,67,76},
-			{6,7,8,12,13,14,21,22,23,32,41,50,59,68,77},
-			{7,8,15,16,17,24,25,26,33,42,51,60,69,78},
-			{8,15,16,17,24,25,26,34,43,52,61,70,79},
-			{15,16,17,24,25,26,35,44,53,62,71,80},
-			{10,11,12,13,14,15,16,17,18,19,20,27,36,45,54,63,72},
-			{11,12,13,14,15,16,17,18,19,20,28,37,46,55,64,73},
-			{12,13,14,15,16,17,18,19,20,29,38,47,56,65,74},
-			{13,14,15,16,17,21,22,23,30,39,48,57,66,75},
-			{14,15,16,17,21,22,23,31,40,49,58,67,76},
-			{15,16,17,21,22,23,32,41,50,59,68,77},
-			{16,17,24,25,26,33,42,51,60,69,78},
-			{17,24,25,26,34,43,52,61,70,79},
-			{24,25,26,35,44,53,62,71,80},
-			{19,20,21,22,23,24,25,26,27,36,45,54,63,72},
-			{20,21,22,23,24,25,26,28,37,46,55,64,73},
-			{21,22,23,24,25,26,29,38,47,56,65,74},
-			{22,23,24,25,26,30,39,48,57,66,75},
-			{23,24,25,26,31,40,49,58,67,76},
-			{24,25,26,32,41,50,59,68,77},
-			{25,26,33,42,51,60,69,78},
-			{26,34,43,52,61,70,79},
-			{35,44,53,62,71,80},
-			{28,29,30,31,32,33,34,35,36,37,38,45,46,47,54,63,72},
-			{29,30,31,32,33,34,35,36,37,38,45,46,47,55,64,73},
-			{30,31,32,33,34,35,36,37,38,45,46,47,56,65,74},
-			{31,32,33,34,35,39,40,41,48,49,50,57,66,75},
-			{32,33,34,35,39,40,41,48,49,50,58,67,76},
-			{33,34,35,39,40,41,48,49,50,59,68,77},
-			{34,35,42,43,44,51,52,53,60,69,78},
-			{35,42,43,44,51,52,53,61,70,79},
-			{42,43,44,51,52,53,62,71,80},
-			{37,38,39,40,41,42,43,44,45,46,47,54,63,72},
-			{38,39,40,41,42,43,44,45,46,47,55,64,73},
-			{39,40,41,42,43,44,45,46,47,56,65,74},
-			{40,41,42,43,44,48,49,50,57,66,75},
-			{41,42,43,44,48,49,50,58,67,76},
-			{42,43,44,48,49,50,59,68,77},
-			{43,44,51,52,53,60,69,78},
-			{44,51,52,53,61,70,79},
-			{51,52,53,62,71,80},
-			{46,47,48,49,50,51,52,53,54,63,72},
-			{47,48,49,50,51,52,53,55,64,73},
-			{48,49,50,51,52,53,56,65,74},
-			{49,50,51,52,53,57,66,75},
-			{50,51,52,53,58,67,76},
-			{51,52,53,59,68,77},
-			{52,53,60,69,78},
-			{53,61,70,79},
-			{62,71,80},
-			{55,56,57,58,59,60,61,62,63,64,65,72,73,74},
-			{56,57,58,59,60,61,62,63,64,65,72,73,74},
-			{57,58,59,60,61,62,63,64,65,72,73,74},
-			{58,59,60,61,62,66,67,68,75,76,77},
-			{59,60,61,62,66,67,68,75,76,77},
-			{60,61,62,66,67,68,75,76,77},
-			{61,62,69,70,71,78,79,80},
-			{62,69,70,71,78,79,80},
-			{69,70,71,78,79,80},
-			{64,65,66,67,68,69,70,71,72,73,74},
-			{65,66,67,68,69,70,71,72,73,74},
-			{66,67,68,69,70,71,72,73,74},
-			{67,68,69,70,71,75,76,77},
-			{68,69,70,71,75,76,77},
-			{69,70,71,75,76,77},
-			{70,71,78,79,80},
-			{71,78,79,80},
-			{78,79,80},
-			{73,74,75,76,77,78,79,80},
-			{74,75,76,77,78,79,80},
-			{75,76,77,78,79,80},
-			{76,77,78,79,80},
-			{77,78,79,80},
-			{78,79,80},
-			{79,80},
-			{80},
-			{}
-			};
-		antiVisibleCellIndex = new int [81][0];
-    	visibleCellsSet = new CellSet[] {
-				new CellSet(visibleCellIndex[0]),new CellSet(visibleCellIndex[1]),new CellSet(visibleCellIndex[2]),new CellSet(visibleCellIndex[3]),new CellSet(visibleCellIndex[4]),new CellSet(visibleCellIndex[5]),new CellSet(visibleCellIndex[6]),new CellSet(visibleCellIndex[7]),new CellSet(visibleCellIndex[8]),
-				new CellSet(visibleCellIndex[9]),new CellSet(visibleCellIndex[10]),new CellSet(visibleCellIndex[11]),new CellSet(visibleCellIndex[12]),new CellSet(visibleCellIndex[13]),new CellSet(visibleCellIndex[14]),new CellSet(visibleCellIndex[15]),new CellSet(visibleCellIndex[16]),new CellSet(visibleCellIndex[17]),
-				new CellSet(visibleCellIndex[18]),new CellSet(visibleCellIndex[19]),new CellSet(visibleCellIndex[20]),new CellSet(visibleCellIndex[21]),new CellSet(visibleCellIndex[22]),new CellSet(visibleCellIndex[23]),new CellSet(visibleCellIndex[24]),new CellSet(visibleCellIndex[25]),new CellSet(visibleCellIndex[26]),
-				new CellSet(visibleCellIndex[27]),new CellSet(visibleCellIndex[28]),new CellSet(visibleCellIndex[29]),new CellSet(visibleCellIndex[30]),new CellSet(visibleCellIndex[31]),new CellSet(visibleCellIndex[32]),new CellSet(visibleCellIndex[33]),new CellSet(visibleCellIndex[34]),new CellSet(visibleCellIndex[35]),
-				new CellSet(visibleCellIndex[36]),new CellSet(visibleCellIndex[37]),new CellSet(visibleCellIndex[38]),new CellSet(visibleCellIndex[39]),new CellSet(visibleCellIndex[40]),new CellSet(visibleCellIndex[41]),new CellSet(visibleCellIndex[42]),new CellSet(visibleCellIndex[43]),new CellSet(visibleCellIndex[44]),
-				new CellSet(visibleCellIndex[45]),new CellSet(visibleCellIndex[46]),new CellSet(visibleCellIndex[47]),new CellSet(visibleCellIndex[48]),new CellSet(visibleCellIndex[49]),new CellSet(visibleCellIndex[50]),new CellSet(visibleCellIndex[51]),new CellSet(visibleCellIndex[52]),new CellSet(visibleCellIndex[53]),
-				new CellSet(visibleCellIndex[54]),new CellSet(visibleCellIndex[55]),new CellSet(visibleCellIndex[56]),new CellSet(visibleCellIndex[57]),new CellSet(visibleCellIndex[58]),new CellSet(visibleCellIndex[59]),new CellSet(visibleCellIndex[60]),new CellSet(visibleCellIndex[61]),new CellSet(visibleCellIndex[62]),
-				new CellSet(visibleCellIndex[63]),new CellSet(visibleCellIndex[64]),new CellSet(visibleCellIndex[65]),new CellSet(visibleCellIndex[66]),new CellSet(visibleCellIndex[67]),new CellSet(visibleCellIndex[68]),new CellSet(visibleCellIndex[69]),new CellSet(visibleCellIndex[70]),new CellSet(visibleCellIndex[71]),
-				new CellSet(visibleCellIndex[72]),new CellSet(visibleCellIndex[73]),new CellSet(visibleCellIndex[74]),new CellSet(visibleCellIndex[75]),new CellSet(visibleCellIndex[76]),new CellSet(visibleCellIndex[77]),new CellSet(visibleCellIndex[78]),new CellSet(visibleCellIndex[79]),new CellSet(visibleCellIndex[80])
-				};
-		forwardVisibleCellsSet = new CellSet[] {
-				new CellSet(forwardVisibleCellIndex[0]),new CellSet(forwardVisibleCellIndex[1]),new CellSet(forwardVisibleCellIndex[2]),new CellSet(forwardVisibleCellIndex[3]),new CellSet(forwardVisibleCellIndex[4]),new CellSet(forwardVisibleCellIndex[5]),new CellSet(forwardVisibleCellIndex[6]),new CellSet(forwardVisibleCellIndex[7]),new CellSet(forwardVisibleCellIndex[8]),
-				new CellSet(forwardVisibleCellIndex[9]),new CellSet(forwardVisibleCellIndex[10]),new CellSet(forwardVisibleCellIndex[11]),new CellSet(forwardVisibleCellIndex[12]),new CellSet(forwardVisibleCellIndex[13]),new CellSet(forwardVisibleCellIndex[14]),new CellSet(forwardVisibleCellIndex[15]),new CellSet(forwardVisibleCellIndex[16]),new CellSet(forwardVisibleCellIndex[17]),
-				new CellSet(forwardVisibleCellIndex[18]),new CellSet(forwardVisibleCellIndex[19]),new CellSet(forwardVisibleCellIndex[20]),new CellSet(forwardVisibleCellIndex[21]),new CellSet(forwardVisibleCellIndex[22]),new CellSet(forwardVisibleCellIndex[23]),new CellSet(forwardVisibleCellIndex[24]),new CellSet(forwardVisibleCellIndex[25]),new CellSet(forwardVisibleCellIndex[26]),
-				new CellSet(forwardVisibleCellIndex[27]),new CellSet(forwardVisibleCellIndex[28]),new CellSet(forwardVisibleCellIndex[29]),new CellSet(forwardVisibleCellIndex[30]),new CellSet(forwardVisibleCellIndex[31]),new CellSet(forwardVisibleCellIndex[32]),new CellSet(forwardVisibleCellIndex[33]),new CellSet(forwardVisibleCellIndex[34]),new CellSet(forwardVisibleCellIndex[35]),
-				new CellSet(forwardVisibleCellIndex[36]),new CellSet(forwardVisibleCellIndex[37]),new CellSet(forwardVisibleCellIndex[38]),new CellSet(forwardVisibleCellIndex[39]),new CellSet(forwardVisibleCellIndex[40]),new CellSet(forwardVisibleCellIndex[41]),new CellSet(forwardVisibleCellIndex[42]),new CellSet(forwardVisibleCellIndex[43]),new CellSet(forwardVisibleCellIndex[44]),
-				new CellSet(forwardVisibleCellIndex[45]),new CellSet(forwardVisibleCellIndex[46]),new CellSet(forwardVisibleCellIndex[47]),new CellSet(forwardVisibleCellIndex[48]),new CellSet(forwardVisibleCellIndex[49]),new CellSet(forwardVisibleCellIndex[50]),new CellSet(forwardVisibleCellIndex[51]),new CellSet(forwardVisibleCellIndex[52]),new CellSet(forwardVisibleCellIndex[53]),
-				new CellSet(forwardVisibleCellIndex[54]),new CellSet(forwardVisibleCellIndex[55]),new CellSet(forwardVisibleCellIndex[56]),new CellSet(forwardVisibleCellIndex[57]),new CellSet(forwardVisibleCellIndex[58]),new CellSet(forwardVisibleCellIndex[59]),new CellSet(forwardVisibleCellIndex[60]),new CellSet(forwardVisibleCellIndex[61]),new CellSet(forwardVisibleCellIndex[62]),
-				new CellSet(forwardVisibleCellIndex[63]),new CellSet(forwardVisibleCellIndex[64]),new CellSet(forwardVisibleCellIndex[65]),new CellSet(forwardVisibleCellIndex[66]),new CellSet(forwardVisibleCellIndex[67]),new CellSet(forwardVisibleCellIndex[68]),new CellSet(forwardVisibleCellIndex[69]),new CellSet(forwardVisibleCellIndex[70]),new CellSet(forwardVisibleCellIndex[71]),
-				new CellSet(forwardVisibleCellIndex[72]),new CellSet(forwardVisibleCellIndex[73]),new CellSet(forwardVisibleCellIndex[74]),new CellSet(forwardVisibleCellIndex[75]),new CellSet(forwardVisibleCellIndex[76]),new CellSet(forwardVisibleCellIndex[77]),new CellSet(forwardVisibleCellIndex[78]),new CellSet(forwardVisibleCellIndex[79]),new CellSet(forwardVisibleCellIndex[80])
-				};
-		antiVisibleCellsSet = null;
     	blocks = new Block[] {new Block(0), new Block(1), new Block(2), new Block(3), new Block(4), new Block(5), new Block(6), new Block(7), new Block(8)};
     	rows = new Row[] {new Row(0), new Row(1), new Row(2), new Row(3), new Row(4), new Row(5), new Row(6), new Row(7), new Row(8)};
     	columns = new Column[]{new Column(0), new Column(1), new Column(2), new Column(3), new Column(4), new Column(5), new Column(6), new Column(7), new Column(8)}; 
@@ -1195,6 +1029,23 @@ public class Grid {
 		asterisk = new Asterisk[]{new Asterisk(0)};
 		cd = new CD[]{new CD(0)};
 		regions = new Region[][] {blocks, rows, columns, DGs, windows, diagonal1, diagonal2, girandola, asterisk, cd};
+		cellRegionSlots = new int[81][];
+		cellRegionBits = new short[81][];
+		for (int i = 0; i < 81; i++) {
+			int n = 0;
+			for (int regionTypeIndex = 0; regionTypeIndex < 10; regionTypeIndex++)
+				if (cellRegions[i][regionTypeIndex] >= 0) n++;
+			cellRegionSlots[i] = new int[n];
+			cellRegionBits[i] = new short[n];
+			n = 0;
+			for (int regionTypeIndex = 0; regionTypeIndex < 10; regionTypeIndex++) {
+				if (cellRegions[i][regionTypeIndex] < 0) continue;
+				cellRegionSlots[i][n] = (regionTypeIndex * 9 + cellRegions[i][regionTypeIndex]) * 10;
+				cellRegionBits[i][n] = (short)(1 << regionCellIndex[i][regionTypeIndex]);
+				n++;
+			}
+		}
+		setDefaultTopology(Topology.get(Topology.BLOCKS));
     }
 
     //temporary development/debug counters
@@ -1207,11 +1058,20 @@ public class Grid {
      */
     public Grid() {
         for (int i = 0; i < 81; i++) {
-        	cellPotentialValues[i] = new BitSet(10);
 			isGiven[i] = false;	// fix #99 - initialize to false
         }
 		isSudoku = 1;
     }
+
+    /**
+     * Create a new 9x9 grid with the given topology. All cells are set to empty
+     * @param topology the variant topology of this grid, not changed by
+     * {@link #changeVisibleCells()}
+     */
+    public Grid(Topology topology) {
+    	this();
+    	this.topology = topology;
+    }
     
 	public int isSudoku() {
 		return this.isSudoku;
@@ -1314,515 +1174,50 @@ public class Grid {
 //@SudokuMonster: Static for Variant this has to be called if a variant technique relies on Visible Cells
 //					until a better way to de-clutter code is found
 //Change visible cells according to variant
-	@SuppressWarnings({ "rawtypes", "unchecked" })
+    /**
+     * Select the topology of the current variant settings as the default
+     * topology, used by the static visibility tables and by the grids
+     * without a topology of their own.
+     */
 	public static void changeVisibleCells() {
-    	if (Settings.getInstance().isBlocks())
-    	visibleCellIndex = new int[][] {
-    		{ 1, 2, 3, 4, 5, 6, 7, 8, 9,10,11,18,19,20,27,36,45,54,63,72},
-    		{ 0, 2, 3, 4, 5, 6, 7, 8, 9,10,11,18,19,20,28,37,46,55,64,73},
-    		{ 0, 1, 3, 4, 5, 6, 7, 8, 9,10,11,18,19,20,29,38,47,56,65,74},
-    		{ 0, 1, 2, 4, 5, 6, 7, 8,12,13,14,21,22,23,30,39,48,57,66,75},
-    		{ 0, 1, 2, 3, 5, 6, 7, 8,12,13,14,21,22,23,31,40,49,58,67,76},
-    		{ 0, 1, 2, 3, 4, 6, 7, 8,12,13,14,21,22,23,32,41,50,59,68,77},
-    		{ 0, 1, 2, 3, 4, 5, 7, 8,15,16,17,24,25,26,33,42,51,60,69,78},
-    		{ 0, 1, 2, 3, 4, 5, 6, 8,15,16,17,24,25,26,34,43,52,61,70,79},
-    		{ 0, 1, 2, 3, 4, 5, 6, 7,15,16,17,24,25,26,35,44,53,62,71,80},
-    		{ 0, 1, 2,10,11,12,13,14,15,16,17,18,19,20,27,36,45,54,63,72},
-    		{ 0, 1, 2, 9,11,12,13,14,15,16,17,18,19,20,28,37,46,55,64,73},
-    		{ 0, 1, 2, 9,10,12,13,14,15,16,17,18,19,20,29,38,47,56,65,74},
-    		{ 3, 4, 5, 9,10,11,13,14,15,16,17,21,22,23,30,39,48,57,66,75},
-    		{ 3, 4, 5, 9,10,11,12,14,15,16,17,21,22,23,31,40,49,58,67,76},
-    		{ 3, 4, 5, 9,10,11,12,13,15,16,17,21,22,23,32,41,50,59,68,77},
-    		{ 6, 7, 8, 9,10,11,12,13,14,16,17,24,25,26,33,42,51,60,69,78},
-    		{ 6, 7, 8, 9,10,11,12,13,14,15,17,24,25,26,34,43,52,61,70,79},
-    		{ 6, 7, 8, 9,10,11,12,13,14,15,16,24,25,26,35,44,53,62,71,80},
-    		{ 0, 1, 2, 9,10,11,19,20,21,22,23,24,25,26,27,36,45,54,63,72},
-    		{ 0, 1, 2, 9,10,11,18,20,21,22,23,24,25,26,28,37,46,55,64,73},
-    		{ 0, 1, 2, 9,10,11,18,19,21,22,23,24,25,26,29,38,47,56,65,74},
-    		{ 3, 4, 5,12,13,14,18,19,20,22,23,24,25,26,30,39,48,57,66,75},
-    		{ 3, 4, 5,12,13,14,18,19,20,21,23,24,25,26,31,40,49,58,67,76},
-    		{ 3, 4, 5,12,13,14,18,19,20,21,22,24,25,26,32,41,50,59,68,77},
-    		{ 6, 7, 8,15,16,17,18,19,20,21,22,23,25,26,33,42,51,60,69,78},
-    		{ 6, 7, 8,15,16,17,18,19,20,21,22,23,24,26,34,43,52,61,70,79},
-    		{ 6, 7, 8,15,16,17,18,19,20,21,22,23,24,25,35,44,53,62,71,80},
-    		{ 0, 9,18,28,29,30,31,32,33,34,35,36,37,38,45,46,47,54,63,72},
-    		{ 1,10,19,27,29,30,31,32,33,34,35,36,37,38,45,46,47,55,64,73},
-    		{ 2,11,20,27,28,30,31,32,33,34,35,36,37,38,45,46,47,56,65,74},
-    		{ 3,12,21,27,28,29,31,32,33,34,35,39,40,41,48,49,50,57,66,75},
-    		{ 4,13,22,27,28,29,30,32,33,34,35,39,40,41,48,49,50,58,67,76},
-    		{ 5,14,23,27,28,29,30,31,33,34,35,39,40,41,48,49,50,59,68,77},
-    		{ 6,15,24,27,28,29,30,31,32,34,35,42,43,44,51,52,53,60,69,78},
-    		{ 7,16,25,27,28,29,30,31,32,33,35,42,43,44,51,52,53,61,70,79},
-    		{ 8,17,26,27,28,29,30,31,32,33,34,42,43,44,51,52,53,62,71,80},
-    		{ 0, 9,18,27,28,29,37,38,39,40,41,42,43,44,45,46,47,54,63,72},
-    		{ 1,10,19,27,28,29,36,38,39,40,41,42,43,44,45,46,47,55,64,73},
-    		{ 2,11,20,27,28,29,36,37,39,40,41,42,43,44,45,46,47,56,65,74},
-    		{ 3,12,21,30,31,32,36,37,38,40,41,42,43,44,48,49,50,57,66,75},
-    		{ 4,13,22,30,31,32,36,37,38,39,41,42,43,44,48,49,50,58,67,76},
-    		{ 5,14,23,30,31,32,36,37,38,39,40,42,43,44,48,49,50,59,68,77},
-    		{ 6,15,24,33,34,35,36,37,38,39,40,41,43,44,51,52,53,60,69,78},
-    		{ 7,16,25,33,34,35,36,37,38,39,40,41,42,44,51,52,53,61,70,79},
-    		{ 8,17,26,33,34,35,36,37,38,39,40,41,42,43,51,52,53,62,71,80},
-    		{ 0, 9,18,27,28,29,36,37,38,46,47,48,49,50,51,52,53,54,63,72},
-    		{ 1,10,19,27,28,29,36,37,38,45,47,48,49,50,51,52,53,55,64,73},
-    		{ 2,11,20,27,28,29,36,37,38,45,46,48,49,50,51,52,53,56,65,74},
-    		{ 3,12,21,30,31,32,39,40,41,45,46,47,49,50,51,52,53,57,66,75},
-    		{ 4,13,22,30,31,32,39,40,41,45,46,47,48,50,51,52,53,58,67,76},
-    		{ 5,14,23,30,31,32,39,40,41,45,46,47,48,49,51,52,53,59,68,77},
-    		{ 6,15,24,33,34,35,42,43,44,45,46,47,48,49,50,52,53,60,69,78},
-    		{ 7,16,25,33,34,35,42,43,44,45,46,47,48,49,50,51,53,61,70,79},
-    		{ 8,17,26,33,34,35,42,43,44,45,46,47,48,49,50,51,52,62,71,80},
-    		{ 0, 9,18,27,36,45,55,56,57,58,59,60,61,62,63,64,65,72,73,74},
-    		{ 1,10,19,28,37,46,54,56,57,58,59,60,61,62,63,64,65,72,73,74},
-    		{ 2,11,20,29,38,47,54,55,57,58,59,60,61,62,63,64,65,72,73,74},
-    		{ 3,12,21,30,39,48,54,55,56,58,59,60,61,62,66,67,68,75,76,77},
-    		{ 4,13,22,31,40,49,54,55,56,57,59,60,61,62,66,67,68,75,76,77},
-    		{ 5,14,23,32,41,50,54,55,56,57,58,60,61,62,66,67,68,75,76,77},
-    		{ 6,15,24,33,42,51,54,55,56,57,58,59,61,62,69,70,71,78,79,80},
-    		{ 7,16,25,34,43,52,54,55,56,57,58,59,60,62,69,70,71,78,79,80},
-    		{ 8,17,26,35,44,53,54,55,56,57,58,59,60,61,69,70,71,78,79,80},
-    		{ 0, 9,18,27,36,45,54,55,56,64,65,66,67,68,69,70,71,72,73,74},
-    		{ 1,10,19,28,37,46,54,55,56,63,65,66,67,68,69,70,71,72,73,74},
-    		{ 2,11,20,29,38,47,54,55,56,63,64,66,67,68,69,70,71,72,73,74},
-    		{ 3,12,21,30,39,48,57,58,59,63,64,65,67,68,69,70,71,75,76,77},
-    		{ 4,13,22,31,40,49,57,58,59,63,64,65,66,68,69,70,71,75,76,77},
-    		{ 5,14,23,32,41,50,57,58,59,63,64,65,66,67,69,70,71,75,76,77},
-    		{ 6,15,24,33,42,51,60,61,62,63,64,65,66,67,68,70,71,78,79,80},
-    		{ 7,16,25,34,43,52,60,61,62,63,64,65,66,67,68,69,71,78,79,80},
-    		{ 8,17,26,35,44,53,60,61,62,63,64,65,66,67,68,69,70,78,79,80},
-    		{ 0, 9,18,27,36,45,54,55,56,63,64,65,73,74,75,76,77,78,79,80},
-    		{ 1,10,19,28,37,46,54,55,56,63,64,65,72,74,75,76,77,78,79,80},
-    		{ 2,11,20,29,38,47,54,55,56,63,64,65,72,73,75,76,77,78,79,80},
-    		{ 3,12,21,30,39,48,57,58,59,66,67,68,72,73,74,76,77,78,79,80},
-    		{ 4,13,22,31,40,49,57,58,59,66,67,68,72,73,74,75,77,78,79,80},
-    		{ 5,14,23,32,41,50,57,58,59,66,67,68,72,73,74,75,76,78,79,80},
-    		{ 6,15,24,33,42,51,60,61,62,69,70,71,72,73,74,75,76,77,79,80},
-    		{ 7,16,25,34,43,52,60,61,62,69,70,71,72,73,74,75,76,77,78,80},
-    		{ 8,17,26,35,44,53,60,61,62,69,70,71,72,73,74,75,76,77,78,79}
-			};
-    	else
-			visibleCellIndex = new int[][] {
-				{ 1, 2, 3, 4, 5, 6, 7, 8, 9,18,27,36,45,54,63,72},
-				{ 0, 2, 3, 4, 5, 6, 7, 8,10,19,28,37,46,55,64,73},
-				{ 0, 1, 3, 4, 5, 6, 7, 8,11,20,29,38,47,56,65,74},
-				{ 0, 1, 2, 4, 5, 6, 7, 8,12,21,30,39,48,57,66,75},
-				{ 0, 1, 2, 3, 5, 6, 7, 8,13,22,31,40,49,58,67,76},
-				{ 0, 1, 2, 3, 4, 6, 7, 8,14,23,32,41,50,59,68,77},
-				{ 0, 1, 2, 3, 4, 5, 7, 8,15,24,33,42,51,60,69,78},
-				{ 0, 1, 2, 3, 4, 5, 6, 8,16,25,34,43,52,61,70,79},
-				{ 0, 1, 2, 3, 4, 5, 6, 7,17,26,35,44,53,62,71,80},
-				{ 0,10,11,12,13,14,15,16,17,18,27,36,45,54,63,72},
-				{ 1, 9,11,12,13,14,15,16,17,19,28,37,46,55,64,73},
-				{ 2, 9,10,12,13,14,15,16,17,20,29,38,47,56,65,74},
-				{ 3, 9,10,11,13,14,15,16,17,21,30,39,48,57,66,75},
-				{ 4, 9,10,11,12,14,15,16,17,22,31,40,49,58,67,76},
-				{ 5, 9,10,11,12,13,15,16,17,23,32,41,50,59,68,77},
-				{ 6, 9,10,11,12,13,14,16,17,24,33,42,51,60,69,78},
-				{ 7, 9,10,11,12,13,14,15,17,25,34,43,52,61,70,79},
-				{ 8, 9,10,11,12,13,14,15,16,26,35,44,53,62,71,80},
-				{ 0, 9,19,20,21,22,23,24,25,26,27,36,45,54,63,72},
-				{ 1,10,18,20,21,22,23,24,25,26,28,37,46,55,64,73},
-				{ 2,11,18,19,21,22,23,24,25,26,29,38,47,56,65,74},
-				{ 3,12,18,19,20,22,23,24,25,26,30,39,48,57,66,75},
-				{ 4,13,18,19,20,21,23,24,25,26,31,40,49,58,67,76},
-				{ 5,14,18,19,20,21,22,24,25,26,32,41,50,59,68,77},
-				{ 6,15,18,19,20,21,22,23,25,26,33,42,51,60,69,78},
-				{ 7,16,18,19,20,21,22,23,24,26,34,43,52,61,70,79},
-				{ 8,17,18,19,20,21,22,23,24,25,35,44,53,62,71,80},
-				{ 0, 9,18,28,29,30,31,32,33,34,35,36,45,54,63,72},
-				{ 1,10,19,27,29,30,31,32,33,34,35,37,46,55,64,73},
-				{ 2,11,20,27,28,30,31,32,33,34,35,38,47,56,65,74},
-				{ 3,12,21,27,28,29,31,32,33,34,35,39,48,57,66,75},
-				{ 4,13,22,27,28,29,30,32,33,34,35,40,49,58,67,76},
-				{ 5,14,23,27,28,29,30,31,33,34,35,41,50,59,68,77},
-				{ 6,15,24,27,28,29,30,31,32,34,35,42,51,60,69,78},
-				{ 7,16,25,27,28,29,30,31,32,33,35,43,52,61,70,79},
-				{ 8,17,26,27,28,29,30,31,32,33,34,44,53,62,71,80},
-				{ 0, 9,18,27,37,38,39,40,41,42,43,44,45,54,63,72},
-				{ 1,10,19,28,36,38,39,40,41,42,43,44,46,55,64,73},
-				{ 2,11,20,29,36,37,39,40,41,42,43,44,47,56,65,74},
-				{ 3,12,21,30,36,37,38,40,41,42,43,44,48,57,66,75},
-				{ 4,13,22,31,36,37,38,39,41,42,43,44,49,58,67,76},
-				{ 5,14,23,32,36,37,38,39,40,42,43,44,50,59,68,77},
-				{ 6,15,24,33,36,37,38,39,40,41,43,44,51,60,69,78},
-				{ 7,16,25,34,36,37,38,39,40,41,42,44,52,61,70,79},
-				{ 8,17,26,35,36,37,38,39,40,41,42,43,53,62,71,80},
-				{ 0, 9,18,27,36,46,47,48,49,50,51,52,53,54,63,72},
-				{ 1,10,19,28,37,45,47,48,49,50,51,52,53,55,64,73},
-				{ 2,11,20,29,38,45,46,48,49,50,51,52,53,56,65,74},
-				{ 3,12,21,30,39,45,46,47,49,50,51,52,53,57,66,75},
-				{ 4,13,22,31,40,45,46,47,48,50,51,52,53,58,67,76},
-				{ 5,14,23,32,41,45,46,47,48,49,51,52,53,59,68,77},
-				{ 6,15,24,33,42,45,46,47,48,49,50,52,53,60,69,78},
-				{ 7,16,25,34,43,45,46,47,48,49,50,51,53,61,70,79},
-				{ 8,17,26,35,44,45,46,47,48,49,50,51,52,62,71,80},
-				{ 0, 9,18,27,36,45,55,56,57,58,59,60,61,62,63,72},
-				{ 1,10,19,28,37,46,54,56,57,58,59,60,61,62,64,73},
-				{ 2,11,20,29,38,47,54,55,57,58,59,60,61,62,65,74},
-				{ 3,12,21,30,39,48,54,55,56,58,59,60,61,62,66,75},
-				{ 4,13,22,31,40,49,54,55,56,57,59,60,61,62,67,76},
-				{ 5,14,23,32,41,50,54,55,56,57,58,60,61,62,68,77},
-				{ 6,15,24,33,42,51,54,55,56,57,58,59,61,62,69,78},
-				{ 7,16,25,34,43,52,54,55,56,57,58,59,60,62,70,79},
-				{ 8,17,26,35,44,53,54,55,56,57,58,59,60,61,71,80},
-				{ 0, 9,18,27,36,45,54,64,65,66,67,68,69,70,71,72},
-				{ 1,10,19,28,37,46,55,63,65,66,67,68,69,70,71,73},
-				{ 2,11,20,29,38,47,56,63,64,66,67,68,69,70,71,74},
-				{ 3,12,21,30,39,48,57,63,64,65,67,68,69,70,71,75},
-				{ 4,13,22,31,40,49,58,63,64,65,66,68,69,70,71,76},
-				{ 5,14,23,32,41,50,59,63,64,65,66,67,69,70,71,77},
-				{ 6,15,24,33,42,51,60,63,64,65,66,67,68,70,71,78},
-				{ 7,16,25,34,43,52,61,63,64,65,66,67,68,69,71,79},
-				{ 8,17,26,35,44,53,62,63,64,65,66,67,68,69,70,80},
-				{ 0, 9,18,27,36,45,54,63,73,74,75,76,77,78,79,80},
-				{ 1,10,19,28,37,46,55,64,72,74,75,76,77,78,79,80},
-				{ 2,11,20,29,38,47,56,65,72,73,75,76,77,78,79,80},
-				{ 3,12,21,30,39,48,57,66,72,73,74,76,77,78,79,80},
-				{ 4,13,22,31,40,49,58,67,72,73,74,75,77,78,79,80},
-				{ 5,14,23,32,41,50,59,68,72,73,74,75,76,78,79,80},
-				{ 6,15,24,33,42,51,60,69,72,73,74,75,76,77,79,80},
-				{ 7,16,25,34,43,52,61,70,72,73,74,75,76,77,78,80},
-				{ 8,17,26,35,44,53,62,71,72,73,74,75,76,77,78,79}
-			};
-		if (Settings.getInstance().isBlocks())	
-		forwardVisibleCellIndex = new int [][] {
-			{1,2,3,4,5,6,7,8,9,10,11,18,19,20,27,36,45,54,63,72},
-			{2,3,4,5,6,7,8,9,10,11,18,19,20,28,37,46,55,64,73},
-			{3,4,5,6,7,8,9,10,11,18,19,20,29,38,47,56,65,74},
-			{4,5,6,7,8,12,13,14,21,22,23,30,39,48,57,66,75},
-			{5,6,7,8,12,13,14,21,22,23,31,40,49,58,67,76},
-			{6,7,8,12,13,14,21,22,23,32,41,50,59,68,77},
-			{7,8,15,16,17,24,25,26,33,42,51,60,69,78},
-			{8,15,16,17,24,25,26,34,43,52,61,70,79},
-			{15,16,17,24,25,26,35,44,53,62,71,80},
-			{10,11,12,13,14,15,16,17,18,19,20,27,36,45,54,63,72},
-			{11,12,13,14,15,16,17,18,19,20,28,37,46,55,64,73},
-			{12,13,14,15,16,17,18,19,20,29,38,47,56,65,74},
-			{13,14,15,16,17,21,22,23,30,39,48,57,66,75},
-			{14,15,16,17,21,22,23,31,40,49,58,67,76},
-			{15,16,17,21,22,23,32,41,50,59,68,77},
-			{16,17,24,25,26,33,42,51,60,69,78},
-			{17,24,25,26,34,43,52,61,70,79},
-			{24,25,26,35,44,53,62,71,80},
-			{19,20,21,22,23,24,25,26,27,36,45,54,63,72},
-			{20,21,22,23,24,25,26,28,37,46,55,64,73},
-			{21,22,23,24,25,26,29,38,47,56,65,74},
-			{22,23,24,25,26,30,39,48,57,66,75},
-			{23,24,25,26,31,40,49,58,67,76},
-			{24,25,26,32,41,50,59,68,77},
-			{25,26,33,42,51,60,69,78},
-			{26,34,43,52,61,70,79},
-			{35,44,53,62,71,80},
-			{28,29,30,31,32,33,34,35,36,37,38,45,46,47,54,63,72},
-			{29,30,31,32,33,34,35,36,37,38,45,46,47,55,64,73},
-			{30,31,32,33,34,35,36,37,38,45,46,47,56,65,74},
-			{31,32,33,34,35,39,40,41,48,49,50,57,66,75},
-			{32,33,34,35,39,40,41,48,49,50,58,67,76},
-			{33,34,35,39,40,41,48,49,50,59,68,77},
-			{34,35,42,43,44,51,52,53,60,69,78},
-			{35,42,43,44,51,52,53,61,70,79},
-			{42,43,44,51,52,53,62,71,80},
-			{37,38,39,40,41,42,43,44,45,46,47,54,63,72},
-			{38,39,40,41,42,43,44,45,46,47,55,64,73},
-			{39,40,41,42,43,44,45,46,47,56,65,74},
-			{40,41,42,43,44,48,49,50,57,66,75},
-			{41,42,43,44,48,49,50,58,67,76},
-			{42,43,44,48,49,50,59,68,77},
-			{43,44,51,52,53,60,69,78},
-			{44,51,52,53,61,70,79},
-			{51,52,53,62,71,80},
-			{46,47,48,49,50,51,52,53,54,63,72},
-			{47,48,49,50,51,52,53,55,64,73},
-			{48,49,50,51,52,53,56,65,74},
-			{49,50,51,52,53,57,66,75},
-			{50,51,52,53,58,67,76},
-			{51,52,53,59,68,77},
-			{52,53,60,69,78},
-			{53,61,70,79},
-			{62,71,80},
-			{55,56,57,58,59,60,61,62,63,64,65,72,73,74},
-			{56,57,58,59,60,61,62,63,64,65,72,73,74},
-			{57,58,59,60,61,62,63,64,65,72,73,74},
-			{58,59,60,61,62,66,67,68,75,76,77},
-			{59,60,61,62,66,67,68,75,76,77},
-			{60,61,62,66,67,68,75,76,77},
-			{61,62,69,70,71,78,79,80},
-			{62,69,70,71,78,79,80},
-			{69,70,71,78,79,80},
-			{64,65,66,67,68,69,70,71,72,73,74},
-			{65,66,67,68,69,70,71,72,73,74},
-			{66,67,68,69,70,71,72,73,74},
-			{67,68,69,70,71,75,76,77},
-			{68,69,70,71,75,76,77},
-			{69,70,71,75,76,77},
-			{70,71,78,79,80},
-			{71,78,79,80},
-			{78,79,80},
-			{73,74,75,76,77,78,79,80},
-			{74,75,76,77,78,79,80},
-			{75,76,77,78,79,80},
-			{76,77,78,79,80},
-			{77,78,79,80},
-			{78,79,80},
-			{79,80},
-			{80},
-			{}
-			};
-    	else
-			forwardVisibleCellIndex = new int [][] {
-				{1,2,3,4,5,6,7,8,9,18,27,36,45,54,63,72},
-				{2,3,4,5,6,7,8,10,19,28,37,46,55,64,73},
-				{3,4,5,6,7,8,11,20,29,38,47,56,65,74},
-				{4,5,6,7,8,12,21,30,39,48,57,66,75},
-				{5,6,7,8,13,22,31,40,49,58,67,76},
-				{6,7,8,14,23,32,41,50,59,68,77},
-				{7,8,15,24,33,42,51,60,69,78},
-				{8,16,25,34,43,52,61,70,79},
-				{17,26,35,44,53,62,71,80},
-				{10,11,12,13,14,15,16,17,18,27,36,45,54,63,72},
-				{11,12,13,14,15,16,17,19,28,37,46,55,64,73},
-				{12,13,14,15,16,17,20,29,38,47,56,65,74},
-				{13,14,15,16,17,21,30,39,48,57,66,75},
-				{14,15,16,17,22,31,40,49,58,67,76},
-				{15,16,17,23,32,41,50,59,68,77},
-				{16,17,24,33,42,51,60,69,78},
-				{17,25,34,43,52,61,70,79},
-				{26,35,44,53,62,71,80},
-				{19,20,21,22,23,24,25,26,27,36,45,54,63,72},
-				{20,21,22,23,24,25,26,28,37,46,55,64,73},
-				{21,22,23,24,25,26,29,38,47,56,65,74},
-				{22,23,24,25,26,30,39,48,57,66,75},
-				{23,24,25,26,31,40,49,58,67,76},
-				{24,25,26,32,41,50,59,68,77},
-				{25,26,33,42,51,60,69,78},
-				{26,34,43,52,61,70,79},
-				{35,44,53,62,71,80},
-				{28,29,30,31,32,33,34,35,36,45,54,63,72},
-				{29,30,31,32,33,34,35,37,46,55,64,73},
-				{30,31,32,33,34,35,38,47,56,65,74},
-				{31,32,33,34,35,39,48,57,66,75},
-				{32,33,34,35,40,49,58,67,76},
-				{33,34,35,41,50,59,68,77},
-				{34,35,42,51,60,69,78},
-				{35,43,52,61,70,79},
-				{44,53,62,71,80},
-				{37,38,39,40,41,42,43,44,45,54,63,72},
-				{38,39,40,41,42,43,44,46,55,64,73},
-				{39,40,41,42,43,44,47,56,65,74},
-				{40,41,42,43,44,48,57,66,75},
-				{41,42,43,44,49,58,67,76},
-				{42,43,44,50,59,68,77},
-				{43,44,51,60,69,78},
-				{44,52,61,70,79},
-				{53,62,71,80},
-				{46,47,48,49,50,51,52,53,54,63,72},
-				{47,48,49,50,51,52,53,55,64,73},
-				{48,49,50,51,52,53,56,65,74},
-				{49,50,51,52,53,57,66,75},
-				{50,51,52,53,58,67,76},
-				{51,52,53,59,68,77},
-				{52,53,60,69,78},
-				{53,61,70,79},
-				{62,71,80},
-				{55,56,57,58,59,60,61,62,63,72},
-				{56,57,58,59,60,61,62,64,73},
-				{57,58,59,60,61,62,65,74},
-				{58,59,60,61,62,66,75},
-				{59,60,61,62,67,76},
-				{60,61,62,68,77},
-				{61,62,69,78},
-				{62,70,79},
-				{71,80},
-				{64,65,66,67,68,69,70,71,72},
-				{65,66,67,68,69,70,71,73},
-				{66,67,68,69,70,71,74},
-				{67,68,69,70,71,75},
-				{68,69,70,71,76},
-				{69,70,71,77},
-				{70,71,78},
-				{71,79},
-				{80},
-				{73,74,75,76,77,78,79,80},
-				{74,75,76,77,78,79,80},
-				{75,76,77,78,79,80},
-				{76,77,78,79,80},
-				{77,78,79,80},
-				{78,79,80},
-				{79,80},
-				{80},
-				{}
-			};
-		//@SudokuMonster Changining Static visibleCellIndex & visibleCellsSet with variants
-		//To change the least possible what @dobrichev has changed with cellSets
-		//Eperimental area to change visible cell index
-		//The base is either Sudoku or Latin Square already determined above
-		//What remains are additions
-		//Next 10 lines must be before any additions done
-		int visibilityMax = 0;
-		ArrayList<ArrayList<Integer>> tempList1 = new ArrayList();
-		ArrayList<ArrayList<Integer>> tempList2 = new ArrayList();		
-		ArrayList<ArrayList<Integer>> tempList3 = new ArrayList();		
-		for (int i = 0; i < 81; i++) {
-			ArrayList<Integer> list1 = new ArrayList();
-			ArrayList<Integer> list2 = new ArrayList();
-			ArrayList<Integer> list3 = new ArrayList();
-			for (int j = 0; j < visibleCellIndex[i].length; j++)
-				list1.add(visibleCellIndex[i][j]);
-			for (int j = 0; j < forwardVisibleCellIndex[i].length; j++)
-				list2.add(forwardVisibleCellIndex[i][j]);			
-		//above 10 lines must be before any additions done	
-			if (Settings.getInstance().isWindows())//Windows constraints
-				for (int j = 0; j < windowsVisibleCellIndex[i].length; j++)
-					if (windowsVisibleCellIndex[i][j] != i && list1.indexOf(windowsVisibleCellIndex[i][j]) < 0) {
-						list1.add(windowsVisibleCellIndex[i][j]);
-						if (windowsVisibleCellIndex[i][j] > i)
-							list2.add(windowsVisibleCellIndex[i][j]);
-					}
-			if (Settings.getInstance().isDG())//DG constraints
-				for (int j = 0; j < DGVisibleCellIndex[i].length; j++)
-					if (DGVisibleCellIndex[i][j] != i && list1.indexOf(DGVisibleCellIndex[i][j]) < 0) {
-						list1.add(DGVisibleCellIndex[i][j]);
-						if (DGVisibleCellIndex[i][j] > i)
-							list2.add(DGVisibleCellIndex[i][j]);
-					}
-			if (Settings.getInstance().isX())//X constraints
-				for (int j = 0; j < XVisibleCellIndex[i].length; j++)
-					if (XVisibleCellIndex[i][j] != i && list1.indexOf(XVisibleCellIndex[i][j]) < 0) {
-						list1.add(XVisibleCellIndex[i][j]);
-						if (XVisibleCellIndex[i][j] > i)
-							list2.add(XVisibleCellIndex[i][j]);
-					}
-			if (Settings.getInstance().isCD())//CD constraints
-				for (int j = 0; j < CDVisibleCellIndex[i].length; j++)
-					if (CDVisibleCellIndex[i][j] != i && list1.indexOf(CDVisibleCellIndex[i][j]) < 0) {
-						list1.add(CDVisibleCellIndex[i][j]);
-						if (CDVisibleCellIndex[i][j] > i)
-							list2.add(CDVisibleCellIndex[i][j]);
-					}
-			if (Settings.getInstance().isGirandola())//girandola constraints
-				for (int j = 0; j < girandolaVisibleCellIndex[i].length; j++)
-					if (girandolaVisibleCellIndex[i][j] != i && list1.indexOf(girandolaVisibleCellIndex[i][j]) < 0) {
-						list1.add(girandolaVisibleCellIndex[i][j]);
-						if (girandolaVisibleCellIndex[i][j] > i)
-							list2.add(girandolaVisibleCellIndex[i][j]);
-					}
-			if (Settings.getInstance().isAsterisk())//asterisk constraints
-				for (int j = 0; j < asteriskVisibleCellIndex[i].length; j++)
-					if (asteriskVisibleCellIndex[i][j] != i && list1.indexOf(asteriskVisibleCellIndex[i][j]) < 0) {
-						list1.add(asteriskVisibleCellIndex[i][j]);
-						if (asteriskVisibleCellIndex[i][j] > i)
-							list2.add(asteriskVisibleCellIndex[i][j]);
-					}
-			if (Settings.getInstance().isAntiFerz())//Anti Ferz (0,1)
-				for (int j = 0; j < ferzCellIndex.length; j++) { 
-					boolean isOutsideBoardX = (i / 9 + ferzCellIndex[j][0]) < 0 || (i / 9 + ferzCellIndex[j][0]) > 8;
-					boolean isOutsideBoardY = (i % 9 + ferzCellIndex[j][1]) < 0 || (i % 9 + ferzCellIndex[j][1]) > 8;
-					int correctedX = (i / 9 + ferzCellIndex[j][0]) < 0 ? 9 + (i / 9 + ferzCellIndex[j][0]): (i / 9 + ferzCellIndex[j][0]) % 9;
-					int correctedY = (i % 9 + ferzCellIndex[j][1]) < 0 ? 9 + (i % 9 + ferzCellIndex[j][1]): (i % 9 + ferzCellIndex[j][1]) % 9;
-					int leapCellIndex = correctedX * 9 + correctedY;
-					if (Settings.getInstance().isToroidal())  {
-						if (leapCellIndex != i && list1.indexOf(leapCellIndex) < 0) {
-							list1.add(leapCellIndex);
-							list3.add(leapCellIndex);
-							if (leapCellIndex > i)
-								list2.add(leapCellIndex);
-						}
-					}
-					else
-						if (!isOutsideBoardX && !isOutsideBoardY) {
-							if (leapCellIndex != i && list1.indexOf(leapCellIndex) < 0) {
-								list1.add(leapCellIndex);
-								list3.add(leapCellIndex);
-								if (leapCellIndex > i)
-									list2.add(leapCellIndex);
-							}		
-						}	
-				}
-			if (Settings.getInstance().isAntiKnight())//Anti Knight (1,2)
-				for (int j = 0; j < knightCellIndex.length; j++) { 
-					boolean isOutsideBoardX = (i / 9 + knightCellIndex[j][0]) < 0 || (i / 9 + knightCellIndex[j][0]) > 8;
-					boolean isOutsideBoardY = (i % 9 + knightCellIndex[j][1]) < 0 || (i % 9 + knightCellIndex[j][1]) > 8;
-					int correctedX = (i / 9 + knightCellIndex[j][0]) < 0 ? 9 + (i / 9 + knightCellIndex[j][0]) : (i / 9 + knightCellIndex[j][0]) % 9;
-					int correctedY = (i % 9 + knightCellIndex[j][1]) < 0 ? 9 + (i % 9 + knightCellIndex[j][1]) : (i % 9 + knightCellIndex[j][1]) % 9;
-					int leapCellIndex = correctedX * 9 + correctedY;
-					if (Settings.getInstance().isToroidal())  {
-						if (leapCellIndex != i && list1.indexOf(leapCellIndex) < 0) {
-							list1.add(leapCellIndex);
-							list3.add(leapCellIndex);
-							if (leapCellIndex > i)
-								list2.add(leapCellIndex);
-						}	
-					}
-					else
-						if (!isOutsideBoardX && !isOutsideBoardY) {
-							if (leapCellIndex != i && list1.indexOf(leapCellIndex) < 0) {
-								list1.add(leapCellIndex);
-								list3.add(leapCellIndex);
-								if (leapCellIndex > i)
-									list2.add(leapCellIndex);
-							}
-						}	
-				}
-		//The following 3 lines need to be at bottom of loop
-			visibilityMax = visibilityMax > list1.size() ? visibilityMax : list1.size();
-			tempList1.add(list1);
-			tempList2.add(list2);
-			if (Settings.getInstance().isAntiKnight() || Settings.getInstance().isAntiFerz())
-				tempList3.add(list3);			
-		}
-		//@SudokuMonster: recreating array from ArrayList
-				visibleCellIndex = new int[81][visibilityMax];
-					for (int i = 0; i < 81; i++){
-						visibleCellIndex [i] = new int[tempList1.get(i).size()];
-						forwardVisibleCellIndex [i] = new int[tempList2.get(i).size()];
-						if (Settings.getInstance().isAntiKnight() || Settings.getInstance().isAntiFerz())
-							antiVisibleCellIndex [i] = new int[tempList3.get(i).size()];
-						for (int j = 0; j < tempList1.get(i).size(); j++) {
-							visibleCellIndex [i][j] = tempList1.get(i).get(j);
-							if (Settings.getInstance().isAntiKnight() || Settings.getInstance().isAntiFerz())
-								if (j < tempList3.get(i).size())
-									antiVisibleCellIndex [i][j] = tempList3.get(i).get(j);
-							if (j < tempList2.get(i).size())
-								forwardVisibleCellIndex [i][j] = tempList2.get(i).get(j);
-						}
-					}
-    	visibleCellsSet = new CellSet[] {
-				new CellSet(visibleCellIndex[0]),new CellSet(visibleCellIndex[1]),new CellSet(visibleCellIndex[2]),new CellSet(visibleCellIndex[3]),new CellSet(visibleCellIndex[4]),new CellSet(visibleCellIndex[5]),new CellSet(visibleCellIndex[6]),new CellSet(visibleCellIndex[7]),new CellSet(visibleCellIndex[8]),
-				new CellSet(visibleCellIndex[9]),new CellSet(visibleCellIndex[10]),new CellSet(visibleCellIndex[11]),new CellSet(visibleCellIndex[12]),new CellSet(visibleCellIndex[13]),new CellSet(visibleCellIndex[14]),new CellSet(visibleCellIndex[15]),new CellSet(visibleCellIndex[16]),new CellSet(visibleCellIndex[17]),
-				new CellSet(visibleCellIndex[18]),new CellSet(visibleCellIndex[19]),new CellSet(visibleCellIndex[20]),new CellSet(visibleCellIndex[21]),new CellSet(visibleCellIndex[22]),new CellSet(visibleCellIndex[23]),new CellSet(visibleCellIndex[24]),new CellSet(visibleCellIndex[25]),new CellSet(visibleCellIndex[26]),
-				new CellSet(visibleCellIndex[27]),new CellSet(visibleCellIndex[28]),new CellSet(visibleCellIndex[29]),new CellSet(visibleCellIndex[30]),new CellSet(visibleCellIndex[31]),new CellSet(visibleCellIndex[32]),new CellSet(visibleCellIndex[33]),new CellSet(visibleCellIndex[34]),new CellSet(visibleCellIndex[35]),
-				new CellSet(visibleCellIndex[36]),new CellSet(visibleCellIndex[37]),new CellSet(visibleCellIndex[38]),new CellSet(visibleCellIndex[39]),new CellSet(visibleCellIndex[40]),new CellSet(visibleCellIndex[41]),new CellSet(visibleCellIndex[42]),new CellSet(visibleCellIndex[43]),new CellSet(visibleCellIndex[44]),
-				new CellSet(visibleCellIndex[45]),new CellSet(visibleCellIndex[46]),new CellSet(visibleCellIndex[47]),new CellSet(visibleCellIndex[48]),new CellSet(visibleCellIndex[49]),new CellSet(visibleCellIndex[50]),new CellSet(visibleCellIndex[51]),new CellSet(visibleCellIndex[52]),new CellSet(visibleCellIndex[53]),
-				new CellSet(visibleCellIndex[54]),new CellSet(visibleCellIndex[55]),new CellSet(visibleCellIndex[56]),new CellSet(visibleCellIndex[57]),new CellSet(visibleCellIndex[58]),new CellSet(visibleCellIndex[59]),new CellSet(visibleCellIndex[60]),new CellSet(visibleCellIndex[61]),new CellSet(visibleCellIndex[62]),
-				new CellSet(visibleCellIndex[63]),new CellSet(visibleCellIndex[64]),new CellSet(visibleCellIndex[65]),new CellSet(visibleCellIndex[66]),new CellSet(visibleCellIndex[67]),new CellSet(visibleCellIndex[68]),new CellSet(visibleCellIndex[69]),new CellSet(visibleCellIndex[70]),new CellSet(visibleCellIndex[71]),
-				new CellSet(visibleCellIndex[72]),new CellSet(visibleCellIndex[73]),new CellSet(visibleCellIndex[74]),new CellSet(visibleCellIndex[75]),new CellSet(visibleCellIndex[76]),new CellSet(visibleCellIndex[77]),new CellSet(visibleCellIndex[78]),new CellSet(visibleCellIndex[79]),new CellSet(visibleCellIndex[80])
-				};
-		forwardVisibleCellsSet = new CellSet[] {
-				new CellSet(forwardVisibleCellIndex[0]),new CellSet(forwardVisibleCellIndex[1]),new CellSet(forwardVisibleCellIndex[2]),new CellSet(forwardVisibleCellIndex[3]),new CellSet(forwardVisibleCellIndex[4]),new CellSet(forwardVisibleCellIndex[5]),new CellSet(forwardVisibleCellIndex[6]),new CellSet(forwardVisibleCellIndex[7]),new CellSet(forwardVisibleCellIndex[8]),
-				new CellSet(forwardVisibleCellIndex[9]),new CellSet(forwardVisibleCellIndex[10]),new CellSet(forwardVisibleCellIndex[11]),new CellSet(forwardVisibleCellIndex[12]),new CellSet(forwardVisibleCellIndex[13]),new CellSet(forwardVisibleCellIndex[14]),new CellSet(forwardVisibleCellIndex[15]),new CellSet(forwardVisibleCellIndex[16]),new CellSet(forwardVisibleCellIndex[17]),
-				new CellSet(forwardVisibleCellIndex[18]),new CellSet(forwardVisibleCellIndex[19]),new CellSet(forwardVisibleCellIndex[20]),new CellSet(forwardVisibleCellIndex[21]),new CellSet(forwardVisibleCellIndex[22]),new CellSet(forwardVisibleCellIndex[23]),new CellSet(forwardVisibleCellIndex[24]),new CellSet(forwardVisibleCellIndex[25]),new CellSet(forwardVisibleCellIndex[26]),
-				new CellSet(forwardVisibleCellIndex[27]),new CellSet(forwardVisibleCellIndex[28]),new CellSet(forwardVisibleCellIndex[29]),new CellSet(forwardVisibleCellIndex[30]),new CellSet(forwardVisibleCellIndex[31]),new CellSet(forwardVisibleCellIndex[32]),new CellSet(forwardVisibleCellIndex[33]),new CellSet(forwardVisibleCellIndex[34]),new CellSet(forwardVisibleCellIndex[35]),
-				new CellSet(forwardVisibleCellIndex[36]),new CellSet(forwardVisibleCellIndex[37]),new CellSet(forwardVisibleCellIndex[38]),new CellSet(forwardVisibleCellIndex[39]),new CellSet(forwardVisibleCellIndex[40]),new CellSet(forwardVisibleCellIndex[41]),new CellSet(forwardVisibleCellIndex[42]),new CellSet(forwardVisibleCellIndex[43]),new CellSet(forwardVisibleCellIndex[44]),
-				new CellSet(forwardVisibleCellIndex[45]),new CellSet(forwardVisibleCellIndex[46]),new CellSet(forwardVisibleCellIndex[47]),new CellSet(forwardVisibleCellIndex[48]),new CellSet(forwardVisibleCellIndex[49]),new CellSet(forwardVisibleCellIndex[50]),new CellSet(forwardVisibleCellIndex[51]),new CellSet(forwardVisibleCellIndex[52]),new CellSet(forwardVisibleCellIndex[53]),
-				new CellSet(forwardVisibleCellIndex[54]),new CellSet(forwardVisibleCellIndex[55]),new CellSet(forwardVisibleCellIndex[56]),new CellSet(forwardVisibleCellIndex[57]),new CellSet(forwardVisibleCellIndex[58]),new CellSet(forwardVisibleCellIndex[59]),new CellSet(forwardVisibleCellIndex[60]),new CellSet(forwardVisibleCellIndex[61]),new CellSet(forwardVisibleCellIndex[62]),
-				new CellSet(forwardVisibleCellIndex[63]),new CellSet(forwardVisibleCellIndex[64]),new CellSet(forwardVisibleCellIndex[65]),new CellSet(forwardVisibleCellIndex[66]),new CellSet(forwardVisibleCellIndex[67]),new CellSet(forwardVisibleCellIndex[68]),new CellSet(forwardVisibleCellIndex[69]),new CellSet(forwardVisibleCellIndex[70]),new CellSet(forwardVisibleCellIndex[71]),
-				new CellSet(forwardVisibleCellIndex[72]),new CellSet(forwardVisibleCellIndex[73]),new CellSet(forwardVisibleCellIndex[74]),new CellSet(forwardVisibleCellIndex[75]),new CellSet(forwardVisibleCellIndex[76]),new CellSet(forwardVisibleCellIndex[77]),new CellSet(forwardVisibleCellIndex[78]),new CellSet(forwardVisibleCellIndex[79]),new CellSet(forwardVisibleCellIndex[80])
-				};
-		if (Settings.getInstance().isAntiKnight() || Settings.getInstance().isAntiFerz())
-			antiVisibleCellsSet = new CellSet[] {
-					new CellSet(antiVisibleCellIndex[0]),new CellSet(antiVisibleCellIndex[1]),new CellSet(antiVisibleCellIndex[2]),new CellSet(antiVisibleCellIndex[3]),new CellSet(antiVisibleCellIndex[4]),new CellSet(antiVisibleCellIndex[5]),new CellSet(antiVisibleCellIndex[6]),new CellSet(antiVisibleCellIndex[7]),new CellSet(antiVisibleCellIndex[8]),
-					new CellSet(antiVisibleCellIndex[9]),new CellSet(antiVisibleCellIndex[10]),new CellSet(antiVisibleCellIndex[11]),new CellSet(antiVisibleCellIndex[12]),new CellSet(antiVisibleCellIndex[13]),new CellSet(antiVisibleCellIndex[14]),new CellSet(antiVisibleCellIndex[15]),new CellSet(antiVisibleCellIndex[16]),new CellSet(antiVisibleCellIndex[17]),
-					new CellSet(antiVisibleCellIndex[18]),new CellSet(antiVisibleCellIndex[19]),new CellSet(antiVisibleCellIndex[20]),new CellSet(antiVisibleCellIndex[21]),new CellSet(antiVisibleCellIndex[22]),new CellSet(antiVisibleCellIndex[23]),new CellSet(antiVisibleCellIndex[24]),new CellSet(antiVisibleCellIndex[25]),new CellSet(antiVisibleCellIndex[26]),
-					new CellSet(antiVisibleCellIndex[27]),new CellSet(antiVisibleCellIndex[28]),new CellSet(antiVisibleCellIndex[29]),new CellSet(antiVisibleCellIndex[30]),new CellSet(antiVisibleCellIndex[31]),new CellSet(antiVisibleCellIndex[32]),new CellSet(antiVisibleCellIndex[33]),new CellSet(antiVisibleCellIndex[34]),new CellSet(antiVisibleCellIndex[35]),
-					new CellSet(antiVisibleCellIndex[36]),new CellSet(antiVisibleCellIndex[37]),new CellSet(antiVisibleCellIndex[38]),new CellSet(antiVisibleCellIndex[39]),new CellSet(antiVisibleCellIndex[40]),new CellSet(antiVisibleCellIndex[41]),new CellSet(antiVisibleCellIndex[42]),new CellSet(antiVisibleCellIndex[43]),new CellSet(antiVisibleCellIndex[44]),
-					new CellSet(antiVisibleCellIndex[45]),new CellSet(antiVisibleCellIndex[46]),new CellSet(antiVisibleCellIndex[47]),new CellSet(antiVisibleCellIndex[48]),new CellSet(antiVisibleCellIndex[49]),new CellSet(antiVisibleCellIndex[50]),new CellSet(antiVisibleCellIndex[51]),new CellSet(antiVisibleCellIndex[52]),new CellSet(antiVisibleCellIndex[53]),
-					new CellSet(antiVisibleCellIndex[54]),new CellSet(antiVisibleCellIndex[55]),new CellSet(antiVisibleCellIndex[56]),new CellSet(antiVisibleCellIndex[57]),new CellSet(antiVisibleCellIndex[58]),new CellSet(antiVisibleCellIndex[59]),new CellSet(antiVisibleCellIndex[60]),new CellSet(antiVisibleCellIndex[61]),new CellSet(antiVisibleCellIndex[62]),
-					new CellSet(antiVisibleCellIndex[63]),new CellSet(antiVisibleCellIndex[64]),new CellSet(antiVisibleCellIndex[65]),new CellSet(antiVisibleCellIndex[66]),new CellSet(antiVisibleCellIndex[67]),new CellSet(antiVisibleCellIndex[68]),new CellSet(antiVisibleCellIndex[69]),new CellSet(antiVisibleCellIndex[70]),new CellSet(antiVisibleCellIndex[71]),
-					new CellSet(antiVisibleCellIndex[72]),new CellSet(antiVisibleCellIndex[73]),new CellSet(antiVisibleCellIndex[74]),new CellSet(antiVisibleCellIndex[75]),new CellSet(antiVisibleCellIndex[76]),new CellSet(antiVisibleCellIndex[77]),new CellSet(antiVisibleCellIndex[78]),new CellSet(antiVisibleCellIndex[79]),new CellSet(antiVisibleCellIndex[80])
-					};
+		setDefaultTopology(Topology.get(Settings.getInstance()));
 	}
 
+    /**
+     * Get the default topology, following the current variant settings.
+     */
+	public static Topology getDefaultTopology() {
+		return defaultTopology;
+	}
 
+	private static synchronized void setDefaultTopology(Topology topology) {
+		defaultTopology = topology;
+		visibleCellIndex = topology.visibleCellIndex;
+		forwardVisibleCellIndex = topology.forwardVisibleCellIndex;
+		antiVisibleCellIndex = topology.antiVisibleCellIndex;
+		visibleCellsSet = topology.visibleCellsSet;
+		forwardVisibleCellsSet = topology.forwardVisibleCellsSet;
+		antiVisibleCellsSet = topology.antiVisibleCellsSet;
+	}
+
+    /**
+     * Get the topology of this grid: its own one if it was created
+     * with a topology, else the current default topology.
+     */
+	public Topology getTopology() {
+		return topology == null ? defaultTopology : topology;
+	}
+
+    /**
+     * Get the canonical form of the values of this grid, identical for all
+     * the grids that are equivalent by relabelling and the Sudoku symmetries.
+     * @return the canonical form, or <tt>null</tt> if it is not supported
+     * for this grid (variants and Sukakus)
+     * @see CanonicalForm#isSupported(Grid)
+     */
+    public CanonicalForm getCanonicalForm() {
+        return CanonicalForm.of(this);
+    }
 
     /**
      * Set the value of a cell
@@ -1831,7 +1226,7 @@ public class Grid {
      * @param value the value to set the cell to. Use 0 to clear the cell.
      */
     public void setCellValue(int x, int y, int value) {
-    	cellValues[y * 9 + x] = value;
+    	setCellValue(y * 9 + x, value);
     }
 
     /**
@@ -1840,7 +1235,12 @@ public class Grid {
      * @param value the value to set the cell to. Use 0 to clear the cell.
      */
     public void setCellValue(int index, int value) {
+        int oldValue = cellValues[index];
+        if (oldValue == value) return;
+        if (journalMarks > 0)
+        	record((index << 11) | JOURNAL_VALUE | oldValue);
         cellValues[index] = value;
+        zobristKey ^= zobristValueKeys[index * 10 + oldValue] ^ zobristValueKeys[index * 10 + value];
     }
 
     /**
@@ -1869,13 +1269,58 @@ public class Grid {
      * bit number 1 to 9 is set if the corresponding
      * value is a potential value for this cell. Bit number
      * <tt>0</tt> is not used and ignored.
+     * <p>
+     * The returned bitset is a copy; changing it does not change
+     * the grid. Prefer {@link #getCellPotentialMask(int)} on hot paths.
      * @param cellIndex the cell index 0 to 80
      * @return the potential values for unresolved cell, empty for resolved
      */
     public BitSet getCellPotentialValues(int cellIndex) {
         //return cells[cellIndex / 9][cellIndex % 9].getPotentialValues();
         //numCellPencilmarksRead++;
-        return cellPotentialValues[cellIndex];
+        return maskToBitSet(cellPotentialMasks[cellIndex]);
+    }
+
+    /**
+     * Get the potential values for the given cell index as a bitmask.
+     * Bit <tt>v</tt> is set if <tt>v</tt> is a potential value for this
+     * cell, bit <tt>0</tt> is never set.
+     * @param cellIndex the cell index 0 to 80
+     * @return the potential values mask, 0 for resolved cell
+     */
+    public int getCellPotentialMask(int cellIndex) {
+        return cellPotentialMasks[cellIndex];
+    }
+
+    /**
+     * Get the number of potential values of the given cell.
+     * @param cellIndex the cell index 0 to 80
+     * @return the number of potential values, 0 for resolved cell
+     */
+    public int getCellPotentialCount(int cellIndex) {
+        return Integer.bitCount(cellPotentialMasks[cellIndex]);
+    }
+
+    /**
+     * Convert a potential values bitmask to a new bitset.
+     * @param mask the bitmask, bit <tt>v</tt> for value <tt>v</tt>
+     * @return a new bitset with the same bits set
+     */
+    public static BitSet maskToBitSet(int mask) {
+        BitSet result = new BitSet(10);
+        for (int value = Integer.numberOfTrailingZeros(mask); value < 32; value = Integer.numberOfTrailingZeros(mask &= mask - 1))
+            result.set(value);
+        return result;
+    }
+
+    /**
+     * Convert a bitset of potential values to a bitmask.
+     * @param values the bitset; only bits 0 to 31 are considered
+     * @return the bitmask, bit <tt>v</tt> for value <tt>v</tt>
+     */
+    public static int bitSetToMask(BitSet values) {
+        long[] words = values.toLongArray();
+        return words.length == 0 ? 0 : (int)words[0];
     }
 
     /**
@@ -1888,7 +1333,7 @@ public class Grid {
     public boolean hasCellPotentialValue(int cellIndex, int value) {
         //return cell.hasPotentialValue(value);
         //numCellPencilmarksRead++;
-    	return cellPotentialValues[cellIndex].get(value);
+    	return (cellPotentialMasks[cellIndex] & (1 << value)) != 0;
     }
 
     /**
@@ -1898,8 +1343,17 @@ public class Grid {
      */
     public void addCellPotentialValue(int cellIndex, int value) {
 //        if(cellPotentialValues[cellIndex].get(value)) return; //no change (doesn't improve, 32382541 -> 32382541)
-        cellPotentialValues[cellIndex].set(value);
-        //valueCellsCache.invalidateCellValue(cellIndex, value);
+        int mask = cellPotentialMasks[cellIndex];
+        if ((mask & (1 << value)) != 0) return; //no change, nothing to journal
+        if (journalMarks > 0)
+        	record((cellIndex << 11) | mask);
+        cellPotentialMasks[cellIndex] = mask | (1 << value);
+        zobristKey ^= zobristPotentialKeys[cellIndex * 10 + value];
+        potentialPlanes[value * 2 + (cellIndex >> 6)] ^= 1L << cellIndex;
+        int[] slots = cellRegionSlots[cellIndex];
+        short[] bits = cellRegionBits[cellIndex];
+        for (int k = 0; k < slots.length; k++)
+        	regionValuePositions[slots[k] + value] |= bits[k];
         //numCellPencilmarksUpdate++;
     }
 
@@ -1910,8 +1364,17 @@ public class Grid {
      */
     public void removeCellPotentialValue(int cellIndex, int value) {
         //if(!cellPotentialValues[cell.getIndex()].get(value)) return; //no change (doesn't improve, 32382541 -> 32380479)
-        cellPotentialValues[cellIndex].clear(value);
-        //valueCellsCache.invalidateCellValue(cellIndex, value);
+        int mask = cellPotentialMasks[cellIndex];
+        if ((mask & (1 << value)) == 0) return; //no change, nothing to journal
+        if (journalMarks > 0)
+        	record((cellIndex << 11) | mask);
+        cellPotentialMasks[cellIndex] = mask & ~(1 << value);
+        zobristKey ^= zobristPotentialKeys[cellIndex * 10 + value];
+        potentialPlanes[value * 2 + (cellIndex >> 6)] ^= 1L << cellIndex;
+        int[] slots = cellRegionSlots[cellIndex];
+        short[] bits = cellRegionBits[cellIndex];
+        for (int k = 0; k < slots.length; k++)
+        	regionValuePositions[slots[k] + value] &= ~bits[k];
         //numCellPencilmarksUpdate++;
     }
 
@@ -1925,8 +1388,7 @@ public class Grid {
     	//cl.or(cellPotentialValues[cellIndex]);
     	//cl.and(valuesToRemove);
     	//if(cl.isEmpty()) return; //no change (doesn't improve, 32380479 -> 32380479)
-        cellPotentialValues[cellIndex].andNot(valuesToRemove);
-        //valueCellsCache.invalidateCell(cellIndex);
+        setCellPotentialMask(cellIndex, cellPotentialMasks[cellIndex] & ~bitSetToMask(valuesToRemove));
         //numCellPencilmarksUpdate++;
     }
 
@@ -1936,11 +1398,44 @@ public class Grid {
      */
     public void clearCellPotentialValues(int cellIndex) {
         //if(cellPotentialValues[cellIndex].isEmpty()) return; //no change (doesn't improve, 32380479 -> 32380479)
-        cellPotentialValues[cellIndex].clear();
-        //valueCellsCache.invalidateCell(cellIndex);
+        setCellPotentialMask(cellIndex, 0);
         //numCellPencilmarksUpdate++;
     }
 
+    /**
+     * Set the value of a cell and remove the potential values it excludes:
+     * all the potential values of the cell, the value from the visible cells
+     * and, with the NC variants, the consecutive values from the neighbour cells.
+     * Only the peers of the cell are visited, through the tables of the
+     * topology of this grid; the visible cells still having the value are
+     * found from the {@link Bitboard} planes.
+     * @param cellIndex the cell index [0 .. 80]
+     * @param value the value, between 1 and 9, inclusive
+     */
+    public void place(int cellIndex, int value) {
+        Topology cellTopology = getTopology();
+        setCellValue(cellIndex, value);
+        setCellPotentialMask(cellIndex, 0);
+        long low = cellTopology.visibleCellBits[cellIndex * 2] & potentialPlanes[value * 2];
+        long high = cellTopology.visibleCellBits[cellIndex * 2 + 1] & potentialPlanes[value * 2 + 1];
+        for (; low != 0; low &= low - 1)
+            removeCellPotentialValue(Long.numberOfTrailingZeros(low), value);
+        for (; high != 0; high &= high - 1)
+            removeCellPotentialValue(64 + Long.numberOfTrailingZeros(high), value);
+        int[] neighbours = cellTopology.consecutiveCellIndex[cellIndex];
+        if (neighbours.length == 0)
+            return;
+        boolean isCyclic = cellTopology.isNCCyclic();
+        int higher = value < 9 ? value + 1 : (isCyclic ? 1 : 0);
+        int lower = value > 1 ? value - 1 : (isCyclic ? 9 : 0);
+        for (int neighbour : neighbours) {
+            if (higher != 0)
+                removeCellPotentialValue(neighbour, higher);
+            if (lower != 0)
+                removeCellPotentialValue(neighbour, lower);
+        }
+    }
+
     /**
      * Set the value of a cell
      * @param index the cell index [0..80]
@@ -1948,12 +1443,123 @@ public class Grid {
      */
     public void setCellPotentialValues(int index, BitSet values) {
         //cellPotentialValues[index] = (BitSet)values.clone();
-    	cellPotentialValues[index].clear();
-    	cellPotentialValues[index].or(values);
-        //valueCellsCache.invalidateCell(index);
+    	setCellPotentialMask(index, bitSetToMask(values));
         //numCellPencilmarksUpdate++;
     }
 
+    /**
+     * Set the potential values of a cell from a bitmask
+     * @param index the cell index [0..80]
+     * @param mask the potential values, bit <tt>v</tt> for value <tt>v</tt>
+     */
+    public void setCellPotentialMask(int index, int mask) {
+    	int changed = cellPotentialMasks[index] ^ mask;
+    	if (changed == 0) return;
+        if (journalMarks > 0)
+        	record((index << 11) | cellPotentialMasks[index]);
+    	cellPotentialMasks[index] = mask;
+        int[] slots = cellRegionSlots[index];
+        short[] bits = cellRegionBits[index];
+    	for (int value = 1; value <= 9; value++) {
+    		if ((changed & (1 << value)) == 0) continue;
+    		zobristKey ^= zobristPotentialKeys[index * 10 + value];
+    		potentialPlanes[value * 2 + (index >> 6)] ^= 1L << index;
+    		if ((mask & (1 << value)) != 0)
+    	        for (int k = 0; k < slots.length; k++)
+    	        	regionValuePositions[slots[k] + value] |= bits[k];
+    		else
+    	        for (int k = 0; k < slots.length; k++)
+    	        	regionValuePositions[slots[k] + value] &= ~bits[k];
+    	}
+    }
+
+    /**
+     * Start recording the changes made to the cell values and potential values
+     * of this grid, so that they can be undone with {@link #rollback(int)}.
+     * <p>
+     * This is the cheap alternative to saving the whole grid with
+     * {@link #copyTo(Grid)} before a trial: only the changed cells are
+     * recorded and restored. Marks can be nested, and must be rolled back
+     * or released in the reverse order they were taken. The givens are not
+     * recorded.
+     * @return the mark to give to {@link #rollback(int)} or {@link #release(int)}
+     */
+    public int mark() {
+    	if (journal == null)
+    		journal = new int[256];
+    	journalMarks++;
+    	return journalSize;
+    }
+
+    /**
+     * Undo all the changes made since the given mark was taken, and close it.
+     * @param mark the mark, as returned by {@link #mark()}
+     */
+    public void rollback(int mark) {
+    	int marks = journalMarks;
+    	journalMarks = 0; // do not record the undo itself
+    	while (journalSize > mark) {
+    		int entry = journal[--journalSize];
+    		int index = entry >>> 11;
+    		if ((entry & JOURNAL_VALUE) != 0)
+    			setCellValue(index, entry & 0x3FF);
+    		else
+    			setCellPotentialMask(index, entry & 0x3FF);
+    	}
+    	journalMarks = marks - 1;
+    }
+
+    /**
+     * Close the given mark, keeping the changes made since it was taken.
+     * They can still be undone by rolling back an enclosing mark.
+     * @param mark the mark, as returned by {@link #mark()}
+     */
+    public void release(int mark) {
+    	if (--journalMarks == 0)
+    		journalSize = 0;
+    }
+
+    /**
+     * Close all the open marks, keeping the changes.
+     * Used when the grid is given back to a {@link GridPool}.
+     */
+    void closeMarks() {
+    	journalMarks = 0;
+    	journalSize = 0;
+    }
+
+    private void record(int entry) {
+    	if (journalSize == journal.length)
+    		journal = Arrays.copyOf(journal, journalSize * 2);
+    	journal[journalSize++] = entry;
+    }
+
+    /**
+     * Get the bit-parallel view of the potential values of this grid.
+     * The view follows the later changes of the grid.
+     * @return the bitboard of this grid
+     */
+    public Bitboard getBitboard() {
+    	if (bitboard == null)
+    		bitboard = new Bitboard(potentialPlanes);
+    	return bitboard;
+    }
+
+    /**
+     * Get the potential positions of the given value within the given region,
+     * without allocation.
+     * <p>
+     * Bit <tt>i</tt> of the result is set if the cell at index <tt>i</tt> of the
+     * region (see {@link Region#getCell(int)}) has the value as potential value.
+     * @param regionTypeIndex the region type, see {@link Region#getRegionTypeIndex()}
+     * @param regionIndex the region index within its type
+     * @param value the value, between 1 and 9, inclusive
+     * @return the 9-bit mask of potential positions
+     */
+    public int getPotentialPositionsMask(int regionTypeIndex, int regionIndex, int value) {
+    	return regionValuePositions[(regionTypeIndex * 9 + regionIndex) * 10 + value];
+    }
+
     /**
      * Get the first cell that cancels the given cell.
      * <p>
@@ -1970,8 +1576,9 @@ public class Grid {
      * the given value
      */
     public Cell getFirstCancellerOf(Cell target, int value) {
-        int[] visible = Grid.visibleCellIndex[target.getIndex()];
-        for(int i = 0; i < (Settings.getInstance().isBlocks() ? 20 : 16); i++) {
+        Topology topology = getTopology();
+        int[] visible = topology.visibleCellIndex[target.getIndex()];
+        for(int i = 0; i < (topology.isBlocks() ? 20 : 16); i++) {
         	if(cellValues[visible[i]] == value) return Grid.getCell(visible[i]);
         }
         return null;
@@ -1984,24 +1591,21 @@ public class Grid {
      * @param other the grid to copy this grid to
      */
     public void copyTo(Grid other) {
-        for (int i = 0; i < 81; i++) {
-            other.setCellValue(i, this.cellValues[i]);
-            other.setCellPotentialValues(i, cellPotentialValues[i]);
-			if (this.isGiven(i))
-				other.setGiven(i);
-			else
-				other.resetGiven(i);
-        }
-//        //clone the cache as well
-//        for(int regionType = 0; regionType < 3; regionType++) {
-//            for(int region = 0; region < 9; region++) {
-//	            for(int cell = 0; cell < 9; cell++) {
-//	            	BitSet cache = other.valueCellsCache.valuePotentialCells[regionType][region][cell];
-//	            	cache.clear();
-//	            	cache.or(valueCellsCache.valuePotentialCells[regionType][region][cell]);
-//	            }
-//            }
-//        }
+        if (other.journalMarks > 0) {
+        	for (int i = 0; i < 81; i++) {
+        		if (other.cellValues[i] != this.cellValues[i])
+        			other.record((i << 11) | JOURNAL_VALUE | other.cellValues[i]);
+        		if (other.cellPotentialMasks[i] != this.cellPotentialMasks[i])
+        			other.record((i << 11) | other.cellPotentialMasks[i]);
+        	}
+        }
+        System.arraycopy(this.cellValues, 0, other.cellValues, 0, 81);
+        System.arraycopy(this.cellPotentialMasks, 0, other.cellPotentialMasks, 0, 81);
+        System.arraycopy(this.isGiven, 0, other.isGiven, 0, 81);
+        System.arraycopy(this.regionValuePositions, 0, other.regionValuePositions, 0, regionValuePositions.length);
+        System.arraycopy(this.potentialPlanes, 0, other.potentialPlanes, 0, potentialPlanes.length);
+        other.zobristKey = this.zobristKey;
+        other.topology = this.topology;
     }
 
     public boolean isSolved() {
@@ -2052,22 +1656,22 @@ public class Grid {
     
     public String toStringVariantGrid() {
 		int[] regionArray = new int[81];
-		if (Settings.getInstance().isWindows())
+		if (getTopology().isWindows())
 			regionArray = Arrays.copyOf(Settings.regionsWindows, 81);
 		else
-			if (Settings.getInstance().isX())
+			if (getTopology().isX())
 				regionArray = Arrays.copyOf(Settings.regionsBothDiagonals, 81);	
 			else
-				if (Settings.getInstance().isAsterisk())
+				if (getTopology().isAsterisk())
 					regionArray = Arrays.copyOf(Settings.regionsAsterisk, 81);
 				else
-					if (Settings.getInstance().isCD())
+					if (getTopology().isCD())
 						regionArray = Arrays.copyOf(Settings.regionsCD, 81);
 					else
-						if (Settings.getInstance().isGirandola())
+						if (getTopology().isGirandola())
 							regionArray = Arrays.copyOf(Settings.regionsGirandola, 81);
 						else
-							if (Settings.getInstance().isDG())
+							if (getTopology().isDG())
 								regionArray = Arrays.copyOf(Settings.regionsDG, 81);
 							else
 								regionArray = Arrays.copyOf(Settings.regionsNoVariants, 81);
@@ -2198,9 +1802,9 @@ public class Grid {
         for (int i = 0; i < 81; i++) {
         	int value = getCellValue(i);
         	if(value == 0) {
-                BitSet values = getCellPotentialValues(i);
+                int values = cellPotentialMasks[i];
                 for (int v = 1; v < 10; v++) {
-	                if (values.get(v))
+	                if ((values & (1 << v)) != 0)
 	                    result.append(v);
 	                else
 	                    result.append('.');
@@ -2227,20 +1831,20 @@ public class Grid {
 
         int crd = 1;
         for (int i = 0; i < 81; i++) {
-            int n = getCellPotentialValues(i).cardinality();
+            int n = getCellPotentialCount(i);
             if ( n > crd ) { crd = n; }
         }
         if ( crd > 1 )
         {
             for (int i=0; i<3; i++ ) {
-                if (Settings.getInstance().isBlocks() || i == 0) {
+                if (getTopology().isBlocks() || i == 0) {
 					s = "+";
 						for (int j=0; j<3; j++ ) {
 							for (int k=0; k<3; k++ ) { s += "-";
 								for (int l=0; l<crd; l++ ) { s += "-";
 								}
 							}
-							if (Settings.getInstance().isBlocks() || j == 2)
+							if (getTopology().isBlocks() || j == 2)
 								s += "-+";
 						}
 						res += s + System.lineSeparator();
@@ -2271,7 +1875,7 @@ public class Grid {
                             for (int pad=cnt; pad<crd; pad++ ) { s += " ";
                             }
                         }
-						if (Settings.getInstance().isBlocks() || k == 2)
+						if (getTopology().isBlocks() || k == 2)
 							s += " |";
                     }
                     res += s + System.lineSeparator();
@@ -2283,7 +1887,7 @@ public class Grid {
                     for (int l=0; l<crd; l++ ) { s += "-";
                     }
                 }
-                if (Settings.getInstance().isBlocks() || j == 2)
+                if (getTopology().isBlocks() || j == 2)
 					s += "-+";
             }
             res += s;
@@ -2298,22 +1902,22 @@ public class Grid {
     
     public String toStringMultilinePencilmarksVariant() {
 		int[] regionArray = new int[81];
-		if (Settings.getInstance().isWindows())
+		if (getTopology().isWindows())
 			regionArray = Arrays.copyOf(Settings.regionsWindows, 81);
 		else
-			if (Settings.getInstance().isX())
+			if (getTopology().isX())
 				regionArray = Arrays.copyOf(Settings.regionsBothDiagonals, 81);	
 			else
-				if (Settings.getInstance().isAsterisk())
+				if (getTopology().isAsterisk())
 					regionArray = Arrays.copyOf(Settings.regionsAsterisk, 81);
 				else
-					if (Settings.getInstance().isCD())
+					if (getTopology().isCD())
 						regionArray = Arrays.copyOf(Settings.regionsCD, 81);
 					else
-						if (Settings.getInstance().isGirandola())
+						if (getTopology().isGirandola())
 							regionArray = Arrays.copyOf(Settings.regionsGirandola, 81);
 						else
-							if (Settings.getInstance().isDG())
+							if (getTopology().isDG())
 								regionArray = Arrays.copyOf(Settings.regionsDG, 81);
 							else
 								regionArray = Arrays.copyOf(Settings.regionsNoVariants, 81);
@@ -2326,7 +1930,7 @@ public class Grid {
 		int yp = 0;
         int crd = 1;
         for (int i = 0; i < 81; i++) {
-            int n = getCellPotentialValues(i).cardinality();
+            int n = getCellPotentialCount(i);
             if ( n > crd ) { crd = n; }
         }
 		for (int n = 0; n < crd; n++) {
@@ -2497,86 +2101,29 @@ public class Grid {
     public void adjustPencilmarks() {
         for(int i = 0; i < 81; i++) {
             Cell cell = getCell(i);
-            BitSet values = getCellPotentialValues(i);
-            if(values.cardinality() == 1) {
-                int singleclue = values.nextSetBit(0);
+            int values = cellPotentialMasks[i];
+            if(Integer.bitCount(values) == 1) {
+                int singleclue = Integer.numberOfTrailingZeros(values);
                 boolean isnakedsingle = true;
-                for(int cellIndex : cell.getVisibleCellIndexes()) {
+                for(int cellIndex : getTopology().visibleCellIndex[i]) {
                     if(hasCellPotentialValue(cellIndex, singleclue)) {
                         isnakedsingle = false;
                         break;
                     }
                 }
-				if (Settings.getInstance().isForbiddenPairs() && isnakedsingle){
-					int statusNC = Settings.getInstance().whichNC();
-					if (statusNC > 0)
-						if(Settings.getInstance().isToroidal()) {
-							int j = 0;
-							if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-								j = Grid.wazirCellsToroidal[i].length;
-							else
-								j = Grid.ferzCellsToroidal[i].length;
-							for(int k = 0; k < j; k++) {
-								if (statusNC == 2 || statusNC == 4 || singleclue < 9)
-									if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2){
-										if(hasCellPotentialValue(Grid.wazirCellsToroidal[i][k], singleclue == 9 ? 1 : singleclue + 1)){
-											isnakedsingle = false;
-											break;
-										}
-									}
-									else
-										if(hasCellPotentialValue(Grid.ferzCellsToroidal[i][k], singleclue == 9 ? 1 : singleclue + 1)){
-											isnakedsingle = false;
-											break;
-										}
-								if (statusNC == 2 || statusNC == 4 || singleclue > 1)
-									if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2) {
-										if(hasCellPotentialValue(Grid.wazirCellsToroidal[i][k], singleclue == 1 ? 9 : singleclue - 1)){
-											isnakedsingle = false;
-											break;
-										}
-									}
-									else
-										if(hasCellPotentialValue(Grid.ferzCellsToroidal[i][k], singleclue == 1 ? 9 : singleclue - 1)){
-											isnakedsingle = false;
-											break;
-										}
-							}
+				Topology topology = getTopology();
+				if (topology.isNC() && isnakedsingle) {
+					boolean isCyclic = topology.isNCCyclic();
+					for (int cellIndex : topology.consecutiveCellIndex[i]) {
+						if ((isCyclic || singleclue < 9) && hasCellPotentialValue(cellIndex, singleclue == 9 ? 1 : singleclue + 1)) {
+							isnakedsingle = false;
+							break;
 						}
-						else {
-							int j = 0;
-							if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-								j = Grid.wazirCellsRegular[i].length;
-							else
-								j = Grid.ferzCellsRegular[i].length;
-							for(int k = 0; k < j; k++) {
-								if (statusNC == 2 || statusNC == 4 || singleclue < 9)
-									if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2){
-										if(hasCellPotentialValue(Grid.wazirCellsRegular[i][k], singleclue == 9 ? 1 : singleclue + 1)){
-											isnakedsingle = false;
-											break;
-										}
-									}
-									else
-										if(hasCellPotentialValue(Grid.ferzCellsRegular[i][k], singleclue == 9 ? 1 : singleclue + 1)){
-											isnakedsingle = false;
-											break;
-										}
-
-								if (statusNC == 2 || statusNC == 4 || singleclue > 1)
-									if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2) {
-										if(hasCellPotentialValue(Grid.wazirCellsRegular[i][k], singleclue == 1 ? 9 : singleclue - 1)){
-											isnakedsingle = false;
-											break;
-										}
-									}
-									else
-										if(hasCellPotentialValue(Grid.ferzCellsRegular[i][k], singleclue == 1 ? 9 : singleclue - 1)){
-											isnakedsingle = false;
-											break;
-										}										
-							}					
+						if ((isCyclic || singleclue > 1) && hasCellPotentialValue(cellIndex, singleclue == 1 ? 9 : singleclue - 1)) {
+							isnakedsingle = false;
+							break;
 						}
+					}
 				}
                 if(isnakedsingle) {
                 	setCellValue(i % 9, i / 9, singleclue);
@@ -2595,22 +2142,25 @@ public class Grid {
         if (!(o instanceof Grid))
             return false;
         Grid other = (Grid)o;
+        if (this.zobristKey != other.zobristKey) return false;
         //if(!this.cellValues.equals(other.cellValues)) return false; <== incorrect
         if(!Arrays.equals(this.cellValues, other.cellValues)) return false;
-        for (int i = 0; i < 81; i++) {
-            if (!getCellPotentialValues(i).equals(other.getCellPotentialValues(i))) return false;
-        }
-        return true;
+        return Arrays.equals(this.cellPotentialMasks, other.cellPotentialMasks);
     }
 
     @Override
     public int hashCode() {
-        int result = 0;
-        for (int i = 0; i < 81; i++) {
-            result ^= getCellValue(i);
-            result ^= getCellPotentialValues(i).hashCode();
-        }
-        return result;
+        return (int)(zobristKey ^ (zobristKey >>> 32));
+    }
+
+    /**
+     * Get the 64-bit Zobrist key of this grid, computed from the cell values
+     * and potential values. Equal grids have equal keys; it is maintained
+     * incrementally, so getting it costs nothing.
+     * @return the Zobrist key of this grid
+     */
+    public long getZobristKey() {
+        return zobristKey;
     }
 
     // Grid regions implementation (rows, columns, 3x3 squares)
@@ -2807,13 +2357,19 @@ public class Grid {
          * @return the potential positions of the given value within this region
          */
         public BitSet getPotentialPositions(Grid grid, int value) {
-            BitSet result = new BitSet(9);
-            for (int index = 0; index < 9; index++) {
-                result.set(index, grid.hasCellPotentialValue(getCell(index).getIndex(), value));
-            }
-            //result.or(grid.valueCellsCache.getRegionValueCells(this, value));
             //numGetPP++;
-            return result;
+            return maskToBitSet(getPotentialPositionsMask(grid, value));
+        }
+
+        /**
+         * Get the potential positions of the given value within this region
+         * as a 9-bit mask, bit <tt>i</tt> corresponding to {@link #getCell(int) getCell(i)}.
+         * @param grid the grid
+         * @param value the value whose potential positions to get
+         * @return the potential positions mask of the given value within this region
+         */
+        public int getPotentialPositionsMask(Grid grid, int value) {
+            return grid.getPotentialPositionsMask(getRegionTypeIndex(), getRegionIndex(), value);
         }
 
         public BitSet copyPotentialPositions(Grid grid, int value) {
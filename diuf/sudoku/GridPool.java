@@ -0,0 +1,66 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku;
+
+/**
+ * Pool of scratch grids, reused instead of allocating a new {@link Grid}
+ * for each backup or working copy taken by the solver.
+ * <p>
+ * Each thread has its own pool, see {@link #getInstance()}; a pool must only
+ * be used by the thread that owns it. A grid obtained with {@link #acquire(Grid)}
+ * must be given back with {@link #release(Grid)} once it is no longer used,
+ * typically in a <tt>finally</tt> block, and must not be used afterwards.
+ * Grids that are never released are simply garbage collected.
+ */
+public final class GridPool {
+
+	// Grids kept for reuse per thread; the others are left to the garbage collector
+	private static final int MAX_FREE_GRIDS = 32;
+
+	private static final ThreadLocal<GridPool> pools = new ThreadLocal<GridPool>() {
+		@Override
+		protected GridPool initialValue() {
+			return new GridPool();
+		}
+	};
+
+	private final Grid[] free = new Grid[MAX_FREE_GRIDS];
+	private int freeCount = 0;
+
+	private GridPool() {
+	}
+
+	/**
+	 * Get the pool of the current thread
+	 */
+	public static GridPool getInstance() {
+		return pools.get();
+	}
+
+	/**
+	 * Get a scratch grid holding a copy of the given grid
+	 * @param source the grid to copy
+	 * @return a grid that is equal to the source, to release after use
+	 */
+	public Grid acquire(Grid source) {
+		Grid result = freeCount > 0 ? free[--freeCount] : new Grid();
+		free[freeCount] = null;
+		source.copyTo(result);
+		return result;
+	}
+
+	/**
+	 * Give back a grid obtained from {@link #acquire(Grid)}.
+	 * @param grid the grid, not to be used anymore by the caller
+	 */
+	public void release(Grid grid) {
+		if (freeCount == MAX_FREE_GRIDS)
+			return;
+		grid.closeMarks();
+		free[freeCount++] = grid;
+	}
+
+}
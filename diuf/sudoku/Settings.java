@@ -151,6 +151,7 @@ public class Settings {
     private EnumSet<SolvingTechnique> techniques;
     
     private int numThreads = 1;
+    private boolean isSpeculative = false;
     private boolean bestHintOnly = false;
 
 	// lksudoku serate log steps
@@ -545,6 +546,18 @@ public class Settings {
     public int getNumThreads() {
         return this.numThreads;
     }
+
+    /**
+     * Set whether the solver starts the chaining techniques in other threads
+     * while the simpler ones run, see serate --speculate
+     */
+    public void setSpeculative(boolean isSpeculative) {
+        this.isSpeculative = isSpeculative;
+    }
+
+    public boolean isSpeculative() {
+        return this.isSpeculative;
+    }
     
     public void setBestHintOnly(boolean bestHintOnly) {
         this.bestHintOnly = bestHintOnly;
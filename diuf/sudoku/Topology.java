@@ -0,0 +1,643 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku;
+
+import java.util.*;
+
+import diuf.sudoku.tools.ImmutableCellSet;
+
+/**
+ * Immutable cell visibility tables for one combination of variants.
+ * <p>
+ * A topology is built once per variant combination and cached, so that
+ * grids of different variants can be solved at the same time without
+ * rewriting the static tables of {@link Grid}.
+ * The arrays exposed by a topology are shared and must not be modified.
+ * @see Grid#getTopology()
+ * @see Grid#changeVisibleCells()
+ */
+public final class Topology {
+
+	// Variant flags, combined into the key of a topology
+	public static final int BLOCKS = 1;
+	public static final int DG = 1 << 1;
+	public static final int WINDOWS = 1 << 2;
+	public static final int X = 1 << 3;
+	public static final int GIRANDOLA = 1 << 4;
+	public static final int ASTERISK = 1 << 5;
+	public static final int CD = 1 << 6;
+	public static final int ANTI_KNIGHT = 1 << 7;
+	public static final int ANTI_FERZ = 1 << 8;
+	public static final int TOROIDAL = 1 << 9;
+	// Forbidden consecutive values: orthogonal (NC) or diagonal (Ferz NC) neighbours, 9 and 1 included (NC+)
+	public static final int NC = 1 << 10;
+	public static final int FERZ_NC = 1 << 11;
+	public static final int NC_CYCLIC = 1 << 12;
+
+	private static final Map<Integer, Topology> topologies = new HashMap<Integer, Topology>();
+
+	private final int variants;
+
+	/**
+	 * Cells visible from each cell, in a fixed order: the row, column
+	 * (and block) cells first, then the cells added by the variants.
+	 */
+	public final int[][] visibleCellIndex;
+	/**
+	 * Cells visible from each cell and having a greater index.
+	 */
+	public final int[][] forwardVisibleCellIndex;
+	/**
+	 * Cells visible from each cell through anti-knight or anti-king only.
+	 */
+	public final int[][] antiVisibleCellIndex;
+	public final ImmutableCellSet[] visibleCellsSet;
+	public final ImmutableCellSet[] forwardVisibleCellsSet;
+	public final ImmutableCellSet[] antiVisibleCellsSet;
+	/**
+	 * Cells visible from each cell as {@link Bitboard} planes: element
+	 * <tt>2 * i</tt> holds the cells 0..63, element <tt>2 * i + 1</tt> the cells 64..80.
+	 */
+	public final long[] visibleCellBits;
+	/**
+	 * Cells that cannot hold a value consecutive to the value of each cell,
+	 * empty unless one of the NC variants is used.
+	 */
+	public final int[][] consecutiveCellIndex;
+
+	// Cells sharing a row, column or block with each cell.
+	private static final int[][] SUDOKU_VISIBLE = new int[][] {
+		{ 1, 2, 3, 4, 5, 6, 7, 8, 9,10,11,18,19,20,27,36,45,54,63,72},
+		{ 0, 2, 3, 4, 5, 6, 7, 8, 9,10,11,18,19,20,28,37,46,55,64,73},
+		{ 0, 1, 3, 4, 5, 6, 7, 8, 9,10,11,18,19,20,29,38,47,56,65,74},
+		{ 0, 1, 2, 4, 5, 6, 7, 8,12,13,14,21,22,23,30,39,48,57,66,75},
+		{ 0, 1, 2, 3, 5, 6, 7, 8,12,13,14,21,22,23,31,40,49,58,67,76},
+		{ 0, 1, 2, 3, 4, 6, 7, 8,12,13,14,21,22,23,32,41,50,59,68,77},
+		{ 0, 1, 2, 3, 4, 5, 7, 8,15,16,17,24,25,26,33,42,51,60,69,78},
+		{ 0, 1, 2, 3, 4, 5, 6, 8,15,16,17,24,25,26,34,43,52,61,70,79},
+		{ 0, 1, 2, 3, 4, 5, 6, 7,15,16,17,24,25,26,35,44,53,62,71,80},
+		{ 0, 1, 2,10,11,12,13,14,15,16,17,18,19,20,27,36,45,54,63,72},
+		{ 0, 1, 2, 9,11,12,13,14,15,16,17,18,19,20,28,37,46,55,64,73},
+		{ 0, 1, 2, 9,10,12,13,14,15,16,17,18,19,20,29,38,47,56,65,74},
+		{ 3, 4, 5, 9,10,11,13,14,15,16,17,21,22,23,30,39,48,57,66,75},
+		{ 3, 4, 5, 9,10,11,12,14,15,16,17,21,22,23,31,40,49,58,67,76},
+		{ 3, 4, 5, 9,10,11,12,13,15,16,17,21,22,23,32,41,50,59,68,77},
+		{ 6, 7, 8, 9,10,11,12,13,14,16,17,24,25,26,33,42,51,60,69,78},
+		{ 6, 7, 8, 9,10,11,12,13,14,15,17,24,25,26,34,43,52,61,70,79},
+		{ 6, 7, 8, 9,10,11,12,13,14,15,16,24,25,26,35,44,53,62,71,80},
+		{ 0, 1, 2, 9,10,11,19,20,21,22,23,24,25,26,27,36,45,54,63,72},
+		{ 0, 1, 2, 9,10,11,18,20,21,22,23,24,25,26,28,37,46,55,64,73},
+		{ 0, 1, 2, 9,10,11,18,19,21,22,23,24,25,26,29,38,47,56,65,74},
+		{ 3, 4, 5,12,13,14,18,19,20,22,23,24,25,26,30,39,48,57,66,75},
+		{ 3, 4, 5,12,13,14,18,19,20,21,23,24,25,26,31,40,49,58,67,76},
+		{ 3, 4, 5,12,13,14,18,19,20,21,22,24,25,26,32,41,50,59,68,77},
+		{ 6, 7, 8,15,16,17,18,19,20,21,22,23,25,26,33,42,51,60,69,78},
+		{ 6, 7, 8,15,16,17,18,19,20,21,22,23,24,26,34,43,52,61,70,79},
+		{ 6, 7, 8,15,16,17,18,19,20,21,22,23,24,25,35,44,53,62,71,80},
+		{ 0, 9,18,28,29,30,31,32,33,34,35,36,37,38,45,46,47,54,63,72},
+		{ 1,10,19,27,29,30,31,32,33,34,35,36,37,38,45,46,47,55,64,73},
+		{ 2,11,20,27,28,30,31,32,33,34,35,36,37,38,45,46,47,56,65,74},
+		{ 3,12,21,27,28,29,31,32,33,34,35,39,40,41,48,49,50,57,66,75},
+		{ 4,13,22,27,28,29,30,32,33,34,35,39,40,41,48,49,50,58,67,76},
+		{ 5,14,23,27,28,29,30,31,33,34,35,39,40,41,48,49,50,59,68,77},
+		{ 6,15,24,27,28,29,30,31,32,34,35,42,43,44,51,52,53,60,69,78},
+		{ 7,16,25,27,28,29,30,31,32,33,35,42,43,44,51,52,53,61,70,79},
+		{ 8,17,26,27,28,29,30,31,32,33,34,42,43,44,51,52,53,62,71,80},
+		{ 0, 9,18,27,28,29,37,38,39,40,41,42,43,44,45,46,47,54,63,72},
+		{ 1,10,19,27,28,29,36,38,39,40,41,42,43,44,45,46,47,55,64,73},
+		{ 2,11,20,27,28,29,36,37,39,40,41,42,43,44,45,46,47,56,65,74},
+		{ 3,12,21,30,31,32,36,37,38,40,41,42,43,44,48,49,50,57,66,75},
+		{ 4,13,22,30,31,32,36,37,38,39,41,42,43,44,48,49,50,58,67,76},
+		{ 5,14,23,30,31,32,36,37,38,39,40,42,43,44,48,49,50,59,68,77},
+		{ 6,15,24,33,34,35,36,37,38,39,40,41,43,44,51,52,53,60,69,78},
+		{ 7,16,25,33,34,35,36,37,38,39,40,41,42,44,51,52,53,61,70,79},
+		{ 8,17,26,33,34,35,36,37,38,39,40,41,42,43,51,52,53,62,71,80},
+		{ 0, 9,18,27,28,29,36,37,38,46,47,48,49,50,51,52,53,54,63,72},
+		{ 1,10,19,27,28,29,36,37,38,45,47,48,49,50,51,52,53,55,64,73},
+		{ 2,11,20,27,28,29,36,37,38,45,46,48,49,50,51,52,53,56,65,74},
+		{ 3,12,21,30,31,32,39,40,41,45,46,47,49,50,51,52,53,57,66,75},
+		{ 4,13,22,30,31,32,39,40,41,45,46,47,48,50,51,52,53,58,67,76},
+		{ 5,14,23,30,31,32,39,40,41,45,46,47,48,49,51,52,53,59,68,77},
+		{ 6,15,24,33,34,35,42,43,44,45,46,47,48,49,50,52,53,60,69,78},
+		{ 7,16,25,33,34,35,42,43,44,45,46,47,48,49,50,51,53,61,70,79},
+		{ 8,17,26,33,34,35,42,43,44,45,46,47,48,49,50,51,52,62,71,80},
+		{ 0, 9,18,27,36,45,55,56,57,58,59,60,61,62,63,64,65,72,73,74},
+		{ 1,10,19,28,37,46,54,56,57,58,59,60,61,62,63,64,65,72,73,74},
+		{ 2,11,20,29,38,47,54,55,57,58,59,60,61,62,63,64,65,72,73,74},
+		{ 3,12,21,30,39,48,54,55,56,58,59,60,61,62,66,67,68,75,76,77},
+		{ 4,13,22,31,40,49,54,55,56,57,59,60,61,62,66,67,68,75,76,77},
+		{ 5,14,23,32,41,50,54,55,56,57,58,60,61,62,66,67,68,75,76,77},
+		{ 6,15,24,33,42,51,54,55,56,57,58,59,61,62,69,70,71,78,79,80},
+		{ 7,16,25,34,43,52,54,55,56,57,58,59,60,62,69,70,71,78,79,80},
+		{ 8,17,26,35,44,53,54,55,56,57,58,59,60,61,69,70,71,78,79,80},
+		{ 0, 9,18,27,36,45,54,55,56,64,65,66,67,68,69,70,71,72,73,74},
+		{ 1,10,19,28,37,46,54,55,56,63,65,66,67,68,69,70,71,72,73,74},
+		{ 2,11,20,29,38,47,54,55,56,63,64,66,67,68,69,70,71,72,73,74},
+		{ 3,12,21,30,39,48,57,58,59,63,64,65,67,68,69,70,71,75,76,77},
+		{ 4,13,22,31,40,49,57,58,59,63,64,65,66,68,69,70,71,75,76,77},
+		{ 5,14,23,32,41,50,57,58,59,63,64,65,66,67,69,70,71,75,76,77},
+		{ 6,15,24,33,42,51,60,61,62,63,64,65,66,67,68,70,71,78,79,80},
+		{ 7,16,25,34,43,52,60,61,62,63,64,65,66,67,68,69,71,78,79,80},
+		{ 8,17,26,35,44,53,60,61,62,63,64,65,66,67,68,69,70,78,79,80},
+		{ 0, 9,18,27,36,45,54,55,56,63,64,65,73,74,75,76,77,78,79,80},
+		{ 1,10,19,28,37,46,54,55,56,63,64,65,72,74,75,76,77,78,79,80},
+		{ 2,11,20,29,38,47,54,55,56,63,64,65,72,73,75,76,77,78,79,80},
+		{ 3,12,21,30,39,48,57,58,59,66,67,68,72,73,74,76,77,78,79,80},
+		{ 4,13,22,31,40,49,57,58,59,66,67,68,72,73,74,75,77,78,79,80},
+		{ 5,14,23,32,41,50,57,58,59,66,67,68,72,73,74,75,76,78,79,80},
+		{ 6,15,24,33,42,51,60,61,62,69,70,71,72,73,74,75,76,77,79,80},
+		{ 7,16,25,34,43,52,60,61,62,69,70,71,72,73,74,75,76,77,78,80},
+		{ 8,17,26,35,44,53,60,61,62,69,70,71,72,73,74,75,76,77,78,79}
+	};
+
+	// Cells sharing a row or column with each cell (Latin Square).
+	private static final int[][] LATIN_VISIBLE = new int[][] {
+		{ 1, 2, 3, 4, 5, 6, 7, 8, 9,18,27,36,45,54,63,72},
+		{ 0, 2, 3, 4, 5, 6, 7, 8,10,19,28,37,46,55,64,73},
+		{ 0, 1, 3, 4, 5, 6, 7, 8,11,20,29,38,47,56,65,74},
+		{ 0, 1, 2, 4, 5, 6, 7, 8,12,21,30,39,48,57,66,75},
+		{ 0, 1, 2, 3, 5, 6, 7, 8,13,22,31,40,49,58,67,76},
+		{ 0, 1, 2, 3, 4, 6, 7, 8,14,23,32,41,50,59,68,77},
+		{ 0, 1, 2, 3, 4, 5, 7, 8,15,24,33,42,51,60,69,78},
+		{ 0, 1, 2, 3, 4, 5, 6, 8,16,25,34,43,52,61,70,79},
+		{ 0, 1, 2, 3, 4, 5, 6, 7,17,26,35,44,53,62,71,80},
+		{ 0,10,11,12,13,14,15,16,17,18,27,36,45,54,63,72},
+		{ 1, 9,11,12,13,14,15,16,17,19,28,37,46,55,64,73},
+		{ 2, 9,10,12,13,14,15,16,17,20,29,38,47,56,65,74},
+		{ 3, 9,10,11,13,14,15,16,17,21,30,39,48,57,66,75},
+		{ 4, 9,10,11,12,14,15,16,17,22,31,40,49,58,67,76},
+		{ 5, 9,10,11,12,13,15,16,17,23,32,41,50,59,68,77},
+		{ 6, 9,10,11,12,13,14,16,17,24,33,42,51,60,69,78},
+		{ 7, 9,10,11,12,13,14,15,17,25,34,43,52,61,70,79},
+		{ 8, 9,10,11,12,13,14,15,16,26,35,44,53,62,71,80},
+		{ 0, 9,19,20,21,22,23,24,25,26,27,36,45,54,63,72},
+		{ 1,10,18,20,21,22,23,24,25,26,28,37,46,55,64,73},
+		{ 2,11,18,19,21,22,23,24,25,26,29,38,47,56,65,74},
+		{ 3,12,18,19,20,22,23,24,25,26,30,39,48,57,66,75},
+		{ 4,13,18,19,20,21,23,24,25,26,31,40,49,58,67,76},
+		{ 5,14,18,19,20,21,22,24,25,26,32,41,50,59,68,77},
+		{ 6,15,18,19,20,21,22,23,25,26,33,42,51,60,69,78},
+		{ 7,16,18,19,20,21,22,23,24,26,34,43,52,61,70,79},
+		{ 8,17,18,19,20,21,22,23,24,25,35,44,53,62,71,80},
+		{ 0, 9,18,28,29,30,31,32,33,34,35,36,45,54,63,72},
+		{ 1,10,19,27,29,30,31,32,33,34,35,37,46,55,64,73},
+		{ 2,11,20,27,28,30,31,32,33,34,35,38,47,56,65,74},
+		{ 3,12,21,27,28,29,31,32,33,34,35,39,48,57,66,75},
+		{ 4,13,22,27,28,29,30,32,33,34,35,40,49,58,67,76},
+		{ 5,14,23,27,28,29,30,31,33,34,35,41,50,59,68,77},
+		{ 6,15,24,27,28,29,30,31,32,34,35,42,51,60,69,78},
+		{ 7,16,25,27,28,29,30,31,32,33,35,43,52,61,70,79},
+		{ 8,17,26,27,28,29,30,31,32,33,34,44,53,62,71,80},
+		{ 0, 9,18,27,37,38,39,40,41,42,43,44,45,54,63,72},
+		{ 1,10,19,28,36,38,39,40,41,42,43,44,46,55,64,73},
+		{ 2,11,20,29,36,37,39,40,41,42,43,44,47,56,65,74},
+		{ 3,12,21,30,36,37,38,40,41,42,43,44,48,57,66,75},
+		{ 4,13,22,31,36,37,38,39,41,42,43,44,49,58,67,76},
+		{ 5,14,23,32,36,37,38,39,40,42,43,44,50,59,68,77},
+		{ 6,15,24,33,36,37,38,39,40,41,43,44,51,60,69,78},
+		{ 7,16,25,34,36,37,38,39,40,41,42,44,52,61,70,79},
+		{ 8,17,26,35,36,37,38,39,40,41,42,43,53,62,71,80},
+		{ 0, 9,18,27,36,46,47,48,49,50,51,52,53,54,63,72},
+		{ 1,10,19,28,37,45,47,48,49,50,51,52,53,55,64,73},
+		{ 2,11,20,29,38,45,46,48,49,50,51,52,53,56,65,74},
+		{ 3,12,21,30,39,45,46,47,49,50,51,52,53,57,66,75},
+		{ 4,13,22,31,40,45,46,47,48,50,51,52,53,58,67,76},
+		{ 5,14,23,32,41,45,46,47,48,49,51,52,53,59,68,77},
+		{ 6,15,24,33,42,45,46,47,48,49,50,52,53,60,69,78},
+		{ 7,16,25,34,43,45,46,47,48,49,50,51,53,61,70,79},
+		{ 8,17,26,35,44,45,46,47,48,49,50,51,52,62,71,80},
+		{ 0, 9,18,27,36,45,55,56,57,58,59,60,61,62,63,72},
+		{ 1,10,19,28,37,46,54,56,57,58,59,60,61,62,64,73},
+		{ 2,11,20,29,38,47,54,55,57,58,59,60,61,62,65,74},
+		{ 3,12,21,30,39,48,54,55,56,58,59,60,61,62,66,75},
+		{ 4,13,22,31,40,49,54,55,56,57,59,60,61,62,67,76},
+		{ 5,14,23,32,41,50,54,55,56,57,58,60,61,62,68,77},
+		{ 6,15,24,33,42,51,54,55,56,57,58,59,61,62,69,78},
+		{ 7,16,25,34,43,52,54,55,56,57,58,59,60,62,70,79},
+		{ 8,17,26,35,44,53,54,55,56,57,58,59,60,61,71,80},
+		{ 0, 9,18,27,36,45,54,64,65,66,67,68,69,70,71,72},
+		{ 1,10,19,28,37,46,55,63,65,66,67,68,69,70,71,73},
+		{ 2,11,20,29,38,47,56,63,64,66,67,68,69,70,71,74},
+		{ 3,12,21,30,39,48,57,63,64,65,67,68,69,70,71,75},
+		{ 4,13,22,31,40,49,58,63,64,65,66,68,69,70,71,76},
+		{ 5,14,23,32,41,50,59,63,64,65,66,67,69,70,71,77},
+		{ 6,15,24,33,42,51,60,63,64,65,66,67,68,70,71,78},
+		{ 7,16,25,34,43,52,61,63,64,65,66,67,68,69,71,79},
+		{ 8,17,26,35,44,53,62,63,64,65,66,67,68,69,70,80},
+		{ 0, 9,18,27,36,45,54,63,73,74,75,76,77,78,79,80},
+		{ 1,10,19,28,37,46,55,64,72,74,75,76,77,78,79,80},
+		{ 2,11,20,29,38,47,56,65,72,73,75,76,77,78,79,80},
+		{ 3,12,21,30,39,48,57,66,72,73,74,76,77,78,79,80},
+		{ 4,13,22,31,40,49,58,67,72,73,74,75,77,78,79,80},
+		{ 5,14,23,32,41,50,59,68,72,73,74,75,76,78,79,80},
+		{ 6,15,24,33,42,51,60,69,72,73,74,75,76,77,79,80},
+		{ 7,16,25,34,43,52,61,70,72,73,74,75,76,77,78,80},
+		{ 8,17,26,35,44,53,62,71,72,73,74,75,76,77,78,79}
+	};
+
+	// Cells with a greater index sharing a row, column or block with each cell.
+	private static final int[][] SUDOKU_FORWARD = new int[][] {
+		{ 1, 2, 3, 4, 5, 6, 7, 8, 9,10,11,18,19,20,27,36,45,54,63,72},
+		{ 2, 3, 4, 5, 6, 7, 8, 9,10,11,18,19,20,28,37,46,55,64,73},
+		{ 3, 4, 5, 6, 7, 8, 9,10,11,18,19,20,29,38,47,56,65,74},
+		{ 4, 5, 6, 7, 8,12,13,14,21,22,23,30,39,48,57,66,75},
+		{ 5, 6, 7, 8,12,13,14,21,22,23,31,40,49,58,67,76},
+		{ 6, 7, 8,12,13,14,21,22,23,32,41,50,59,68,77},
+		{ 7, 8,15,16,17,24,25,26,33,42,51,60,69,78},
+		{ 8,15,16,17,24,25,26,34,43,52,61,70,79},
+		{15,16,17,24,25,26,35,44,53,62,71,80},
+		{10,11,12,13,14,15,16,17,18,19,20,27,36,45,54,63,72},
+		{11,12,13,14,15,16,17,18,19,20,28,37,46,55,64,73},
+		{12,13,14,15,16,17,18,19,20,29,38,47,56,65,74},
+		{13,14,15,16,17,21,22,23,30,39,48,57,66,75},
+		{14,15,16,17,21,22,23,31,40,49,58,67,76},
+		{15,16,17,21,22,23,32,41,50,59,68,77},
+		{16,17,24,25,26,33,42,51,60,69,78},
+		{17,24,25,26,34,43,52,61,70,79},
+		{24,25,26,35,44,53,62,71,80},
+		{19,20,21,22,23,24,25,26,27,36,45,54,63,72},
+		{20,21,22,23,24,25,26,28,37,46,55,64,73},
+		{21,22,23,24,25,26,29,38,47,56,65,74},
+		{22,23,24,25,26,30,39,48,57,66,75},
+		{23,24,25,26,31,40,49,58,67,76},
+		{24,25,26,32,41,50,59,68,77},
+		{25,26,33,42,51,60,69,78},
+		{26,34,43,52,61,70,79},
+		{35,44,53,62,71,80},
+		{28,29,30,31,32,33,34,35,36,37,38,45,46,47,54,63,72},
+		{29,30,31,32,33,34,35,36,37,38,45,46,47,55,64,73},
+		{30,31,32,33,34,35,36,37,38,45,46,47,56,65,74},
+		{31,32,33,34,35,39,40,41,48,49,50,57,66,75},
+		{32,33,34,35,39,40,41,48,49,50,58,67,76},
+		{33,34,35,39,40,41,48,49,50,59,68,77},
+		{34,35,42,43,44,51,52,53,60,69,78},
+		{35,42,43,44,51,52,53,61,70,79},
+		{42,43,44,51,52,53,62,71,80},
+		{37,38,39,40,41,42,43,44,45,46,47,54,63,72},
+		{38,39,40,41,42,43,44,45,46,47,55,64,73},
+		{39,40,41,42,43,44,45,46,47,56,65,74},
+		{40,41,42,43,44,48,49,50,57,66,75},
+		{41,42,43,44,48,49,50,58,67,76},
+		{42,43,44,48,49,50,59,68,77},
+		{43,44,51,52,53,60,69,78},
+		{44,51,52,53,61,70,79},
+		{51,52,53,62,71,80},
+		{46,47,48,49,50,51,52,53,54,63,72},
+		{47,48,49,50,51,52,53,55,64,73},
+		{48,49,50,51,52,53,56,65,74},
+		{49,50,51,52,53,57,66,75},
+		{50,51,52,53,58,67,76},
+		{51,52,53,59,68,77},
+		{52,53,60,69,78},
+		{53,61,70,79},
+		{62,71,80},
+		{55,56,57,58,59,60,61,62,63,64,65,72,73,74},
+		{56,57,58,59,60,61,62,63,64,65,72,73,74},
+		{57,58,59,60,61,62,63,64,65,72,73,74},
+		{58,59,60,61,62,66,67,68,75,76,77},
+		{59,60,61,62,66,67,68,75,76,77},
+		{60,61,62,66,67,68,75,76,77},
+		{61,62,69,70,71,78,79,80},
+		{62,69,70,71,78,79,80},
+		{69,70,71,78,79,80},
+		{64,65,66,67,68,69,70,71,72,73,74},
+		{65,66,67,68,69,70,71,72,73,74},
+		{66,67,68,69,70,71,72,73,74},
+		{67,68,69,70,71,75,76,77},
+		{68,69,70,71,75,76,77},
+		{69,70,71,75,76,77},
+		{70,71,78,79,80},
+		{71,78,79,80},
+		{78,79,80},
+		{73,74,75,76,77,78,79,80},
+		{74,75,76,77,78,79,80},
+		{75,76,77,78,79,80},
+		{76,77,78,79,80},
+		{77,78,79,80},
+		{78,79,80},
+		{79,80},
+		{80},
+		{}
+	};
+
+	// Cells with a greater index sharing a row or column with each cell (Latin Square).
+	private static final int[][] LATIN_FORWARD = new int[][] {
+		{ 1, 2, 3, 4, 5, 6, 7, 8, 9,18,27,36,45,54,63,72},
+		{ 2, 3, 4, 5, 6, 7, 8,10,19,28,37,46,55,64,73},
+		{ 3, 4, 5, 6, 7, 8,11,20,29,38,47,56,65,74},
+		{ 4, 5, 6, 7, 8,12,21,30,39,48,57,66,75},
+		{ 5, 6, 7, 8,13,22,31,40,49,58,67,76},
+		{ 6, 7, 8,14,23,32,41,50,59,68,77},
+		{ 7, 8,15,24,33,42,51,60,69,78},
+		{ 8,16,25,34,43,52,61,70,79},
+		{17,26,35,44,53,62,71,80},
+		{10,11,12,13,14,15,16,17,18,27,36,45,54,63,72},
+		{11,12,13,14,15,16,17,19,28,37,46,55,64,73},
+		{12,13,14,15,16,17,20,29,38,47,56,65,74},
+		{13,14,15,16,17,21,30,39,48,57,66,75},
+		{14,15,16,17,22,31,40,49,58,67,76},
+		{15,16,17,23,32,41,50,59,68,77},
+		{16,17,24,33,42,51,60,69,78},
+		{17,25,34,43,52,61,70,79},
+		{26,35,44,53,62,71,80},
+		{19,20,21,22,23,24,25,26,27,36,45,54,63,72},
+		{20,21,22,23,24,25,26,28,37,46,55,64,73},
+		{21,22,23,24,25,26,29,38,47,56,65,74},
+		{22,23,24,25,26,30,39,48,57,66,75},
+		{23,24,25,26,31,40,49,58,67,76},
+		{24,25,26,32,41,50,59,68,77},
+		{25,26,33,42,51,60,69,78},
+		{26,34,43,52,61,70,79},
+		{35,44,53,62,71,80},
+		{28,29,30,31,32,33,34,35,36,45,54,63,72},
+		{29,30,31,32,33,34,35,37,46,55,64,73},
+		{30,31,32,33,34,35,38,47,56,65,74},
+		{31,32,33,34,35,39,48,57,66,75},
+		{32,33,34,35,40,49,58,67,76},
+		{33,34,35,41,50,59,68,77},
+		{34,35,42,51,60,69,78},
+		{35,43,52,61,70,79},
+		{44,53,62,71,80},
+		{37,38,39,40,41,42,43,44,45,54,63,72},
+		{38,39,40,41,42,43,44,46,55,64,73},
+		{39,40,41,42,43,44,47,56,65,74},
+		{40,41,42,43,44,48,57,66,75},
+		{41,42,43,44,49,58,67,76},
+		{42,43,44,50,59,68,77},
+		{43,44,51,60,69,78},
+		{44,52,61,70,79},
+		{53,62,71,80},
+		{46,47,48,49,50,51,52,53,54,63,72},
+		{47,48,49,50,51,52,53,55,64,73},
+		{48,49,50,51,52,53,56,65,74},
+		{49,50,51,52,53,57,66,75},
+		{50,51,52,53,58,67,76},
+		{51,52,53,59,68,77},
+		{52,53,60,69,78},
+		{53,61,70,79},
+		{62,71,80},
+		{55,56,57,58,59,60,61,62,63,72},
+		{56,57,58,59,60,61,62,64,73},
+		{57,58,59,60,61,62,65,74},
+		{58,59,60,61,62,66,75},
+		{59,60,61,62,67,76},
+		{60,61,62,68,77},
+		{61,62,69,78},
+		{62,70,79},
+		{71,80},
+		{64,65,66,67,68,69,70,71,72},
+		{65,66,67,68,69,70,71,73},
+		{66,67,68,69,70,71,74},
+		{67,68,69,70,71,75},
+		{68,69,70,71,76},
+		{69,70,71,77},
+		{70,71,78},
+		{71,79},
+		{80},
+		{73,74,75,76,77,78,79,80},
+		{74,75,76,77,78,79,80},
+		{75,76,77,78,79,80},
+		{76,77,78,79,80},
+		{77,78,79,80},
+		{78,79,80},
+		{79,80},
+		{80},
+		{}
+	};
+
+	private Topology(int variants) {
+		this.variants = variants;
+		int[][] baseVisible = isBlocks() ? SUDOKU_VISIBLE : LATIN_VISIBLE;
+		int[][] baseForward = isBlocks() ? SUDOKU_FORWARD : LATIN_FORWARD;
+		visibleCellIndex = new int[81][];
+		forwardVisibleCellIndex = new int[81][];
+		antiVisibleCellIndex = new int[81][];
+		visibleCellsSet = new ImmutableCellSet[81];
+		forwardVisibleCellsSet = new ImmutableCellSet[81];
+		antiVisibleCellsSet = new ImmutableCellSet[81];
+		visibleCellBits = new long[81 * 2];
+		if ((variants & NC) != 0)
+			consecutiveCellIndex = isToroidal() ? Grid.wazirCellsToroidal : Grid.wazirCellsRegular;
+		else if ((variants & FERZ_NC) != 0)
+			consecutiveCellIndex = isToroidal() ? Grid.ferzCellsToroidal : Grid.ferzCellsRegular;
+		else
+			consecutiveCellIndex = new int[81][0];
+		for (int i = 0; i < 81; i++) {
+			List<Integer> visible = new ArrayList<Integer>();
+			List<Integer> forward = new ArrayList<Integer>();
+			List<Integer> anti = new ArrayList<Integer>();
+			for (int cellIndex : baseVisible[i])
+				visible.add(cellIndex);
+			for (int cellIndex : baseForward[i])
+				forward.add(cellIndex);
+			// The order of the additions defines the order of the visible cells
+			if (isWindows())
+				addVisibleCells(i, Grid.windowsVisibleCellIndex[i], visible, forward);
+			if (isDG())
+				addVisibleCells(i, Grid.DGVisibleCellIndex[i], visible, forward);
+			if (isX())
+				addVisibleCells(i, Grid.XVisibleCellIndex[i], visible, forward);
+			if (isCD())
+				addVisibleCells(i, Grid.CDVisibleCellIndex[i], visible, forward);
+			if (isGirandola())
+				addVisibleCells(i, Grid.girandolaVisibleCellIndex[i], visible, forward);
+			if (isAsterisk())
+				addVisibleCells(i, Grid.asteriskVisibleCellIndex[i], visible, forward);
+			if (isAntiFerz())
+				addLeaperCells(i, Grid.ferzCellIndex, visible, forward, anti);
+			if (isAntiKnight())
+				addLeaperCells(i, Grid.knightCellIndex, visible, forward, anti);
+			visibleCellIndex[i] = toArray(visible);
+			forwardVisibleCellIndex[i] = toArray(forward);
+			antiVisibleCellIndex[i] = toArray(anti);
+			visibleCellsSet[i] = new ImmutableCellSet(visibleCellIndex[i]);
+			forwardVisibleCellsSet[i] = new ImmutableCellSet(forwardVisibleCellIndex[i]);
+			antiVisibleCellsSet[i] = new ImmutableCellSet(antiVisibleCellIndex[i]);
+			for (int cellIndex : visibleCellIndex[i])
+				visibleCellBits[i * 2 + (cellIndex >> 6)] |= 1L << cellIndex;
+		}
+	}
+
+	private static void addVisibleCells(int i, int[] regionCells, List<Integer> visible, List<Integer> forward) {
+		for (int cellIndex : regionCells) {
+			if (cellIndex != i && visible.indexOf(cellIndex) < 0) {
+				visible.add(cellIndex);
+				if (cellIndex > i)
+					forward.add(cellIndex);
+			}
+		}
+	}
+
+	private void addLeaperCells(int i, int[][] offsets, List<Integer> visible, List<Integer> forward, List<Integer> anti) {
+		for (int j = 0; j < offsets.length; j++) {
+			int leapX = i / 9 + offsets[j][0];
+			int leapY = i % 9 + offsets[j][1];
+			boolean isOutsideBoard = leapX < 0 || leapX > 8 || leapY < 0 || leapY > 8;
+			if (isOutsideBoard && !isToroidal())
+				continue;
+			int leapCellIndex = (leapX < 0 ? 9 + leapX : leapX % 9) * 9 + (leapY < 0 ? 9 + leapY : leapY % 9);
+			if (leapCellIndex != i && visible.indexOf(leapCellIndex) < 0) {
+				visible.add(leapCellIndex);
+				anti.add(leapCellIndex);
+				if (leapCellIndex > i)
+					forward.add(leapCellIndex);
+			}
+		}
+	}
+
+	private static int[] toArray(List<Integer> list) {
+		int[] result = new int[list.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = list.get(i);
+		return result;
+	}
+
+	/**
+	 * Get the topology of the given variant combination.
+	 * Topologies are built on first use and cached.
+	 * @param variants the variant flags, such as <tt>BLOCKS | X</tt>
+	 * @return the topology
+	 */
+	public static synchronized Topology get(int variants) {
+		Topology result = topologies.get(variants);
+		if (result == null) {
+			result = new Topology(variants);
+			topologies.put(variants, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Get the topology of the variants currently selected in the given settings.
+	 * @param settings the settings
+	 * @return the topology
+	 */
+	public static Topology get(Settings settings) {
+		int variants = 0;
+		if (settings.isBlocks()) variants |= BLOCKS;
+		if (settings.isDG()) variants |= DG;
+		if (settings.isWindows()) variants |= WINDOWS;
+		if (settings.isX()) variants |= X;
+		if (settings.isGirandola()) variants |= GIRANDOLA;
+		if (settings.isAsterisk()) variants |= ASTERISK;
+		if (settings.isCD()) variants |= CD;
+		if (settings.isAntiKnight()) variants |= ANTI_KNIGHT;
+		if (settings.isAntiFerz()) variants |= ANTI_FERZ;
+		if (settings.isToroidal()) variants |= TOROIDAL;
+		if (settings.isForbiddenPairs()) {
+			int statusNC = settings.whichNC();
+			if (statusNC == 1 || statusNC == 2) variants |= NC;
+			if (statusNC == 3 || statusNC == 4) variants |= FERZ_NC;
+			if (statusNC == 2 || statusNC == 4) variants |= NC_CYCLIC;
+		}
+		return get(variants);
+	}
+
+	/**
+	 * Get the variant flags of this topology
+	 */
+	public int getVariants() {
+		return variants;
+	}
+
+	public boolean isBlocks() {
+		return (variants & BLOCKS) != 0;
+	}
+
+	public boolean isDG() {
+		return (variants & DG) != 0;
+	}
+
+	public boolean isWindows() {
+		return (variants & WINDOWS) != 0;
+	}
+
+	public boolean isX() {
+		return (variants & X) != 0;
+	}
+
+	public boolean isGirandola() {
+		return (variants & GIRANDOLA) != 0;
+	}
+
+	public boolean isAsterisk() {
+		return (variants & ASTERISK) != 0;
+	}
+
+	public boolean isCD() {
+		return (variants & CD) != 0;
+	}
+
+	public boolean isAntiKnight() {
+		return (variants & ANTI_KNIGHT) != 0;
+	}
+
+	public boolean isAntiFerz() {
+		return (variants & ANTI_FERZ) != 0;
+	}
+
+	public boolean isToroidal() {
+		return (variants & TOROIDAL) != 0;
+	}
+
+	/**
+	 * Whether consecutive values are forbidden in neighbour cells (NC or Ferz NC)
+	 */
+	public boolean isNC() {
+		return (variants & (NC | FERZ_NC)) != 0;
+	}
+
+	/**
+	 * Whether 9 and 1 are also consecutive values (NC+ or Ferz NC+)
+	 */
+	public boolean isNCCyclic() {
+		return (variants & NC_CYCLIC) != 0;
+	}
+
+	/**
+	 * Whether the regions of the given type are constraints of this topology.
+	 * @param regionTypeIndex the region type, see {@link Grid.Region#getRegionTypeIndex()}
+	 * @return whether the regions of this type are used
+	 */
+	public boolean isRegionTypeUsed(int regionTypeIndex) {
+		switch (regionTypeIndex) {
+		case 0: return isBlocks();
+		case 1: case 2: return true;
+		case 3: return isDG();
+		case 4: return isWindows();
+		case 5: case 6: return isX();
+		case 7: return isGirandola();
+		case 8: return isAsterisk();
+		case 9: return isCD();
+		}
+		return false;
+	}
+
+	public int[] getVisibleCellIndexes(int cellIndex) {
+		return visibleCellIndex[cellIndex];
+	}
+
+	public int[] getForwardVisibleCellIndexes(int cellIndex) {
+		return forwardVisibleCellIndex[cellIndex];
+	}
+
+	public ImmutableCellSet getVisibleCells(int cellIndex) {
+		return visibleCellsSet[cellIndex];
+	}
+
+	public ImmutableCellSet getForwardVisibleCells(int cellIndex) {
+		return forwardVisibleCellsSet[cellIndex];
+	}
+
+	public ImmutableCellSet getAntiVisibleCells(int cellIndex) {
+		return antiVisibleCellsSet[cellIndex];
+	}
+
+	@Override
+	public String toString() {
+		return "Topology " + Integer.toBinaryString(variants);
+	}
+}
@@ -14,7 +14,8 @@ import diuf.sudoku.solver.checks.*;
 
 public class Generator {
 
-    private final BruteForceAnalysis analyser = new BruteForceAnalysis(true);
+    private final BruteForceAnalysis analyser = new BruteForceAnalysis(true, SolverConfig.fromSettings());
+    private final SolverSession session = new SolverSession(SolverConfig.fromSettings());
     private boolean isInterrupted = false;
 
 
@@ -44,11 +45,11 @@ public class Generator {
                 return null;
 
             // Analyse difficulty
-            Grid copy = new Grid();
-            grid.copyTo(copy);
-            Solver solver = new Solver(copy);
+            Grid copy = GridPool.getInstance().acquire(grid);
+            Solver solver = session.newSolver(copy);
             solver.rebuildPotentialValues();
             double difficulty = solver.analyseDifficulty(minDifficulty, maxDifficulty, includeDifficulty1, includeDifficulty2, includeDifficulty3, excludeDifficulty1, excludeDifficulty2, excludeDifficulty3, notMaxDifficulty1, notMaxDifficulty2, notMaxDifficulty3, excludeTechnique1, excludeTechnique2, excludeTechnique3, includeTechnique1, includeTechnique2, includeTechnique3, notMaxTechnique1, notMaxTechnique2, notMaxTechnique3, getOneOfThree_1, getOneOfThree_2, getOneOfThree_3);
+            GridPool.getInstance().release(copy);
             if (difficulty >= minDifficulty && difficulty <= maxDifficulty)
                 return grid;
 
@@ -68,7 +69,7 @@ public class Generator {
 
         // Build the solution
         Grid grid = new Grid();
-        Solver solver = new Solver(grid);
+        Solver solver = session.newSolver(grid);
         solver.want = 0;
         boolean result = analyser.solveRandom(grid, rnd);
         assert result;
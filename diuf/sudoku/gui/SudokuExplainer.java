@@ -405,23 +405,24 @@ public class SudokuExplainer {
         }
         // Create temporary buffers for gathering all the hints again
         final List<Hint> buffer = new ArrayList<Hint>();
+        final Set<Hint> bufferSet = new HashSet<Hint>(); // the hints of the buffer, to find the duplicates
         final StrongReference<Hint> newHint = new StrongReference<Hint>();
         solver.gatherHints(unfilteredHints, buffer, new HintsAccumulator() {
             /*
              * Trick: gatherHints will get all the hints it can find, one after
              * the other, sorted by difficulty. It will call add() for every hint.
-             * To get only the first hint, we throw an InterruptedException after the
+             * To get only the first hint, we throw a StopHintsException after the
              * first produced hint that was not filtered.
              */
             public void add(Hint hint) throws InterruptedException {
-                if (!buffer.contains(hint)) {
+                if (bufferSet.add(hint)) {
                     buffer.add(hint);
                     boolean isNew = (buffer.size() > unfilteredHints.size());
                     if (isNew) {
                         unfilteredHints.add(hint); // This hint is new for the unfiltered list
                         if (isWorth(hint)) {
                             newHint.setValue(hint);
-                            throw new InterruptedException();
+                            throw StopHintsException.INSTANCE;
                         }
                     }
                 }
@@ -0,0 +1,23 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku.solver;
+
+/**
+ * Interface for hint producers whose search can take long, and that
+ * stop it when the rating is cancelled.
+ * @see diuf.sudoku.solver.SolverSession#getCancellationToken()
+ */
+public interface CancellableHintProducer extends HintProducer {
+
+    /**
+     * Set the token checked during the search. Once it is cancelled,
+     * {@link HintProducer#getHints(diuf.sudoku.Grid, HintsAccumulator)}
+     * throws a {@link SolverCancelledException}.
+     * @param token the token, or <tt>null</tt> for none
+     */
+    public void setCancellationToken(CancellationToken token);
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku.solver;
+
+/**
+ * The budget of the rating of one puzzle: a time limit, a limit on the
+ * number of solving steps, and a flag another thread can set to stop the
+ * rating.
+ * <p>
+ * The cancellation is cooperative: the solver checks the token before each
+ * step, and the long searches ({@link CancellableHintProducer}) check it
+ * regularly and throw a {@link SolverCancelledException}. The token is shared
+ * with the threads the chaining engines start for the same grid.
+ * @see Solver#setTimeLimit(long)
+ */
+public final class CancellationToken {
+
+    private final CancellationToken parent;
+    private volatile boolean isCancelled = false;
+    private volatile boolean hasDeadline = false;
+    private volatile long deadline = 0; // As given by System.nanoTime()
+    private int stepLimit = 0;
+    private int stepCount = 0;
+
+    public CancellationToken() {
+        this(null);
+    }
+
+    /**
+     * Create a token that is also cancelled when the given one is, for a
+     * part of the search that can be cancelled alone
+     * @param parent the token of the rating, or <tt>null</tt>
+     */
+    public CancellationToken(CancellationToken parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Start the budget of a new rating
+     * @param timeLimit the time limit in milliseconds, or 0 for none
+     * @param stepLimit the maximal number of solving steps, or 0 for none
+     */
+    public void start(long timeLimit, int stepLimit) {
+        this.deadline = System.nanoTime() + timeLimit * 1000000L;
+        this.hasDeadline = timeLimit > 0;
+        this.stepLimit = stepLimit;
+        this.stepCount = 0;
+        this.isCancelled = false;
+    }
+
+    /**
+     * Stop the current rating, from any thread
+     */
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    /**
+     * Get whether the rating has been cancelled or has run out of time
+     */
+    public boolean isCancelled() {
+        if (!isCancelled && hasDeadline && System.nanoTime() - deadline >= 0)
+            isCancelled = true;
+        if (!isCancelled && parent != null && parent.isCancelled())
+            isCancelled = true;
+        return isCancelled;
+    }
+
+    /**
+     * Throw a {@link SolverCancelledException} if the rating has been
+     * cancelled or has run out of time
+     */
+    public void checkCancelled() {
+        if (isCancelled())
+            throw SolverCancelledException.INSTANCE;
+    }
+
+    /**
+     * Count a solving step, cancelling the rating once the step limit is
+     * reached. Only called by the thread of the solver.
+     */
+    void countStep() {
+        if (++stepCount >= stepLimit && stepLimit > 0)
+            isCancelled = true;
+    }
+
+}
@@ -8,7 +8,8 @@ package diuf.sudoku.solver;
 /**
  * Accumulator for hints.
  * The accumulator can choose to throw an <tt>InterruptedException</tt>
- * whenever it has gathered enough hints.
+ * whenever it has gathered enough hints. The accumulators of the solver
+ * throw {@link StopHintsException#INSTANCE}, that has no stack trace.
  */
 public interface HintsAccumulator {
 
@@ -20,7 +20,7 @@ public class SingleHintAccumulator implements HintsAccumulator {
     public void add(Hint hint) throws InterruptedException {
         if (!hint.equals(result)) {
             result = hint;
-            throw new InterruptedException();
+            throw StopHintsException.INSTANCE;
         }
     }
 
@@ -7,6 +7,8 @@ package diuf.sudoku.solver;
 
 import java.security.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import diuf.sudoku.*;
 //import diuf.sudoku.Settings.*;
@@ -42,6 +44,9 @@ import java.io.PrintWriter;
  */
 public class Solver {
 
+    // The rating of a naked single in the original rating, above the revised one
+    private static final double NAKED_SINGLE_DIFFICULTY = 2.3;
+
     private static final String ADVANCED_WARNING1 =
         "This Sudoku seems to require advanced techniques\n" +
         "that may take a very long computing time.\n" +
@@ -60,35 +65,59 @@ public class Solver {
     public String shortERtN;
     public String shortEPtN;
     public String shortEDtN;
+    public boolean timedOut; // the rating stopped on the time or step limit, difficulty is a lower bound
+    public boolean stoppedAbove; // the rating stopped once difficulty reached stopAbove, difficulty is a lower bound
+    public boolean stoppedBelow; // the rating stopped once the rating was known to stay below stopBelow
     public char want;
 
     private Grid grid;
-    private List<HintProducer> directHintProducers;
-    private List<IndirectHintProducer> indirectHintProducers;
-    private List<WarningHintProducer> validatorHintProducers;
-    private List<WarningHintProducer> warningHintProducers;
-    private List<IndirectHintProducer> chainingHintProducers;
-    private List<IndirectHintProducer> chainingHintProducers2;
-    private List<IndirectHintProducer> advancedHintProducers;
-    private List<IndirectHintProducer> experimentalHintProducers;
+    private final SolverConfig config;
+    private final List<HintProducer> directHintProducers;
+    private final List<IndirectHintProducer> indirectHintProducers;
+    private final List<WarningHintProducer> validatorHintProducers;
+    private final List<WarningHintProducer> warningHintProducers;
+    private final List<IndirectHintProducer> chainingHintProducers;
+    private final List<IndirectHintProducer> chainingHintProducers2;
+    private final List<IndirectHintProducer> advancedHintProducers;
+    private final List<IndirectHintProducer> experimentalHintProducers;
+    private final TranspositionTable transpositionTable;
+    private final CancellationToken cancellationToken;
+    private long timeLimit = 0;
+    private int stepLimit = 0;
+    private double stopAbove = 0.0;
+    private double stopBelow = 0.0;
+
+    // The threads of the speculative search, see getSpeculativeExecutor
+    private static ExecutorService speculativeExecutor = null;
+    private boolean isChainingNeeded = false; // by the last speculative search
+    private final boolean isNakedSingleFirst;
 
     private boolean isUsingAdvanced = false;
 
     public Grid getGrid() {
     	return this.grid;
     }
+
+    /**
+     * Get the settings this solver and its hint producers were created with
+     */
+    public SolverConfig getConfig() {
+        return this.config;
+    }
     
     private class DefaultHintsAccumulator implements HintsAccumulator {
 
         private final List<Hint> result;
+        private final Set<Hint> hintSet; // the hints of the result, to find the duplicates
 
         private DefaultHintsAccumulator(List<Hint> result) {
             super();
             this.result = result;
+            this.hintSet = new HashSet<Hint>(result);
         }
 
         public void add(Hint hint) throws InterruptedException {
-            if (!result.contains(hint))
+            if (hintSet.add(hint))
                 result.add(hint);
         }
 
@@ -99,6 +128,7 @@ public class Solver {
     private class SmallestHintsAccumulator implements HintsAccumulator {
 
         private final List<Hint> result;
+        private final Set<Hint> hintSet; // the hints of the result, to find the duplicates
 
 		// dif is 0.0 at start, and changes to first added rating
 		private double dif = 0.0;
@@ -106,191 +136,199 @@ public class Solver {
         private SmallestHintsAccumulator(List<Hint> result) {
             super();
             this.result = result;
+            this.hintSet = new HashSet<Hint>(result);
         }
 
         public void add(Hint hint) throws InterruptedException {
         	double newDifficulty = ((Rule)hint).getDifficulty();
-        	int batchMode = Settings.getInstance().batchSolving();
+        	int batchMode = config.batchSolving();
 			if(dif == 0.0) {
 				dif = newDifficulty;
 			} else if((newDifficulty != dif && batchMode == 1) || (newDifficulty > difficulty && newDifficulty != dif && batchMode == 2)) {
-				throw new InterruptedException(); // this assumes calls are ordered strictly ascending by difficulty
+				throw StopHintsException.INSTANCE; // this assumes calls are ordered strictly ascending by difficulty
 			}
-            if(!result.contains(hint))
+            if(hintSet.add(hint))
                 result.add(hint);
         }
 
     } // class SmallestHintsAccumulator
 
-    private void addIfWorth(SolvingTechnique technique, Collection<HintProducer> coll, HintProducer producer) {
-        if (Settings.getInstance().getTechniques().contains(technique))
-            coll.add(producer);
+    /**
+     * Run the given producers, stopping after the first one that found hints
+     * @return whether hints have been found
+     */
+    private static boolean gatherSmallestHints(List<? extends HintProducer> producers, Grid grid,
+            SmallestHintsAccumulator accu, List<Hint> result) throws InterruptedException {
+        for (HintProducer producer : producers) {
+            producer.getHints(grid, accu);
+            if (!result.isEmpty())
+                return true;
+        }
+        return false;
     }
 
-    private void addIfWorth(SolvingTechnique technique, Collection<IndirectHintProducer> coll, IndirectHintProducer producer) {
-        if (Settings.getInstance().getTechniques().contains(technique))
-            coll.add(producer);
+    public Solver(Grid grid) {
+        this(grid, SolverConfig.fromSettings());
     }
 
-    public Solver(Grid grid) {
+    /**
+     * Create a solver that uses the given settings instead of the global ones
+     * @param grid the grid to solve
+     * @param config the settings of the solver and of its hint producers
+     */
+    public Solver(Grid grid, SolverConfig config) {
+        this(grid, new SolverSession(config));
+    }
+
+    /**
+     * Create a solver that uses the hint producers of the given session
+     * @see SolverSession#newSolver(Grid)
+     */
+    Solver(Grid grid, SolverSession session) {
         this.grid = grid;
-        // These rules are not really solving techs. They check the validity of the puzzle
-        validatorHintProducers = new ArrayList<WarningHintProducer>();
-        validatorHintProducers.add(new NoDoubles());
-        warningHintProducers = new ArrayList<WarningHintProducer>();
-        warningHintProducers.add(new NumberOfFilledCells());
-        warningHintProducers.add(new NumberOfValues());
-        warningHintProducers.add(new BruteForceAnalysis(false));
-        directHintProducers = new ArrayList<HintProducer>();
-if (Settings.getInstance().revisedRating()==1) {
-        addIfWorth(SolvingTechnique.HiddenSingle, directHintProducers, new HiddenSingle());
-        addIfWorth(SolvingTechnique.NakedSingle, directHintProducers, new NakedSingle());
-		if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2) {
-			addIfWorth(SolvingTechnique.forcingCellNC, directHintProducers, new forcingCellNC());
-			addIfWorth(SolvingTechnique.lockedNC, directHintProducers, new lockedNC());
-		}
-		if (Settings.getInstance().whichNC() == 3 || Settings.getInstance().whichNC() == 4) {
-			addIfWorth(SolvingTechnique.forcingCellFNC, directHintProducers, new forcingCellFNC());
-			addIfWorth(SolvingTechnique.lockedFNC, directHintProducers, new lockedFNC());
-		}
-        addIfWorth(SolvingTechnique.DirectPointing, directHintProducers, new Locking(true));
-        addIfWorth(SolvingTechnique.DirectHiddenPair, directHintProducers, new HiddenSet(2, true));
-        indirectHintProducers = new ArrayList<IndirectHintProducer>();
-        if (Settings.getInstance().isBlocks())
-			addIfWorth(SolvingTechnique.PointingClaiming, indirectHintProducers, new Locking(false));
-		addIfWorth(SolvingTechnique.VLocking, indirectHintProducers, new VLocking());
-        addIfWorth(SolvingTechnique.HiddenPair, indirectHintProducers, new HiddenSet(2, false));
-        addIfWorth(SolvingTechnique.NakedPair, indirectHintProducers, new NakedSet(2));
-        addIfWorth(SolvingTechnique.NakedPairGen, indirectHintProducers, new NakedSetGen(2));
-        addIfWorth(SolvingTechnique.DirectHiddenPair, directHintProducers, new HiddenSet(3, true));
-        addIfWorth(SolvingTechnique.XWing, indirectHintProducers, new Fisherman(2));
-        addIfWorth(SolvingTechnique.NakedTriplet, indirectHintProducers, new NakedSet(3));
-        addIfWorth(SolvingTechnique.NakedTripletGen, indirectHintProducers, new NakedSetGen(3));
-        addIfWorth(SolvingTechnique.HiddenTriplet, indirectHintProducers, new HiddenSet(3, false));
-		addIfWorth(SolvingTechnique.TurbotFish, indirectHintProducers, new TurbotFish());
-        addIfWorth(SolvingTechnique.Swordfish, indirectHintProducers, new Fisherman(3));
-        addIfWorth(SolvingTechnique.XYWing, indirectHintProducers, new XYWing(false));
-        addIfWorth(SolvingTechnique.XYZWing, indirectHintProducers, new XYWing(true));
-//        addIfWorth(SolvingTechnique.WWing, indirectHintProducers, new WWing());
-        addIfWorth(SolvingTechnique.UniqueLoop, indirectHintProducers, new UniqueLoops());
-        addIfWorth(SolvingTechnique.NakedQuad, indirectHintProducers, new NakedSet(4));
-        addIfWorth(SolvingTechnique.NakedQuadGen, indirectHintProducers, new NakedSetGen(4));
-        addIfWorth(SolvingTechnique.Jellyfish, indirectHintProducers, new Fisherman(4));
-        addIfWorth(SolvingTechnique.HiddenQuad, indirectHintProducers, new HiddenSet(4, false));
-        addIfWorth(SolvingTechnique.ThreeStrongLinks, indirectHintProducers, new StrongLinks(3));
-        addIfWorth(SolvingTechnique.NakedQuintGen, indirectHintProducers, new NakedSetGen(5));
-		addIfWorth(SolvingTechnique.WXYZWing, indirectHintProducers, new WXYZWing());
-        addIfWorth(SolvingTechnique.BivalueUniversalGrave, indirectHintProducers, new BivalueUniversalGrave());
-        addIfWorth(SolvingTechnique.FourStrongLinks, indirectHintProducers, new StrongLinks(4));        
-        addIfWorth(SolvingTechnique.VWXYZWing, indirectHintProducers, new VWXYZWing());
-		addIfWorth(SolvingTechnique.AlignedPairExclusion, indirectHintProducers, new AlignedPairExclusion());
-        addIfWorth(SolvingTechnique.FiveStrongLinks, indirectHintProducers, new StrongLinks(5));        
-        addIfWorth(SolvingTechnique.NakedSextGen, indirectHintProducers, new NakedSetGen(6));
-        addIfWorth(SolvingTechnique.UVWXYZWing, indirectHintProducers, new UVWXYZWing());
-        addIfWorth(SolvingTechnique.SixStrongLinks, indirectHintProducers, new StrongLinks(6));        
-        chainingHintProducers = new ArrayList<IndirectHintProducer>();
-        addIfWorth(SolvingTechnique.ForcingChainCycle, chainingHintProducers, new Chaining(false, false, false, 0, false, 0));
-        addIfWorth(SolvingTechnique.TUVWXYZWing, chainingHintProducers, new TUVWXYZWing());
-		addIfWorth(SolvingTechnique.AlignedTripletExclusion, chainingHintProducers, new AlignedExclusion(3));
-        addIfWorth(SolvingTechnique.NishioForcingChain, chainingHintProducers, new Chaining(false, true, true, 0, false, 0));
-        addIfWorth(SolvingTechnique.MultipleForcingChain, chainingHintProducers, new Chaining(true, false, false, 0, false, 0));
-        addIfWorth(SolvingTechnique.DynamicForcingChain, chainingHintProducers, new Chaining(true, true, false, 0, false, 0));
-        chainingHintProducers2 = new ArrayList<IndirectHintProducer>();
-        addIfWorth(SolvingTechnique.DynamicForcingChainPlus, chainingHintProducers2, new Chaining(true, true, false, 1, false, 0));
-        // These are very slow. We add them only as "rescue"
-        advancedHintProducers = new ArrayList<IndirectHintProducer>();
-        addIfWorth(SolvingTechnique.NestedForcingChain, advancedHintProducers, new Chaining(true, true, false, 2, false, 0));
-        addIfWorth(SolvingTechnique.NestedForcingChain, advancedHintProducers, new Chaining(true, true, false, 3, false, 0));
-        experimentalHintProducers = new ArrayList<IndirectHintProducer>(); // Two levels of nesting !?
-        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 0));
-        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 1));
-        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 2));
-        //addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 5));
-        //addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 6));
-}
-else {
-        addIfWorth(SolvingTechnique.HiddenSingle, directHintProducers, new HiddenSingle());
-        if (Settings.getInstance().isBlocks())
-			addIfWorth(SolvingTechnique.DirectPointing, directHintProducers, new Locking(true));
-        addIfWorth(SolvingTechnique.DirectHiddenPair, directHintProducers, new HiddenSet(2, true));
-        addIfWorth(SolvingTechnique.NakedSingle, directHintProducers, new NakedSingle());
-		if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2) {
-			addIfWorth(SolvingTechnique.forcingCellNC, directHintProducers, new forcingCellNC());
-			addIfWorth(SolvingTechnique.lockedNC, directHintProducers, new lockedNC());
-		}
-		if (Settings.getInstance().whichNC() == 3 || Settings.getInstance().whichNC() == 4) {
-			addIfWorth(SolvingTechnique.forcingCellFNC, directHintProducers, new forcingCellFNC());
-			addIfWorth(SolvingTechnique.lockedFNC, directHintProducers, new lockedFNC());
-		}
-       addIfWorth(SolvingTechnique.DirectHiddenTriplet, directHintProducers, new HiddenSet(3, true));
-        indirectHintProducers = new ArrayList<IndirectHintProducer>();
-        if (Settings.getInstance().isBlocks())
-			addIfWorth(SolvingTechnique.PointingClaiming, indirectHintProducers, new Locking(false));
-		addIfWorth(SolvingTechnique.VLocking, indirectHintProducers, new VLocking());
-        addIfWorth(SolvingTechnique.NakedPair, indirectHintProducers, new NakedSet(2));
-        addIfWorth(SolvingTechnique.NakedPairGen, indirectHintProducers, new NakedSetGen(2));
-        addIfWorth(SolvingTechnique.XWing, indirectHintProducers, new Fisherman(2));
-        addIfWorth(SolvingTechnique.HiddenPair, indirectHintProducers, new HiddenSet(2, false));
-        addIfWorth(SolvingTechnique.NakedTriplet, indirectHintProducers, new NakedSet(3));
-        addIfWorth(SolvingTechnique.NakedTripletGen, indirectHintProducers, new NakedSetGen(3));
-        addIfWorth(SolvingTechnique.Swordfish, indirectHintProducers, new Fisherman(3));
-        addIfWorth(SolvingTechnique.HiddenTriplet, indirectHintProducers, new HiddenSet(3, false));
-		//addIfWorth(SolvingTechnique.TurbotFish, indirectHintProducers, new TurbotFish());
-        //The following is equivalent to TurbotFish()
-		addIfWorth(SolvingTechnique.TurbotFish, indirectHintProducers, new StrongLinks(2));
-        addIfWorth(SolvingTechnique.XYWing, indirectHintProducers, new XYWing(false));
-        addIfWorth(SolvingTechnique.XYZWing, indirectHintProducers, new XYWing(true));
-//        addIfWorth(SolvingTechnique.WWing, indirectHintProducers, new WWing());
-        addIfWorth(SolvingTechnique.UniqueLoop, indirectHintProducers, new UniqueLoops());
-        addIfWorth(SolvingTechnique.NakedQuad, indirectHintProducers, new NakedSet(4));
-        addIfWorth(SolvingTechnique.NakedQuadGen, indirectHintProducers, new NakedSetGen(4));
-        addIfWorth(SolvingTechnique.Jellyfish, indirectHintProducers, new Fisherman(4));
-        addIfWorth(SolvingTechnique.HiddenQuad, indirectHintProducers, new HiddenSet(4, false));
-        addIfWorth(SolvingTechnique.ThreeStrongLinks, indirectHintProducers, new StrongLinks(3));
-        addIfWorth(SolvingTechnique.NakedQuintGen, indirectHintProducers, new NakedSetGen(5));
-		addIfWorth(SolvingTechnique.WXYZWing, indirectHintProducers, new WXYZWing());
-        addIfWorth(SolvingTechnique.BivalueUniversalGrave, indirectHintProducers, new BivalueUniversalGrave());
-        addIfWorth(SolvingTechnique.FourStrongLinks, indirectHintProducers, new StrongLinks(4));        
-        addIfWorth(SolvingTechnique.VWXYZWing, indirectHintProducers, new VWXYZWing());
-		addIfWorth(SolvingTechnique.AlignedPairExclusion, indirectHintProducers, new AlignedPairExclusion());
-        addIfWorth(SolvingTechnique.FiveStrongLinks, indirectHintProducers, new StrongLinks(5));        
-        addIfWorth(SolvingTechnique.NakedSextGen, indirectHintProducers, new NakedSetGen(6));
-        addIfWorth(SolvingTechnique.UVWXYZWing, indirectHintProducers, new UVWXYZWing());
-        addIfWorth(SolvingTechnique.SixStrongLinks, indirectHintProducers, new StrongLinks(6));        
-        chainingHintProducers = new ArrayList<IndirectHintProducer>();
-        addIfWorth(SolvingTechnique.ForcingChainCycle, chainingHintProducers, new Chaining(false, false, false, 0, false, 0));
-        addIfWorth(SolvingTechnique.TUVWXYZWing, chainingHintProducers, new TUVWXYZWing());
-        addIfWorth(SolvingTechnique.AlignedTripletExclusion, chainingHintProducers, new AlignedExclusion(3));
-        addIfWorth(SolvingTechnique.NishioForcingChain, chainingHintProducers, new Chaining(false, true, true, 0, false, 0));
-        addIfWorth(SolvingTechnique.MultipleForcingChain, chainingHintProducers, new Chaining(true, false, false, 0, false, 0));
-        addIfWorth(SolvingTechnique.DynamicForcingChain, chainingHintProducers, new Chaining(true, true, false, 0, false, 0));
-        chainingHintProducers2 = new ArrayList<IndirectHintProducer>();
-        addIfWorth(SolvingTechnique.DynamicForcingChainPlus, chainingHintProducers2, new Chaining(true, true, false, 1, false, 0));
-        // These are very slow. We add them only as "rescue"
-        advancedHintProducers = new ArrayList<IndirectHintProducer>();
-        addIfWorth(SolvingTechnique.NestedForcingChain, advancedHintProducers, new Chaining(true, true, false, 2, false, 0));
-        addIfWorth(SolvingTechnique.NestedForcingChain, advancedHintProducers, new Chaining(true, true, false, 3, false, 0));
-        experimentalHintProducers = new ArrayList<IndirectHintProducer>(); // Two levels of nesting !?
-        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 0));
-        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 1));
-        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 2));
-        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 3)); //MD: highly experimental
-        //addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 5));
-        //addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 6));
-}
+        this.config = session.getConfig();
+        this.directHintProducers = session.directHintProducers;
+        this.indirectHintProducers = session.indirectHintProducers;
+        this.validatorHintProducers = session.validatorHintProducers;
+        this.warningHintProducers = session.warningHintProducers;
+        this.chainingHintProducers = session.chainingHintProducers;
+        this.chainingHintProducers2 = session.chainingHintProducers2;
+        this.advancedHintProducers = session.advancedHintProducers;
+        this.experimentalHintProducers = session.experimentalHintProducers;
+        this.transpositionTable = session.getTranspositionTable();
+        this.cancellationToken = session.getCancellationToken();
+        this.isNakedSingleFirst = isNakedSingleFirst(directHintProducers);
 	}
 
+    /**
+     * Get whether the producers tried before the naked singles only find
+     * hints rated below them: the hidden singles, and the direct pointing,
+     * claiming and hidden pairs (1.7 to 2.0) of the original rating.
+     */
+    private static boolean isNakedSingleFirst(List<HintProducer> producers) {
+        for (HintProducer producer : producers) {
+            if (producer instanceof NakedSingle)
+                return true;
+            if (!(producer instanceof HiddenSingle || producer instanceof Locking || producer instanceof HiddenSet))
+                return false;
+        }
+        return false;
+    }
+
+    /**
+     * Get the token that stops the current rating when cancelled,
+     * possibly from another thread
+     */
+    public CancellationToken getCancellationToken() {
+        return this.cancellationToken;
+    }
+
+    /**
+     * Set the time the rating of a puzzle may take. Once it is exceeded, the
+     * rating stops with {@link #timedOut} set, and {@link #difficulty} is
+     * the highest rating found so far, a lower bound of the actual one.
+     * @param timeLimit the time limit in milliseconds, or 0 for none
+     */
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    /**
+     * Set the number of solving steps the rating of a puzzle may take,
+     * in the same way as {@link #setTimeLimit(long)}
+     * @param stepLimit the maximal number of steps, or 0 for none
+     */
+    public void setStepLimit(int stepLimit) {
+        this.stepLimit = stepLimit;
+    }
+
+    /**
+     * Stop the rating as soon as the difficulty reaches the given one. The
+     * rating then stops with {@link #stoppedAbove} set, and {@link #difficulty}
+     * is the highest rating found so far.
+     * @param stopAbove the difficulty, or 0 for none
+     */
+    public void setStopAbove(double stopAbove) {
+        this.stopAbove = stopAbove;
+    }
+
+    /**
+     * Stop the rating as soon as it is known to stay below the given
+     * difficulty, that is when the rest of the grid can be solved with
+     * naked singles. The rating then stops with {@link #stoppedBelow} set.
+     * @param stopBelow the difficulty, or 0 for none
+     */
+    public void setStopBelow(double stopBelow) {
+        this.stopBelow = stopBelow;
+    }
+
+    /**
+     * Get whether the rating can stop before the grid is solved, as set by
+     * {@link #setStopAbove(double)} and {@link #setStopBelow(double)}
+     */
+    private boolean isRatingKnown() {
+        if (grid.isSolved())
+            return false;
+        if (stopAbove > 0.0 && difficulty >= stopAbove) {
+            stoppedAbove = true;
+            return true;
+        }
+        if (stopBelow > 0.0 && Math.max(difficulty, NAKED_SINGLE_DIFFICULTY) < stopBelow
+                && isNakedSingleFirst && isSolvedByNakedSingles()) {
+            stoppedBelow = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Get whether a copy of the grid is solved by placing naked singles only.
+     * A naked single then remains after any step, so that the solver only
+     * takes steps rated up to the naked single until the grid is solved.
+     */
+    private boolean isSolvedByNakedSingles() {
+        Grid copy = GridPool.getInstance().acquire(grid);
+        try {
+            boolean isPlaced = true;
+            while (isPlaced) {
+                isPlaced = false;
+                for (int i = 0; i < 81; i++) {
+                    if (copy.getCellValue(i) != 0)
+                        continue;
+                    int mask = copy.getCellPotentialMask(i);
+                    if (mask == 0)
+                        return false;
+                    if (Integer.bitCount(mask) == 1) {
+                        copy.place(i, Integer.numberOfTrailingZeros(mask));
+                        isPlaced = true;
+                    }
+                }
+            }
+            return copy.isSolved();
+        } finally {
+            GridPool.getInstance().release(copy);
+        }
+    }
+
     /**
      * Rebuild, for each empty cell, the set of potential values.
      */
     public void rebuildPotentialValues() {
+        rebuildPotentialValues(grid);
+    }
+
+    /**
+     * Rebuild, for each empty cell of the given grid, the set of potential values,
+     * without building the hint producers of a solver.
+     */
+    public static void rebuildPotentialValues(Grid grid) {
         for (int i = 0; i < 81; i++) {
             if (grid.getCellValue(i) == 0) {
                 for (int value = 1; value <= 9; value++)
                 	grid.addCellPotentialValue(i, value);
             }
         }
-        cancelPotentialValues();
+        cancelPotentialValues(grid);
     }
 
 //@SudokuMonster: Changes to allow for FP (NC)    
@@ -300,54 +338,14 @@ else {
      * Can be invoked after a new cell gets a value.
      */
     public void cancelPotentialValues() {
+        cancelPotentialValues(grid);
+    }
+
+    private static void cancelPotentialValues(Grid grid) {
         for(int i = 0; i < 81; i++) {
         	int value = grid.getCellValue(i);
-			int j = 0;
             if(value == 0) continue;
-        	grid.clearCellPotentialValues(i);
-        	for(int visible : Grid.visibleCellIndex[i]) {
-        		grid.removeCellPotentialValue(visible, value);
-        	}
-			if (Settings.getInstance().isForbiddenPairs()){
-				int statusNC = Settings.getInstance().whichNC();
-				if (statusNC > 0)
-					if(Settings.getInstance().isToroidal()) {
-						if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-							j = Grid.wazirCellsToroidal[i].length;
-						else
-							j = Grid.ferzCellsToroidal[i].length;
-						for(int k = 0; k < j; k++) {
-							if (statusNC == 2 || statusNC == 4 || value < 9)
-								if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-									grid.removeCellPotentialValue(Grid.wazirCellsToroidal[i][k], value == 9 ? 1 : value + 1);
-								else
-									grid.removeCellPotentialValue(Grid.ferzCellsToroidal[i][k], value == 9 ? 1 : value + 1);
-							if (statusNC == 2 || statusNC == 4 || value > 1)
-								if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-									grid.removeCellPotentialValue(Grid.wazirCellsToroidal[i][k], value == 1 ? 9 : value - 1);
-								else
-									grid.removeCellPotentialValue(Grid.ferzCellsToroidal[i][k], value == 1 ? 9 : value - 1);
-						}
-					}
-					else {
-						if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-							j = Grid.wazirCellsRegular[i].length;
-						else
-							j = Grid.ferzCellsRegular[i].length;						
-						for(int k = 0; k < j; k++) {
-							if (statusNC == 2 || statusNC == 4 || value < 9)
-								if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-									grid.removeCellPotentialValue(Grid.wazirCellsRegular[i][k], value == 9 ? 1 : value + 1);
-								else
-									grid.removeCellPotentialValue(Grid.ferzCellsRegular[i][k], value == 9 ? 1 : value + 1);
-							if (statusNC == 2 || statusNC == 4 || value > 1)
-								if (Settings.getInstance().whichNC() == 1 || Settings.getInstance().whichNC() == 2)
-									grid.removeCellPotentialValue(Grid.wazirCellsRegular[i][k], value == 1 ? 9 : value - 1);
-								else
-									grid.removeCellPotentialValue(Grid.ferzCellsRegular[i][k], value == 1 ? 9 : value - 1);
-						}				
-					}
-			}
+            grid.place(i, value);
         }
     }
 
@@ -647,6 +645,26 @@ else {
     }
         
     private Hint getSingleHint() {
+        if (transpositionTable != null) {
+            List<Hint> hints = transpositionTable.get(grid, 0);
+            if (hints == null) {
+                Hint hint = searchSingleHint();
+                if (hint == null)
+                    hints = Collections.emptyList();
+                else
+                    hints = Collections.singletonList(hint);
+                transpositionTable.put(grid, 0, hints);
+            }
+            return hints.isEmpty() ? null : hints.get(0);
+        }
+        return searchSingleHint();
+    }
+
+    private Hint searchSingleHint() {
+        if (config.isSpeculative()) {
+            List<Hint> hints = searchSpeculatively(false);
+            return hints.isEmpty() ? null : hints.get(0);
+        }
         SingleHintAccumulator accu = new SingleHintAccumulator();
         try {
             for (HintProducer producer : directHintProducers)
@@ -666,8 +684,7 @@ else {
     }
 
     public void getDifficulty(serate.Formatter formatter) {
-        Grid backup = new Grid();
-        grid.copyTo(backup);
+        Grid backup = GridPool.getInstance().acquire(grid);
 		boolean logStep = Settings.getInstance().isLog();
 		PrintWriter logWriter = Settings.getInstance().getLogWriter();
 		int stepCount = 0;
@@ -681,11 +698,14 @@ else {
 			shortERtN ="O";
 			shortEPtN ="O";
 			shortEDtN ="O";			
+			timedOut = stoppedAbove = stoppedBelow = false;
+			cancellationToken.start(timeLimit, stepLimit);
         	formatter.beforePuzzle(this);
             while (!grid.isSolved()) {
             	formatter.beforeHint(this);
             	Hint hint = null;
             	try {
+            		cancellationToken.checkCancelled();
             		hint = getSingleHint();
             		if(hint != null) {
 		                assert hint instanceof Rule;
@@ -711,6 +731,10 @@ else {
 					ERtN = EPtN = EDtN = "No solution";
 					shortERtN = shortEPtN = shortEDtN = "O";
                 }
+                catch (SolverCancelledException ex) {
+                    timedOut = true;
+                    break;
+                }
                 if (hint == null) {
                     difficulty = 20.0;
 					ERtN = "Beyond solver";
@@ -718,6 +742,7 @@ else {
                     break;
                 }
                 hint.apply(grid);
+                cancellationToken.countStep();
             	formatter.afterHint(this, hint);
                 if (pearl == 0.0) {
                     if (diamond == 0.0){
@@ -743,16 +768,18 @@ else {
 					shortERtN = "xx";
                     break;
                 }
+                if (isRatingKnown())
+                    break;
             }
         	formatter.afterPuzzle(this);
         } finally {
             backup.copyTo(grid);
+            GridPool.getInstance().release(backup);
         }
     }
 
     public void getDifficulty() {
-        Grid backup = new Grid();
-        grid.copyTo(backup);
+        Grid backup = GridPool.getInstance().acquire(grid);
 		boolean logStep = Settings.getInstance().isLog();
 		PrintWriter logWriter = Settings.getInstance().getLogWriter();
 		int stepCount = 0;
@@ -766,9 +793,12 @@ else {
 			shortERtN ="O";
 			shortEPtN ="O";
 			shortEDtN ="O";			
+			timedOut = stoppedAbove = stoppedBelow = false;
+			cancellationToken.start(timeLimit, stepLimit);
             while (!grid.isSolved()) {
             	Hint hint = null;
             	try {
+            		cancellationToken.checkCancelled();
             		hint = getSingleHint();
             		if(hint != null) {
 		                assert hint instanceof Rule;
@@ -794,6 +824,10 @@ else {
 					ERtN = EPtN = EDtN = "No solution";
 					shortERtN = shortEPtN = shortEDtN = "O";
                 }
+                catch (SolverCancelledException ex) {
+                    timedOut = true;
+                    break;
+                }
                 if (hint == null) {
                     difficulty = 20.0;
 					ERtN = "Beyond solver";
@@ -801,6 +835,7 @@ else {
                     break;
                 }
                 hint.apply(grid);
+                cancellationToken.countStep();
                 if (pearl == 0.0) {
                     if (diamond == 0.0){
                         diamond = difficulty;
@@ -825,15 +860,17 @@ else {
 					shortERtN = "xx";
                     break;
                 }
+                if (isRatingKnown())
+                    break;
             }
         } finally {
             backup.copyTo(grid);
+            GridPool.getInstance().release(backup);
         }
     }
 
     public void getHintsHint() {
-        Grid backup = new Grid();
-        grid.copyTo(backup);
+        Grid backup = GridPool.getInstance().acquire(grid);
         try {
             difficulty = 0;
             pearl = 0.0;
@@ -919,14 +956,231 @@ else {
             }
         } finally {
             backup.copyTo(grid);
+            GridPool.getInstance().release(backup);
+        }
+    }
+
+    /**
+     * Get the hints of the lowest rating, as applied together by the batch modes
+     */
+    private List<Hint> getSmallestHints() {
+        // the hints of the second batch mode also depend on the current difficulty
+        long context = config.batchSolving() == 2 ? Double.doubleToLongBits(difficulty) * 4 + 2 : 1;
+        if (transpositionTable != null) {
+            List<Hint> hints = transpositionTable.get(grid, context);
+            if (hints != null)
+                return hints;
+        }
+        List<Hint> result;
+        if (config.isSpeculative()) {
+            result = searchSpeculatively(true);
+        } else {
+            result = new ArrayList<Hint>();
+            SmallestHintsAccumulator accu = new SmallestHintsAccumulator(result);
+            try {
+                if (!gatherSmallestHints(directHintProducers, grid, accu, result)
+                        && !gatherSmallestHints(indirectHintProducers, grid, accu, result)
+                        && !gatherSmallestHints(chainingHintProducers, grid, accu, result)
+                        && !gatherSmallestHints(chainingHintProducers2, grid, accu, result)
+                        && !gatherSmallestHints(advancedHintProducers, grid, accu, result))
+                    gatherSmallestHints(experimentalHintProducers, grid, accu, result);
+            }
+            catch (InterruptedException willHappen) {}
+        }
+        if (transpositionTable != null)
+            transpositionTable.put(grid, context, result);
+        return result;
+    }
+
+    /**
+     * Get the threads of the speculative search, shared by all the solvers.
+     * There is one per core whatever the number of solvers; the tiers wait in
+     * the queue when all are busy, and the calling thread takes back those
+     * not started when it needs them, see {@link #searchSpeculatively(boolean)}.
+     * They are daemon threads that end once idle for a while.
+     */
+    private static synchronized ExecutorService getSpeculativeExecutor() {
+        if (speculativeExecutor == null) {
+            int numThreads = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads,
+                    60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Speculative search");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            speculativeExecutor = executor;
+        }
+        return speculativeExecutor;
+    }
+
+    /**
+     * Get the hints of the first producer of the list that finds any
+     * @param producers the producers, in the order of the solver
+     * @param grid the grid to search
+     * @param isBatch whether to gather the hints of the lowest rating as
+     * {@link #getSmallestHints()}, or only the first hint
+     * @return the hints, empty if none was found
+     */
+    private List<Hint> searchTier(List<? extends HintProducer> producers, Grid grid, boolean isBatch) {
+        if (isBatch) {
+            List<Hint> result = new ArrayList<Hint>();
+            try {
+                gatherSmallestHints(producers, grid, new SmallestHintsAccumulator(result), result);
+            } catch (InterruptedException willHappen) {}
+            return result;
+        }
+        SingleHintAccumulator accu = new SingleHintAccumulator();
+        try {
+            for (HintProducer producer : producers)
+                producer.getHints(grid, accu);
+        } catch (InterruptedException willHappen) {}
+        Hint hint = accu.getHint();
+        if (hint == null)
+            return Collections.emptyList();
+        return Collections.singletonList(hint);
+    }
+
+    /**
+     * Search the hints as the sequential search does, but start the
+     * chaining and advanced tiers on copies of the grid in other threads
+     * while the cheap tiers run in this one.
+     * <p>
+     * The result of a tier is only used if all the tiers before it found
+     * nothing, so that the hints, and then the ratings, are the same as
+     * in sequential mode. The tiers that are not needed are cancelled, and
+     * all of them are done when this method returns, as their producers are
+     * used again for the next step.
+     * <p>
+     * The hard steps come in a row: the tiers are only started in advance
+     * when the previous step needed them, and run in this thread otherwise.
+     * A tier still waiting for a thread of the pool when it is needed is
+     * taken back and run in this thread, so that the search never waits for
+     * the tiers of other solvers.
+     */
+    private List<Hint> searchSpeculatively(final boolean isBatch) {
+        List<List<IndirectHintProducer>> tiers = new ArrayList<List<IndirectHintProducer>>();
+        tiers.add(chainingHintProducers);
+        tiers.add(chainingHintProducers2);
+        tiers.add(advancedHintProducers);
+        GridPool pool = GridPool.getInstance();
+        List<List<IndirectHintProducer>> startedTiers = new ArrayList<List<IndirectHintProducer>>();
+        List<Future<List<Hint>>> futures = new ArrayList<Future<List<Hint>>>();
+        // Set by the first of the pool thread and this thread to take the tier
+        List<AtomicBoolean> claims = new ArrayList<AtomicBoolean>();
+        boolean[] isTakenBack = new boolean[tiers.size()];
+        List<CancellationToken> tokens = new ArrayList<CancellationToken>();
+        List<Grid> copies = new ArrayList<Grid>();
+        try {
+            for (final List<IndirectHintProducer> tier : tiers) {
+                if (tier.isEmpty() || !isChainingNeeded)
+                    continue;
+                // A cancelled rating also cancels the tiers
+                CancellationToken token = new CancellationToken(cancellationToken);
+                setCancellationToken(tier, token);
+                tokens.add(token);
+                final Grid copy = pool.acquire(grid);
+                copies.add(copy);
+                final AtomicBoolean claim = new AtomicBoolean(false);
+                claims.add(claim);
+                startedTiers.add(tier);
+                futures.add(getSpeculativeExecutor().submit(new Callable<List<Hint>>() {
+                    public List<Hint> call() {
+                        if (!claim.compareAndSet(false, true))
+                            return null; // taken back by the solver
+                        try {
+                            return searchTier(tier, copy, isBatch);
+                        } catch (SolverCancelledException ex) {
+                            return null;
+                        }
+                    }
+                }));
+            }
+            List<Hint> result = searchTier(directHintProducers, grid, isBatch);
+            if (result.isEmpty())
+                result = searchTier(indirectHintProducers, grid, isBatch);
+            isChainingNeeded = result.isEmpty();
+            if (futures.isEmpty()) {
+                for (int i = 0; i < tiers.size() && result.isEmpty(); i++)
+                    result = searchTier(tiers.get(i), grid, isBatch);
+            }
+            for (int i = 0; i < futures.size() && result.isEmpty(); i++) {
+                isTakenBack[i] = claims.get(i).compareAndSet(false, true);
+                if (isTakenBack[i])
+                    result = searchTier(startedTiers.get(i), grid, isBatch); // not started yet
+                else
+                    result = getSpeculativeResult(futures.get(i));
+            }
+            if (result.isEmpty())
+                result = searchTier(experimentalHintProducers, grid, isBatch);
+            return result;
+        } finally {
+            for (CancellationToken token : tokens)
+                token.cancel();
+            for (int i = 0; i < futures.size(); i++) {
+                // The tiers no pool thread took never will, don't wait for their turn
+                if (isTakenBack[i] || claims.get(i).compareAndSet(false, true))
+                    futures.get(i).cancel(false);
+                else
+                    awaitQuietly(futures.get(i));
+            }
+            for (List<IndirectHintProducer> tier : tiers)
+                setCancellationToken(tier, cancellationToken);
+            for (Grid copy : copies)
+                pool.release(copy);
+        }
+    }
+
+    private List<Hint> getSpeculativeResult(Future<List<Hint>> future) {
+        List<Hint> result;
+        try {
+            result = future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            cancellationToken.cancel();
+            throw SolverCancelledException.INSTANCE;
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            if (cause instanceof Error)
+                throw (Error)cause;
+            throw new RuntimeException(cause);
+        }
+        if (result == null)
+            throw SolverCancelledException.INSTANCE; // the rating was cancelled
+        return result;
+    }
+
+    private static void awaitQuietly(Future<?> future) {
+        boolean isInterrupted = false;
+        for (;;) {
+            try {
+                future.get();
+                break;
+            } catch (InterruptedException ex) {
+                isInterrupted = true;
+            } catch (ExecutionException ex) {
+                break;
+            }
+        }
+        if (isInterrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private static void setCancellationToken(List<? extends HintProducer> producers, CancellationToken token) {
+        for (HintProducer producer : producers) {
+            if (producer instanceof CancellableHintProducer)
+                ((CancellableHintProducer)producer).setCancellationToken(token);
         }
     }
 
 	// lksudoku added batch rating ability
 	// apply all concurrent moves of lowest rating
     public void getBatchDifficulty(serate.Formatter formatter) {
-        Grid backup = new Grid();
-        grid.copyTo(backup);
+        Grid backup = GridPool.getInstance().acquire(grid);
 		boolean logStep = Settings.getInstance().isLog();
 		PrintWriter logWriter = Settings.getInstance().getLogWriter();
 		int batchCount = 0;
@@ -940,50 +1194,20 @@ else {
 			shortERtN ="O";
 			shortEPtN ="O";
 			shortEDtN ="O";			
+			timedOut = stoppedAbove = stoppedBelow = false;
+			cancellationToken.start(timeLimit, stepLimit);
             formatter.beforePuzzle(this);
 			while (!grid.isSolved()) {
 				formatter.beforeHint(this);
-				List<Hint> result = new ArrayList<Hint>();
-				SmallestHintsAccumulator accu = new SmallestHintsAccumulator(result);
-                try {
-                    for (HintProducer producer : directHintProducers) {
-                        producer.getHints(grid, accu);
-						if (!result.isEmpty()) {
-							throw new InterruptedException();
-						}
-                    }
-                    for (IndirectHintProducer producer : indirectHintProducers) {
-                        producer.getHints(grid, accu);
-						if (!result.isEmpty()) {
-							throw new InterruptedException();
-						}
-                    }
-                    for (IndirectHintProducer producer : chainingHintProducers) {
-                        producer.getHints(grid, accu);
-						if (!result.isEmpty()) {
-							throw new InterruptedException();
-						}
-                    }
-                    for (IndirectHintProducer producer : chainingHintProducers2) {
-                        producer.getHints(grid, accu);
-						if (!result.isEmpty()) {
-							throw new InterruptedException();
-						}
-                    }
-                    for (IndirectHintProducer producer : advancedHintProducers) {
-                        producer.getHints(grid, accu);
-						if (!result.isEmpty()) {
-							throw new InterruptedException();
-						}
-                    }
-                    for (IndirectHintProducer producer : experimentalHintProducers) {
-                        producer.getHints(grid, accu);
-						if (!result.isEmpty()) {
-							throw new InterruptedException();
-						}
-                    }
-                }
-				catch (InterruptedException willHappen) {}				
+				List<Hint> result;
+				try {
+					cancellationToken.checkCancelled();
+					result = getSmallestHints();
+				}
+				catch (SolverCancelledException ex) {
+					timedOut = true;
+					break;
+				}
                 if (result.isEmpty()) {
                     difficulty = 20.0;
 					ERtN = "Beyond solver";
@@ -1015,6 +1239,7 @@ else {
 							shortERtN = ruleNameShort;
 					}
 	                hint.apply(grid);
+	                cancellationToken.countStep();
 					formatter.afterHint(this, hint);
 					if (pearl == 0.0) {
 						if (diamond == 0.0){
@@ -1044,11 +1269,14 @@ else {
 				if ( difficulty == 20.0 ) {
 					break;
 				}
+				if (isRatingKnown())
+					break;
            	}
 			formatter.afterPuzzle(this);
 		}
 		finally {
             backup.copyTo(grid);
+            GridPool.getInstance().release(backup);
         }
     }
 
@@ -1067,8 +1295,7 @@ else {
     }
 
     public Hint analyse(Asker asker) {
-        Grid copy = new Grid();
-        grid.copyTo(copy);
+        Grid copy = GridPool.getInstance().acquire(grid);
         try {
             SingleHintAccumulator accu = new SingleHintAccumulator();
             try {
@@ -1082,6 +1309,7 @@ else {
             return accu.getHint();
         } finally {
             copy.copyTo(grid);
+            GridPool.getInstance().release(copy);
         }
     }
 
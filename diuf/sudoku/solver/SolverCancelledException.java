@@ -0,0 +1,35 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku.solver;
+
+/**
+ * The exception thrown by a hint producer whose {@link CancellationToken}
+ * has been cancelled or has run out of time.
+ * <p>
+ * It is unchecked, so that it can leave the deepest loops of the chaining
+ * engines, which do not declare any exception, up to the {@link Solver}.
+ * Like {@link StopHintsException}, a single instance without stack trace
+ * is thrown.
+ */
+public final class SolverCancelledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The instance to throw
+     */
+    public static final SolverCancelledException INSTANCE = new SolverCancelledException();
+
+    private SolverCancelledException() {
+        super("Rating cancelled");
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+}
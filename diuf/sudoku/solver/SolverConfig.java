@@ -0,0 +1,175 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku.solver;
+
+import java.util.*;
+
+import diuf.sudoku.*;
+
+/**
+ * Immutable copy of the settings used by a {@link Solver} and its hint producers.
+ * <p>
+ * It is taken once when the solver is created and handed to the producers,
+ * so that the solving loops do not read the global {@link Settings}, and so
+ * that solvers with different techniques, ratings or variants can run at
+ * the same time. The accessors have the names of the {@link Settings} ones.
+ * Changing the settings afterwards does not affect an existing solver.
+ * @see Solver#getConfig()
+ */
+public final class SolverConfig {
+
+	private final Topology topology;
+	private final boolean isVanilla;
+	private final boolean isVLatin;
+	private final boolean isForbiddenPairs;
+	private final int whichNC;
+	private final int revisedRating;
+	private final int FCPlus;
+	private final int batchSolving;
+	private final boolean islkSudokuBUG;
+	private final boolean islkSudokuURUL;
+	private final int numThreads;
+	private final boolean isSpeculative;
+	private final Set<SolvingTechnique> techniques;
+	public final String variantString;
+
+	/**
+	 * Copy the given settings
+	 * @param settings the settings, usually {@link Settings#getInstance()}
+	 */
+	public SolverConfig(Settings settings) {
+		topology = Topology.get(settings);
+		isVanilla = settings.isVanilla();
+		isVLatin = settings.isVLatin();
+		isForbiddenPairs = settings.isForbiddenPairs();
+		whichNC = settings.whichNC();
+		revisedRating = settings.revisedRating();
+		FCPlus = settings.FCPlus();
+		batchSolving = settings.batchSolving();
+		islkSudokuBUG = settings.islkSudokuBUG();
+		islkSudokuURUL = settings.islkSudokuURUL();
+		int threads = settings.getNumThreads();
+		if (threads == 0)
+			threads = Runtime.getRuntime().availableProcessors(); // 0 is auto, as in serate --threads
+		numThreads = Math.max(threads, 1);
+		isSpeculative = settings.isSpeculative();
+		techniques = Collections.unmodifiableSet(settings.getTechniques());
+		variantString = settings.variantString;
+	}
+
+	/**
+	 * Get a copy of the current global settings
+	 */
+	public static SolverConfig fromSettings() {
+		return new SolverConfig(Settings.getInstance());
+	}
+
+	/**
+	 * Get the cell visibility tables of the variants
+	 */
+	public Topology getTopology() {
+		return topology;
+	}
+
+	public boolean isBlocks() {
+		return topology.isBlocks();
+	}
+
+	public boolean isDG() {
+		return topology.isDG();
+	}
+
+	public boolean isWindows() {
+		return topology.isWindows();
+	}
+
+	public boolean isX() {
+		return topology.isX();
+	}
+
+	public boolean isGirandola() {
+		return topology.isGirandola();
+	}
+
+	public boolean isAsterisk() {
+		return topology.isAsterisk();
+	}
+
+	public boolean isCD() {
+		return topology.isCD();
+	}
+
+	public boolean isAntiKnight() {
+		return topology.isAntiKnight();
+	}
+
+	public boolean isAntiFerz() {
+		return topology.isAntiFerz();
+	}
+
+	public boolean isToroidal() {
+		return topology.isToroidal();
+	}
+
+	public boolean isVanilla() {
+		return isVanilla;
+	}
+
+	public boolean isVLatin() {
+		return isVLatin;
+	}
+
+	public boolean isForbiddenPairs() {
+		return isForbiddenPairs;
+	}
+
+	public int whichNC() {
+		return whichNC;
+	}
+
+	public int revisedRating() {
+		return revisedRating;
+	}
+
+	public int FCPlus() {
+		return FCPlus;
+	}
+
+	public int batchSolving() {
+		return batchSolving;
+	}
+
+	public boolean islkSudokuBUG() {
+		return islkSudokuBUG;
+	}
+
+	public boolean islkSudokuURUL() {
+		return islkSudokuURUL;
+	}
+
+	/**
+	 * Get the number of threads of a search, at least 1
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
+	public boolean isSpeculative() {
+		return isSpeculative;
+	}
+
+	/**
+	 * Get the techniques to use, as an unmodifiable set
+	 */
+	public Set<SolvingTechnique> getTechniques() {
+		return techniques;
+	}
+
+	public boolean isUsingTechnique(SolvingTechnique technique) {
+		return techniques.contains(technique);
+	}
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku.solver;
+
+import java.util.*;
+
+import diuf.sudoku.*;
+import diuf.sudoku.solver.checks.*;
+import diuf.sudoku.solver.rules.*;
+import diuf.sudoku.solver.rules.chaining.*;
+import diuf.sudoku.solver.rules.unique.*;
+
+/**
+ * The hint producers of a {@link Solver}, built once for a given
+ * {@link SolverConfig} and shared by the solvers of successive grids.
+ * <p>
+ * Building the producers, in particular the chaining engines, costs more
+ * than solving an easy grid; a session avoids it when many grids are rated
+ * with the same settings. The producers keep scratch grids and caches,
+ * hence a session must not be used by two threads at the same time.
+ * @see Solver#Solver(Grid, SolverConfig)
+ */
+public final class SolverSession {
+
+    private final SolverConfig config;
+    final List<HintProducer> directHintProducers;
+    final List<IndirectHintProducer> indirectHintProducers;
+    final List<WarningHintProducer> validatorHintProducers;
+    final List<WarningHintProducer> warningHintProducers;
+    final List<IndirectHintProducer> chainingHintProducers;
+    final List<IndirectHintProducer> chainingHintProducers2;
+    final List<IndirectHintProducer> advancedHintProducers;
+    final List<IndirectHintProducer> experimentalHintProducers;
+    private TranspositionTable transpositionTable;
+    private final CancellationToken cancellationToken = new CancellationToken();
+
+    /**
+     * Build the hint producers selected by the given settings
+     * @param config the settings of the solvers of this session
+     */
+    public SolverSession(SolverConfig config) {
+        this.config = config;
+        // These rules are not really solving techs. They check the validity of the puzzle
+        validatorHintProducers = new ArrayList<WarningHintProducer>();
+        validatorHintProducers.add(new NoDoubles(config));
+        warningHintProducers = new ArrayList<WarningHintProducer>();
+        warningHintProducers.add(new NumberOfFilledCells());
+        warningHintProducers.add(new NumberOfValues());
+        warningHintProducers.add(new BruteForceAnalysis(false, config));
+        directHintProducers = new ArrayList<HintProducer>();
+if (config.revisedRating()==1) {
+        addIfWorth(SolvingTechnique.HiddenSingle, directHintProducers, new HiddenSingle(config));
+        addIfWorth(SolvingTechnique.NakedSingle, directHintProducers, new NakedSingle(config));
+		if (config.whichNC() == 1 || config.whichNC() == 2) {
+			addIfWorth(SolvingTechnique.forcingCellNC, directHintProducers, new forcingCellNC(config));
+			addIfWorth(SolvingTechnique.lockedNC, directHintProducers, new lockedNC(config));
+		}
+		if (config.whichNC() == 3 || config.whichNC() == 4) {
+			addIfWorth(SolvingTechnique.forcingCellFNC, directHintProducers, new forcingCellFNC(config));
+			addIfWorth(SolvingTechnique.lockedFNC, directHintProducers, new lockedFNC(config));
+		}
+        addIfWorth(SolvingTechnique.DirectPointing, directHintProducers, new Locking(true, config));
+        addIfWorth(SolvingTechnique.DirectHiddenPair, directHintProducers, new HiddenSet(2, true, config));
+        indirectHintProducers = new ArrayList<IndirectHintProducer>();
+        if (config.isBlocks())
+			addIfWorth(SolvingTechnique.PointingClaiming, indirectHintProducers, new Locking(false, config));
+		addIfWorth(SolvingTechnique.VLocking, indirectHintProducers, new VLocking(config));
+        addIfWorth(SolvingTechnique.HiddenPair, indirectHintProducers, new HiddenSet(2, false, config));
+        addIfWorth(SolvingTechnique.NakedPair, indirectHintProducers, new NakedSet(2, config));
+        addIfWorth(SolvingTechnique.NakedPairGen, indirectHintProducers, new NakedSetGen(2, config));
+        addIfWorth(SolvingTechnique.DirectHiddenPair, directHintProducers, new HiddenSet(3, true, config));
+        addIfWorth(SolvingTechnique.XWing, indirectHintProducers, new Fisherman(2, config));
+        addIfWorth(SolvingTechnique.NakedTriplet, indirectHintProducers, new NakedSet(3, config));
+        addIfWorth(SolvingTechnique.NakedTripletGen, indirectHintProducers, new NakedSetGen(3, config));
+        addIfWorth(SolvingTechnique.HiddenTriplet, indirectHintProducers, new HiddenSet(3, false, config));
+		addIfWorth(SolvingTechnique.TurbotFish, indirectHintProducers, new TurbotFish(config));
+        addIfWorth(SolvingTechnique.Swordfish, indirectHintProducers, new Fisherman(3, config));
+        addIfWorth(SolvingTechnique.XYWing, indirectHintProducers, new XYWing(false));
+        addIfWorth(SolvingTechnique.XYZWing, indirectHintProducers, new XYWing(true));
+//        addIfWorth(SolvingTechnique.WWing, indirectHintProducers, new WWing());
+        addIfWorth(SolvingTechnique.UniqueLoop, indirectHintProducers, new UniqueLoops(config));
+        addIfWorth(SolvingTechnique.NakedQuad, indirectHintProducers, new NakedSet(4, config));
+        addIfWorth(SolvingTechnique.NakedQuadGen, indirectHintProducers, new NakedSetGen(4, config));
+        addIfWorth(SolvingTechnique.Jellyfish, indirectHintProducers, new Fisherman(4, config));
+        addIfWorth(SolvingTechnique.HiddenQuad, indirectHintProducers, new HiddenSet(4, false, config));
+        addIfWorth(SolvingTechnique.ThreeStrongLinks, indirectHintProducers, new StrongLinks(3, config));
+        addIfWorth(SolvingTechnique.NakedQuintGen, indirectHintProducers, new NakedSetGen(5, config));
+		addIfWorth(SolvingTechnique.WXYZWing, indirectHintProducers, new WXYZWing());
+        addIfWorth(SolvingTechnique.BivalueUniversalGrave, indirectHintProducers, new BivalueUniversalGrave(config));
+        addIfWorth(SolvingTechnique.FourStrongLinks, indirectHintProducers, new StrongLinks(4, config));        
+        addIfWorth(SolvingTechnique.VWXYZWing, indirectHintProducers, new VWXYZWing());
+		addIfWorth(SolvingTechnique.AlignedPairExclusion, indirectHintProducers, new AlignedPairExclusion());
+        addIfWorth(SolvingTechnique.FiveStrongLinks, indirectHintProducers, new StrongLinks(5, config));        
+        addIfWorth(SolvingTechnique.NakedSextGen, indirectHintProducers, new NakedSetGen(6, config));
+        addIfWorth(SolvingTechnique.UVWXYZWing, indirectHintProducers, new UVWXYZWing());
+        addIfWorth(SolvingTechnique.SixStrongLinks, indirectHintProducers, new StrongLinks(6, config));        
+        chainingHintProducers = new ArrayList<IndirectHintProducer>();
+        addIfWorth(SolvingTechnique.ForcingChainCycle, chainingHintProducers, new Chaining(false, false, false, 0, false, 0, config));
+        addIfWorth(SolvingTechnique.TUVWXYZWing, chainingHintProducers, new TUVWXYZWing());
+		addIfWorth(SolvingTechnique.AlignedTripletExclusion, chainingHintProducers, new AlignedExclusion(3));
+        addIfWorth(SolvingTechnique.NishioForcingChain, chainingHintProducers, new Chaining(false, true, true, 0, false, 0, config));
+        addIfWorth(SolvingTechnique.MultipleForcingChain, chainingHintProducers, new Chaining(true, false, false, 0, false, 0, config));
+        addIfWorth(SolvingTechnique.DynamicForcingChain, chainingHintProducers, new Chaining(true, true, false, 0, false, 0, config));
+        chainingHintProducers2 = new ArrayList<IndirectHintProducer>();
+        addIfWorth(SolvingTechnique.DynamicForcingChainPlus, chainingHintProducers2, new Chaining(true, true, false, 1, false, 0, config));
+        // These are very slow. We add them only as "rescue"
+        advancedHintProducers = new ArrayList<IndirectHintProducer>();
+        addIfWorth(SolvingTechnique.NestedForcingChain, advancedHintProducers, new Chaining(true, true, false, 2, false, 0, config));
+        addIfWorth(SolvingTechnique.NestedForcingChain, advancedHintProducers, new Chaining(true, true, false, 3, false, 0, config));
+        experimentalHintProducers = new ArrayList<IndirectHintProducer>(); // Two levels of nesting !?
+        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 0, config));
+        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 1, config));
+        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 2, config));
+        //addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 5));
+        //addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 6));
+}
+else {
+        addIfWorth(SolvingTechnique.HiddenSingle, directHintProducers, new HiddenSingle(config));
+        if (config.isBlocks())
+			addIfWorth(SolvingTechnique.DirectPointing, directHintProducers, new Locking(true, config));
+        addIfWorth(SolvingTechnique.DirectHiddenPair, directHintProducers, new HiddenSet(2, true, config));
+        addIfWorth(SolvingTechnique.NakedSingle, directHintProducers, new NakedSingle(config));
+		if (config.whichNC() == 1 || config.whichNC() == 2) {
+			addIfWorth(SolvingTechnique.forcingCellNC, directHintProducers, new forcingCellNC(config));
+			addIfWorth(SolvingTechnique.lockedNC, directHintProducers, new lockedNC(config));
+		}
+		if (config.whichNC() == 3 || config.whichNC() == 4) {
+			addIfWorth(SolvingTechnique.forcingCellFNC, directHintProducers, new forcingCellFNC(config));
+			addIfWorth(SolvingTechnique.lockedFNC, directHintProducers, new lockedFNC(config));
+		}
+       addIfWorth(SolvingTechnique.DirectHiddenTriplet, directHintProducers, new HiddenSet(3, true, config));
+        indirectHintProducers = new ArrayList<IndirectHintProducer>();
+        if (config.isBlocks())
+			addIfWorth(SolvingTechnique.PointingClaiming, indirectHintProducers, new Locking(false, config));
+		addIfWorth(SolvingTechnique.VLocking, indirectHintProducers, new VLocking(config));
+        addIfWorth(SolvingTechnique.NakedPair, indirectHintProducers, new NakedSet(2, config));
+        addIfWorth(SolvingTechnique.NakedPairGen, indirectHintProducers, new NakedSetGen(2, config));
+        addIfWorth(SolvingTechnique.XWing, indirectHintProducers, new Fisherman(2, config));
+        addIfWorth(SolvingTechnique.HiddenPair, indirectHintProducers, new HiddenSet(2, false, config));
+        addIfWorth(SolvingTechnique.NakedTriplet, indirectHintProducers, new NakedSet(3, config));
+        addIfWorth(SolvingTechnique.NakedTripletGen, indirectHintProducers, new NakedSetGen(3, config));
+        addIfWorth(SolvingTechnique.Swordfish, indirectHintProducers, new Fisherman(3, config));
+        addIfWorth(SolvingTechnique.HiddenTriplet, indirectHintProducers, new HiddenSet(3, false, config));
+		//addIfWorth(SolvingTechnique.TurbotFish, indirectHintProducers, new TurbotFish());
+        //The following is equivalent to TurbotFish()
+		addIfWorth(SolvingTechnique.TurbotFish, indirectHintProducers, new StrongLinks(2, config));
+        addIfWorth(SolvingTechnique.XYWing, indirectHintProducers, new XYWing(false));
+        addIfWorth(SolvingTechnique.XYZWing, indirectHintProducers, new XYWing(true));
+//        addIfWorth(SolvingTechnique.WWing, indirectHintProducers, new WWing());
+        addIfWorth(SolvingTechnique.UniqueLoop, indirectHintProducers, new UniqueLoops(config));
+        addIfWorth(SolvingTechnique.NakedQuad, indirectHintProducers, new NakedSet(4, config));
+        addIfWorth(SolvingTechnique.NakedQuadGen, indirectHintProducers, new NakedSetGen(4, config));
+        addIfWorth(SolvingTechnique.Jellyfish, indirectHintProducers, new Fisherman(4, config));
+        addIfWorth(SolvingTechnique.HiddenQuad, indirectHintProducers, new HiddenSet(4, false, config));
+        addIfWorth(SolvingTechnique.ThreeStrongLinks, indirectHintProducers, new StrongLinks(3, config));
+        addIfWorth(SolvingTechnique.NakedQuintGen, indirectHintProducers, new NakedSetGen(5, config));
+		addIfWorth(SolvingTechnique.WXYZWing, indirectHintProducers, new WXYZWing());
+        addIfWorth(SolvingTechnique.BivalueUniversalGrave, indirectHintProducers, new BivalueUniversalGrave(config));
+        addIfWorth(SolvingTechnique.FourStrongLinks, indirectHintProducers, new StrongLinks(4, config));        
+        addIfWorth(SolvingTechnique.VWXYZWing, indirectHintProducers, new VWXYZWing());
+		addIfWorth(SolvingTechnique.AlignedPairExclusion, indirectHintProducers, new AlignedPairExclusion());
+        addIfWorth(SolvingTechnique.FiveStrongLinks, indirectHintProducers, new StrongLinks(5, config));        
+        addIfWorth(SolvingTechnique.NakedSextGen, indirectHintProducers, new NakedSetGen(6, config));
+        addIfWorth(SolvingTechnique.UVWXYZWing, indirectHintProducers, new UVWXYZWing());
+        addIfWorth(SolvingTechnique.SixStrongLinks, indirectHintProducers, new StrongLinks(6, config));        
+        chainingHintProducers = new ArrayList<IndirectHintProducer>();
+        addIfWorth(SolvingTechnique.ForcingChainCycle, chainingHintProducers, new Chaining(false, false, false, 0, false, 0, config));
+        addIfWorth(SolvingTechnique.TUVWXYZWing, chainingHintProducers, new TUVWXYZWing());
+        addIfWorth(SolvingTechnique.AlignedTripletExclusion, chainingHintProducers, new AlignedExclusion(3));
+        addIfWorth(SolvingTechnique.NishioForcingChain, chainingHintProducers, new Chaining(false, true, true, 0, false, 0, config));
+        addIfWorth(SolvingTechnique.MultipleForcingChain, chainingHintProducers, new Chaining(true, false, false, 0, false, 0, config));
+        addIfWorth(SolvingTechnique.DynamicForcingChain, chainingHintProducers, new Chaining(true, true, false, 0, false, 0, config));
+        chainingHintProducers2 = new ArrayList<IndirectHintProducer>();
+        addIfWorth(SolvingTechnique.DynamicForcingChainPlus, chainingHintProducers2, new Chaining(true, true, false, 1, false, 0, config));
+        // These are very slow. We add them only as "rescue"
+        advancedHintProducers = new ArrayList<IndirectHintProducer>();
+        addIfWorth(SolvingTechnique.NestedForcingChain, advancedHintProducers, new Chaining(true, true, false, 2, false, 0, config));
+        addIfWorth(SolvingTechnique.NestedForcingChain, advancedHintProducers, new Chaining(true, true, false, 3, false, 0, config));
+        experimentalHintProducers = new ArrayList<IndirectHintProducer>(); // Two levels of nesting !?
+        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 0, config));
+        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 1, config));
+        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 2, config));
+        addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 4, false, 3, config)); //MD: highly experimental
+        //addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 5));
+        //addIfWorth(SolvingTechnique.NestedForcingChain, experimentalHintProducers, new Chaining(true, true, false, 6));
+}
+        setCancellationToken(directHintProducers);
+        setCancellationToken(indirectHintProducers);
+        setCancellationToken(chainingHintProducers);
+        setCancellationToken(chainingHintProducers2);
+        setCancellationToken(advancedHintProducers);
+        setCancellationToken(experimentalHintProducers);
+	}
+
+    private void setCancellationToken(List<? extends HintProducer> producers) {
+        for (HintProducer producer : producers) {
+            if (producer instanceof CancellableHintProducer)
+                ((CancellableHintProducer)producer).setCancellationToken(cancellationToken);
+        }
+    }
+
+    private void addIfWorth(SolvingTechnique technique, Collection<HintProducer> coll, HintProducer producer) {
+        if (config.isUsingTechnique(technique))
+            coll.add(producer);
+    }
+
+    private void addIfWorth(SolvingTechnique technique, Collection<IndirectHintProducer> coll, IndirectHintProducer producer) {
+        if (config.isUsingTechnique(technique))
+            coll.add(producer);
+    }
+
+    public SolverConfig getConfig() {
+        return this.config;
+    }
+
+    /**
+     * Get the token checked by the solvers and the producers of this session
+     * @see Solver#getCancellationToken()
+     */
+    public CancellationToken getCancellationToken() {
+        return this.cancellationToken;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return this.transpositionTable;
+    }
+
+    /**
+     * Make the solvers of this session look up and store the hints of
+     * the grids they meet in the given table, which may be shared with
+     * other sessions of the same settings.
+     * @param transpositionTable the table, or <tt>null</tt> for none
+     */
+    public void setTranspositionTable(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    /**
+     * Get a solver for the given grid, using the producers of this session.
+     * The state kept by the producers for the previous grid is reset first.
+     * @param grid the grid to solve
+     * @return the solver
+     */
+    public Solver newSolver(Grid grid) {
+        reset();
+        return new Solver(grid, this);
+    }
+
+    /**
+     * Reset the state of the producers that keep one.
+     * @see StatefulHintProducer
+     */
+    public void reset() {
+        reset(directHintProducers);
+        reset(indirectHintProducers);
+        reset(chainingHintProducers);
+        reset(chainingHintProducers2);
+        reset(advancedHintProducers);
+        reset(experimentalHintProducers);
+    }
+
+    private void reset(List<? extends HintProducer> producers) {
+        for (HintProducer producer : producers) {
+            if (producer instanceof StatefulHintProducer)
+                ((StatefulHintProducer)producer).reset();
+        }
+    }
+
+}
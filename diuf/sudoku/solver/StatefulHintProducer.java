@@ -0,0 +1,21 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku.solver;
+
+/**
+ * Interface for hint producers that keep state from one call
+ * to the next, such as the hints found for the last grid.
+ * @see diuf.sudoku.solver.SolverSession#reset()
+ */
+public interface StatefulHintProducer extends HintProducer {
+
+    /**
+     * Forget the state kept for the previous grids, keeping the
+     * allocated buffers for the next one.
+     */
+    public void reset();
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku.solver;
+
+/**
+ * The exception thrown by an accumulator that has gathered enough hints.
+ * <p>
+ * This is an <tt>InterruptedException</tt>, as documented by
+ * {@link HintsAccumulator#add(Hint)}, so that the producers and their callers
+ * are unchanged. As it happens on nearly every solving step, a single instance
+ * without stack trace is thrown: stopping the search then costs no more than
+ * a jump to the catch block.
+ */
+public final class StopHintsException extends InterruptedException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The instance to throw
+     */
+    public static final StopHintsException INSTANCE = new StopHintsException();
+
+    private StopHintsException() {
+        super("Enough hints");
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku.solver;
+
+import java.util.*;
+
+import diuf.sudoku.*;
+
+/**
+ * A bounded cache of the hints found by a {@link Solver} for the grids it
+ * met, shared by the solvers of the sessions it is set on.
+ * <p>
+ * Puzzles of the same family (minimal puzzles derived from each other,
+ * transformations of the same puzzle solved from the same givens, ...)
+ * often go through the same intermediate grids; the solver then looks up
+ * the next step of such a grid instead of running the hint producers again.
+ * A grid is identified by its values and potential values: the lookup uses
+ * the {@link Grid#getZobristKey() Zobrist key} and compares the whole state,
+ * so that a key collision never returns the hints of another grid.
+ * <p>
+ * The hints depend on the settings, hence a table must only be shared by
+ * sessions created with the same {@link SolverConfig}. The least recently
+ * used grids are dropped when the table is full. All the methods are
+ * synchronized, so that the rating threads of serate can share one table.
+ * @see SolverSession#setTranspositionTable(TranspositionTable)
+ */
+public final class TranspositionTable {
+
+    private static final class Entry {
+        private final long context;
+        private final int[] state;
+        private final List<Hint> hints;
+
+        private Entry(long context, int[] state, List<Hint> hints) {
+            this.context = context;
+            this.state = state;
+            this.hints = hints;
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Long, Entry> entries;
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    /**
+     * Create an empty table
+     * @param capacity the maximal number of grids kept in the table
+     */
+    public TranspositionTable(final int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Get the values and potential values of the cells of a grid,
+     * as <tt>(value &lt;&lt; 10) | potentialMask</tt> for each cell
+     */
+    private static int[] getState(Grid grid) {
+        int[] state = new int[81];
+        for (int i = 0; i < 81; i++)
+            state[i] = (grid.getCellValue(i) << 10) | grid.getCellPotentialMask(i);
+        return state;
+    }
+
+    private static long getKey(Grid grid, long context) {
+        return grid.getZobristKey() ^ (context * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Get the hints stored for the given grid
+     * @param grid the grid
+     * @param context what the hints were searched for, such as the solving
+     * mode; hints stored with another context are not returned
+     * @return the hints, possibly empty if none were found, or
+     * <tt>null</tt> if the grid is not in the table
+     */
+    public synchronized List<Hint> get(Grid grid, long context) {
+        Entry entry = entries.get(getKey(grid, context));
+        if (entry != null && entry.context == context && Arrays.equals(entry.state, getState(grid))) {
+            hitCount++;
+            return entry.hints;
+        }
+        missCount++;
+        return null;
+    }
+
+    /**
+     * Store the hints found for the given grid
+     * @param grid the grid, in the state the hints were searched in
+     * @param context what the hints were searched for
+     * @param hints the hints, possibly empty
+     */
+    public synchronized void put(Grid grid, long context, List<Hint> hints) {
+        List<Hint> copy = Collections.unmodifiableList(new ArrayList<Hint>(hints));
+        entries.put(getKey(grid, context), new Entry(context, getState(grid), copy));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the number of lookups that found the grid
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the number of lookups that did not find the grid
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TranspositionTable: " + entries.size() + "/" + capacity + " grids, "
+                + hitCount + " hits, " + missCount + " misses";
+    }
+
+}
@@ -22,10 +22,12 @@ public class BruteForceAnalysis implements WarningHintProducer {
     private final Grid grid1 = new Grid();
     private final Grid grid2 = new Grid();
     private final boolean includeSolution;
+    private final SolverConfig config;
 
 
-    public BruteForceAnalysis(boolean includeSolution) {
+    public BruteForceAnalysis(boolean includeSolution, SolverConfig config) {
         this.includeSolution = includeSolution;
+        this.config = config;
     }
 
     /**
@@ -47,21 +49,21 @@ public class BruteForceAnalysis implements WarningHintProducer {
         boolean hasSolution = analyse(grid1, false);
         if (!hasSolution) {
             grid.copyTo(grid1);
-            new Solver(grid1).rebuildPotentialValues();
+            Solver.rebuildPotentialValues(grid1);
             WarningMessage message;
             if (grid.equals(grid1)) {
                 // All potential values correct - No solution
-                message = new WarningMessage(this, "The " + Settings.getInstance().variantString + (Settings.getInstance().isBlocks() ? " Sudoku" : "") + " has no solution",
-                "NoSolution.html", Settings.getInstance().variantString + (Settings.getInstance().isBlocks() ? " Sudoku" : ""));
+                message = new WarningMessage(this, "The " + config.variantString + (config.isBlocks() ? " Sudoku" : "") + " has no solution",
+                "NoSolution.html", config.variantString + (config.isBlocks() ? " Sudoku" : ""));
             } else {
                 // Some potential values missing. Check with all
                 hasSolution = analyse(grid1, false);
                 if (!hasSolution)
-                    message = new WarningMessage(this, "The " + Settings.getInstance().variantString + (Settings.getInstance().isBlocks() ? " Sudoku" : "") + " has no solution",
-                    "NoSolution.html", Settings.getInstance().variantString + (Settings.getInstance().isBlocks() ? " Sudoku" : ""));
+                    message = new WarningMessage(this, "The " + config.variantString + (config.isBlocks() ? " Sudoku" : "") + " has no solution",
+                    "NoSolution.html", config.variantString + (config.isBlocks() ? " Sudoku" : ""));
                 else
-                    message = new WarningMessage(this, "The " + Settings.getInstance().variantString + (Settings.getInstance().isBlocks() ? " Sudoku" : "") + " has no solution",
-                    "MissingCandidates.html", Settings.getInstance().variantString + (Settings.getInstance().isBlocks() ? " Sudoku" : ""));
+                    message = new WarningMessage(this, "The " + config.variantString + (config.isBlocks() ? " Sudoku" : "") + " has no solution",
+                    "MissingCandidates.html", config.variantString + (config.isBlocks() ? " Sudoku" : ""));
             }
             accu.add(message);
             return;
@@ -94,7 +96,7 @@ public class BruteForceAnalysis implements WarningHintProducer {
      * @return information about the number of solutions
      */
     public int getCountSolutions(Grid grid) {
-        new Solver(grid).rebuildPotentialValues();
+        Solver.rebuildPotentialValues(grid);
         grid.copyTo(grid1);
         if (!analyse(grid1, false))
             return 0; // no solution
@@ -137,8 +139,8 @@ public class BruteForceAnalysis implements WarningHintProducer {
      * if the grid has no solution.
      */
     boolean analyse(Grid grid, boolean isReverse) {
-        DirectHintProducer hiddenSingle = new HiddenSingle();
-        DirectHintProducer nakedSingle = new NakedSingle();
+        DirectHintProducer hiddenSingle = new HiddenSingle(config);
+        DirectHintProducer nakedSingle = new NakedSingle(config);
         return analyse(grid, isReverse, null, hiddenSingle, nakedSingle);
     }
 
@@ -181,7 +183,7 @@ public class BruteForceAnalysis implements WarningHintProducer {
         int leastCardinality = 10;
         for (int i = 0; i < 81; i++) {
             if (grid.getCellValue(i) == 0) {
-                int cardinality = grid.getCellPotentialValues(i).cardinality();
+                int cardinality = grid.getCellPotentialCount(i);
                 if (cardinality < leastCardinality) {
                     leastCardinality = cardinality;
                     leastCell = Grid.getCell(i);
@@ -189,7 +191,6 @@ public class BruteForceAnalysis implements WarningHintProducer {
             }
         }
         // (3) Try each possible value for that cell
-        Grid savePoint = new Grid();
         int startValue = (isReverse ? 8 : 0);
         int stopValue = (isReverse ? -1 : 9);
         int delta = (isReverse ? -1 : 1);
@@ -201,13 +202,15 @@ public class BruteForceAnalysis implements WarningHintProducer {
             if (rnd != null) // Combine with random choice if random generator given
                 value = ((value0 + firstValue) % 9) + 1;
             if (grid.hasCellPotentialValue(leastCell.getIndex(), value)) {
-                grid.copyTo(savePoint);
+                int savePoint = grid.mark();
                 leastCell.setValueAndCancel(value, grid);
                 boolean result = analyse(grid, isReverse, rnd, hiddenSingle, nakedSingle);
-                if (result)
+                if (result) {
+                    grid.release(savePoint);
                     return true;
+                }
                 // Restore savepoint and continue with next value, if any
-                savePoint.copyTo(grid);
+                grid.rollback(savePoint);
             }
         }
         // Failed
@@ -226,20 +229,20 @@ public class BruteForceAnalysis implements WarningHintProducer {
      * imply that the sudoku has no solution.
      */
     private boolean isFillable(Grid grid) {
-        for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-        	if (!Settings.getInstance().isVLatin()) {
-				if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-				if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-				if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-				if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-				if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+        for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+        	if (!config.isVLatin()) {
+				if (regionTypeIndex == 3 && !config.isDG()) continue;
+				if (regionTypeIndex == 4 && !config.isWindows()) continue;
+				if (regionTypeIndex == 5 && !config.isX()) continue;
+				if (regionTypeIndex == 6 && !config.isX()) continue;
+				if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+				if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+				if (regionTypeIndex == 9 && !config.isCD()) continue;
 			}
 			Grid.Region[] regions = Grid.getRegions(regionTypeIndex);
             for (Grid.Region region : regions) {
                 for (int value = 1; value <= 9; value++) {
-                    if (!region.contains(grid, value) && region.getPotentialPositions(grid, value).isEmpty())
+                    if (!region.contains(grid, value) && region.getPotentialPositionsMask(grid, value) == 0)
                         return false; // No room for the value in the region
                 }
             }
@@ -259,9 +262,9 @@ public class BruteForceAnalysis implements WarningHintProducer {
      * the grid has no solution.
      */
     public boolean solveRandom(Grid grid, Random rnd) {
-        DirectHintProducer hiddenSingle = new HiddenSingle();
-        DirectHintProducer nakedSingle = new NakedSingle();
-        new Solver(grid).rebuildPotentialValues();
+        DirectHintProducer hiddenSingle = new HiddenSingle(config);
+        DirectHintProducer nakedSingle = new NakedSingle(config);
+        Solver.rebuildPotentialValues(grid);
         return analyse(grid, false, rnd, hiddenSingle, nakedSingle);
     }
 
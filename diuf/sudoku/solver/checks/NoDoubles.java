@@ -18,20 +18,26 @@ import diuf.sudoku.solver.*;
  */
 public class NoDoubles implements WarningHintProducer {
 
+    private final SolverConfig config;
+
+    public NoDoubles(SolverConfig config) {
+        this.config = config;
+    }
+
     public void getHints(Grid grid, HintsAccumulator accu)
             throws InterruptedException {
         // Iterate on region types
         //for (Class<? extends Grid.Region> regionType : Grid.getRegionTypes()) {
         //    Grid.Region[] regions = grid.getRegions(regionType);
-		for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-        	if (!Settings.getInstance().isVLatin()) {
-				if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-				if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-				if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-				if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-				if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+		for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+        	if (!config.isVLatin()) {
+				if (regionTypeIndex == 3 && !config.isDG()) continue;
+				if (regionTypeIndex == 4 && !config.isWindows()) continue;
+				if (regionTypeIndex == 5 && !config.isX()) continue;
+				if (regionTypeIndex == 6 && !config.isX()) continue;
+				if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+				if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+				if (regionTypeIndex == 9 && !config.isCD()) continue;
 			}
             Grid.Region[] regions = Grid.getRegions(regionTypeIndex);
 
@@ -49,7 +55,7 @@ public class NoDoubles implements WarningHintProducer {
                             // Value appear twice in this region
                             WarningMessage message = new WarningMessage(this,
                                     "More than one \"" + value + "\" in a " + region.toString(),
-                                    "DoubleValue.html", Integer.toString(value), region.toString(), Settings.getInstance().variantString + (Settings.getInstance().isBlocks() ? " Sudoku" : "")) {
+                                    "DoubleValue.html", Integer.toString(value), region.toString(), config.variantString + (config.isBlocks() ? " Sudoku" : "")) {
 
                                 @Override
                                 public Collection<Cell> getRedCells() {
@@ -82,15 +88,15 @@ public class NoDoubles implements WarningHintProducer {
         // Iterate on region types
         //for (Class<? extends Grid.Region> regionType : Grid.getRegionTypes()) {
         //    Grid.Region[] regions = grid.getRegions(regionType);
-		for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-        	if (!Settings.getInstance().isVLatin()) {
-				if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-				if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-				if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-				if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-				if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+		for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+        	if (!config.isVLatin()) {
+				if (regionTypeIndex == 3 && !config.isDG()) continue;
+				if (regionTypeIndex == 4 && !config.isWindows()) continue;
+				if (regionTypeIndex == 5 && !config.isX()) continue;
+				if (regionTypeIndex == 6 && !config.isX()) continue;
+				if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+				if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+				if (regionTypeIndex == 9 && !config.isCD()) continue;
 			}
             Grid.Region[] regions = Grid.getRegions(regionTypeIndex);
 
@@ -117,7 +123,7 @@ public class NoDoubles implements WarningHintProducer {
 
     @Override
     public String toString() {
-        return "Invalid " + Settings.getInstance().variantString + (Settings.getInstance().isBlocks() ? " Sudoku" : "");
+        return "Invalid " + config.variantString + (config.isBlocks() ? " Sudoku" : "");
     }
 
 }
@@ -16,11 +16,8 @@ public class Solution implements WarningHintProducer {
 
     public void getHints(Grid grid, HintsAccumulator accu)
             throws InterruptedException {
-        Grid solution = new Grid();
-        grid.copyTo(solution);
-
         // First check for no, or multiple solution
-        BruteForceAnalysis analyser = new BruteForceAnalysis(true);
+        BruteForceAnalysis analyser = new BruteForceAnalysis(true, SolverConfig.fromSettings());
         analyser.getHints(grid, accu);
     }
 
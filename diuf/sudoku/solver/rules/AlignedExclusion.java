@@ -15,15 +15,20 @@ import diuf.sudoku.tools.*;
  * Aligned Set Exclusion technique.
  * Very slow for degree >= 4.
  */
-public class AlignedExclusion implements IndirectHintProducer {
+public class AlignedExclusion implements IndirectHintProducer, CancellableHintProducer {
 
     protected final int degree;
+    private CancellationToken cancellationToken = null;
 
 
     public AlignedExclusion(int degree) {
         this.degree = degree;
     }
 
+    public void setCancellationToken(CancellationToken token) {
+        this.cancellationToken = token;
+    }
+
     public void getHints(Grid grid, HintsAccumulator accu)
             throws InterruptedException {
 
@@ -36,7 +41,7 @@ public class AlignedExclusion implements IndirectHintProducer {
         for (int i = 0; i < 81; i++) {
              Cell cell = Grid.getCell(i);
             //if (cell.getPotentialValues().cardinality() >= 2) { // 2 <-> degree
-            if (grid.getCellPotentialValues(i).cardinality() >= 2) { // 2 <-> degree
+            if (grid.getCellPotentialCount(i) >= 2) { // 2 <-> degree
                 boolean hasNakedSingle = false;
                 // Look for potentially excluding cells (whose number of candidates <= degree)
 //                Collection<Cell> excludingCells = new ArrayList<Cell>();
@@ -54,8 +59,8 @@ public class AlignedExclusion implements IndirectHintProducer {
 //                    cellExcluders.put(cell, excludingCells);
 //                }
                 Collection<Cell> excludingCells = new ArrayList<Cell>();
-                for (int excludingCellIndex : cell.getVisibleCellIndexes()) {
-                    int exclCardinality = grid.getCellPotentialValues(excludingCellIndex).cardinality();
+                for (int excludingCellIndex : grid.getTopology().getVisibleCellIndexes(cell.getIndex())) {
+                    int exclCardinality = grid.getCellPotentialCount(excludingCellIndex);
                     if (exclCardinality == 1)
                         hasNakedSingle = true;
                     else if (exclCardinality >= 2 && exclCardinality <= degree)
@@ -88,14 +93,16 @@ public class AlignedExclusion implements IndirectHintProducer {
         //Permutations cellSetPerm2 = new Permutations(2, candidateList.size());
         Twomutations cellSetPerm2 = new Twomutations(2, candidateList.size());
         while (cellSetPerm2.hasNext()) {
+            if (cancellationToken != null)
+                cancellationToken.checkCancelled();
             int[] indexes = cellSetPerm2.nextBitNums();
             // Setup the first two cells
             Cell cell0 = candidateList.get(indexes[0]);
             //int card0 = cell0.getPotentialValues().cardinality();
-            int card0 = grid.getCellPotentialValues(cell0.getIndex()).cardinality();
+            int card0 = grid.getCellPotentialCount(cell0.getIndex());
             Cell cell1 = candidateList.get(indexes[1]);
             //int card1 = cell1.getPotentialValues().cardinality();
-            int card1 = grid.getCellPotentialValues(cell1.getIndex()).cardinality();
+            int card1 = grid.getCellPotentialCount(cell1.getIndex());
 
             // Create the twinArea: set of cells visible by one of the two first cells
             Collection<Cell> twinArea = new LinkedHashSet<Cell>(cellExcluders.get(cell0));
@@ -126,7 +133,7 @@ public class AlignedExclusion implements IndirectHintProducer {
                     for (int i = 0; i < tindexes.length; i++) {
                         cells[i + 2] = tailCells.get(tindexes[i]);
                         //cardinalities[i + 2] = cells[i + 2].getPotentialValues().cardinality();
-                        cardinalities[i + 2] = grid.getCellPotentialValues(cells[i + 2].getIndex()).cardinality();
+                        cardinalities[i + 2] = grid.getCellPotentialCount(cells[i + 2].getIndex());
                     }
 
                     // Build the list of common excluding cells for the base cells 'cells'
@@ -31,7 +31,7 @@ public class AlignedPairExclusion extends AlignedExclusion {
         for (int i = 0; i < 81; i++) {
             Cell cell = Grid.getCell(i);
             //if (cell.getPotentialValues().cardinality() >= 2) {
-            if (grid.getCellPotentialValues(i).cardinality() >= 2) {
+            if (grid.getCellPotentialCount(i) >= 2) {
                 boolean hasNakedSingle = false;
                 // Look for potentially excluding cells (whose number of candidates <=
                 // degree)
@@ -44,8 +44,8 @@ public class AlignedPairExclusion extends AlignedExclusion {
 //                    else if (exclCardinality == 2)
 //                        excludingCells.add(excludingCell);
 //                }
-                for (int excludingCellIndex : cell.getVisibleCellIndexes()) {
-                    int exclCardinality = grid.getCellPotentialValues(excludingCellIndex).cardinality();
+                for (int excludingCellIndex : grid.getTopology().getVisibleCellIndexes(cell.getIndex())) {
+                    int exclCardinality = grid.getCellPotentialCount(excludingCellIndex);
                     if (exclCardinality == 1)
                         hasNakedSingle = true;
                     else if (exclCardinality == 2)
@@ -76,10 +76,10 @@ public class AlignedPairExclusion extends AlignedExclusion {
             int[] cardinalities = new int[2];
             cells[0] = candidateList.get(indexes[0]);
             //cardinalities[0] = cells[0].getPotentialValues().cardinality();
-            cardinalities[0] = grid.getCellPotentialValues(cells[0].getIndex()).cardinality();
+            cardinalities[0] = grid.getCellPotentialCount(cells[0].getIndex());
             cells[1] = candidateList.get(indexes[1]);
             //cardinalities[1] = cells[1].getPotentialValues().cardinality();
-            cardinalities[1] = grid.getCellPotentialValues(cells[1].getIndex()).cardinality();
+            cardinalities[1] = grid.getCellPotentialCount(cells[1].getIndex());
 
             // Build the list of common excluding cells for the base cells 'cells'
             Set<Cell> commonExcluders = new LinkedHashSet<Cell>();
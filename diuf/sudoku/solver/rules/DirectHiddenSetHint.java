@@ -24,11 +24,12 @@ public class DirectHiddenSetHint extends IndirectHint implements Rule {
     private final Map<Cell, BitSet> orangePotentials;
     private final Map<Cell, BitSet> redPotentials;
     private final Grid.Region region;
+    private final int revisedRating;
 
     public DirectHiddenSetHint(IndirectHintProducer rule, Cell[] cells,
             int[] values, Map<Cell, BitSet> orangePotentials,
             Map<Cell, BitSet> removePotentials, Grid.Region region,
-            Cell cell, int value) {
+            Cell cell, int value, int revisedRating) {
         super(rule, getEmptyMap());
         this.cells = cells;
         this.values = values;
@@ -37,6 +38,7 @@ public class DirectHiddenSetHint extends IndirectHint implements Rule {
         this.orangePotentials = orangePotentials;
         this.redPotentials = removePotentials;
         this.region = region;
+        this.revisedRating = revisedRating;
     }
 
     private static Map<Cell, BitSet> getEmptyMap() {
@@ -107,7 +109,7 @@ public class DirectHiddenSetHint extends IndirectHint implements Rule {
 
     public double getDifficulty() {
         int degree = values.length;
-if (Settings.getInstance().revisedRating() == 1) {
+if (revisedRating == 1) {
         if (degree == 2)
             return 2.0;
         else if (degree == 3)
@@ -24,10 +24,12 @@ import diuf.sudoku.tools.*;
 public class Fisherman implements IndirectHintProducer {
 
     private final int degree;
+    private final SolverConfig config;
 
 
-    public Fisherman(int degree) {
+    public Fisherman(int degree, SolverConfig config) {
         this.degree = degree;
+        this.config = config;
     }
 
     public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
@@ -146,7 +148,7 @@ public class Fisherman implements IndirectHintProducer {
             }
         }
         return new LockingHint(this, allCells, value, cellPotentials,
-                cellRemovablePotentials, allParts);
+                cellRemovablePotentials, config.revisedRating(), allParts);
     }
 
     @Override
@@ -22,33 +22,37 @@ public class HiddenSet implements IndirectHintProducer {
 
     private final int degree;
     private final boolean isDirect;
+    private final SolverConfig config;
+    private final HintFreeRegions hintFreeRegions = new HintFreeRegions(1);
 
 
-    public HiddenSet(int degree, boolean isDirect) {
+    public HiddenSet(int degree, boolean isDirect, SolverConfig config) {
         assert degree > 1 && degree <= 4;
         this.degree = degree;
         this.isDirect = isDirect;
+        this.config = config;
     }
 
     public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
-        if (Settings.getInstance().isBlocks())
+        hintFreeRegions.update(grid);
+        if (config.isBlocks())
 			getHints(grid, 0, accu); //block
         getHints(grid, 2, accu); //column
         getHints(grid, 1, accu); //row
-		if (!Settings.getInstance().isVLatin()) {
-			if (Settings.getInstance().isDG())
+		if (!config.isVLatin()) {
+			if (config.isDG())
 				getHints(grid, 3, accu); //DG
-			if (Settings.getInstance().isWindows())
+			if (config.isWindows())
 				getHints(grid, 4, accu); //Windows
-			if (Settings.getInstance().isX()) {
+			if (config.isX()) {
 				getHints(grid, 5, accu); //Main diagonal
 				getHints(grid, 6, accu); //Anti diagonal
 			}
-			if (Settings.getInstance().isGirandola())
+			if (config.isGirandola())
 				getHints(grid, 7, accu); //Girandola			
-			if (Settings.getInstance().isAsterisk())
+			if (config.isAsterisk())
 				getHints(grid, 8, accu); //Asterisk			
-			if (Settings.getInstance().isCD())
+			if (config.isCD())
 				getHints(grid, 9, accu); //CD	
 		}
     }
@@ -63,7 +67,12 @@ public class HiddenSet implements IndirectHintProducer {
             HintsAccumulator accu) throws InterruptedException {
         Grid.Region[] regions = Grid.getRegions(regionTypeIndex);
         // Iterate on parts
-        for (Grid.Region region : regions) {
+        for (int regionIndex = 0; regionIndex < regions.length; regionIndex++) {
+            int slot = HintFreeRegions.getSlot(0, regionTypeIndex, regionIndex);
+            if (hintFreeRegions.isHintFree(slot))
+                continue;
+            Grid.Region region = regions[regionIndex];
+            boolean isHintFound = false;
             int nbEmptyCells = region.getEmptyCellCount(grid);
             if (nbEmptyCells > degree * 2 || (isDirect && nbEmptyCells > degree)) {
                 Permutations perm = new Permutations(degree, 9);
@@ -87,11 +96,15 @@ public class HiddenSet implements IndirectHintProducer {
                     if (commonPotentialPositions != null) {
                         // Hint found
                         IndirectHint hint = createHiddenSetHint(grid, region, values, commonPotentialPositions);
-                        if (hint != null && hint.isWorth())
+                        if (hint != null && hint.isWorth()) {
+                            isHintFound = true;
                             accu.add(hint);
+                        }
                     }
                 }
             }
+            if (!isHintFound)
+                hintFreeRegions.setHintFree(slot);
         }
     }
 
@@ -134,7 +147,7 @@ public class HiddenSet implements IndirectHintProducer {
                             int index = positions.nextSetBit(0);
                             Cell cell = region.getCell(index);
                             return new DirectHiddenSetHint(this, cells, values, cellPValues,
-                                    cellRemovePValues, region, cell, value);
+                                    cellRemovePValues, region, cell, value, config.revisedRating());
                         }
                     }
                 }
@@ -143,7 +156,7 @@ public class HiddenSet implements IndirectHintProducer {
             return null;
         } else {
             return new HiddenSetHint(this, cells, values,
-                    cellPValues, cellRemovePValues, region);
+                    cellPValues, cellRemovePValues, region, config.revisedRating());
         }
     }
 
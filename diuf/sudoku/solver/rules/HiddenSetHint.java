@@ -22,16 +22,18 @@ public class HiddenSetHint extends IndirectHint implements Rule, HasParentPotent
     private final int[] values;
     private final Map<Cell, BitSet> highlightPotentials;
     private final Grid.Region region;
+    private final int revisedRating;
 
     
     public HiddenSetHint(IndirectHintProducer rule, Cell[] cells,
             int[] values, Map<Cell, BitSet> highlightPotentials,
-            Map<Cell, BitSet> removePotentials, Grid.Region region) {
+            Map<Cell, BitSet> removePotentials, Grid.Region region, int revisedRating) {
         super(rule, removePotentials);
         this.cells = cells;
         this.values = values;
         this.highlightPotentials = highlightPotentials;
         this.region = region;
+        this.revisedRating = revisedRating;
     }
 
     @Override
@@ -66,7 +68,7 @@ public class HiddenSetHint extends IndirectHint implements Rule, HasParentPotent
 
     public double getDifficulty() {
         int degree = values.length;
-if (Settings.getInstance().revisedRating() == 1) {
+if (revisedRating == 1) {
         if (degree == 2)
             return 2.9;//New rating
         else if (degree == 3)
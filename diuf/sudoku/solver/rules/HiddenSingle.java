@@ -16,48 +16,57 @@ import diuf.sudoku.solver.*;
  */
 public class HiddenSingle implements DirectHintProducer {
 
+    private final SolverConfig config;
+    // Regions without hint in the previous calls, one pass for alone cells, one for the others
+    private final HintFreeRegions hintFreeRegions = new HintFreeRegions(2);
+
+    public HiddenSingle(SolverConfig config) {
+        this.config = config;
+    }
+
     public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
+        hintFreeRegions.update(grid);
         // First alone cells (last empty cell in a region)
-        if (Settings.getInstance().isBlocks())
+        if (config.isBlocks())
 			getHints(grid, 0, accu, true); //block
         getHints(grid, 2, accu, true); //column
         getHints(grid, 1, accu, true); //row
 //SudokuMonster: Variants changes
-		if (!Settings.getInstance().isVLatin()) {
-			if (Settings.getInstance().isDG())
+		if (!config.isVLatin()) {
+			if (config.isDG())
 				getHints(grid, 3, accu, true); //DG
-			if (Settings.getInstance().isWindows())
+			if (config.isWindows())
 				getHints(grid, 4, accu, true); //Windows
-			if (Settings.getInstance().isX()) {
+			if (config.isX()) {
 				getHints(grid, 5, accu, true); //Main diagonal
 				getHints(grid, 6, accu, true); //Anti diagonal
 			}
-			if (Settings.getInstance().isGirandola())
+			if (config.isGirandola())
 				getHints(grid, 7, accu, true); //Girandola
-			if (Settings.getInstance().isAsterisk())
+			if (config.isAsterisk())
 				getHints(grid, 8, accu, true); //Asterisk
-			if (Settings.getInstance().isCD())
+			if (config.isCD())
 				getHints(grid, 9, accu, true); //Center Dot
 		}
         // Then hidden cells
-        if (Settings.getInstance().isBlocks())
+        if (config.isBlocks())
 			getHints(grid, 0, accu, false); //block
         getHints(grid, 2, accu, false); //column
         getHints(grid, 1, accu, false); //row
-		if (!Settings.getInstance().isVLatin()) {
-			if (Settings.getInstance().isDG())
+		if (!config.isVLatin()) {
+			if (config.isDG())
 				getHints(grid, 3, accu, false); //DG
-			if (Settings.getInstance().isWindows())
+			if (config.isWindows())
 				getHints(grid, 4, accu, false); //Windows
-			if (Settings.getInstance().isX()) {
+			if (config.isX()) {
 				getHints(grid, 5, accu, false); //Main diagonal
 				getHints(grid, 6, accu, false); //Anti diagonal
 			}
-			if (Settings.getInstance().isGirandola())
+			if (config.isGirandola())
 				getHints(grid, 7, accu, false); //Girandola
-			if (Settings.getInstance().isAsterisk())
+			if (config.isAsterisk())
 				getHints(grid, 8, accu, false); //Asterisk
-			if (Settings.getInstance().isCD())
+			if (config.isCD())
 				getHints(grid, 9, accu, false); //Center Dot
 		}
     }
@@ -70,21 +79,31 @@ public class HiddenSingle implements DirectHintProducer {
     private void getHints(Grid grid, int regionTypeIndex,
             HintsAccumulator accu, boolean aloneOnly) throws InterruptedException {
         Grid.Region[] regions = Grid.getRegions(regionTypeIndex);
+        int pass = aloneOnly ? 0 : 1;
         // Iterate on parts
-        for (Grid.Region region : regions) {
+        for (int regionIndex = 0; regionIndex < regions.length; regionIndex++) {
+            int slot = HintFreeRegions.getSlot(pass, regionTypeIndex, regionIndex);
+            if (hintFreeRegions.isHintFree(slot))
+                continue;
+            Grid.Region region = regions[regionIndex];
+            boolean isHintFound = false;
             // Iterate on values
             for (int value = 1; value <= 9; value++) {
                 // Get value's potential position
-                BitSet potentialIndexes = region.getPotentialPositions(grid, value);
-                if (potentialIndexes.cardinality() == 1) {
+                int potentialIndexes = region.getPotentialPositionsMask(grid, value);
+                if (Integer.bitCount(potentialIndexes) == 1) {
                     // One potential position -> solution found
-                    int uniqueIndex = potentialIndexes.nextSetBit(0);
+                    int uniqueIndex = Integer.numberOfTrailingZeros(potentialIndexes);
                     Cell cell = region.getCell(uniqueIndex);
                     boolean isAlone = region.getEmptyCellCount(grid) == 1;
-                    if (isAlone == aloneOnly)
+                    if (isAlone == aloneOnly) {
+                        isHintFound = true;
                         accu.add(new HiddenSingleHint(this, region, cell, value, isAlone));
+                    }
                 }
             }
+            if (!isHintFound)
+                hintFreeRegions.setHintFree(slot);
         }
     }
 
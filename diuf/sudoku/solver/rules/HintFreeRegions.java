@@ -0,0 +1,126 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku.solver.rules;
+
+import diuf.sudoku.*;
+
+/**
+ * Remembers the regions in which a hint producer found no hint, until a
+ * cell these regions depend on changes.
+ * <p>
+ * A solving step usually changes a handful of cells, so that a producer
+ * called after each step only needs to scan again the regions touched by
+ * the last step. Each slot stands for a unit of work of the producer (a
+ * region, or a pair of crossing regions) and has a set of cells it depends
+ * on. The producer scans the units in the same order as before and skips
+ * the slots still known to be hint-free, hence it finds the same hints.
+ * <p>
+ * The changes are found by comparing the grid with the state it had at the
+ * previous call, so any grid and any sequence of calls is supported; a new
+ * grid merely makes every slot dirty.
+ */
+final class HintFreeRegions {
+
+    // State of the grid at the previous update, as in Grid
+    private final long[] planes = new long[20];
+    private final int[] values = new int[81];
+
+    // Cells each slot depends on: [2 * slot] for cells 0..63, [2 * slot + 1] for cells 64..80
+    private final long[] dependencies;
+    private final boolean[] isHintFree;
+    private final int[] hintFreeSlots;
+    private int hintFreeCount = 0;
+
+    /**
+     * Create the slots of the regions: the slot of the region of index
+     * <tt>r</tt> and type <tt>t</tt> is <tt>(pass * 10 + t) * 9 + r</tt>
+     * and depends on the cells of the region.
+     * @param passes the number of times the producer scans all the regions
+     */
+    HintFreeRegions(int passes) {
+        dependencies = new long[passes * 90 * 2];
+        isHintFree = new boolean[passes * 90];
+        hintFreeSlots = new int[passes * 90];
+        for (int pass = 0; pass < passes; pass++) {
+            for (int regionTypeIndex = 0; regionTypeIndex < 10; regionTypeIndex++) {
+                Grid.Region[] regions = Grid.getRegions(regionTypeIndex);
+                for (int regionIndex = 0; regionIndex < regions.length; regionIndex++)
+                    addDependency(getSlot(pass, regionTypeIndex, regionIndex), regions[regionIndex]);
+            }
+        }
+    }
+
+    static int getSlot(int pass, int regionTypeIndex, int regionIndex) {
+        return (pass * 10 + regionTypeIndex) * 9 + regionIndex;
+    }
+
+    /**
+     * Make the given slot also depend on the cells of the given region
+     */
+    void addDependency(int slot, Grid.Region region) {
+        dependencies[slot * 2] |= Bitboard.getRegionLow(region);
+        dependencies[slot * 2 + 1] |= Bitboard.getRegionHigh(region);
+    }
+
+    /**
+     * Compare the grid with its state at the previous call, and forget the
+     * hint-free slots that depend on a cell whose value or potential values
+     * have changed since.
+     */
+    void update(Grid grid) {
+        Bitboard board = grid.getBitboard();
+        long changedLow = 0;
+        long changedHigh = 0;
+        for (int value = 1; value <= 9; value++) {
+            long low = board.getLow(value);
+            long high = board.getHigh(value);
+            changedLow |= low ^ planes[value * 2];
+            changedHigh |= high ^ planes[value * 2 + 1];
+            planes[value * 2] = low;
+            planes[value * 2 + 1] = high;
+        }
+        for (int i = 0; i < 81; i++) {
+            int value = grid.getCellValue(i);
+            if (value != values[i]) {
+                values[i] = value;
+                if (i < 64)
+                    changedLow |= 1L << i;
+                else
+                    changedHigh |= 1L << (i - 64);
+            }
+        }
+        if ((changedLow | changedHigh) == 0)
+            return;
+        int count = 0;
+        for (int i = 0; i < hintFreeCount; i++) {
+            int slot = hintFreeSlots[i];
+            if ((dependencies[slot * 2] & changedLow) != 0 || (dependencies[slot * 2 + 1] & changedHigh) != 0)
+                isHintFree[slot] = false;
+            else
+                hintFreeSlots[count++] = slot;
+        }
+        hintFreeCount = count;
+    }
+
+    /**
+     * Whether the given slot was scanned without hint, and none of its
+     * cells changed since
+     */
+    boolean isHintFree(int slot) {
+        return isHintFree[slot];
+    }
+
+    /**
+     * Record that the given slot has been scanned completely without hint
+     */
+    void setHintFree(int slot) {
+        if (!isHintFree[slot]) {
+            isHintFree[slot] = true;
+            hintFreeSlots[hintFreeCount++] = slot;
+        }
+    }
+
+}
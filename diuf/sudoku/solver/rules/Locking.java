@@ -17,19 +17,25 @@ import diuf.sudoku.tools.*;
 public class Locking implements IndirectHintProducer {
 
     private final boolean isDirectMode;
+    private final SolverConfig config;
+    // Slot of (region1, region type 2) in pass regionType2Index, see getHints(Grid, int, int, HintsAccumulator)
+    private final HintFreeRegions hintFreeRegions = new HintFreeRegions(10);
+    private final boolean[] isPairPrepared = new boolean[10 * 10];
 
-    public Locking(boolean isDirectMode) {
+    public Locking(boolean isDirectMode, SolverConfig config) {
         this.isDirectMode = isDirectMode;
+        this.config = config;
     }
 
     public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
-        if (Settings.getInstance().isBlocks()) {
+        hintFreeRegions.update(grid);
+        if (config.isBlocks()) {
 			getHints(grid, 0, 2, accu); //block, column
 			getHints(grid, 0, 1, accu); //block, row
 			getHints(grid, 2, 0, accu); //column, block
 			getHints(grid, 1, 0, accu); //row, block
 //@SudokuMonster: Added Variants
-			if (Settings.getInstance().isDG()) {
+			if (config.isDG()) {
 				getHints(grid, 3, 2, accu); //DG, column
 				getHints(grid, 3, 1, accu); //DG, row
 				getHints(grid, 2, 3, accu); //column, DG
@@ -37,7 +43,7 @@ public class Locking implements IndirectHintProducer {
 				getHints(grid, 0, 3, accu); //block, DG
 				getHints(grid, 3, 0, accu); //DG, block					
 			}
-			if (Settings.getInstance().isWindows()) {
+			if (config.isWindows()) {
 				getHints(grid, 4, 2, accu); //window, column
 				getHints(grid, 4, 1, accu); //window, row
 				getHints(grid, 2, 4, accu); //column, window
@@ -45,7 +51,7 @@ public class Locking implements IndirectHintProducer {
 				getHints(grid, 0, 4, accu); //block, window
 				getHints(grid, 4, 0, accu); //window, block					
 			}
-			if (Settings.getInstance().isWindows() && Settings.getInstance().isDG()) {
+			if (config.isWindows() && config.isDG()) {
 				getHints(grid, 4, 3, accu); //window, DG
 				getHints(grid, 3, 4, accu); //DG, window
 			}
@@ -67,48 +73,83 @@ public class Locking implements IndirectHintProducer {
             HintsAccumulator accu) throws InterruptedException {
         assert (regionType1Index == 0) != (regionType2Index == 0);
 
+        if (!isPairPrepared[regionType1Index * 10 + regionType2Index])
+            preparePair(regionType1Index, regionType2Index);
+        boolean[] isHintFound = new boolean[9];
+        Bitboard board = grid.getBitboard();
         // Iterate on values
         for (int value = 1; value <= 9; value++) {
 	        // Iterate on pairs of parts
 	        for (int i1 = 0; i1 < 9; i1++) {
+	            if (hintFreeRegions.isHintFree(HintFreeRegions.getSlot(regionType2Index, regionType1Index, i1)))
+	                continue;
 	            Grid.Region region1 = Grid.getRegions(regionType1Index)[i1];
                 // Get the potential positions of the value in part1
-            	BitSet potentialPositions = region1.getPotentialPositions(grid, value);
+            	int potentialPositions = region1.getPotentialPositionsMask(grid, value);
                 // Note: if cardinality == 1, this is Hidden Single in part1
-                if (potentialPositions.cardinality() < 2) continue;
+                if (Integer.bitCount(potentialPositions) < 2) continue;
+                long positionsLow = board.getLow(value) & Bitboard.getRegionLow(region1);
+                long positionsHigh = board.getHigh(value) & Bitboard.getRegionHigh(region1);
 	            for (int i2 = 0; i2 < 9; i2++) {
 	                Grid.Region region2 = Grid.getRegions(regionType2Index)[i2];
 	                if(!region1.crosses(region2)) continue;
-                    //CellSet region2Cells = region2.getCellSet();
-                    boolean isInCommonSet = true;
                     // Test if all potential positions are also in part2
-                    for(int i = potentialPositions.nextSetBit(0); i >= 0; i = potentialPositions.nextSetBit(i + 1)) {
-                        Cell cell = region1.getCell(i);
-                        //if (!region2Cells.containsCell(cell)) {
-                        if (!region2.regionCellsBitSet.get(cell.getIndex())) {
-                            isInCommonSet = false;
-                            break;
-                        }
-                    }
+                    boolean isInCommonSet = (positionsLow & ~Bitboard.getRegionLow(region2)) == 0
+                            && (positionsHigh & ~Bitboard.getRegionHigh(region2)) == 0;
                     if (isInCommonSet) {
                         if (isDirectMode) {
-                            lookForFollowingHiddenSingles(grid, regionType1Index, accu, i1,
-                                    region1, region2, value);
+                            if (lookForFollowingHiddenSingles(grid, regionType1Index, accu, i1,
+                                    region1, region2, value))
+                                isHintFound[i1] = true;
                         } else {
                             // Potential solution found
                             IndirectHint hint = createLockingHint(grid, region1, region2, null, value);
-                            if (hint.isWorth())
+                            if (hint.isWorth()) {
+                                isHintFound[i1] = true;
                                 accu.add(hint);
+                            }
                         }
                     }
 	            }
 	        }
         } // for each value
+        for (int i1 = 0; i1 < 9; i1++) {
+            if (!isHintFound[i1])
+                hintFreeRegions.setHintFree(HintFreeRegions.getSlot(regionType2Index, regionType1Index, i1));
+        }
+    }
+
+    /**
+     * Make the slot of each region of the first type depend on the crossing
+     * regions of the second type, and in direct mode on the regions of the
+     * first type crossing those, where the hidden singles are looked for.
+     */
+    private void preparePair(int regionType1Index, int regionType2Index) {
+        Grid.Region[] regions1 = Grid.getRegions(regionType1Index);
+        Grid.Region[] regions2 = Grid.getRegions(regionType2Index);
+        for (int i1 = 0; i1 < 9; i1++) {
+            int slot = HintFreeRegions.getSlot(regionType2Index, regionType1Index, i1);
+            for (int i2 = 0; i2 < 9; i2++) {
+                if (!regions1[i1].crosses(regions2[i2])) continue;
+                hintFreeRegions.addDependency(slot, regions2[i2]);
+                if (isDirectMode) {
+                    for (int i3 = 0; i3 < 9; i3++) {
+                        if (regions1[i3].crosses(regions2[i2]))
+                            hintFreeRegions.addDependency(slot, regions1[i3]);
+                    }
+                }
+            }
+        }
+        isPairPrepared[regionType1Index * 10 + regionType2Index] = true;
     }
 
-    private void lookForFollowingHiddenSingles(Grid grid,
+    /**
+     * @return whether a hint has been found
+     */
+    private boolean lookForFollowingHiddenSingles(Grid grid,
             int regionType1Index, HintsAccumulator accu, int i1,
             Grid.Region region1, Grid.Region region2, int value) throws InterruptedException {
+        boolean isHintFound = false;
         // Look if the pointing / claiming induce a hidden single
         for(int i3 = 0; i3 < 9; i3++) {
             if (i3 == i1) continue;
@@ -116,27 +157,23 @@ public class Locking implements IndirectHintProducer {
             if (!region3.crosses(region2)) continue;
             // Region <> region1 but crosses region2
             //CellSet region2Cells = region2.getCellSet();
-            BitSet potentialPositions3 = region3.getPotentialPositions(grid, value);
-            if (potentialPositions3.cardinality() > 1) {
-                int nbRemainInRegion3 = 0;
-                Cell hcell = null;
-                for (int i = 0; i < 9; i++) {
-                    if (potentialPositions3.get(i)) {
-                        Cell cell = region3.getCell(i);
-                        //if (!region2Cells.containsCell(cell)) { // This position is not removed
-                        if (!region2.regionCellsBitSet.get(cell.getIndex())) { // This position is not removed
-                            nbRemainInRegion3++;
-                            hcell = cell;
-                        }
-                    }
-                }
-                if (nbRemainInRegion3 == 1) {
+            int potentialPositions3 = region3.getPotentialPositionsMask(grid, value);
+            if (Integer.bitCount(potentialPositions3) > 1) {
+                // Positions that are not removed
+                Bitboard board = grid.getBitboard();
+                long remainLow = board.getLow(value) & Bitboard.getRegionLow(region3) & ~Bitboard.getRegionLow(region2);
+                long remainHigh = board.getHigh(value) & Bitboard.getRegionHigh(region3) & ~Bitboard.getRegionHigh(region2);
+                if (Bitboard.count(remainLow, remainHigh) == 1) {
+                    Cell hcell = Grid.getCell(Bitboard.firstCell(remainLow, remainHigh));
                     IndirectHint hint = createLockingHint(grid, region1, region2, hcell, value);
-                    if (hint.isWorth())
+                    if (hint.isWorth()) {
+                        isHintFound = true;
                         accu.add(hint);
+                    }
                 }
             }
         }
+        return isHintFound;
     }
 
     private IndirectHint createLockingHint(Grid grid, Grid.Region p1, Grid.Region p2, Cell hcell, int value) {
@@ -169,7 +206,7 @@ public class Locking implements IndirectHintProducer {
                     cellRemovablePotentials, p1, p2);
         else
             return new LockingHint(this, cells, value, cellPotentials,
-                    cellRemovablePotentials, p1, p2);
+                    cellRemovablePotentials, config.revisedRating(), p1, p2);
     }
 
     @Override
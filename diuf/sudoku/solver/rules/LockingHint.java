@@ -22,14 +22,16 @@ public class LockingHint extends IndirectHint implements Rule, HasParentPotentia
     private final int value;
     private final Map<Cell, BitSet> highlightPotentials;
     private final Grid.Region[] regions;
+    private final int revisedRating;
 
     public LockingHint(IndirectHintProducer rule, Cell[] cells,
             int value, Map<Cell, BitSet> highlightPotentials,
-            Map<Cell, BitSet> removePotentials, Grid.Region... regions) {
+            Map<Cell, BitSet> removePotentials, int revisedRating, Grid.Region... regions) {
         super(rule, removePotentials);
         this.cells = cells;
         this.value = value;
         this.highlightPotentials = highlightPotentials;
+        this.revisedRating = revisedRating;
         this.regions = regions;
     }
 
@@ -66,7 +68,7 @@ public class LockingHint extends IndirectHint implements Rule, HasParentPotentia
     public double getDifficulty() {
         int degree = regions.length / 2;
 //@SudokuMonster: Revised Rating
-if (Settings.getInstance().revisedRating() == 1) {
+if (revisedRating == 1) {
         if (degree == 1) {
 //@SudokuMonster: minor swap to accommodate variant region interactions with row/Columns
             if (regions[1] instanceof Grid.Column || regions[1] instanceof Grid.Row)
@@ -19,20 +19,24 @@ import diuf.sudoku.tools.*;
 public class NakedSet implements IndirectHintProducer {
 
     private int degree;
+    private final SolverConfig config;
+    private final HintFreeRegions hintFreeRegions = new HintFreeRegions(1);
 
-    public NakedSet(int degree) {
+    public NakedSet(int degree, SolverConfig config) {
         assert degree > 1 && degree <= 4;
         this.degree = degree;
+        this.config = config;
     }
 
     public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
-        if (Settings.getInstance().isBlocks())
+        hintFreeRegions.update(grid);
+        if (config.isBlocks())
 			getHints(grid, 0, accu); //block
         getHints(grid, 2, accu); //column
         getHints(grid, 1, accu); //row
-		if (Settings.getInstance().isDG())
+		if (config.isDG())
 			getHints(grid, 3, accu); //DG
-		if (Settings.getInstance().isWindows())
+		if (config.isWindows())
 			getHints(grid, 4, accu); //Windows
     }
 
@@ -43,7 +47,12 @@ public class NakedSet implements IndirectHintProducer {
     private <T extends Grid.Region> void getHints(Grid grid, int regionTypeIndex, HintsAccumulator accu) throws InterruptedException {
         Grid.Region[] regions = Grid.getRegions(regionTypeIndex);
         // Iterate on parts
-        for (Grid.Region region : regions) {
+        for (int regionIndex = 0; regionIndex < regions.length; regionIndex++) {
+            int slot = HintFreeRegions.getSlot(0, regionTypeIndex, regionIndex);
+            if (hintFreeRegions.isHintFree(slot))
+                continue;
+            Grid.Region region = regions[regionIndex];
+            boolean isHintFound = false;
             if (region.getEmptyCellCount(grid) >= degree * 2) {
                 Permutations perm = new Permutations(degree, 9);
                 // Iterate on tuples of positions
@@ -67,11 +76,15 @@ public class NakedSet implements IndirectHintProducer {
                     if (commonPotentialValues != null) {
                         // Potential hint found
                         IndirectHint hint = createValueUniquenessHint(grid, region, cells, commonPotentialValues);
-                        if (hint.isWorth())
+                        if (hint.isWorth()) {
+                            isHintFound = true;
                             accu.add(hint);
+                        }
                     }
                 }
             }
+            if (!isHintFound)
+                hintFreeRegions.setHintFree(slot);
         }
     }
 
@@ -21,31 +21,33 @@ import diuf.sudoku.tools.*;
 public class NakedSetGen implements IndirectHintProducer {
 
     private int degree;
+    private final SolverConfig config;
 
-    public NakedSetGen(int degree) {
+    public NakedSetGen(int degree, SolverConfig config) {
         assert degree > 1 && degree <= 5;
         this.degree = degree;
+        this.config = config;
     }
 
     public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
-        if (Settings.getInstance().isBlocks())
+        if (config.isBlocks())
 			getHints(grid, 0, accu); //block
         getHints(grid, 2, accu); //column
         getHints(grid, 1, accu); //row
-		if (!Settings.getInstance().isVLatin()) {
-			if (Settings.getInstance().isDG())
+		if (!config.isVLatin()) {
+			if (config.isDG())
 				getHints(grid, 3, accu); //DG
-			if (Settings.getInstance().isWindows())
+			if (config.isWindows())
 				getHints(grid, 4, accu); //Windows
-			if (Settings.getInstance().isX()) {
+			if (config.isX()) {
 				getHints(grid, 5, accu); //Main diagonal
 				getHints(grid, 6, accu); //Anti diagonal
 			}
-			if (Settings.getInstance().isGirandola())
+			if (config.isGirandola())
 				getHints(grid, 7, accu); //Girandola			
-			if (Settings.getInstance().isAsterisk())
+			if (config.isAsterisk())
 				getHints(grid, 8, accu); //Asterisk			
-			if (Settings.getInstance().isCD())
+			if (config.isCD())
 				getHints(grid, 9, accu); //CD	
 		}
     }
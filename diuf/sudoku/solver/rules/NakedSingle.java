@@ -16,6 +16,12 @@ import diuf.sudoku.solver.*;
  */
 public class NakedSingle implements DirectHintProducer {
 
+    private final SolverConfig config;
+
+    public NakedSingle(SolverConfig config) {
+        this.config = config;
+    }
+
     /**
      * Check if a cell has only one potential value, and accumulate
      * corresponding hints
@@ -39,12 +45,12 @@ public class NakedSingle implements DirectHintProducer {
         for (int i = 0; i < 81; i++) {
             if(grid.getCellValue(i) != 0) continue;
             //BitSet potentialValues = cell.getPotentialValues();
-            BitSet potentialValues = grid.getCellPotentialValues(i);
-            if (potentialValues.cardinality() == 1) {
+            int potentialValues = grid.getCellPotentialMask(i);
+            if (Integer.bitCount(potentialValues) == 1) {
                 // One potential value -> solution found
-                int uniqueValue = potentialValues.nextSetBit(0);
+                int uniqueValue = Integer.numberOfTrailingZeros(potentialValues);
                 Cell cell = Grid.getCell(i);
-                accu.add(new NakedSingleHint(this, null, cell, uniqueValue));
+                accu.add(new NakedSingleHint(this, null, cell, uniqueValue, config.revisedRating()));
             }
         }
     }
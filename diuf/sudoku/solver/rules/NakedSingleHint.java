@@ -14,12 +14,16 @@ import diuf.sudoku.tools.*;
 
 public class NakedSingleHint extends DirectHint implements Rule {
 
-    public NakedSingleHint(DirectHintProducer rule, Region region, Cell cell, int value) {
+    private final int revisedRating;
+
+    public NakedSingleHint(DirectHintProducer rule, Region region, Cell cell, int value,
+            int revisedRating) {
         super(rule, region, cell, value);
+        this.revisedRating = revisedRating;
     }
 
     public double getDifficulty() {
-if (Settings.getInstance().revisedRating() == 1)
+if (revisedRating == 1)
 		return 1.6;//New rating
 else
         return 2.3;//Original rating
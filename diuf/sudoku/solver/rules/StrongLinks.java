@@ -11,34 +11,36 @@ import diuf.sudoku.tools.*;
 public class StrongLinks implements IndirectHintProducer {
 
     private final int degree;
+    private final SolverConfig config;
 
 
-    public StrongLinks(int degree) {
+    public StrongLinks(int degree, SolverConfig config) {
         this.degree = degree;
+        this.config = config;
     }
 
     @Override	
 	public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
 		int[] variantsArray = new int[10];
 		int j = 0;
-		if (Settings.getInstance().isBlocks())
+		if (config.isBlocks())
 			variantsArray[j++] = 0;
 		variantsArray[j++] = 1;
 		variantsArray[j++] = 2;
-		if (!Settings.getInstance().isVLatin()){
-			if (Settings.getInstance().isDG())
+		if (!config.isVLatin()){
+			if (config.isDG())
 				variantsArray[j++] = 3;
-			if (Settings.getInstance().isWindows())
+			if (config.isWindows())
 				variantsArray[j++] = 4;
-			if (Settings.getInstance().isX()){
+			if (config.isX()){
 				variantsArray[j++] = 5;
 				variantsArray[j++] = 6;
 			}
-			if (Settings.getInstance().isGirandola())
+			if (config.isGirandola())
 				variantsArray[j++] = 7;
-			if (Settings.getInstance().isAsterisk())
+			if (config.isAsterisk())
 				variantsArray[j++] = 8;
-			if (Settings.getInstance().isCD())
+			if (config.isCD())
 				variantsArray[j++] = 9;
 		}
 		List<StrongLinksHint> hintsFinal = new ArrayList<StrongLinksHint>();
@@ -119,7 +121,7 @@ public class StrongLinks implements IndirectHintProducer {
 			if (sameRegionCounter)
 				return (Grid.Row)Grid.getRegionAt(1,bridge1True.getIndex());
 		}
-		if (Settings.getInstance().isBlocks())
+		if (config.isBlocks())
 			if (sameRegionCounter = bridge1True.getB() == bridge2True.getB()) {
 				if (bridge1Support != null && sameRegionCounter) {
 					sameRegionCounter = bridge1Support.getB() == bridge1True.getB();
@@ -134,8 +136,8 @@ public class StrongLinks implements IndirectHintProducer {
 				if (sameRegionCounter)
 					return (Grid.Block)Grid.getRegionAt(0,bridge1True.getIndex());
 			}
-		if (!Settings.getInstance().isVLatin()){
-			if (Settings.getInstance().isDG())
+		if (!config.isVLatin()){
+			if (config.isDG())
 				if (sameRegionCounter = bridge1True.getD() == bridge2True.getD()) {
 					if (bridge1Support != null && sameRegionCounter) {
 						sameRegionCounter = bridge1Support.getD() == bridge1True.getD();
@@ -150,7 +152,7 @@ public class StrongLinks implements IndirectHintProducer {
 					if (sameRegionCounter)
 						return (Grid.DG)Grid.getRegionAt(3,bridge1True.getIndex());
 				}
-			if (Settings.getInstance().isWindows())
+			if (config.isWindows())
 				if (sameRegionCounter = bridge1True.getW() == bridge2True.getW()) {
 					if (bridge1Support != null && sameRegionCounter) {
 						sameRegionCounter = bridge1Support.getW() == bridge1True.getW();
@@ -165,7 +167,7 @@ public class StrongLinks implements IndirectHintProducer {
 					if (sameRegionCounter)
 						return (Grid.Window)Grid.getRegionAt(4,bridge1True.getIndex());
 				}
-			if (Settings.getInstance().isGirandola())
+			if (config.isGirandola())
 				if (sameRegionCounter = ((bridge1True.getG() * bridge2True.getG()) == 1)) {
 					if (bridge1Support != null && sameRegionCounter) {
 						sameRegionCounter = (bridge1Support.getG() * bridge1True.getG()) == 1;
@@ -180,7 +182,7 @@ public class StrongLinks implements IndirectHintProducer {
 					if (sameRegionCounter)
 						return (Grid.Girandola)Grid.getRegionAt(7,bridge1True.getIndex());
 				}
-			if (Settings.getInstance().isAsterisk())
+			if (config.isAsterisk())
 				if (sameRegionCounter = ((bridge1True.getA() * bridge2True.getA()) == 1)) {
 					if (bridge1Support != null && sameRegionCounter) {
 						sameRegionCounter = (bridge1Support.getA() * bridge1True.getA()) == 1;
@@ -195,7 +197,7 @@ public class StrongLinks implements IndirectHintProducer {
 					if (sameRegionCounter)
 						return (Grid.Asterisk)Grid.getRegionAt(8,bridge1True.getIndex());
 				}
-			if (Settings.getInstance().isCD())
+			if (config.isCD())
 				if (sameRegionCounter = ((bridge1True.getCD() * bridge2True.getCD()) == 1)) {
 					if (bridge1Support != null && sameRegionCounter) {
 						sameRegionCounter = (bridge1Support.getCD() * bridge1True.getCD()) == 1;
@@ -210,7 +212,7 @@ public class StrongLinks implements IndirectHintProducer {
 					if (sameRegionCounter)
 						return (Grid.CD)Grid.getRegionAt(9,bridge1True.getIndex());
 				}
-			if (Settings.getInstance().isX()){
+			if (config.isX()){
 				if (sameRegionCounter = ((bridge1True.getMD() * bridge2True.getMD()) == 1)) {
 					if (bridge1Support != null && sameRegionCounter) {
 						sameRegionCounter = (bridge1Support.getMD() * bridge1True.getMD()) == 1;
@@ -285,12 +287,13 @@ public class StrongLinks implements IndirectHintProducer {
 				baseLinkEmptyRegion[linksDepth] = false;
 				//boolean baseLinkEmptyRegionBlades = false;
 				baseLinkRegion[linksDepth] = baseLinkRegions[linksDepth][i];
-				BitSet baseLinkRegionPotentials = baseLinkRegion[linksDepth].getPotentialPositions(grid, digit);
-				int baseLinkRegionPotentialsC = baseLinkRegionPotentials.cardinality();
+				int baseLinkRegionPotentialsMask = baseLinkRegion[linksDepth].getPotentialPositionsMask(grid, digit);
+				int baseLinkRegionPotentialsC = Integer.bitCount(baseLinkRegionPotentialsMask);
 				e[linksDepth] = 0;
 				if (baseLinkRegionPotentialsC > 1){
 					if (baseLinkRegionPotentialsC > 6)
 						continue;
+					BitSet baseLinkRegionPotentials = Grid.maskToBitSet(baseLinkRegionPotentialsMask);
 					BitSet baseLinkBlade1 = (BitSet)baseLinkRegionPotentials.clone();
 					BitSet baseLinkBlade2 = (BitSet)baseLinkRegionPotentials.clone();
 						//@SudokuMonster #111 bug fixattempt
@@ -832,10 +835,10 @@ public class StrongLinks implements IndirectHintProducer {
         victims.remove(start1);
         victims.remove(end3);
 		for (int i = 0; i < linkSet.length; i++) {
-			victims.bits.andNot(baseLinkRegion[q[i]].regionCellsBitSet);
+			victims.andNot(baseLinkRegion[q[i]]);
 		}
 		for (int i = 0; i < (linkSet.length - 1); i++) {
-			victims.bits.andNot(shareRegion[i].regionCellsBitSet);
+			victims.andNot(shareRegion[i]);
 		}		
         for (Cell cell : victims) {
             if (grid.hasCellPotentialValue(cell.getIndex(), value)){
@@ -868,7 +871,7 @@ public class StrongLinks implements IndirectHintProducer {
         victims.remove(start1);
         victims.remove(end3);
 		for (int i = 0; i < linkSet.length; i++) {
-			victims.bits.andNot(baseLinkRegion[q[i]].regionCellsBitSet);
+			victims.andNot(baseLinkRegion[q[i]]);
 		}
 		//for (int i = 0; i < (linkSet.length - 1); i++) {
 			//victims.bits.andNot(shareRegion[i].regionCellsBitSet);
@@ -895,7 +898,7 @@ public class StrongLinks implements IndirectHintProducer {
 			victims.remove(ringRegionCells[0][w]);
 			victims.remove(ringRegionCells[3][w]);
 			for (int i = 0; i < linkSet.length; i++) {
-				victims.bits.andNot(baseLinkRegion[q[i]].regionCellsBitSet);
+				victims.andNot(baseLinkRegion[q[i]]);
 			}
 			//for (int i = 0; i < (linkSet.length - 1); i++) {
 				//victims.bits.andNot(shareRegion[i].regionCellsBitSet);
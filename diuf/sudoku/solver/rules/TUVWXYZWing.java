@@ -51,36 +51,29 @@ public class TUVWXYZWing implements IndirectHintProducer {
 			accu.add(hint);		
 	}
 
-    private boolean isTUVWXYZWing(BitSet TUVWXYZValues, BitSet tzValues, BitSet uzValues,BitSet vzValues, BitSet wzValues, BitSet xzValues, BitSet aBit, Cell yzCell, Cell xzCell, Cell wzCell, Cell vzCell, Cell uzCell, Cell tzCell, Cell TUVWXYZCell) {
-        BitSet inter = (BitSet)aBit.clone();
-		inter.and(xzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(xzCell))
+    private boolean isTUVWXYZWing(int TUVWXYZValues, int tzValues, int uzValues,int vzValues, int wzValues, int xzValues, int aBit, Cell yzCell, Cell xzCell, Cell wzCell, Cell vzCell, Cell uzCell, Cell tzCell, Cell TUVWXYZCell) {
+		if (Integer.bitCount(aBit & xzValues) == 1 && !yzCell.canSeeCell(xzCell))
 			return false;
-        inter = (BitSet)aBit.clone();
-		inter.and(wzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(wzCell))
+		if (Integer.bitCount(aBit & wzValues) == 1 && !yzCell.canSeeCell(wzCell))
 			return false;		
-        inter = (BitSet)aBit.clone();
-		inter.and(vzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(vzCell))
+		if (Integer.bitCount(aBit & vzValues) == 1 && !yzCell.canSeeCell(vzCell))
 			return false;
-        inter = (BitSet)aBit.clone();
-		inter.and(uzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(uzCell))
+		if (Integer.bitCount(aBit & uzValues) == 1 && !yzCell.canSeeCell(uzCell))
 			return false;
-        inter = (BitSet)aBit.clone();
-		inter.and(tzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(tzCell))
+		if (Integer.bitCount(aBit & tzValues) == 1 && !yzCell.canSeeCell(tzCell))
 			return false;
-        inter = (BitSet)aBit.clone();
-		inter.and(TUVWXYZValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(TUVWXYZCell))
+		if (Integer.bitCount(aBit & TUVWXYZValues) == 1 && !yzCell.canSeeCell(TUVWXYZCell))
 			return false;			
         return true;
     }
 
     private List<TUVWXYZWingHint> getHints(Grid grid) /*throws InterruptedException*/ {
 		List<TUVWXYZWingHint> result = new ArrayList<TUVWXYZWingHint>();
+		CellSet intersection1 = new CellSet();
+		CellSet intersection2 = new CellSet();
+		CellSet intersection3 = new CellSet();
+		CellSet intersection4 = new CellSet();
+		CellSet yzCellRange = new CellSet();
 		int biggestCardinality = 0;
 		int biggestCardinality2 = 0;
 		int biggestCardinality3 = 0;
@@ -93,99 +86,84 @@ public class TUVWXYZWing implements IndirectHintProducer {
 		int w3Value = 0;
 		int w4Value = 0;
 		int w5Value = 0;
-		BitSet w1Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet w2Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet w3Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet w4Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet w5Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet remCand	=  new BitSet(10);//candidates of set not in yzCell	
+		int w1Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int w2Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int w3Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int w4Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int w5Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int remCand = 0;//candidates of set not in yzCell	
 		for (int i = 0; i < 81; i++) {
 			Cell TUVWXYZCell = Grid.getCell(i);
-			BitSet TUVWXYZValues = grid.getCellPotentialValues(i);
-			if (TUVWXYZValues.cardinality() > 1 && TUVWXYZValues.cardinality() < 8) {
+			int TUVWXYZValues = grid.getCellPotentialMask(i);
+			if (Integer.bitCount(TUVWXYZValues) > 1 && Integer.bitCount(TUVWXYZValues) < 8) {
 				// Potential TUVWXYZ cell found
-				biggestCardinality = TUVWXYZValues.cardinality();
-				wingSize = TUVWXYZValues.cardinality();				
-				for (int tzCellIndex : TUVWXYZCell.getForwardVisibleCellIndexes()) {
-					BitSet tzValues = grid.getCellPotentialValues(tzCellIndex);
-					BitSet inter = (BitSet)TUVWXYZValues.clone();
-					inter.or(tzValues);
-					if (tzValues.cardinality() > 1 && inter.cardinality() < 8) {
+				biggestCardinality = Integer.bitCount(TUVWXYZValues);
+				wingSize = Integer.bitCount(TUVWXYZValues);				
+				for (int tzCellIndex : grid.getTopology().getForwardVisibleCellIndexes(TUVWXYZCell.getIndex())) {
+					int tzValues = grid.getCellPotentialMask(tzCellIndex);
+					int inter = TUVWXYZValues | tzValues;
+					if (Integer.bitCount(tzValues) > 1 && Integer.bitCount(inter) < 8) {
 						// Potential WZ cell found
 						Cell tzCell = Grid.getCell(tzCellIndex);
 						biggestCardinality2 = biggestCardinality;
-						if (tzValues.cardinality() > biggestCardinality2)
-							biggestCardinality2 = tzValues.cardinality();
-						wingSize = TUVWXYZValues.cardinality() + tzValues.cardinality();
-						CellSet intersection1 = new CellSet(TUVWXYZCell.getForwardVisibleCells());
-						intersection1.retainAll(tzCell.getForwardVisibleCells());					
+						if (Integer.bitCount(tzValues) > biggestCardinality2)
+							biggestCardinality2 = Integer.bitCount(tzValues);
+						wingSize = Integer.bitCount(TUVWXYZValues) + Integer.bitCount(tzValues);
+						intersection1.set(TUVWXYZCell.getForwardVisibleCells());
+						intersection1.and(tzCell.getForwardVisibleCells());					
 						for (Cell uzCell : intersection1) {
 							int uzCellIndex = uzCell.getIndex();
-							BitSet uzValues = grid.getCellPotentialValues(uzCellIndex);
-							inter = (BitSet)TUVWXYZValues.clone();
-							inter.or(tzValues);
-							inter.or(uzValues);
-							if (uzValues.cardinality() > 1 && inter.cardinality() < 8) {
+							int uzValues = grid.getCellPotentialMask(uzCellIndex);
+							inter = TUVWXYZValues | tzValues | uzValues;
+							if (Integer.bitCount(uzValues) > 1 && Integer.bitCount(inter) < 8) {
 								// Potential XZ cell found
 								biggestCardinality3 = biggestCardinality2;
-								if (uzValues.cardinality() > biggestCardinality3)
-									biggestCardinality3 = uzValues.cardinality();
-								wingSize = TUVWXYZValues.cardinality() + tzValues.cardinality() + uzValues.cardinality();
-								CellSet intersection2 = new CellSet(uzCell.getForwardVisibleCells());
-								intersection2.retainAll(intersection1);
+								if (Integer.bitCount(uzValues) > biggestCardinality3)
+									biggestCardinality3 = Integer.bitCount(uzValues);
+								wingSize = Integer.bitCount(TUVWXYZValues) + Integer.bitCount(tzValues) + Integer.bitCount(uzValues);
+								intersection2.set(uzCell.getForwardVisibleCells());
+								intersection2.and(intersection1);
 								for (Cell vzCell : intersection2) {
 									int vzCellIndex = vzCell.getIndex();
-									BitSet vzValues = grid.getCellPotentialValues(vzCellIndex);
-									inter = (BitSet)TUVWXYZValues.clone();
-									inter.or(tzValues);
-									inter.or(uzValues);
-									inter.or(vzValues);
-									if (vzValues.cardinality() > 1 && inter.cardinality() < 8) {
+									int vzValues = grid.getCellPotentialMask(vzCellIndex);
+									inter = TUVWXYZValues | tzValues | uzValues | vzValues;
+									if (Integer.bitCount(vzValues) > 1 && Integer.bitCount(inter) < 8) {
 										// Potential XZ cell found
 										biggestCardinality4 = biggestCardinality3;
-										if (vzValues.cardinality() > biggestCardinality4)
-											biggestCardinality4 = vzValues.cardinality();
-										wingSize = TUVWXYZValues.cardinality() + tzValues.cardinality() + uzValues.cardinality() + vzValues.cardinality();
-										CellSet intersection3 = new CellSet(vzCell.getForwardVisibleCells());
-										intersection3.retainAll(intersection2);
+										if (Integer.bitCount(vzValues) > biggestCardinality4)
+											biggestCardinality4 = Integer.bitCount(vzValues);
+										wingSize = Integer.bitCount(TUVWXYZValues) + Integer.bitCount(tzValues) + Integer.bitCount(uzValues) + Integer.bitCount(vzValues);
+										intersection3.set(vzCell.getForwardVisibleCells());
+										intersection3.and(intersection2);
 										for (Cell wzCell : intersection3) {
 											int wzCellIndex = wzCell.getIndex();
-											BitSet wzValues = grid.getCellPotentialValues(wzCellIndex);
-											inter = (BitSet)TUVWXYZValues.clone();
-											inter.or(tzValues);
-											inter.or(uzValues);
-											inter.or(vzValues);
-											inter.or(wzValues);
-											if (wzValues.cardinality() > 1 && inter.cardinality() < 8) {
+											int wzValues = grid.getCellPotentialMask(wzCellIndex);
+											inter = TUVWXYZValues | tzValues | uzValues | vzValues | wzValues;
+											if (Integer.bitCount(wzValues) > 1 && Integer.bitCount(inter) < 8) {
 												// Potential XZ cell found
 												biggestCardinality5 = biggestCardinality4;
-												if (wzValues.cardinality() > biggestCardinality5)
-													biggestCardinality5 = wzValues.cardinality();
-												wingSize = TUVWXYZValues.cardinality() + tzValues.cardinality() + uzValues.cardinality() + vzValues.cardinality() + wzValues.cardinality();
-												CellSet intersection4 = new CellSet(wzCell.getForwardVisibleCells());
-												intersection4.retainAll(intersection3);								
+												if (Integer.bitCount(wzValues) > biggestCardinality5)
+													biggestCardinality5 = Integer.bitCount(wzValues);
+												wingSize = Integer.bitCount(TUVWXYZValues) + Integer.bitCount(tzValues) + Integer.bitCount(uzValues) + Integer.bitCount(vzValues) + Integer.bitCount(wzValues);
+												intersection4.set(wzCell.getForwardVisibleCells());
+												intersection4.and(intersection3);								
 												for (Cell xzCell : intersection4) {
 													int xzCellIndex = xzCell.getIndex();
-													BitSet xzValues = grid.getCellPotentialValues(xzCellIndex);
-													inter = (BitSet)TUVWXYZValues.clone();
-													inter.or(tzValues);
-													inter.or(uzValues);									
-													inter.or(vzValues);
-													inter.or(wzValues);
-													inter.or(xzValues);
-													if (xzValues.cardinality() > 1 && inter.cardinality() == 7) {
+													int xzValues = grid.getCellPotentialMask(xzCellIndex);
+													inter = TUVWXYZValues | tzValues | uzValues | vzValues | wzValues | xzValues;
+													if (Integer.bitCount(xzValues) > 1 && Integer.bitCount(inter) == 7) {
 														// Potential XZ cell found
 														biggestCardinality6 = biggestCardinality5;
-														if (xzValues.cardinality() > biggestCardinality6)
-															biggestCardinality6 = xzValues.cardinality();
-														wingSize = TUVWXYZValues.cardinality() + tzValues.cardinality() + uzValues.cardinality() + vzValues.cardinality() + wzValues.cardinality() + xzValues.cardinality();
+														if (Integer.bitCount(xzValues) > biggestCardinality6)
+															biggestCardinality6 = Integer.bitCount(xzValues);
+														wingSize = Integer.bitCount(TUVWXYZValues) + Integer.bitCount(tzValues) + Integer.bitCount(uzValues) + Integer.bitCount(vzValues) + Integer.bitCount(wzValues) + Integer.bitCount(xzValues);
 														//Restrict potential yzCell to Grid Cells that are visible by one or more of the other cells
-														CellSet yzCellRange = new CellSet(TUVWXYZCell.getVisibleCells());
-														yzCellRange.addAll(tzCell.getVisibleCells());
-														yzCellRange.addAll(uzCell.getVisibleCells());
-														yzCellRange.addAll(vzCell.getVisibleCells());
-														yzCellRange.addAll(wzCell.getVisibleCells());
-														yzCellRange.addAll(xzCell.getVisibleCells());
+														yzCellRange.set(TUVWXYZCell.getVisibleCells());
+														yzCellRange.or(tzCell.getVisibleCells());
+														yzCellRange.or(uzCell.getVisibleCells());
+														yzCellRange.or(vzCell.getVisibleCells());
+														yzCellRange.or(wzCell.getVisibleCells());
+														yzCellRange.or(xzCell.getVisibleCells());
 														yzCellRange.remove(TUVWXYZCell);
 														yzCellRange.remove(tzCell);			
 														yzCellRange.remove(uzCell);			
@@ -194,21 +172,20 @@ public class TUVWXYZWing implements IndirectHintProducer {
 														yzCellRange.remove(xzCell);									
 														for (Cell yzCell : yzCellRange) {
 															int yzCellIndex = yzCell.getIndex();
-															BitSet yzValues = grid.getCellPotentialValues(yzCellIndex);
-															BitSet union = (BitSet)yzValues.clone();
-															union.and(inter);
-															if (yzValues.cardinality() == 2 && union.cardinality() == 2) {
+															int yzValues = grid.getCellPotentialMask(yzCellIndex);
+															int union = yzValues & inter;
+															if (Integer.bitCount(yzValues) == 2 && Integer.bitCount(union) == 2) {
 																// Potential YZ cell found
 																// Get the "z" value and the "x" value in ALS-xz
 																boolean doubleLink = true;//assume doubly linked until testing
 																int zValue;
 																int xValue;
-																BitSet zBit = new BitSet(10);
-																BitSet xBit = new BitSet(10);
-																	xValue = yzValues.nextSetBit(0);
-																	xBit.set(xValue);
-																	zValue = yzValues.nextSetBit(xValue + 1);
-																	zBit.set(zValue);													
+																int zBit = 0;
+																int xBit = 0;
+																	xValue = Integer.numberOfTrailingZeros(yzValues);
+																	xBit = 1 << xValue;
+																	zValue = Integer.numberOfTrailingZeros(yzValues & (-2 << xValue));
+																	zBit = 1 << zValue;													
 																if (!isTUVWXYZWing(TUVWXYZValues, tzValues, uzValues, vzValues, wzValues, xzValues, zBit, yzCell, xzCell, wzCell, vzCell, uzCell, tzCell, TUVWXYZCell))//Test if doubly linked
 																		doubleLink = false;
 																if (isTUVWXYZWing(TUVWXYZValues, tzValues, uzValues, vzValues, wzValues, xzValues, xBit, yzCell, xzCell, wzCell, vzCell, uzCell, tzCell, TUVWXYZCell)) {
@@ -222,23 +199,17 @@ public class TUVWXYZWing implements IndirectHintProducer {
 																	}
 																	else {
 																		// Found TUVWXYZ-Wing doubly linked pattern
-																		remCand = (BitSet)inter.clone();
-																		remCand.xor(yzValues);
-																		w1Value = remCand.nextSetBit(0);
-																		w1Bit =  new BitSet(10);
-																		w1Bit.set(w1Value);
-																		w2Value = remCand.nextSetBit(w1Value+1);
-																		w2Bit =  new BitSet(10);
-																		w2Bit.set(w2Value);
-																		w3Value = remCand.nextSetBit(w2Value+1);
-																		w3Bit =  new BitSet(10);
-																		w3Bit.set(w3Value);
-																		w4Value = remCand.nextSetBit(w3Value+1);
-																		w4Bit =  new BitSet(10);
-																		w4Bit.set(w4Value);
-																		w5Value = remCand.nextSetBit(w4Value+1);
-																		w5Bit =  new BitSet(10);
-																		w5Bit.set(w5Value);
+																		remCand = inter ^ yzValues;
+																		w1Value = Integer.numberOfTrailingZeros(remCand);
+																		w1Bit = 1 << w1Value;
+																		w2Value = Integer.numberOfTrailingZeros(remCand & (-2 << w1Value));
+																		w2Bit = 1 << w2Value;
+																		w3Value = Integer.numberOfTrailingZeros(remCand & (-2 << w2Value));
+																		w3Bit = 1 << w3Value;
+																		w4Value = Integer.numberOfTrailingZeros(remCand & (-2 << w3Value));
+																		w4Bit = 1 << w4Value;
+																		w5Value = Integer.numberOfTrailingZeros(remCand & (-2 << w4Value));
+																		w5Bit = 1 << w5Value;
 																		TUVWXYZWingHint hint = createHint(
 																				grid, TUVWXYZCell, Grid.getCell(tzCellIndex), Grid.getCell(uzCellIndex), Grid.getCell(vzCellIndex), Grid.getCell(wzCellIndex), Grid.getCell(xzCellIndex), Grid.getCell(yzCellIndex),
 																				tzValues, uzValues, vzValues, wzValues, xzValues, yzValues, TUVWXYZValues, xValue, zValue, xBit, zBit, biggestCardinality6, wingSize, doubleLink, w1Value, w2Value, w3Value, w4Value, w5Value, w1Bit, w2Bit, w3Bit, w4Bit, w5Bit, remCand, inter);
@@ -274,51 +245,38 @@ public class TUVWXYZWing implements IndirectHintProducer {
 
     private TUVWXYZWingHint createHint(
             Grid grid, Cell TUVWXYZCell, Cell tzCell, Cell uzCell, Cell vzCell, Cell wzCell, Cell xzCell, Cell yzCell,
-            BitSet tzValues,BitSet uzValues, BitSet vzValues, BitSet wzValues, BitSet xzValues, BitSet yzValues, BitSet TUVWXYZValues, int xValue, int zValue, BitSet xBit, BitSet zBit, int biggestCardinality, int wingSize, boolean doubleLink, int w1Value, int w2Value, int w3Value, int w4Value, int w5Value, BitSet w1Bit, BitSet w2Bit, BitSet w3Bit, BitSet w4Bit, BitSet w5Bit, BitSet remCand, BitSet wingSet) {
+            int tzValues,int uzValues, int vzValues, int wzValues, int xzValues, int yzValues, int TUVWXYZValues, int xValue, int zValue, int xBit, int zBit, int biggestCardinality, int wingSize, boolean doubleLink, int w1Value, int w2Value, int w3Value, int w4Value, int w5Value, int w1Bit, int w2Bit, int w3Bit, int w4Bit, int w5Bit, int remCand, int wingSet) {
         // Build list of removable potentials
 		boolean weakPotentials = false;
 		boolean strongPotentialsX = false;//if both remain false then proceed as normal TUVWXYZ if weak is false strong is true and z is false then swap z to x
 		boolean strongPotentialsZ = false;//if both remain false then proceed as normal TUVWXYZ if weak is false strong is true and z is false then swap z to x        
-		BitSet inter = (BitSet)zBit.clone();
 		Map<Cell,BitSet> removablePotentials = new HashMap<Cell,BitSet>();
 		int eliminationsTotal = 0;
 		CellSet victims = null;
 		if (doubleLink) {//if no eliminations at all then produce Hint as regular TUVWXYZ
-			inter = (BitSet)w1Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w1Bit & xzValues) == 1)
 						victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & vzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vzCell.getVisibleCells());
 					else
 						victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(uzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & uzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (uzCell.getVisibleCells());
 					else
 						victims.retainAll(uzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(tzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & tzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (tzCell.getVisibleCells());
 					else
 						victims.retainAll(tzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(TUVWXYZValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & TUVWXYZValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (TUVWXYZCell.getVisibleCells());
 					else
@@ -341,41 +299,29 @@ public class TUVWXYZWing implements IndirectHintProducer {
 				}
 			}
 			victims = null;
-			inter = (BitSet)w2Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w2Bit & xzValues) == 1)
 					victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & vzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vzCell.getVisibleCells());
 					else
 						victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(uzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & uzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (uzCell.getVisibleCells());
 					else
 						victims.retainAll(uzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(tzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & tzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (tzCell.getVisibleCells());
 					else
 						victims.retainAll(tzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(TUVWXYZValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & TUVWXYZValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (TUVWXYZCell.getVisibleCells());
 					else
@@ -398,41 +344,29 @@ public class TUVWXYZWing implements IndirectHintProducer {
 				}
 			}
 			victims = null;
-			inter = (BitSet)w3Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w3Bit & xzValues) == 1)
 					victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w3Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w3Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w3Bit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w3Bit & vzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vzCell.getVisibleCells());
 					else
 						victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)w3Bit.clone();
-			inter.and(uzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w3Bit & uzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (uzCell.getVisibleCells());
 					else
 						victims.retainAll(uzCell.getVisibleCells());
-			inter = (BitSet)w3Bit.clone();
-			inter.and(tzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w3Bit & tzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (tzCell.getVisibleCells());
 					else
 						victims.retainAll(tzCell.getVisibleCells());
-			inter = (BitSet)w3Bit.clone();
-			inter.and(TUVWXYZValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w3Bit & TUVWXYZValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (TUVWXYZCell.getVisibleCells());
 					else
@@ -455,41 +389,29 @@ public class TUVWXYZWing implements IndirectHintProducer {
 				}
 			}
 			victims = null;
-			inter = (BitSet)w4Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w4Bit & xzValues) == 1)
 					victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w4Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w4Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w4Bit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w4Bit & vzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vzCell.getVisibleCells());
 					else
 						victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)w4Bit.clone();
-			inter.and(uzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w4Bit & uzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (uzCell.getVisibleCells());
 					else
 						victims.retainAll(uzCell.getVisibleCells());
-			inter = (BitSet)w4Bit.clone();
-			inter.and(tzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w4Bit & tzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (tzCell.getVisibleCells());
 					else
 						victims.retainAll(tzCell.getVisibleCells());
-			inter = (BitSet)w4Bit.clone();
-			inter.and(TUVWXYZValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w4Bit & TUVWXYZValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (TUVWXYZCell.getVisibleCells());
 					else
@@ -512,41 +434,29 @@ public class TUVWXYZWing implements IndirectHintProducer {
 				}
 			}			
 			victims = null;
-			inter = (BitSet)w5Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w5Bit & xzValues) == 1)
 					victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w5Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w5Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w5Bit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w5Bit & vzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vzCell.getVisibleCells());
 					else
 						victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)w5Bit.clone();
-			inter.and(uzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w5Bit & uzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (uzCell.getVisibleCells());
 					else
 						victims.retainAll(uzCell.getVisibleCells());
-			inter = (BitSet)w5Bit.clone();
-			inter.and(tzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w5Bit & tzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (tzCell.getVisibleCells());
 					else
 						victims.retainAll(tzCell.getVisibleCells());
-			inter = (BitSet)w5Bit.clone();
-			inter.and(TUVWXYZValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w5Bit & TUVWXYZValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (TUVWXYZCell.getVisibleCells());
 					else
@@ -569,29 +479,17 @@ public class TUVWXYZWing implements IndirectHintProducer {
 				}
 			}
 			victims = new CellSet(yzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & xzValues) == 1)
 				victims.retainAll(xzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & wzValues) == 1)
 				victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & vzValues) == 1)
 				victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(uzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & uzValues) == 1)
 				victims.retainAll(uzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(tzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & tzValues) == 1)
 				victims.retainAll(tzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(TUVWXYZValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & TUVWXYZValues) == 1)
 				victims.retainAll(TUVWXYZCell.getVisibleCells());
 			victims.remove(TUVWXYZCell);
 			victims.remove(tzCell);			
@@ -612,29 +510,17 @@ public class TUVWXYZWing implements IndirectHintProducer {
 			}
 		}
 		victims = new CellSet(yzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(xzValues);
-		if (inter.cardinality() == 1)
+		if (Integer.bitCount(zBit & xzValues) == 1)
 			victims.retainAll(xzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(wzValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & wzValues) == 1)
 			victims.retainAll(wzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(vzValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & vzValues) == 1)
 			victims.retainAll(vzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(uzValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & uzValues) == 1)
 			victims.retainAll(uzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(tzValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & tzValues) == 1)
 			victims.retainAll(tzCell.getVisibleCells());
- 		inter = (BitSet)zBit.clone();
-		inter.and(TUVWXYZValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & TUVWXYZValues) == 1)
 			victims.retainAll(TUVWXYZCell.getVisibleCells());
         victims.remove(TUVWXYZCell);
 		victims.remove(tzCell);			
@@ -658,14 +544,14 @@ public class TUVWXYZWing implements IndirectHintProducer {
 				if (!strongPotentialsZ) {
 					doubleLink = false;
 					return new TUVWXYZWingHint(this, removablePotentials,
-						TUVWXYZCell, tzCell, uzCell, vzCell, wzCell, xzCell, yzCell, xValue, zValue, biggestCardinality, wingSize, doubleLink, wingSet, eliminationsTotal);					
+						TUVWXYZCell, tzCell, uzCell, vzCell, wzCell, xzCell, yzCell, xValue, zValue, biggestCardinality, wingSize, doubleLink, Grid.maskToBitSet(wingSet), eliminationsTotal);					
 				}
 				else
 					if (!strongPotentialsX)
 						doubleLink = false;
         // Create hint
         return new TUVWXYZWingHint(this, removablePotentials,
-                TUVWXYZCell, tzCell, uzCell, vzCell, wzCell, xzCell, yzCell, zValue, xValue, biggestCardinality, wingSize, doubleLink, wingSet, eliminationsTotal);
+                TUVWXYZCell, tzCell, uzCell, vzCell, wzCell, xzCell, yzCell, zValue, xValue, biggestCardinality, wingSize, doubleLink, Grid.maskToBitSet(wingSet), eliminationsTotal);
     }
 
     @Override
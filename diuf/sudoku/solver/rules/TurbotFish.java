@@ -11,6 +11,12 @@ import diuf.sudoku.tools.*;
  */
 public class TurbotFish implements IndirectHintProducer {
 
+    private final SolverConfig config;
+
+    public TurbotFish(SolverConfig config) {
+        this.config = config;
+    }
+
     @Override
     public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
 		int[][] Sets = {
@@ -71,16 +77,16 @@ public class TurbotFish implements IndirectHintProducer {
 			};
 		List<TurbotFishHint> hintsFinal = new ArrayList<TurbotFishHint>();
 		List<TurbotFishHint> hintsStart;
-        for (int i = 0; i < (Settings.getInstance().isVLatin() ? 5 : 50) ; i++) {	
-			if (!Settings.getInstance().isVanilla()){
-				if (!Settings.getInstance().isBlocks() && (i == 3 || i == 4 || i == 5  || i == 6  || i == 16 || i == 25 || i == 33 || i == 40 || i == 46 || i == 51)) continue;
-				if (!Settings.getInstance().isVLatin()){
-					if (!Settings.getInstance().isDG() && (i == 6 || i == 7 || i == 8  || i == 9  || i == 10 || i == 11 || i == 12 || i == 13 || i == 14 || i == 15)) continue;
-					if (!Settings.getInstance().isWindows() && (i == 10 || i == 16 || i == 17  || i == 18  || i == 19 || i == 20 || i == 21 || i == 22 || i == 23 || i == 24)) continue;
-					if (!Settings.getInstance().isX() && (i == 11 || i == 12 || i == 20  || i == 21  || i == 25 || i == 26 || i == 27 || i == 28 || i == 29 || i == 30 || i == 31 || i == 32 || i == 33 || i == 34 || i == 35 || i == 36 || i == 37)) continue;
-					if (!Settings.getInstance().isGirandola() && (i == 13 || i == 22 || i == 29  || i == 35  || i == 38 || i == 39 || i == 40 || i == 41 || i == 42)) continue;
-					if (!Settings.getInstance().isAsterisk() && (i == 14 || i == 23 || i == 30  || i == 36  || i == 41 || i == 43 || i == 44 || i == 45 || i == 46)) continue;
-					if (!Settings.getInstance().isCD() && (i == 15 || i == 24 || i == 31  || i == 37  || i == 42 || i == 46 || i == 47 || i == 48 || i == 49)) continue;
+        for (int i = 0; i < (config.isVLatin() ? 5 : 50) ; i++) {	
+			if (!config.isVanilla()){
+				if (!config.isBlocks() && (i == 3 || i == 4 || i == 5  || i == 6  || i == 16 || i == 25 || i == 33 || i == 40 || i == 46 || i == 51)) continue;
+				if (!config.isVLatin()){
+					if (!config.isDG() && (i == 6 || i == 7 || i == 8  || i == 9  || i == 10 || i == 11 || i == 12 || i == 13 || i == 14 || i == 15)) continue;
+					if (!config.isWindows() && (i == 10 || i == 16 || i == 17  || i == 18  || i == 19 || i == 20 || i == 21 || i == 22 || i == 23 || i == 24)) continue;
+					if (!config.isX() && (i == 11 || i == 12 || i == 20  || i == 21  || i == 25 || i == 26 || i == 27 || i == 28 || i == 29 || i == 30 || i == 31 || i == 32 || i == 33 || i == 34 || i == 35 || i == 36 || i == 37)) continue;
+					if (!config.isGirandola() && (i == 13 || i == 22 || i == 29  || i == 35  || i == 38 || i == 39 || i == 40 || i == 41 || i == 42)) continue;
+					if (!config.isAsterisk() && (i == 14 || i == 23 || i == 30  || i == 36  || i == 41 || i == 43 || i == 44 || i == 45 || i == 46)) continue;
+					if (!config.isCD() && (i == 15 || i == 24 || i == 31  || i == 37  || i == 42 || i == 46 || i == 47 || i == 48 || i == 49)) continue;
 				}
 			}
 			hintsStart = getHints(grid, Sets[i][0], Sets[i][1]);
@@ -143,7 +149,7 @@ public class TurbotFish implements IndirectHintProducer {
 			if (sameRegionCounter)
 				return (Grid.Row)Grid.getRegionAt(1,bridge1.getIndex());
 		}
-		if (Settings.getInstance().isBlocks())
+		if (config.isBlocks())
 			if (sameRegionCounter = bridge1.getB() == bridge2.getB()) {
 				if (bridge1Support != null && sameRegionCounter) {
 					sameRegionCounter = bridge1Support.getB() == bridge1.getB();
@@ -158,8 +164,8 @@ public class TurbotFish implements IndirectHintProducer {
 				if (sameRegionCounter)
 					return (Grid.Block)Grid.getRegionAt(0,bridge1.getIndex());
 			}
-		if (!Settings.getInstance().isVLatin()){
-			if (Settings.getInstance().isDG())
+		if (!config.isVLatin()){
+			if (config.isDG())
 				if (sameRegionCounter = bridge1.getD() == bridge2.getD()) {
 					if (bridge1Support != null && sameRegionCounter) {
 						sameRegionCounter = bridge1Support.getD() == bridge1.getD();
@@ -174,7 +180,7 @@ public class TurbotFish implements IndirectHintProducer {
 					if (sameRegionCounter)
 						return (Grid.DG)Grid.getRegionAt(3,bridge1.getIndex());
 				}
-			if (Settings.getInstance().isWindows())
+			if (config.isWindows())
 				if (sameRegionCounter = bridge1.getW() == bridge2.getW()) {
 					if (bridge1Support != null && sameRegionCounter) {
 						sameRegionCounter = bridge1Support.getW() == bridge1.getW();
@@ -189,7 +195,7 @@ public class TurbotFish implements IndirectHintProducer {
 					if (sameRegionCounter)
 						return (Grid.Window)Grid.getRegionAt(4,bridge1.getIndex());
 				}
-			if (Settings.getInstance().isGirandola())
+			if (config.isGirandola())
 				if (sameRegionCounter = ((bridge1.getG() * bridge2.getG()) == 1)) {
 					if (bridge1Support != null && sameRegionCounter) {
 						sameRegionCounter = (bridge1Support.getG() * bridge1.getG()) == 1;
@@ -204,7 +210,7 @@ public class TurbotFish implements IndirectHintProducer {
 					if (sameRegionCounter)
 						return (Grid.Girandola)Grid.getRegionAt(7,bridge1.getIndex());
 				}
-			if (Settings.getInstance().isAsterisk())
+			if (config.isAsterisk())
 				if (sameRegionCounter = ((bridge1.getA() * bridge2.getA()) == 1)) {
 					if (bridge1Support != null && sameRegionCounter) {
 						sameRegionCounter = (bridge1Support.getA() * bridge1.getA()) == 1;
@@ -219,7 +225,7 @@ public class TurbotFish implements IndirectHintProducer {
 					if (sameRegionCounter)
 						return (Grid.Asterisk)Grid.getRegionAt(8,bridge1.getIndex());
 				}
-			if (Settings.getInstance().isCD())
+			if (config.isCD())
 				if (sameRegionCounter = ((bridge1.getCD() * bridge2.getCD()) == 1)) {
 					if (bridge1Support != null && sameRegionCounter) {
 						sameRegionCounter = (bridge1Support.getCD() * bridge1.getCD()) == 1;
@@ -234,7 +240,7 @@ public class TurbotFish implements IndirectHintProducer {
 					if (sameRegionCounter)
 						return (Grid.CD)Grid.getRegionAt(9,bridge1.getIndex());
 				}
-			if (Settings.getInstance().isX()){
+			if (config.isX()){
 				if (sameRegionCounter = ((bridge1.getMD() * bridge2.getMD()) == 1)) {
 					if (bridge1Support != null && sameRegionCounter) {
 						sameRegionCounter = (bridge1Support.getMD() * bridge1.getMD()) == 1;
@@ -676,8 +682,8 @@ public class TurbotFish implements IndirectHintProducer {
         victims.remove(end);
 		//victims.removeAll(coverSet.getCellSet());
 		//victims.removeAll(baseSet.getCellSet());
-		victims.bits.andNot(coverSet.regionCellsBitSet);
-		victims.bits.andNot(baseSet.regionCellsBitSet);
+		victims.andNot(coverSet);
+		victims.andNot(baseSet);
         for (Cell cell : victims) {
             if (grid.hasCellPotentialValue(cell.getIndex(), value)) {
 				eliminationsTotal++;
@@ -711,8 +717,8 @@ public class TurbotFish implements IndirectHintProducer {
         victims.remove(end);
 		//victims.removeAll(coverSet.getCellSet());
 		//victims.removeAll(baseSet.getCellSet());
-		victims.bits.andNot(coverSet.regionCellsBitSet);
-		victims.bits.andNot(baseSet.regionCellsBitSet);
+		victims.andNot(coverSet);
+		victims.andNot(baseSet);
         for (Cell cell : victims) {
             if (grid.hasCellPotentialValue(cell.getIndex(), value)) {
 				eliminationsTotal++;
@@ -735,8 +741,8 @@ public class TurbotFish implements IndirectHintProducer {
         victims.remove(ringRegionCells[3]);
 		//victims.removeAll(coverSet.getCellSet());
 		//victims.removeAll(baseSet.getCellSet());
-		victims.bits.andNot(coverSet.regionCellsBitSet);
-		victims.bits.andNot(baseSet.regionCellsBitSet);
+		victims.andNot(coverSet);
+		victims.andNot(baseSet);
         for (Cell cell : victims) {
             if (grid.hasCellPotentialValue(cell.getIndex(), value)) {
 				eliminationsTotal++;
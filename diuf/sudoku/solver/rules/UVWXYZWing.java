@@ -51,32 +51,26 @@ public class UVWXYZWing implements IndirectHintProducer {
 			accu.add(hint);		
 	}
 
-    private boolean isUVWXYZWing(BitSet UVWXYZValues,BitSet uzValues,BitSet vzValues, BitSet wzValues, BitSet xzValues, BitSet aBit, Cell yzCell, Cell xzCell, Cell wzCell, Cell vzCell, Cell uzCell, Cell UVWXYZCell) {
-        BitSet inter = (BitSet)aBit.clone();
-		inter.and(xzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(xzCell))
+    private boolean isUVWXYZWing(int UVWXYZValues,int uzValues,int vzValues, int wzValues, int xzValues, int aBit, Cell yzCell, Cell xzCell, Cell wzCell, Cell vzCell, Cell uzCell, Cell UVWXYZCell) {
+		if (Integer.bitCount(aBit & xzValues) == 1 && !yzCell.canSeeCell(xzCell))
 			return false;
-        inter = (BitSet)aBit.clone();
-		inter.and(wzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(wzCell))
+		if (Integer.bitCount(aBit & wzValues) == 1 && !yzCell.canSeeCell(wzCell))
 			return false;		
-        inter = (BitSet)aBit.clone();
-		inter.and(vzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(vzCell))
+		if (Integer.bitCount(aBit & vzValues) == 1 && !yzCell.canSeeCell(vzCell))
 			return false;
-        inter = (BitSet)aBit.clone();
-		inter.and(uzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(uzCell))
+		if (Integer.bitCount(aBit & uzValues) == 1 && !yzCell.canSeeCell(uzCell))
 			return false;
-        inter = (BitSet)aBit.clone();
-		inter.and(UVWXYZValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(UVWXYZCell))
+		if (Integer.bitCount(aBit & UVWXYZValues) == 1 && !yzCell.canSeeCell(UVWXYZCell))
 			return false;			
         return true;
     }
 
     private List<UVWXYZWingHint> getHints(Grid grid) /*throws InterruptedException*/ {
 		List<UVWXYZWingHint> result = new ArrayList<UVWXYZWingHint>();
+		CellSet intersection1 = new CellSet();
+		CellSet intersection2 = new CellSet();
+		CellSet intersection3 = new CellSet();
+		CellSet yzCellRange = new CellSet();
 		int biggestCardinality = 0;
 		int biggestCardinality2 = 0;
 		int biggestCardinality3 = 0;
@@ -87,80 +81,70 @@ public class UVWXYZWing implements IndirectHintProducer {
 		int w2Value = 0;
 		int w3Value = 0;
 		int w4Value = 0;
-		BitSet w1Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet w2Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet w3Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet w4Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet remCand	=  new BitSet(10);//candidates of set not in yzCell	
+		int w1Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int w2Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int w3Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int w4Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int remCand = 0;//candidates of set not in yzCell	
 		for (int i = 0; i < 81; i++) {
 			Cell UVWXYZCell = Grid.getCell(i);
-			BitSet UVWXYZValues = grid.getCellPotentialValues(i);
-			if (UVWXYZValues.cardinality() > 1 && UVWXYZValues.cardinality() < 7) {
+			int UVWXYZValues = grid.getCellPotentialMask(i);
+			if (Integer.bitCount(UVWXYZValues) > 1 && Integer.bitCount(UVWXYZValues) < 7) {
 				// Potential UVWXYZ cell found
-				biggestCardinality = UVWXYZValues.cardinality();
-				wingSize = UVWXYZValues.cardinality();				
-				for (int uzCellIndex : UVWXYZCell.getForwardVisibleCellIndexes()) {
-					BitSet uzValues = grid.getCellPotentialValues(uzCellIndex);
-					BitSet inter = (BitSet)UVWXYZValues.clone();
-					inter.or(uzValues);
-					if (uzValues.cardinality() > 1 && inter.cardinality() < 7) {
+				biggestCardinality = Integer.bitCount(UVWXYZValues);
+				wingSize = Integer.bitCount(UVWXYZValues);				
+				for (int uzCellIndex : grid.getTopology().getForwardVisibleCellIndexes(UVWXYZCell.getIndex())) {
+					int uzValues = grid.getCellPotentialMask(uzCellIndex);
+					int inter = UVWXYZValues | uzValues;
+					if (Integer.bitCount(uzValues) > 1 && Integer.bitCount(inter) < 7) {
 						// Potential WZ cell found
 						Cell uzCell = Grid.getCell(uzCellIndex);
 						biggestCardinality2 = biggestCardinality;
-						if (uzValues.cardinality() > biggestCardinality2)
-							biggestCardinality2 = uzValues.cardinality();
-						wingSize = UVWXYZValues.cardinality() + uzValues.cardinality();
-						CellSet intersection1 = new CellSet(UVWXYZCell.getForwardVisibleCells());
-						intersection1.retainAll(uzCell.getForwardVisibleCells());					
+						if (Integer.bitCount(uzValues) > biggestCardinality2)
+							biggestCardinality2 = Integer.bitCount(uzValues);
+						wingSize = Integer.bitCount(UVWXYZValues) + Integer.bitCount(uzValues);
+						intersection1.set(UVWXYZCell.getForwardVisibleCells());
+						intersection1.and(uzCell.getForwardVisibleCells());					
 						for (Cell vzCell : intersection1) {
 							int vzCellIndex = vzCell.getIndex();
-							BitSet vzValues = grid.getCellPotentialValues(vzCellIndex);
-							inter = (BitSet)UVWXYZValues.clone();
-							inter.or(uzValues);
-							inter.or(vzValues);
-							if (vzValues.cardinality() > 1 && inter.cardinality() < 7) {
+							int vzValues = grid.getCellPotentialMask(vzCellIndex);
+							inter = UVWXYZValues | uzValues | vzValues;
+							if (Integer.bitCount(vzValues) > 1 && Integer.bitCount(inter) < 7) {
 								// Potential XZ cell found
 								biggestCardinality3 = biggestCardinality2;
-								if (vzValues.cardinality() > biggestCardinality3)
-									biggestCardinality3 = vzValues.cardinality();
-								wingSize = UVWXYZValues.cardinality() + uzValues.cardinality() + vzValues.cardinality();
-								CellSet intersection2 = new CellSet(vzCell.getForwardVisibleCells());
-								intersection2.retainAll(intersection1);
+								if (Integer.bitCount(vzValues) > biggestCardinality3)
+									biggestCardinality3 = Integer.bitCount(vzValues);
+								wingSize = Integer.bitCount(UVWXYZValues) + Integer.bitCount(uzValues) + Integer.bitCount(vzValues);
+								intersection2.set(vzCell.getForwardVisibleCells());
+								intersection2.and(intersection1);
 								for (Cell wzCell : intersection2) {
 									int wzCellIndex = wzCell.getIndex();
-									BitSet wzValues = grid.getCellPotentialValues(wzCellIndex);
-									inter = (BitSet)UVWXYZValues.clone();
-									inter.or(uzValues);
-									inter.or(vzValues);
-									inter.or(wzValues);
-									if (wzValues.cardinality() > 1 && inter.cardinality() < 7) {
+									int wzValues = grid.getCellPotentialMask(wzCellIndex);
+									inter = UVWXYZValues | uzValues | vzValues | wzValues;
+									if (Integer.bitCount(wzValues) > 1 && Integer.bitCount(inter) < 7) {
 										// Potential XZ cell found
 										biggestCardinality4 = biggestCardinality3;
-										if (wzValues.cardinality() > biggestCardinality4)
-											biggestCardinality4 = wzValues.cardinality();
-										wingSize = UVWXYZValues.cardinality() + uzValues.cardinality() + vzValues.cardinality() + wzValues.cardinality();
-										CellSet intersection3 = new CellSet(wzCell.getForwardVisibleCells());
-										intersection3.retainAll(intersection2);								
+										if (Integer.bitCount(wzValues) > biggestCardinality4)
+											biggestCardinality4 = Integer.bitCount(wzValues);
+										wingSize = Integer.bitCount(UVWXYZValues) + Integer.bitCount(uzValues) + Integer.bitCount(vzValues) + Integer.bitCount(wzValues);
+										intersection3.set(wzCell.getForwardVisibleCells());
+										intersection3.and(intersection2);								
 										for (Cell xzCell : intersection3) {
 											int xzCellIndex = xzCell.getIndex();
-											BitSet xzValues = grid.getCellPotentialValues(xzCellIndex);
-											inter = (BitSet)UVWXYZValues.clone();
-											inter.or(uzValues);									
-											inter.or(vzValues);
-											inter.or(wzValues);
-											inter.or(xzValues);
-											if (xzValues.cardinality() > 1 && inter.cardinality() == 6) {
+											int xzValues = grid.getCellPotentialMask(xzCellIndex);
+											inter = UVWXYZValues | uzValues | vzValues | wzValues | xzValues;
+											if (Integer.bitCount(xzValues) > 1 && Integer.bitCount(inter) == 6) {
 												// Potential XZ cell found
 												biggestCardinality5 = biggestCardinality4;
-												if (xzValues.cardinality() > biggestCardinality5)
-													biggestCardinality5 = xzValues.cardinality();
-												wingSize = UVWXYZValues.cardinality() + uzValues.cardinality() + vzValues.cardinality() + wzValues.cardinality() + xzValues.cardinality();
+												if (Integer.bitCount(xzValues) > biggestCardinality5)
+													biggestCardinality5 = Integer.bitCount(xzValues);
+												wingSize = Integer.bitCount(UVWXYZValues) + Integer.bitCount(uzValues) + Integer.bitCount(vzValues) + Integer.bitCount(wzValues) + Integer.bitCount(xzValues);
 												//Restrict potential yzCell to Grid Cells that are visible by one or more of the other cells
-												CellSet yzCellRange = new CellSet(UVWXYZCell.getVisibleCells());
-												yzCellRange.addAll(uzCell.getVisibleCells());
-												yzCellRange.addAll(vzCell.getVisibleCells());
-												yzCellRange.addAll(wzCell.getVisibleCells());
-												yzCellRange.addAll(xzCell.getVisibleCells());
+												yzCellRange.set(UVWXYZCell.getVisibleCells());
+												yzCellRange.or(uzCell.getVisibleCells());
+												yzCellRange.or(vzCell.getVisibleCells());
+												yzCellRange.or(wzCell.getVisibleCells());
+												yzCellRange.or(xzCell.getVisibleCells());
 												yzCellRange.remove(UVWXYZCell);
 												yzCellRange.remove(uzCell);			
 												yzCellRange.remove(vzCell);			
@@ -168,21 +152,20 @@ public class UVWXYZWing implements IndirectHintProducer {
 												yzCellRange.remove(xzCell);									
 												for (Cell yzCell : yzCellRange) {
 													int yzCellIndex = yzCell.getIndex();
-													BitSet yzValues = grid.getCellPotentialValues(yzCellIndex);
-													BitSet union = (BitSet)yzValues.clone();
-													union.and(inter);
-													if (yzValues.cardinality() == 2 && union.cardinality() == 2) {
+													int yzValues = grid.getCellPotentialMask(yzCellIndex);
+													int union = yzValues & inter;
+													if (Integer.bitCount(yzValues) == 2 && Integer.bitCount(union) == 2) {
 														// Potential YZ cell found
 														// Get the "z" value and the "x" value in ALS-xz
 														boolean doubleLink = true;//assume doubly linked until testing
 														int zValue;
 														int xValue;
-														BitSet zBit = new BitSet(10);
-														BitSet xBit = new BitSet(10);
-															xValue = yzValues.nextSetBit(0);
-															xBit.set(xValue);
-															zValue = yzValues.nextSetBit(xValue + 1);
-															zBit.set(zValue);													
+														int zBit = 0;
+														int xBit = 0;
+															xValue = Integer.numberOfTrailingZeros(yzValues);
+															xBit = 1 << xValue;
+															zValue = Integer.numberOfTrailingZeros(yzValues & (-2 << xValue));
+															zBit = 1 << zValue;													
 														if (!isUVWXYZWing(UVWXYZValues, uzValues, vzValues, wzValues, xzValues, zBit, yzCell, xzCell, wzCell, vzCell, uzCell, UVWXYZCell))//Test if doubly linked
 																doubleLink = false;
 														if (isUVWXYZWing(UVWXYZValues, uzValues, vzValues, wzValues, xzValues, xBit, yzCell, xzCell, wzCell, vzCell, uzCell, UVWXYZCell)) {
@@ -196,20 +179,15 @@ public class UVWXYZWing implements IndirectHintProducer {
 															}
 															else {
 																// Found UVWXYZ-Wing doubly linked pattern
-																remCand = (BitSet)inter.clone();
-																remCand.xor(yzValues);
-																w1Value = remCand.nextSetBit(0);
-																w1Bit =  new BitSet(10);
-																w1Bit.set(w1Value);
-																w2Value = remCand.nextSetBit(w1Value+1);
-																w2Bit =  new BitSet(10);
-																w2Bit.set(w2Value);
-																w3Value = remCand.nextSetBit(w2Value+1);
-																w3Bit =  new BitSet(10);
-																w3Bit.set(w3Value);
-																w4Value = remCand.nextSetBit(w3Value+1);
-																w4Bit =  new BitSet(10);
-																w4Bit.set(w4Value);
+																remCand = inter ^ yzValues;
+																w1Value = Integer.numberOfTrailingZeros(remCand);
+																w1Bit = 1 << w1Value;
+																w2Value = Integer.numberOfTrailingZeros(remCand & (-2 << w1Value));
+																w2Bit = 1 << w2Value;
+																w3Value = Integer.numberOfTrailingZeros(remCand & (-2 << w2Value));
+																w3Bit = 1 << w3Value;
+																w4Value = Integer.numberOfTrailingZeros(remCand & (-2 << w3Value));
+																w4Bit = 1 << w4Value;
 																UVWXYZWingHint hint = createHint(
 																		grid, UVWXYZCell, Grid.getCell(uzCellIndex), Grid.getCell(vzCellIndex), Grid.getCell(wzCellIndex), Grid.getCell(xzCellIndex), Grid.getCell(yzCellIndex),
 																		uzValues, vzValues, wzValues, xzValues, yzValues, UVWXYZValues, xValue, zValue, xBit, zBit, biggestCardinality5, wingSize, doubleLink, w1Value, w2Value, w3Value, w4Value, w1Bit, w2Bit, w3Bit, w4Bit, remCand, inter);
@@ -243,44 +221,33 @@ public class UVWXYZWing implements IndirectHintProducer {
 
     private UVWXYZWingHint createHint(
             Grid grid, Cell UVWXYZCell, Cell uzCell, Cell vzCell, Cell wzCell, Cell xzCell, Cell yzCell,
-            BitSet uzValues, BitSet vzValues, BitSet wzValues, BitSet xzValues, BitSet yzValues, BitSet UVWXYZValues, int xValue, int zValue, BitSet xBit, BitSet zBit, int biggestCardinality, int wingSize, boolean doubleLink, int w1Value, int w2Value, int w3Value, int w4Value, BitSet w1Bit, BitSet w2Bit, BitSet w3Bit, BitSet w4Bit, BitSet remCand, BitSet wingSet) {
+            int uzValues, int vzValues, int wzValues, int xzValues, int yzValues, int UVWXYZValues, int xValue, int zValue, int xBit, int zBit, int biggestCardinality, int wingSize, boolean doubleLink, int w1Value, int w2Value, int w3Value, int w4Value, int w1Bit, int w2Bit, int w3Bit, int w4Bit, int remCand, int wingSet) {
         // Build list of removable potentials
 		boolean weakPotentials = false;
 		boolean strongPotentialsX = false;//if both remain false then proceed as normal UVWXYZ if weak is false strong is true and z is false then swap z to x
 		boolean strongPotentialsZ = false;//if both remain false then proceed as normal UVWXYZ if weak is false strong is true and z is false then swap z to x        
-		BitSet inter = (BitSet)zBit.clone();
 		Map<Cell,BitSet> removablePotentials = new HashMap<Cell,BitSet>();
 		int eliminationsTotal = 0;
 		CellSet victims = null;
 		if (doubleLink) {//if no eliminations at all then produce Hint as regular UVWXYZ
-			inter = (BitSet)w1Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w1Bit & xzValues) == 1)
 						victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & vzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vzCell.getVisibleCells());
 					else
 						victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(uzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & uzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (uzCell.getVisibleCells());
 					else
 						victims.retainAll(uzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(UVWXYZValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & UVWXYZValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (UVWXYZCell.getVisibleCells());
 					else
@@ -302,34 +269,24 @@ public class UVWXYZWing implements IndirectHintProducer {
 				}
 			}
 			victims = null;
-			inter = (BitSet)w2Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w2Bit & xzValues) == 1)
 					victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & vzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vzCell.getVisibleCells());
 					else
 						victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(uzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & uzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (uzCell.getVisibleCells());
 					else
 						victims.retainAll(uzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(UVWXYZValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & UVWXYZValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (UVWXYZCell.getVisibleCells());
 					else
@@ -351,34 +308,24 @@ public class UVWXYZWing implements IndirectHintProducer {
 				}
 			}
 			victims = null;
-			inter = (BitSet)w3Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w3Bit & xzValues) == 1)
 					victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w3Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w3Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w3Bit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w3Bit & vzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vzCell.getVisibleCells());
 					else
 						victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)w3Bit.clone();
-			inter.and(uzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w3Bit & uzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (uzCell.getVisibleCells());
 					else
 						victims.retainAll(uzCell.getVisibleCells());
-			inter = (BitSet)w3Bit.clone();
-			inter.and(UVWXYZValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w3Bit & UVWXYZValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (UVWXYZCell.getVisibleCells());
 					else
@@ -400,34 +347,24 @@ public class UVWXYZWing implements IndirectHintProducer {
 				}
 			}
 			victims = null;
-			inter = (BitSet)w4Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w4Bit & xzValues) == 1)
 					victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w4Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w4Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w4Bit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w4Bit & vzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vzCell.getVisibleCells());
 					else
 						victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)w4Bit.clone();
-			inter.and(uzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w4Bit & uzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (uzCell.getVisibleCells());
 					else
 						victims.retainAll(uzCell.getVisibleCells());
-			inter = (BitSet)w4Bit.clone();
-			inter.and(UVWXYZValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w4Bit & UVWXYZValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (UVWXYZCell.getVisibleCells());
 					else
@@ -449,25 +386,15 @@ public class UVWXYZWing implements IndirectHintProducer {
 				}
 			}			
 			victims = new CellSet(yzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & xzValues) == 1)
 				victims.retainAll(xzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & wzValues) == 1)
 				victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & vzValues) == 1)
 				victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(uzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & uzValues) == 1)
 				victims.retainAll(uzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(UVWXYZValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & UVWXYZValues) == 1)
 				victims.retainAll(UVWXYZCell.getVisibleCells());
 			victims.remove(UVWXYZCell);
 			victims.remove(uzCell);
@@ -487,25 +414,15 @@ public class UVWXYZWing implements IndirectHintProducer {
 			}
 		}
 		victims = new CellSet(yzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(xzValues);
-		if (inter.cardinality() == 1)
+		if (Integer.bitCount(zBit & xzValues) == 1)
 			victims.retainAll(xzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(wzValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & wzValues) == 1)
 			victims.retainAll(wzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(vzValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & vzValues) == 1)
 			victims.retainAll(vzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(uzValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & uzValues) == 1)
 			victims.retainAll(uzCell.getVisibleCells());
- 		inter = (BitSet)zBit.clone();
-		inter.and(UVWXYZValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & UVWXYZValues) == 1)
 			victims.retainAll(UVWXYZCell.getVisibleCells());
         victims.remove(UVWXYZCell);
 		victims.remove(uzCell);
@@ -528,14 +445,14 @@ public class UVWXYZWing implements IndirectHintProducer {
 				if (!strongPotentialsZ) {
 					doubleLink = false;
 					return new UVWXYZWingHint(this, removablePotentials,
-						UVWXYZCell, uzCell, vzCell, wzCell, xzCell, yzCell, xValue, zValue, biggestCardinality, wingSize, doubleLink, wingSet, eliminationsTotal);					
+						UVWXYZCell, uzCell, vzCell, wzCell, xzCell, yzCell, xValue, zValue, biggestCardinality, wingSize, doubleLink, Grid.maskToBitSet(wingSet), eliminationsTotal);					
 				}
 				else
 					if (!strongPotentialsX)
 						doubleLink = false;
         // Create hint
         return new UVWXYZWingHint(this, removablePotentials,
-                UVWXYZCell, uzCell, vzCell, wzCell, xzCell, yzCell, zValue, xValue, biggestCardinality, wingSize, doubleLink, wingSet, eliminationsTotal);
+                UVWXYZCell, uzCell, vzCell, wzCell, xzCell, yzCell, zValue, xValue, biggestCardinality, wingSize, doubleLink, Grid.maskToBitSet(wingSet), eliminationsTotal);
     }
 
     @Override
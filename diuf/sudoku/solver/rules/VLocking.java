@@ -15,28 +15,35 @@ import diuf.sudoku.tools.*;
  * Implementation of Generalized Intersectio  technique by Tarek Maani (@SudokuMonster).
  */
 public class VLocking implements IndirectHintProducer {
+
+    private final SolverConfig config;
+
+    public VLocking(SolverConfig config) {
+        this.config = config;
+    }
+
     public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
-        if (Settings.getInstance().isBlocks())
-			if (Settings.getInstance().isBlocks())
+        if (config.isBlocks())
+			if (config.isBlocks())
 				getHints(grid, 0, accu); //block
 			getHints(grid, 1, accu); //row
 			getHints(grid, 2, accu); //column
 //@SudokuMonster: Added Variants
-			if (Settings.getInstance().isDG()) {
+			if (config.isDG()) {
 				getHints(grid, 3, accu); //DG				
 			}
-			if (Settings.getInstance().isWindows()) {
+			if (config.isWindows()) {
 				getHints(grid, 4, accu); //window				
 			}
-			if (Settings.getInstance().isX()) {
+			if (config.isX()) {
 				getHints(grid, 5, accu); //Main diagonal
 				getHints(grid, 6, accu); //Anti diagonal
 			}
-			if (Settings.getInstance().isGirandola())
+			if (config.isGirandola())
 				getHints(grid, 7, accu); //Girandola			
-			if (Settings.getInstance().isAsterisk())
+			if (config.isAsterisk())
 				getHints(grid, 8, accu); //Asterisk			
-			if (Settings.getInstance().isCD())
+			if (config.isCD())
 				getHints(grid, 9, accu); //CD			
     }
 
@@ -51,28 +51,23 @@ public class VWXYZWing implements IndirectHintProducer {
 			accu.add(hint);		
 	}
 
-    private boolean isVWXYZWing(BitSet vwxyzValues,BitSet vzValues, BitSet wzValues, BitSet xzValues, BitSet aBit, Cell yzCell, Cell xzCell, Cell wzCell, Cell vzCell, Cell vwxyzCell) {
-        BitSet inter = (BitSet)aBit.clone();
-		inter.and(xzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(xzCell))
+    private boolean isVWXYZWing(int vwxyzValues,int vzValues, int wzValues, int xzValues, int aBit, Cell yzCell, Cell xzCell, Cell wzCell, Cell vzCell, Cell vwxyzCell) {
+		if (Integer.bitCount(aBit & xzValues) == 1 && !yzCell.canSeeCell(xzCell))
 			return false;
-        inter = (BitSet)aBit.clone();
-		inter.and(wzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(wzCell))
+		if (Integer.bitCount(aBit & wzValues) == 1 && !yzCell.canSeeCell(wzCell))
 			return false;		
-        inter = (BitSet)aBit.clone();
-		inter.and(vzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(vzCell))
+		if (Integer.bitCount(aBit & vzValues) == 1 && !yzCell.canSeeCell(vzCell))
 			return false;
-        inter = (BitSet)aBit.clone();
-		inter.and(vwxyzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(vwxyzCell))
+		if (Integer.bitCount(aBit & vwxyzValues) == 1 && !yzCell.canSeeCell(vwxyzCell))
 			return false;			
         return true;
     }
 
     private List<VWXYZWingHint> getHints(Grid grid) /*throws InterruptedException*/ {
 		List<VWXYZWingHint> result = new ArrayList<VWXYZWingHint>();
+		CellSet intersection1 = new CellSet();
+		CellSet intersection2 = new CellSet();
+		CellSet yzCellRange = new CellSet();
 		int biggestCardinality = 0;
 		int biggestCardinality2 = 0;
 		int biggestCardinality3 = 0;
@@ -81,83 +76,76 @@ public class VWXYZWing implements IndirectHintProducer {
 		int w1Value = 0;
 		int w2Value = 0;
 		int w3Value = 0;
-		BitSet w1Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet w2Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet w3Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet remCand	=  new BitSet(10);//candidates of set not in yzCell	
+		int w1Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int w2Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int w3Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int remCand = 0;//candidates of set not in yzCell	
 		for (int i = 0; i < 81; i++) {
 			Cell vwxyzCell = Grid.getCell(i);
-			BitSet vwxyzValues = grid.getCellPotentialValues(i);
-			if (vwxyzValues.cardinality() > 1 && vwxyzValues.cardinality() < 6) {
+			int vwxyzValues = grid.getCellPotentialMask(i);
+			if (Integer.bitCount(vwxyzValues) > 1 && Integer.bitCount(vwxyzValues) < 6) {
 				// Potential VWXYZ cell found
-				biggestCardinality = vwxyzValues.cardinality();
-				wingSize = vwxyzValues.cardinality();
-				for (int vzCellIndex : vwxyzCell.getForwardVisibleCellIndexes()) {
-					BitSet vzValues = grid.getCellPotentialValues(vzCellIndex);
-					BitSet inter = (BitSet)vwxyzValues.clone();
-					inter.or(vzValues);
-					if (vzValues.cardinality() > 1 && inter.cardinality() < 6) {
+				biggestCardinality = Integer.bitCount(vwxyzValues);
+				wingSize = Integer.bitCount(vwxyzValues);
+				for (int vzCellIndex : grid.getTopology().getForwardVisibleCellIndexes(vwxyzCell.getIndex())) {
+					int vzValues = grid.getCellPotentialMask(vzCellIndex);
+					int inter = vwxyzValues | vzValues;
+					if (Integer.bitCount(vzValues) > 1 && Integer.bitCount(inter) < 6) {
 						// Potential WZ cell found
 						Cell vzCell = Grid.getCell(vzCellIndex);
 						biggestCardinality2 = biggestCardinality;
-						if (vzValues.cardinality() > biggestCardinality2)
-							biggestCardinality2 = vzValues.cardinality();
-						wingSize = vwxyzValues.cardinality() + vzValues.cardinality();
-						CellSet intersection1 = new CellSet(vwxyzCell.getForwardVisibleCells());
-						intersection1.retainAll(vzCell.getForwardVisibleCells());
+						if (Integer.bitCount(vzValues) > biggestCardinality2)
+							biggestCardinality2 = Integer.bitCount(vzValues);
+						wingSize = Integer.bitCount(vwxyzValues) + Integer.bitCount(vzValues);
+						intersection1.set(vwxyzCell.getForwardVisibleCells());
+						intersection1.and(vzCell.getForwardVisibleCells());
 						for (Cell wzCell : intersection1) {
 							int wzCellIndex = wzCell.getIndex();
-							BitSet wzValues = grid.getCellPotentialValues(wzCellIndex);
-							inter = (BitSet)vwxyzValues.clone();
-							inter.or(vzValues);
-							inter.or(wzValues);
-							if (wzValues.cardinality() > 1 && inter.cardinality() < 6) {
+							int wzValues = grid.getCellPotentialMask(wzCellIndex);
+							inter = vwxyzValues | vzValues | wzValues;
+							if (Integer.bitCount(wzValues) > 1 && Integer.bitCount(inter) < 6) {
 								// Potential XZ cell found
 								biggestCardinality3 = biggestCardinality2;
-								if (wzValues.cardinality() > biggestCardinality3)
-									biggestCardinality3 = wzValues.cardinality();
-								wingSize = vwxyzValues.cardinality() + vzValues.cardinality() + wzValues.cardinality();
-								CellSet intersection2 = new CellSet(wzCell.getForwardVisibleCells());
-								intersection2.retainAll(intersection1);
+								if (Integer.bitCount(wzValues) > biggestCardinality3)
+									biggestCardinality3 = Integer.bitCount(wzValues);
+								wingSize = Integer.bitCount(vwxyzValues) + Integer.bitCount(vzValues) + Integer.bitCount(wzValues);
+								intersection2.set(wzCell.getForwardVisibleCells());
+								intersection2.and(intersection1);
 								for (Cell xzCell : intersection2) {
 									int xzCellIndex = xzCell.getIndex();
-									BitSet xzValues = grid.getCellPotentialValues(xzCellIndex);
-									inter = (BitSet)vwxyzValues.clone();
-									inter.or(vzValues);
-									inter.or(wzValues);
-									inter.or(xzValues);
-									if (xzValues.cardinality() > 1 && inter.cardinality() == 5) {
+									int xzValues = grid.getCellPotentialMask(xzCellIndex);
+									inter = vwxyzValues | vzValues | wzValues | xzValues;
+									if (Integer.bitCount(xzValues) > 1 && Integer.bitCount(inter) == 5) {
 										// Potential XZ cell found
 										biggestCardinality4 = biggestCardinality3;
-										if (xzValues.cardinality() > biggestCardinality4)
-											biggestCardinality4 = xzValues.cardinality();
-										wingSize = vwxyzValues.cardinality() + vzValues.cardinality() + wzValues.cardinality() + xzValues.cardinality();
+										if (Integer.bitCount(xzValues) > biggestCardinality4)
+											biggestCardinality4 = Integer.bitCount(xzValues);
+										wingSize = Integer.bitCount(vwxyzValues) + Integer.bitCount(vzValues) + Integer.bitCount(wzValues) + Integer.bitCount(xzValues);
 										//Restrict potential yzCell to Grid Cells that are visible by one or more of the other cells
-										CellSet yzCellRange = new CellSet(vwxyzCell.getVisibleCells());
-										yzCellRange.addAll(vzCell.getVisibleCells());
-										yzCellRange.addAll(wzCell.getVisibleCells());
-										yzCellRange.addAll(xzCell.getVisibleCells());
+										yzCellRange.set(vwxyzCell.getVisibleCells());
+										yzCellRange.or(vzCell.getVisibleCells());
+										yzCellRange.or(wzCell.getVisibleCells());
+										yzCellRange.or(xzCell.getVisibleCells());
 										yzCellRange.remove(vwxyzCell);
 										yzCellRange.remove(vzCell);			
 										yzCellRange.remove(wzCell);
 										yzCellRange.remove(xzCell);
 										for (Cell yzCell : yzCellRange) {
 											int yzCellIndex = yzCell.getIndex();
-											BitSet yzValues = grid.getCellPotentialValues(yzCellIndex);
-											BitSet union = (BitSet)yzValues.clone();
-											union.and(inter);
-											if (yzValues.cardinality() == 2 && union.cardinality() == 2) {
+											int yzValues = grid.getCellPotentialMask(yzCellIndex);
+											int union = yzValues & inter;
+											if (Integer.bitCount(yzValues) == 2 && Integer.bitCount(union) == 2) {
 												// Potential YZ cell found
 												// Get the "z" value and the "x" value in ALS-xz
 												boolean doubleLink = true;//assume doubly linked until testing
 												int zValue;
 												int xValue;
-												BitSet zBit = new BitSet(10);
-												BitSet xBit = new BitSet(10);
-													xValue = yzValues.nextSetBit(0);
-													xBit.set(xValue);
-													zValue = yzValues.nextSetBit(xValue + 1);
-													zBit.set(zValue);													
+												int zBit = 0;
+												int xBit = 0;
+													xValue = Integer.numberOfTrailingZeros(yzValues);
+													xBit = 1 << xValue;
+													zValue = Integer.numberOfTrailingZeros(yzValues & (-2 << xValue));
+													zBit = 1 << zValue;													
 												if (!isVWXYZWing(vwxyzValues, vzValues, wzValues, xzValues, zBit, yzCell, xzCell, wzCell, vzCell, vwxyzCell))//Test if doubly linked
 														doubleLink = false;
 												if (isVWXYZWing(vwxyzValues, vzValues, wzValues, xzValues, xBit, yzCell, xzCell, wzCell, vzCell, vwxyzCell)) {
@@ -171,17 +159,13 @@ public class VWXYZWing implements IndirectHintProducer {
 													}
 													else {
 														// Found VWXYZ-Wing doubly linked pattern
-														remCand = (BitSet)inter.clone();
-														remCand.xor(yzValues);
-														w1Value = remCand.nextSetBit(0);
-														w1Bit =  new BitSet(10);
-														w1Bit.set(w1Value);
-														w2Value = remCand.nextSetBit(w1Value+1);
-														w2Bit =  new BitSet(10);
-														w2Bit.set(w2Value);
-														w3Value = remCand.nextSetBit(w2Value+1);
-														w3Bit =  new BitSet(10);
-														w3Bit.set(w3Value);
+														remCand = inter ^ yzValues;
+														w1Value = Integer.numberOfTrailingZeros(remCand);
+														w1Bit = 1 << w1Value;
+														w2Value = Integer.numberOfTrailingZeros(remCand & (-2 << w1Value));
+														w2Bit = 1 << w2Value;
+														w3Value = Integer.numberOfTrailingZeros(remCand & (-2 << w2Value));
+														w3Bit = 1 << w3Value;
 														VWXYZWingHint hint = createHint(
 																grid, vwxyzCell, Grid.getCell(vzCellIndex), Grid.getCell(wzCellIndex), Grid.getCell(xzCellIndex), Grid.getCell(yzCellIndex),
 																vzValues, wzValues, xzValues, yzValues, vwxyzValues, xValue, zValue, xBit, zBit, biggestCardinality4, wingSize, doubleLink, w1Value, w2Value, w3Value, w1Bit, w2Bit, w3Bit, remCand, inter);
@@ -213,37 +197,28 @@ public class VWXYZWing implements IndirectHintProducer {
 
     private VWXYZWingHint createHint(
             Grid grid, Cell vwxyzCell, Cell vzCell, Cell wzCell, Cell xzCell, Cell yzCell,
-            BitSet vzValues, BitSet wzValues, BitSet xzValues, BitSet yzValues, BitSet vwxyzValues, int xValue, int zValue, BitSet xBit, BitSet zBit, int biggestCardinality, int wingSize, boolean doubleLink, int w1Value, int w2Value, int w3Value, BitSet w1Bit, BitSet w2Bit, BitSet w3Bit, BitSet remCand, BitSet wingSet) {
+            int vzValues, int wzValues, int xzValues, int yzValues, int vwxyzValues, int xValue, int zValue, int xBit, int zBit, int biggestCardinality, int wingSize, boolean doubleLink, int w1Value, int w2Value, int w3Value, int w1Bit, int w2Bit, int w3Bit, int remCand, int wingSet) {
         // Build list of removable potentials
 		boolean weakPotentials = false;
 		boolean strongPotentialsX = false;//if both remain false then proceed as normal VWXYZ if weak is false strong is true and z is false then swap z to x
 		boolean strongPotentialsZ = false;//if both remain false then proceed as normal VWXYZ if weak is false strong is true and z is false then swap z to x        
-		BitSet inter = (BitSet)zBit.clone();
 		Map<Cell,BitSet> removablePotentials = new HashMap<Cell,BitSet>();
 		int eliminationsTotal = 0;
 		CellSet victims = null;
 		if (doubleLink) {//if no eliminations at all then produce Hint as regular VWXYZ
-			inter = (BitSet)w1Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w1Bit & xzValues) == 1)
 						victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & vzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vzCell.getVisibleCells());
 					else
 						victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(vwxyzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & vwxyzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vwxyzCell.getVisibleCells());
 					else
@@ -264,27 +239,19 @@ public class VWXYZWing implements IndirectHintProducer {
 				}
 			}
 			victims = null;
-			inter = (BitSet)w2Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w2Bit & xzValues) == 1)
 					victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & vzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vzCell.getVisibleCells());
 					else
 						victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(vwxyzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & vwxyzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vwxyzCell.getVisibleCells());
 					else
@@ -305,27 +272,19 @@ public class VWXYZWing implements IndirectHintProducer {
 				}
 			}
 			victims = null;
-			inter = (BitSet)w3Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w3Bit & xzValues) == 1)
 					victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w3Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w3Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w3Bit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w3Bit & vzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vzCell.getVisibleCells());
 					else
 						victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)w3Bit.clone();
-			inter.and(vwxyzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w3Bit & vwxyzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (vwxyzCell.getVisibleCells());
 					else
@@ -346,21 +305,13 @@ public class VWXYZWing implements IndirectHintProducer {
 				}
 			}			
 			victims = new CellSet(yzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & xzValues) == 1)
 				victims.retainAll(xzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & wzValues) == 1)
 				victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(vzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & vzValues) == 1)
 				victims.retainAll(vzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(vwxyzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & vwxyzValues) == 1)
 				victims.retainAll(vwxyzCell.getVisibleCells());
 			victims.remove(vwxyzCell);
 			victims.remove(vzCell);
@@ -379,21 +330,13 @@ public class VWXYZWing implements IndirectHintProducer {
 			}
 		}
 		victims = new CellSet(yzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(xzValues);
-		if (inter.cardinality() == 1)
+		if (Integer.bitCount(zBit & xzValues) == 1)
 			victims.retainAll(xzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(wzValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & wzValues) == 1)
 			victims.retainAll(wzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(vzValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & vzValues) == 1)
 			victims.retainAll(vzCell.getVisibleCells());
- 		inter = (BitSet)zBit.clone();
-		inter.and(vwxyzValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & vwxyzValues) == 1)
 			victims.retainAll(vwxyzCell.getVisibleCells());
         victims.remove(vwxyzCell);
 		victims.remove(vzCell);
@@ -415,14 +358,14 @@ public class VWXYZWing implements IndirectHintProducer {
 				if (!strongPotentialsZ) {
 					doubleLink = false;
 					return new VWXYZWingHint(this, removablePotentials,
-						vwxyzCell, vzCell, wzCell, xzCell, yzCell, xValue, zValue, biggestCardinality, wingSize, doubleLink, wingSet, eliminationsTotal);					
+						vwxyzCell, vzCell, wzCell, xzCell, yzCell, xValue, zValue, biggestCardinality, wingSize, doubleLink, Grid.maskToBitSet(wingSet), eliminationsTotal);					
 				}
 				else
 					if (!strongPotentialsX)
 						doubleLink = false;
         // Create hint
         return new VWXYZWingHint(this, removablePotentials,
-                vwxyzCell, vzCell, wzCell, xzCell, yzCell, zValue, xValue, biggestCardinality, wingSize, doubleLink, wingSet, eliminationsTotal);
+                vwxyzCell, vzCell, wzCell, xzCell, yzCell, zValue, xValue, biggestCardinality, wingSize, doubleLink, Grid.maskToBitSet(wingSet), eliminationsTotal);
     }
 
     @Override
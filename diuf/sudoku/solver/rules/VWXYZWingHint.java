@@ -240,7 +240,7 @@ public class VWXYZWingHint extends IndirectHint implements Rule, HasParentPotent
         VWXYZWingHint other = (VWXYZWingHint)o;
         if (this.vwxyzCell != other.vwxyzCell || this.zValue != other.zValue)
             return false;
-        return this.vzCell == other.wzCell && this.wzCell == other.wzCell && this.xzCell == other.xzCell && this.yzCell == other.yzCell;
+        return this.vzCell == other.vzCell && this.wzCell == other.wzCell && this.xzCell == other.xzCell && this.yzCell == other.yzCell;
     }
 
     @Override
@@ -51,89 +51,81 @@ public class WXYZWing implements IndirectHintProducer {
 			accu.add(hint);		
 	}
 	
-    private boolean isWXYZWing(BitSet wxyzValues,BitSet wzValues, BitSet xzValues, BitSet aBit, Cell yzCell, Cell xzCell, Cell wzCell, Cell wxyzCell) {
-        BitSet inter = (BitSet)aBit.clone();
-		inter.and(xzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(xzCell))
+    private boolean isWXYZWing(int wxyzValues,int wzValues, int xzValues, int aBit, Cell yzCell, Cell xzCell, Cell wzCell, Cell wxyzCell) {
+		if (Integer.bitCount(aBit & xzValues) == 1 && !yzCell.canSeeCell(xzCell))
 			return false;
-        inter = (BitSet)aBit.clone();
-		inter.and(wzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(wzCell))
+		if (Integer.bitCount(aBit & wzValues) == 1 && !yzCell.canSeeCell(wzCell))
 			return false;		
-        inter = (BitSet)aBit.clone();
-		inter.and(wxyzValues);
-		if (inter.cardinality() == 1 && !yzCell.canSeeCell(wxyzCell))
+		if (Integer.bitCount(aBit & wxyzValues) == 1 && !yzCell.canSeeCell(wxyzCell))
 			return false;			
         return true;
     }
 
     private List<WXYZWingHint> getHints(Grid grid) /*throws InterruptedException*/ {
 		List<WXYZWingHint> result = new ArrayList<WXYZWingHint>();
+		CellSet intersection1 = new CellSet();
+		CellSet yzCellRange = new CellSet();
 		int biggestCardinality = 0;
 		int biggestCardinality2 = 0;
 		int biggestCardinality3 = 0;
 		int wingSize;
 		int w1Value = 0;
 		int w2Value = 0;
-		BitSet w1Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet w2Bit = new BitSet(10);//Avoiding the use of y to avoid confusion with x,z of ALS XZ
-		BitSet remCand	=  new BitSet(10);//candidates of set not in yzCell	
+		int w1Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int w2Bit = 0;//Avoiding the use of y to avoid confusion with x,z of ALS XZ
+		int remCand = 0;//candidates of set not in yzCell	
 		for (int i = 0; i < 81; i++) {
 			Cell wxyzCell = Grid.getCell(i);
-			BitSet wxyzValues = grid.getCellPotentialValues(i);
-			if (wxyzValues.cardinality() > 1 && wxyzValues.cardinality() < 5) {
+			int wxyzValues = grid.getCellPotentialMask(i);
+			if (Integer.bitCount(wxyzValues) > 1 && Integer.bitCount(wxyzValues) < 5) {
 				// Potential WXYZ cell found
-				biggestCardinality = wxyzValues.cardinality();
-				wingSize = wxyzValues.cardinality();
-				for (int wzCellIndex : wxyzCell.getForwardVisibleCellIndexes()) {
-					BitSet wzValues = grid.getCellPotentialValues(wzCellIndex);
-					BitSet inter = (BitSet)wxyzValues.clone();
-					inter.or(wzValues);
-					if (wzValues.cardinality() > 1 && inter.cardinality() < 5) {
+				biggestCardinality = Integer.bitCount(wxyzValues);
+				wingSize = Integer.bitCount(wxyzValues);
+				for (int wzCellIndex : grid.getTopology().getForwardVisibleCellIndexes(wxyzCell.getIndex())) {
+					int wzValues = grid.getCellPotentialMask(wzCellIndex);
+					int inter = wxyzValues | wzValues;
+					if (Integer.bitCount(wzValues) > 1 && Integer.bitCount(inter) < 5) {
 						// Potential XZ cell found
 						Cell wzCell = Grid.getCell(wzCellIndex);
 						biggestCardinality2 = biggestCardinality;
-						if (wzValues.cardinality() > biggestCardinality2)
-							biggestCardinality2 = wzValues.cardinality();
-						wingSize = wxyzValues.cardinality() + wzValues.cardinality();
-						CellSet intersection1 = new CellSet(wxyzCell.getForwardVisibleCells());
-						intersection1.retainAll(wzCell.getForwardVisibleCells());
+						if (Integer.bitCount(wzValues) > biggestCardinality2)
+							biggestCardinality2 = Integer.bitCount(wzValues);
+						wingSize = Integer.bitCount(wxyzValues) + Integer.bitCount(wzValues);
+						intersection1.set(wxyzCell.getForwardVisibleCells());
+						intersection1.and(wzCell.getForwardVisibleCells());
 						for (Cell xzCell : intersection1) {
 							int xzCellIndex = xzCell.getIndex();
-							BitSet xzValues = grid.getCellPotentialValues(xzCellIndex);
-							inter = (BitSet)wxyzValues.clone();
-							inter.or(wzValues);
-							inter.or(xzValues);
-							if (xzValues.cardinality() > 1 && inter.cardinality() == 4) {
+							int xzValues = grid.getCellPotentialMask(xzCellIndex);
+							inter = wxyzValues | wzValues | xzValues;
+							if (Integer.bitCount(xzValues) > 1 && Integer.bitCount(inter) == 4) {
 								// Potential XZ cell found
 								biggestCardinality3 = biggestCardinality2;
-								if (xzValues.cardinality() > biggestCardinality3)
-									biggestCardinality3 = xzValues.cardinality();
-								wingSize = wxyzValues.cardinality() + wzValues.cardinality() + xzValues.cardinality();
+								if (Integer.bitCount(xzValues) > biggestCardinality3)
+									biggestCardinality3 = Integer.bitCount(xzValues);
+								wingSize = Integer.bitCount(wxyzValues) + Integer.bitCount(wzValues) + Integer.bitCount(xzValues);
 								//Restrict potential yzCell to Grid Cells that are visible by one or more of the other cells
-								CellSet yzCellRange = new CellSet(wxyzCell.getVisibleCells());
-								yzCellRange.addAll(wzCell.getVisibleCells());
-								yzCellRange.addAll(xzCell.getVisibleCells());
+								yzCellRange.set(wxyzCell.getVisibleCells());
+								yzCellRange.or(wzCell.getVisibleCells());
+								yzCellRange.or(xzCell.getVisibleCells());
 								yzCellRange.remove(wxyzCell);		
 								yzCellRange.remove(wzCell);
 								yzCellRange.remove(xzCell);
 								for (Cell yzCell : yzCellRange) {
 									int yzCellIndex = yzCell.getIndex();
-									BitSet yzValues = grid.getCellPotentialValues(yzCellIndex);
-									BitSet union = (BitSet)yzValues.clone();
-									union.and(inter);
-									if (yzValues.cardinality() == 2 && union.cardinality() == 2) {
+									int yzValues = grid.getCellPotentialMask(yzCellIndex);
+									int union = yzValues & inter;
+									if (Integer.bitCount(yzValues) == 2 && Integer.bitCount(union) == 2) {
 										// Potential YZ cell found
 										// Get the "z" value and the "x" value in ALS-xz
 										boolean doubleLink = true;//assume doubly linked until testing
 										int zValue;
 										int xValue;
-										BitSet zBit = new BitSet(10);
-										BitSet xBit = new BitSet(10);
-											xValue = yzValues.nextSetBit(0);
-											xBit.set(xValue);
-											zValue = yzValues.nextSetBit(xValue + 1);
-											zBit.set(zValue);													
+										int zBit = 0;
+										int xBit = 0;
+											xValue = Integer.numberOfTrailingZeros(yzValues);
+											xBit = 1 << xValue;
+											zValue = Integer.numberOfTrailingZeros(yzValues & (-2 << xValue));
+											zBit = 1 << zValue;													
 										if (!isWXYZWing(wxyzValues, wzValues, xzValues, zBit, yzCell, xzCell, wzCell, wxyzCell))//Test if doubly linked
 												doubleLink = false;
 										if (isWXYZWing(wxyzValues, wzValues, xzValues, xBit, yzCell, xzCell, wzCell, wxyzCell)) {
@@ -147,14 +139,11 @@ public class WXYZWing implements IndirectHintProducer {
 											}
 											else {
 												// Found WXYZ-Wing doubly linked pattern
-												remCand = (BitSet)inter.clone();
-												remCand.xor(yzValues);
-												w1Value = remCand.nextSetBit(0);
-												w1Bit =  new BitSet(10);
-												w1Bit.set(w1Value);
-												w2Value = remCand.nextSetBit(w1Value+1);
-												w2Bit =  new BitSet(10);
-												w2Bit.set(w2Value);
+												remCand = inter ^ yzValues;
+												w1Value = Integer.numberOfTrailingZeros(remCand);
+												w1Bit = 1 << w1Value;
+												w2Value = Integer.numberOfTrailingZeros(remCand & (-2 << w1Value));
+												w2Bit = 1 << w2Value;
 												WXYZWingHint hint = createHint(
 														grid, wxyzCell, Grid.getCell(wzCellIndex), Grid.getCell(xzCellIndex), Grid.getCell(yzCellIndex),
 														wzValues, xzValues, yzValues, wxyzValues, xValue, zValue, xBit, zBit, biggestCardinality3, wingSize, doubleLink, w1Value, w2Value, w1Bit, w2Bit, remCand, inter);
@@ -184,30 +173,23 @@ public class WXYZWing implements IndirectHintProducer {
 
     private WXYZWingHint createHint(
             Grid grid, Cell wxyzCell, Cell wzCell, Cell xzCell, Cell yzCell,
-            BitSet wzValues, BitSet xzValues, BitSet yzValues, BitSet wxyzValues, int xValue, int zValue, BitSet xBit, BitSet zBit, int biggestCardinality, int wingSize, boolean doubleLink, int w1Value, int w2Value, BitSet w1Bit, BitSet w2Bit, BitSet remCand, BitSet wingSet) {
+            int wzValues, int xzValues, int yzValues, int wxyzValues, int xValue, int zValue, int xBit, int zBit, int biggestCardinality, int wingSize, boolean doubleLink, int w1Value, int w2Value, int w1Bit, int w2Bit, int remCand, int wingSet) {
         // Build list of removable potentials
 		boolean weakPotentials = false;
 		boolean strongPotentialsX = false;//if both remain false then proceed as normal WXYZ if weak is false strong is true and z is false then swap z to x
 		boolean strongPotentialsZ = false;//if both remain false then proceed as normal WXYZ if weak is false strong is true and z is false then swap z to x        
-		BitSet inter = (BitSet)zBit.clone();
 		Map<Cell,BitSet> removablePotentials = new HashMap<Cell,BitSet>();
 		int eliminationsTotal = 0;
 		CellSet victims = null;
 		if (doubleLink) {//if no eliminations at all then produce Hint as regular WXYZ
-			inter = (BitSet)w1Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w1Bit & xzValues) == 1)
 						victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w1Bit.clone();
-			inter.and(wxyzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w1Bit & wxyzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wxyzCell.getVisibleCells());
 					else
@@ -227,20 +209,14 @@ public class WXYZWing implements IndirectHintProducer {
 				}
 			}
 			victims = null;
-			inter = (BitSet)w2Bit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(w2Bit & xzValues) == 1)
 					victims = new CellSet (xzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & wzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wzCell.getVisibleCells());
 					else
 						victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)w2Bit.clone();
-			inter.and(wxyzValues);
-			if (inter.cardinality() == 1) 
+			if (Integer.bitCount(w2Bit & wxyzValues) == 1) 
 					if (victims == null)
 						victims = new CellSet (wxyzCell.getVisibleCells());
 					else
@@ -260,17 +236,11 @@ public class WXYZWing implements IndirectHintProducer {
 				}
 			}
 			victims = new CellSet(yzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(xzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & xzValues) == 1)
 				victims.retainAll(xzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(wzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & wzValues) == 1)
 				victims.retainAll(wzCell.getVisibleCells());
-			inter = (BitSet)xBit.clone();
-			inter.and(wxyzValues);
-			if (inter.cardinality() == 1)
+			if (Integer.bitCount(xBit & wxyzValues) == 1)
 				victims.retainAll(wxyzCell.getVisibleCells());
 			victims.remove(wxyzCell);
 			victims.remove(wzCell);
@@ -288,17 +258,11 @@ public class WXYZWing implements IndirectHintProducer {
 			}
 		}
 		victims = new CellSet(yzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(xzValues);
-		if (inter.cardinality() == 1)
+		if (Integer.bitCount(zBit & xzValues) == 1)
 			victims.retainAll(xzCell.getVisibleCells());
-		inter = (BitSet)zBit.clone();
-		inter.and(wzValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & wzValues) == 1)
 			victims.retainAll(wzCell.getVisibleCells());
- 		inter = (BitSet)zBit.clone();
-		inter.and(wxyzValues);
-        if (inter.cardinality() == 1)
+        if (Integer.bitCount(zBit & wxyzValues) == 1)
 			victims.retainAll(wxyzCell.getVisibleCells());
         victims.remove(wxyzCell);
         victims.remove(wzCell);
@@ -319,14 +283,14 @@ public class WXYZWing implements IndirectHintProducer {
 				if (!strongPotentialsZ) {
 					doubleLink = false;
 					return new WXYZWingHint(this, removablePotentials,
-						wxyzCell, wzCell, xzCell, yzCell, xValue, zValue, biggestCardinality, wingSize, doubleLink, wingSet, eliminationsTotal);					
+						wxyzCell, wzCell, xzCell, yzCell, xValue, zValue, biggestCardinality, wingSize, doubleLink, Grid.maskToBitSet(wingSet), eliminationsTotal);					
 				}
 				else
 					if (!strongPotentialsX)
 						doubleLink = false;
         // Create hint
         return new WXYZWingHint(this, removablePotentials,
-                wxyzCell, wzCell, xzCell, yzCell, zValue, xValue, biggestCardinality, wingSize, doubleLink, wingSet, eliminationsTotal);
+                wxyzCell, wzCell, xzCell, yzCell, zValue, xValue, biggestCardinality, wingSize, doubleLink, Grid.maskToBitSet(wingSet), eliminationsTotal);
     }
 
     @Override
@@ -37,54 +37,45 @@ public class XYWing implements IndirectHintProducer {
      * @param yzValues the potential values of the "YZ" cell
      * @return whether the three potential values set are forming an XY-Wing.
      */
-    private boolean isXYWing(BitSet xyValues, BitSet xzValues, BitSet yzValues) {
-        if (xyValues.cardinality() != 2 ||
-                xzValues.cardinality() != 2 ||
-                yzValues.cardinality() != 2)
+    private boolean isXYWing(int xyValues, int xzValues, int yzValues) {
+        if (Integer.bitCount(xyValues) != 2 ||
+                Integer.bitCount(xzValues) != 2 ||
+                Integer.bitCount(yzValues) != 2)
             return false;
-        BitSet union = (BitSet)xyValues.clone();
-        union.or(xzValues);
-        union.or(yzValues);
-        if(union.cardinality() != 3) return false;
-        BitSet inter = (BitSet)xyValues.clone();
-        inter.and(xzValues);
-        inter.and(yzValues);
-        return inter.cardinality() == 0;
+        int union = xyValues | xzValues | yzValues;
+        if(Integer.bitCount(union) != 3) return false;
+        int inter = xyValues & xzValues & yzValues;
+        return Integer.bitCount(inter) == 0;
     }
 
-    private boolean isXYZWing(BitSet xyValues, BitSet xzValues, BitSet yzValues) {
-        if (xyValues.cardinality() != 3 ||
-                xzValues.cardinality() != 2 ||
-                yzValues.cardinality() != 2)
+    private boolean isXYZWing(int xyValues, int xzValues, int yzValues) {
+        if (Integer.bitCount(xyValues) != 3 ||
+                Integer.bitCount(xzValues) != 2 ||
+                Integer.bitCount(yzValues) != 2)
             return false;
-        BitSet union = (BitSet)xyValues.clone();
-        union.or(xzValues);
-        union.or(yzValues);
-        if(union.cardinality() != 3) return false;
-        BitSet inter = (BitSet)xyValues.clone();
-        inter.and(xzValues);
-        inter.and(yzValues);
-        return inter.cardinality() == 1;
+        int union = xyValues | xzValues | yzValues;
+        if(Integer.bitCount(union) != 3) return false;
+        int inter = xyValues & xzValues & yzValues;
+        return Integer.bitCount(inter) == 1;
     }
 
     public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
         int targetCardinality = (isXYZ ? 3 : 2);
         for (int i = 0; i < 81; i++) {
             Cell xyCell = Grid.getCell(i);
-            BitSet xyValues = grid.getCellPotentialValues(i);
-            if (xyValues.cardinality() == targetCardinality) {
+            int xyValues = grid.getCellPotentialMask(i);
+            if (Integer.bitCount(xyValues) == targetCardinality) {
                 // Potential XY cell found
-                for (int xzCellIndex : xyCell.getVisibleCellIndexes()) {
-                    BitSet xzValues = grid.getCellPotentialValues(xzCellIndex);
-                    if (xzValues.cardinality() == 2) {
+                for (int xzCellIndex : grid.getTopology().getVisibleCellIndexes(xyCell.getIndex())) {
+                    int xzValues = grid.getCellPotentialMask(xzCellIndex);
+                    if (Integer.bitCount(xzValues) == 2) {
                         // Potential XZ cell found. Do small test
-                        BitSet remValues = (BitSet)xyValues.clone();
-                        remValues.andNot(xzValues);
-                        if (remValues.cardinality() == 1) {
+                        int remValues = xyValues & ~xzValues;
+                        if (Integer.bitCount(remValues) == 1) {
                             // We have found XZ cell, look for YZ cell
-                            for (int yzCellIndex : xyCell.getVisibleCellIndexes()) {
-                                BitSet yzValues = grid.getCellPotentialValues(yzCellIndex);
-                                if (yzValues.cardinality() == 2) {
+                            for (int yzCellIndex : grid.getTopology().getVisibleCellIndexes(xyCell.getIndex())) {
+                                int yzValues = grid.getCellPotentialMask(yzCellIndex);
+                                if (Integer.bitCount(yzValues) == 2) {
                                     // Potential YZ cell found
                                     if (isXYZ) {
                                         if (isXYZWing(xyValues, xzValues, yzValues)) {
@@ -113,11 +104,10 @@ public class XYWing implements IndirectHintProducer {
     }
 
     private XYWingHint createHint(Grid grid, Cell xyCell, Cell xzCell, Cell yzCell,
-            BitSet xzValues, BitSet yzValues) {
+            int xzValues, int yzValues) {
         // Get the "z" value
-        BitSet inter = (BitSet)xzValues.clone();
-        inter.and(yzValues);
-        int zValue = inter.nextSetBit(0);
+        int inter = xzValues & yzValues;
+        int zValue = Integer.numberOfTrailingZeros(inter);
 
         // Build list of removable potentials
         Map<Cell,BitSet> removablePotentials = new HashMap<Cell,BitSet>();
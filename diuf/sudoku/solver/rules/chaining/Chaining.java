@@ -6,7 +6,7 @@
 package diuf.sudoku.solver.rules.chaining;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
 //import java.util.concurrent.ForkJoinWorkerThread;
 
 import diuf.sudoku.*;
@@ -23,7 +23,7 @@ import diuf.sudoku.tools.*;
  * This includes all types of Bidirectional Cycles and all types
  * of Forcing Chains.
  */
-public class Chaining implements IndirectHintProducer {
+public class Chaining implements IndirectHintProducer, StatefulHintProducer, CancellableHintProducer {
 
     private final boolean isMultipleEnabled;
     private final boolean isDynamic;
@@ -35,6 +35,14 @@ public class Chaining implements IndirectHintProducer {
     private List<IndirectHintProducer> otherRules;
     private Grid lastGrid = null;
     private Collection<ChainingHint> lastHints = null;
+    private final SolverConfig config;
+    private CancellationToken cancellationToken = null;
+    // The copies of this chaining used by the threads of the worker pool
+    private final ThreadLocal<Chaining> workerChainings = new ThreadLocal<Chaining>();
+    // The chaining the hints are reported for: this one, or the one a worker copy helps
+    private Chaining owner = this;
+    // The threads that help the parallel searches, one pool per parallelism, see getWorkerPool
+    private static final Map<Integer, ForkJoinPool> workerPools = new HashMap<Integer, ForkJoinPool>();
 
 
     /**
@@ -54,13 +62,14 @@ public class Chaining implements IndirectHintProducer {
 //        this.nestingLimit = 0;
 //    }
     
-    public Chaining(boolean isMultipleEnabled, boolean isDynamic, boolean isNishio, int level, boolean noParallel, int nestingLimit) {
+    public Chaining(boolean isMultipleEnabled, boolean isDynamic, boolean isNishio, int level, boolean noParallel, int nestingLimit, SolverConfig config) {
         this.isMultipleEnabled = isMultipleEnabled;
         this.isDynamic = isDynamic;
         this.isNisho = isNishio;
         this.level = level;
         this.noParallel = noParallel;
         this.nestingLimit = nestingLimit;
+        this.config = config;
     }
 
     boolean isDynamic() {
@@ -121,23 +130,76 @@ public class Chaining implements IndirectHintProducer {
         }
     }
 
+    /**
+     * The best hint found so far by a shortest-first search of the cycles
+     * and forcing chains, by difficulty and then complexity, shared by the
+     * threads of the search.
+     * <p>
+     * The chains of a search are found by increasing length, and a chain
+     * found at the step <tt>n</tt> of a search has at least <tt>n</tt>
+     * potentials. Hence a search can stop at the first step whose chains
+     * would all come after the best hint in the order of the hints.
+     */
+    private static final class HintBound {
+
+        private double difficulty = Double.MAX_VALUE;
+        private int complexity = Integer.MAX_VALUE;
+
+        synchronized void add(ChainingHint hint) {
+            double hintDifficulty = hint.getDifficulty();
+            int hintComplexity = hint.getComplexity();
+            if (hintDifficulty < difficulty
+                    || (hintDifficulty == difficulty && hintComplexity < complexity)) {
+                difficulty = hintDifficulty;
+                complexity = hintComplexity;
+            }
+        }
+
+        /**
+         * Whether all the chains of the given base difficulty with at least
+         * the given number of potentials come after the best hint
+         */
+        synchronized boolean isBeaten(double baseDifficulty, int minComplexity) {
+            double minDifficulty = baseDifficulty + ChainingHint.getLengthDifficulty(minComplexity);
+            return minDifficulty > difficulty
+                    || (minDifficulty == difficulty && minComplexity > complexity);
+        }
+
+    }
+
     /**
      * Search for hints on the given grid
      * @param grid the grid on which to search fro hints
      * @return the hints found
      */
     protected List<ChainingHint> getHintList(Grid grid) {
-        // TODO: implement an implications cache
+        return getHintList(grid, false);
+    }
+
+    /**
+     * Search for hints on the given grid
+     * @param grid the grid on which to search for hints
+     * @param isShortestFirst whether only the first hint is wanted. The cycles
+     * and forcing chains are then searched by increasing length, and the
+     * searches stop as soon as their chains cannot beat the best hint found
+     * so far: the first hint is the same, but the other ones may be missing.
+     * @return the hints found
+     */
+    protected List<ChainingHint> getHintList(Grid grid, boolean isShortestFirst) {
         List<ChainingHint> result;
+        HintBound bound = isShortestFirst ? new HintBound() : null;
         if (isMultipleEnabled || isDynamic) {
             result = getMultipleChainsHintList(grid);
+        } else if (!noParallel && config.getNumThreads() > 1) {
+            // The same cycles, searched in parallel from each starting potential
+            result = getLoopHintListInParallel(grid, bound);
         } else {
             // Cycles with X-Links (Coloring / Fishy)
-            List<ChainingHint> xLoops = getLoopHintList(grid, false, true);
+            List<ChainingHint> xLoops = getLoopHintList(grid, false, true, bound);
             // Cycles with Y-Links
-            List<ChainingHint> yLoops = getLoopHintList(grid, true, false);
+            List<ChainingHint> yLoops = getLoopHintList(grid, true, false, bound);
             // Cycles with both
-            List<ChainingHint> xyLoops = getLoopHintList(grid, true, true);
+            List<ChainingHint> xyLoops = getLoopHintList(grid, true, true, bound);
             result = xLoops;
             result.addAll(yLoops);
             result.addAll(xyLoops);
@@ -171,22 +233,23 @@ public class Chaining implements IndirectHintProducer {
      * @param grid the grid on which to search for hints
      * @param isYChainEnabled whether Y-Links are used in "on to off" searches
      * @param isXChainEnabled whether X-Links are used in "off to on" searches
+     * @param bound the best hint found so far, or <tt>null</tt> to find all the hints
      * @return the hints found
      */
     private List<ChainingHint> getLoopHintList(Grid grid, boolean isYChainEnabled,
-            boolean isXChainEnabled) {
+            boolean isXChainEnabled, HintBound bound) {
         List<ChainingHint> result = new ArrayList<ChainingHint>();
         // Iterate on all empty cells
         for (int i = 0; i < 81; i++) {
             if (grid.getCellValue(i) == 0) { // the cell is empty
-            	int cardinality = grid.getCellPotentialValues(i).cardinality();
+            	int cardinality = grid.getCellPotentialCount(i);
                 if (cardinality > 1) {
                     // Iterate on all potential values that are not alone
 		            Cell cell = Grid.getCell(i);
                     for (int value = 1; value <= 9; value++) {
                         if (grid.hasCellPotentialValue(i, value)) {
                             Potential pOn = new Potential(cell, value, true);
-                            doUnaryChaining(grid, pOn, result, isYChainEnabled, isXChainEnabled);
+                            doUnaryChaining(grid, pOn, result, isYChainEnabled, isXChainEnabled, bound);
                         }
                     } 
                 }
@@ -195,15 +258,52 @@ public class Chaining implements IndirectHintProducer {
         return result;
     }
 
+    /**
+     * Search for the cycles with X-Links, Y-Links and both, as the three calls to
+     * {@link #getLoopHintList(Grid, boolean, boolean, HintBound)}, in parallel. Each
+     * starting potential of each of the three searches is a unit of work, and the
+     * hints are returned in the same order as the sequential search.
+     * @param grid the grid on which to search for hints
+     * @param bound the best hint found so far, or <tt>null</tt> to find all the hints
+     * @return the hints found
+     */
+    private List<ChainingHint> getLoopHintListInParallel(Grid grid, final HintBound bound) {
+        final List<Integer> startCells = new ArrayList<Integer>();
+        final List<Integer> startValues = new ArrayList<Integer>();
+        for (int i = 0; i < 81; i++) {
+            if (grid.getCellValue(i) == 0 && grid.getCellPotentialCount(i) > 1) {
+                for (int value = 1; value <= 9; value++) {
+                    if (grid.hasCellPotentialValue(i, value)) {
+                        startCells.add(i);
+                        startValues.add(value);
+                    }
+                }
+            }
+        }
+        final int startCount = startCells.size();
+        return searchInParallel(grid, new ParallelSearch(startCount * 3) {
+            List<ChainingHint> searchUnit(Chaining chaining, Grid grid, int index) {
+                // The X-Cycles from each potential, then the Y-Cycles, then the XY-Cycles
+                boolean isYChainEnabled = index >= startCount;
+                boolean isXChainEnabled = index < startCount || index >= startCount * 2;
+                int start = index % startCount;
+                Potential pOn = new Potential(Grid.getCell(startCells.get(start)), startValues.get(start), true);
+                List<ChainingHint> result = new ArrayList<ChainingHint>();
+                chaining.doUnaryChaining(grid, pOn, result, isYChainEnabled, isXChainEnabled, bound);
+                return result;
+            }
+        });
+    }
+
     private List<ChainingHint> getMultipleChainsHintListForCell(Grid grid, Cell cell, int cardinality) {
         List<ChainingHint> result = new ArrayList<ChainingHint>();
         // Prepare storage and accumulator for "Cell Reduction"
-        Map<Integer, LinkedSet<Potential>> valueToOn =
-            new HashMap<Integer, LinkedSet<Potential>>();
-        Map<Integer, LinkedSet<Potential>> valueToOff =
-            new HashMap<Integer, LinkedSet<Potential>>();
-        LinkedSet<Potential> cellToOn = null;
-        LinkedSet<Potential> cellToOff = null;
+        Map<Integer, PotentialSet> valueToOn =
+            new HashMap<Integer, PotentialSet>();
+        Map<Integer, PotentialSet> valueToOff =
+            new HashMap<Integer, PotentialSet>();
+        PotentialSet cellToOn = null;
+        PotentialSet cellToOff = null;
 
         // Iterate on all potential values that are not alone
         for (int value = 1; value <= 9; value++) {
@@ -211,8 +311,8 @@ public class Chaining implements IndirectHintProducer {
                 // Do Binary chaining (same potential either on or off)
                 Potential pOn = new Potential(cell, value, true);
                 Potential pOff = new Potential(cell, value, false);
-                LinkedSet<Potential> onToOn = new LinkedSet<Potential>();
-                LinkedSet<Potential> onToOff = new LinkedSet<Potential>();
+                PotentialSet onToOn = new PotentialSet();
+                PotentialSet onToOff = new PotentialSet();
                 boolean doDouble = (cardinality >= 3 && !isNisho && isDynamic);
                 boolean doContradiction = isDynamic || isNisho;
                 doBinaryChaining(grid, pOn, pOff, result, onToOn, onToOff, doDouble, doContradiction);
@@ -226,8 +326,8 @@ public class Chaining implements IndirectHintProducer {
                 valueToOn.put(value, onToOn);
                 valueToOff.put(value, onToOff);
                 if (cellToOn == null) {
-                    cellToOn = new LinkedSet<Potential>();
-                    cellToOff = new LinkedSet<Potential>();
+                    cellToOn = new PotentialSet();
+                    cellToOff = new PotentialSet();
                     cellToOn.addAll(onToOn);
                     cellToOff.addAll(onToOff);
                 } else {
@@ -259,12 +359,12 @@ public class Chaining implements IndirectHintProducer {
         List<ChainingHint> result = new ArrayList<ChainingHint>();
         //boolean noParallel = true; //debug, hide the class member noParallel
         //boolean noParallel = false;
-        boolean noParallel = this.noParallel || Settings.getInstance().getNumThreads() == 1;
+        boolean noParallel = this.noParallel || config.getNumThreads() <= 1;
         List<Cell> cellsToProcess = new ArrayList<Cell>();
         // Iterate on all empty cells
         for (int i = 0; i < 81; i++) {
             if (grid.getCellValue(i) == 0) { // the cell is empty
-            	int cardinality = grid.getCellPotentialValues(i).cardinality();
+            	int cardinality = grid.getCellPotentialCount(i);
                 if (cardinality > 2 || (cardinality > 1 && isDynamic)) {
 		            Cell cell = Grid.getCell(i);
                 	if (noParallel) {
@@ -280,8 +380,7 @@ public class Chaining implements IndirectHintProducer {
         	return result;
         }
         //process the collected cells in parallel
-        ConcurrentLinkedQueue<ChainingHint> parallelResult = new ConcurrentLinkedQueue<ChainingHint>();
-        
+
 //        //this approach wrongly distributes the work possibly due to java implementation bugs
 //        cellsToProcess.parallelStream().forEach((cell) -> {
 //           	int cardinality = cell.getPotentialValues().cardinality();
@@ -291,40 +390,213 @@ public class Chaining implements IndirectHintProducer {
 //           	parallelResult.addAll(chainingClone.getMultipleChainsHintListForCell(gridClone, gridClone.getCell(cell.getX(), cell.getY()), cardinality));
 //        });
         
-        List<MultipleChainsHintsCollector> threads = new ArrayList<MultipleChainsHintsCollector>();
-        for(Cell cell : cellsToProcess) {
-        	MultipleChainsHintsCollector t = new MultipleChainsHintsCollector(this, grid, cell, parallelResult);
-        	threads.add(t);
-        	t.start();
-        }
-        for(MultipleChainsHintsCollector t : threads) {
-        	try {
-        		t.join();
-        	} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-        	finally {}
+        final List<Cell> cells = cellsToProcess;
+        return searchInParallel(grid, new ParallelSearch(cells.size()) {
+            List<ChainingHint> searchUnit(Chaining chaining, Grid grid, int index) {
+                Cell cell = cells.get(index);
+                int cardinality = grid.getCellPotentialCount(cell.getIndex());
+                return chaining.getMultipleChainsHintListForCell(grid, cell, cardinality);
+            }
+        });
+    }
+
+    /**
+     * Run a search split into units with the helpers of the worker pool.
+     * This thread searches units on the given grid, the helpers on copies
+     * of a snapshot of it, taken from and given back to the pool of each thread.
+     * @return the hints of all the units, in the order of the units
+     */
+    private List<ChainingHint> searchInParallel(Grid grid, ParallelSearch search) {
+        GridPool pool = GridPool.getInstance();
+        search.source = pool.acquire(grid);
+        try {
+            ForkJoinPool workers = getWorkerPool(config.getNumThreads());
+            int helperCount = Math.min(workers.getParallelism(), search.results.length - 1);
+            for (int i = 0; i < helperCount; i++)
+                workers.execute(search);
+            search.searchUnits(this, grid);
+        } finally {
+            search.stop();
+            search.await();
+            pool.release(search.source);
+        }
+        search.rethrowFailure();
+        // The helpers stopped early if the rating was cancelled
+        if (cancellationToken != null)
+            cancellationToken.checkCancelled();
+        // Gather the hints in the order of the units, as without parallelism
+        List<ChainingHint> result = new ArrayList<ChainingHint>();
+        for (List<ChainingHint> hints : search.results) {
+            if (hints != null)
+                result.addAll(hints);
         }
-        
-        result.addAll(parallelResult);
         return result;
     }
 
-    class MultipleChainsHintsCollector extends Thread {
-    	private Chaining chaining;
-    	private ConcurrentLinkedQueue<ChainingHint> accumulator;
-    	private final Grid gridClone = new Grid();
-    	private Cell cell;
-    	MultipleChainsHintsCollector(Chaining caller, Grid grid, Cell cell, ConcurrentLinkedQueue<ChainingHint> result) {
-    		chaining = new Chaining(caller.isMultipleEnabled, caller.isDynamic, caller.isNisho, caller.level, true, caller.nestingLimit);
-    		grid.copyTo(gridClone);
-    		accumulator = result;
-    		this.cell = cell;
-    	}
-    	public void run() {
-    		int cardinality = gridClone.getCellPotentialValues(cell.getIndex()).cardinality();
-    		accumulator.addAll(chaining.getMultipleChainsHintListForCell(gridClone, cell, cardinality));
-    	}
+    /**
+     * Get the pool of the threads that help the calling threads search the
+     * chains, shared by all the chainings with the same number of threads.
+     * A search is split between the calling thread and at most
+     * <tt>numThreads - 1</tt> helpers, that only take the units no other
+     * thread has taken yet; hence the number of threads is bounded whatever
+     * the number of searches running at the same time, and a search never
+     * waits for a helper that has not started. The pools are never shut down,
+     * as the searches of other solvers may still use them; their threads are
+     * daemons and end when idle.
+     * @param numThreads the number of threads of the search, at least 2
+     */
+    private static synchronized ForkJoinPool getWorkerPool(int numThreads) {
+        ForkJoinPool workers = workerPools.get(numThreads);
+        if (workers == null) {
+            workers = new ForkJoinPool(numThreads - 1);
+            workerPools.put(numThreads, workers);
+        }
+        return workers;
+    }
+
+    /**
+     * Get the copy of this chaining used by the current worker thread,
+     * created once and reused by all the searches
+     */
+    private Chaining getWorkerChaining() {
+        Chaining chaining = workerChainings.get();
+        if (chaining == null) {
+            chaining = new Chaining(isMultipleEnabled, isDynamic, isNisho, level, true, nestingLimit, config);
+            chaining.owner = this;
+            workerChainings.set(chaining);
+        }
+        chaining.setCancellationToken(cancellationToken);
+        return chaining;
+    }
+
+    /**
+     * A search split into units (cells, starting potentials, ...), shared by
+     * the calling thread and the helpers of the worker pool, see
+     * {@link Chaining#searchInParallel(Grid, ParallelSearch)}. Each thread takes
+     * the next unit no other thread has taken, until none remains or the
+     * search is stopped.
+     */
+    private abstract class ParallelSearch implements Runnable {
+
+        private Grid source; // snapshot of the grid of the calling thread
+        // The hints of each unit, in the order of the units
+        private final List<ChainingHint>[] results;
+        private int nextUnit = 0;
+        private int runningCount = 0; // units being searched
+        private Throwable failure = null;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ParallelSearch(int unitCount) {
+            this.results = new List[unitCount];
+        }
+
+        /**
+         * Search the given unit
+         * @param chaining the chaining of the current thread
+         * @param grid the grid of the current thread, to restore if changed
+         * @param index the index of the unit
+         * @return the hints found
+         */
+        abstract List<ChainingHint> searchUnit(Chaining chaining, Grid grid, int index);
+
+        /**
+         * Take the next unit
+         * @return its index, or -1 if none remains
+         */
+        private synchronized int takeUnit() {
+            if (nextUnit >= results.length)
+                return -1;
+            runningCount++;
+            return nextUnit++;
+        }
+
+        private synchronized void endUnit() {
+            if (--runningCount == 0)
+                notifyAll();
+        }
+
+        /**
+         * Let the threads finish their current unit, and take no other one
+         */
+        synchronized void stop() {
+            nextUnit = results.length;
+        }
+
+        /**
+         * Wait until no thread searches a unit anymore; to call after {@link #stop()}
+         */
+        synchronized void await() {
+            boolean isInterrupted = false;
+            while (runningCount > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    isInterrupted = true;
+                }
+            }
+            if (isInterrupted)
+                Thread.currentThread().interrupt();
+        }
+
+        private synchronized void fail(Throwable ex) {
+            if (failure == null)
+                failure = ex;
+            nextUnit = results.length;
+        }
+
+        /**
+         * Throw again the first exception of the helpers, if any
+         */
+        synchronized void rethrowFailure() {
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException)failure;
+            if (failure instanceof Error)
+                throw (Error)failure;
+        }
+
+        /**
+         * Search the units with the given chaining on the given grid, until none remains
+         */
+        void searchUnits(Chaining chaining, Grid grid) {
+            int index;
+            while ((index = takeUnit()) >= 0) {
+                try {
+                    results[index] = searchUnit(chaining, grid, index);
+                } finally {
+                    endUnit();
+                }
+            }
+        }
+
+        /**
+         * Help the calling thread, on a copy of the snapshot of its grid
+         */
+        public void run() {
+            GridPool pool = GridPool.getInstance();
+            Grid gridClone = null;
+            try {
+                // The snapshot is only read while this helper has taken a unit
+                int index;
+                while ((index = takeUnit()) >= 0) {
+                    try {
+                        if (gridClone == null)
+                            gridClone = pool.acquire(source);
+                        results[index] = searchUnit(getWorkerChaining(), gridClone, index);
+                    } finally {
+                        endUnit();
+                    }
+                }
+            } catch (SolverCancelledException ex) {
+                // The calling thread checks the token once all the units are done
+                stop();
+            } catch (Throwable ex) {
+                fail(ex);
+            } finally {
+                if (gridClone != null)
+                    pool.release(gridClone);
+            }
+        }
+
     }
 
     private Potential getReversedCycle(Potential org) {
@@ -355,34 +627,36 @@ public class Chaining implements IndirectHintProducer {
      * @param result filled with the hints found
      * @param isYChainEnabled whether y-chain are enabled
      * @param isXChainEnabled whether x-chains are enabled
+     * @param bound the best hint found so far, updated with the hints found,
+     * or <tt>null</tt> to find all the hints
      */
     private void doUnaryChaining(Grid grid, final Potential pOn, List<ChainingHint> result,
-            boolean isYChainEnabled, boolean isXChainEnabled) {
+            boolean isYChainEnabled, boolean isXChainEnabled, HintBound bound) {
 
-        if ((!isXChainEnabled) && grid.getCellPotentialValues(pOn.cell.getIndex()).cardinality() > 2)
+        if ((!isXChainEnabled) && grid.getCellPotentialCount(pOn.cell.getIndex()) > 2)
             return; // Y-Cycles can only start if cell has 2 potential values
 
         final List<Potential> cycles = new ArrayList<Potential>();
         final List<Potential> chains = new ArrayList<Potential>();
-        LinkedSet<Potential> onToOn = new LinkedSet<Potential>();
-        LinkedSet<Potential> onToOff = new LinkedSet<Potential>();
+        PotentialSet onToOn = new PotentialSet();
+        PotentialSet onToOff = new PotentialSet();
         onToOn.add(pOn);
-        doCycles(grid, onToOn, onToOff, isYChainEnabled, isXChainEnabled, cycles, pOn);
+        doCycles(grid, onToOn, onToOff, isYChainEnabled, isXChainEnabled, cycles, pOn, bound);
         if (isXChainEnabled) {
             // Forcing Y-Chains do not exist (length must be both odd and even)
 
             // Forcing chain with "off" implication
-            onToOn = new LinkedSet<Potential>();
-            onToOff = new LinkedSet<Potential>();
+            onToOn = new PotentialSet();
+            onToOff = new PotentialSet();
             onToOn.add(pOn);
-            doForcingChains(grid, onToOn, onToOff, isYChainEnabled, chains, pOn);
+            doForcingChains(grid, onToOn, onToOff, isYChainEnabled, chains, pOn, bound);
 
             // Forcing chain with "on" implication
             final Potential pOff = new Potential(pOn.cell, pOn.value, false);
-            onToOn = new LinkedSet<Potential>();
-            onToOff = new LinkedSet<Potential>();
+            onToOn = new PotentialSet();
+            onToOff = new PotentialSet();
             onToOff.add(pOff);
-            doForcingChains(grid, onToOn, onToOff, isYChainEnabled, chains, pOff);
+            doForcingChains(grid, onToOn, onToOff, isYChainEnabled, chains, pOff, bound);
         }
         for (Potential dstOn : cycles) {
             // Cycle found !!
@@ -390,13 +664,19 @@ public class Chaining implements IndirectHintProducer {
             Potential dstOff = getReversedCycle(dstOn);
             ChainingHint hint = createCycleHint(grid, dstOn, dstOff, isYChainEnabled,
                     isXChainEnabled);
-            if (hint.isWorth())
+            if (hint.isWorth()) {
                 result.add(hint);
+                if (bound != null)
+                    bound.add(hint);
+            }
         }
         for (Potential target : chains) {
             ChainingHint hint = createForcingChainHint(grid, target, isYChainEnabled, isXChainEnabled);
-            if (hint.isWorth())
+            if (hint.isWorth()) {
                 result.add(hint);
+                if (bound != null)
+                    bound.add(hint);
+            }
         }
 
     }
@@ -445,12 +725,12 @@ public class Chaining implements IndirectHintProducer {
      * @throws InterruptedException
      */
     private void doBinaryChaining(Grid grid, Potential pOn, Potential pOff,
-            List<ChainingHint> result, LinkedSet<Potential> onToOn,
-            LinkedSet<Potential> onToOff, boolean doReduction, boolean doContradiction) {
+            List<ChainingHint> result, PotentialSet onToOn,
+            PotentialSet onToOff, boolean doReduction, boolean doContradiction) {
 
         Potential[] absurdPotential = null;
-        LinkedSet<Potential> offToOn = new LinkedSet<Potential>();
-        LinkedSet<Potential> offToOff = new LinkedSet<Potential>();
+        PotentialSet offToOn = new PotentialSet();
+        PotentialSet offToOff = new PotentialSet();
 
         /*
          * Circular Forcing Chains (hypothesis implying its negation)
@@ -505,17 +785,17 @@ public class Chaining implements IndirectHintProducer {
     }
 
     private void doRegionChainings(Grid grid, List<ChainingHint> result, Cell cell,
-            int value, LinkedSet<Potential> onToOn, LinkedSet<Potential> onToOff) {
+            int value, PotentialSet onToOn, PotentialSet onToOff) {
 //@SudokuMonster: Changes for variants
-        for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-        	if (!Settings.getInstance().isVLatin()) {
-				if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-				if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-				if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-				if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-				if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+        for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+        	if (!config.isVLatin()) {
+				if (regionTypeIndex == 3 && !config.isDG()) continue;
+				if (regionTypeIndex == 4 && !config.isWindows()) continue;
+				if (regionTypeIndex == 5 && !config.isX()) continue;
+				if (regionTypeIndex == 6 && !config.isX()) continue;
+				if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+				if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+				if (regionTypeIndex == 9 && !config.isCD()) continue;
 				if (Grid.cellRegions[cell.getIndex()][regionTypeIndex] < 0)
 						continue;
 			}
@@ -530,12 +810,12 @@ public class Chaining implements IndirectHintProducer {
 
                 // Do we meet region for the first time ?
                 if (firstCell.equals(cell)) {
-                    Map<Integer, LinkedSet<Potential>> posToOn =
-                        new HashMap<Integer, LinkedSet<Potential>>();
-                    Map<Integer, LinkedSet<Potential>> posToOff =
-                        new HashMap<Integer, LinkedSet<Potential>>();
-                    LinkedSet<Potential> regionToOn = new LinkedSet<Potential>();
-                    LinkedSet<Potential> regionToOff = new LinkedSet<Potential>();
+                    Map<Integer, PotentialSet> posToOn =
+                        new HashMap<Integer, PotentialSet>();
+                    Map<Integer, PotentialSet> posToOff =
+                        new HashMap<Integer, PotentialSet>();
+                    PotentialSet regionToOn = new PotentialSet();
+                    PotentialSet regionToOff = new PotentialSet();
 
                     // Iterate on potential positions within the region
                     for (int pos = potentialPositions.nextSetBit(0); pos >= 0;
@@ -548,8 +828,8 @@ public class Chaining implements IndirectHintProducer {
                             regionToOff.addAll(onToOff);
                         } else {
                             Potential other = new Potential(otherCell, value, true);
-                            LinkedSet<Potential> otherToOn = new LinkedSet<Potential>();
-                            LinkedSet<Potential> otherToOff = new LinkedSet<Potential>();
+                            PotentialSet otherToOn = new PotentialSet();
+                            PotentialSet otherToOff = new PotentialSet();
                             otherToOn.add(other);
                             doChaining(grid, otherToOn, otherToOff);
                             posToOn.put(pos, otherToOn);
@@ -585,162 +865,68 @@ public class Chaining implements IndirectHintProducer {
      * @param p    the potential that is assumed to be "on"
      * @return the set of potentials that must be "off"
      */
-    private Set<Potential> getOnToOff(Grid grid, Potential p, boolean isYChainEnabled) {
-        Set<Potential> result = new LinkedHashSet<Potential>();
-
-        int potentialCellIndex = p.cell.getIndex();
-        if (isYChainEnabled) { // This rule is not used with X-Chains
-            // First rule: other potential values for this cell get off
-            BitSet potentialValues = grid.getCellPotentialValues(potentialCellIndex);
-            for (int value = potentialValues.nextSetBit(0); value >= 0; value = potentialValues.nextSetBit(value + 1)) {
-                if (value != p.value)
-                    result.add(new Potential(p.cell, value, false, p, Potential.Cause.NakedSingle,
-                            "the cell can contain only one value"));
-            }
+    private List<Potential> getOnToOff(Grid grid, Potential p, boolean isYChainEnabled) {
+        ImplicationCache cache = ImplicationCache.getInstance(config);
+        int cellIndex = p.cell.getIndex();
+        ImplicationCache.Implications implications = cache.getOnToOff(grid, cellIndex, p.value);
+        if (implications == null) {
+            implications = cache.createOnToOff(grid, cellIndex, p.value);
+            addOnToOffImplications(grid, cellIndex, p.value, implications);
         }
+        int start = isYChainEnabled ? 0 : implications.getCellRuleCount();
+        List<Potential> result = new ArrayList<Potential>(implications.size() - start);
+        // The consequences of the cell rule are not used with X-Chains
+        for (int i = start; i < implications.size(); i++)
+            result.add(new Potential(implications.getCell(i), implications.getValue(i), false, p,
+                    implications.getCause(i), implications.getExplanation(i)));
+        return result;
+    }
 
-        boolean[] addedPotential = new boolean[81];
-        addedPotential[potentialCellIndex] = true;
+    /**
+     * Find the potentials that get off if the given potential is on, in the
+     * order of {@link #getOnToOff(Grid, Potential, boolean)}.
+     */
+    private void addOnToOffImplications(Grid grid, int potentialCellIndex, int potentialValue,
+            ImplicationCache.Implications result) {
+        // First rule: other potential values for this cell get off
+        int potentialValues = grid.getCellPotentialMask(potentialCellIndex) & ~(1 << potentialValue);
+        for (int value = 1; value <= 9; value++) {
+            if ((potentialValues & (1 << value)) != 0)
+                result.add(potentialCellIndex, value, Potential.Cause.NakedSingle,
+                        "the cell can contain only one value", null);
+        }
+        result.endCellRule();
+
+        // Cells already turned off, as two-word Bitboard planes
+        long[] added = new long[2];
+        added[potentialCellIndex >> 6] |= 1L << potentialCellIndex;
+        Bitboard board = grid.getBitboard();
 
         // Second rule: other potential position for this value get off
-        Grid.Region box = Grid.getRegionAt(0, potentialCellIndex);
-        BitSet boxPositions = box.copyPotentialPositions(grid, p.value);
-        boxPositions.clear(box.indexOf(p.cell));
-        if (Settings.getInstance().isBlocks())
-            for (int i = boxPositions.nextSetBit(0); i >= 0; i = boxPositions.nextSetBit(i + 1)) {
-                Cell cell = box.getCell(i);
-                if (!addedPotential[cell.getIndex()]) {
-                    result.add(new Potential(cell, p.value, false, p, getRegionCause(0),
-                            "the value can occur only once in the " + box.toString()));
-                    addedPotential[cell.getIndex()] = true;
-                }
-            }
-        Grid.Region row = Grid.getRegionAt(1, potentialCellIndex);
-        BitSet rowPositions = row.copyPotentialPositions(grid, p.value);
-        rowPositions.clear(row.indexOf(p.cell));
-        for (int i = rowPositions.nextSetBit(0); i >= 0; i = rowPositions.nextSetBit(i + 1)) {
-            Cell cell = row.getCell(i);
-            if (!addedPotential[cell.getIndex()]) {
-                result.add(new Potential(cell, p.value, false, p, getRegionCause(1),
-                        "the value can occur only once in the " + row.toString()));
-                addedPotential[cell.getIndex()] = true;
-            }
-        }
-        Grid.Region col = Grid.getRegionAt(2, potentialCellIndex);
-        BitSet colPositions = col.copyPotentialPositions(grid, p.value);
-        colPositions.clear(col.indexOf(p.cell));
-        for (int i = colPositions.nextSetBit(0); i >= 0; i = colPositions.nextSetBit(i + 1)) {
-            Cell cell = col.getCell(i);
-            if (!addedPotential[cell.getIndex()]) {
-                result.add(new Potential(cell, p.value, false, p, getRegionCause(2),
-                        "the value can occur only once in the " + col.toString()));
-                addedPotential[cell.getIndex()] = true;
-            }
-        }
+        if (config.isBlocks())
+            addRegionOffPotentials(result, potentialValue, board, Grid.getRegionAt(0, potentialCellIndex), added);
+        addRegionOffPotentials(result, potentialValue, board, Grid.getRegionAt(1, potentialCellIndex), added);
+        addRegionOffPotentials(result, potentialValue, board, Grid.getRegionAt(2, potentialCellIndex), added);
         // @SudokuMonster: Added Variants changes
-        if (!Settings.getInstance().isVLatin()) {
-            Grid.Region dg = null;
-            Grid.Region window = null;
-            Grid.Region md = null;
-            Grid.Region ad = null;
-            Grid.Region girandola = null;
-            Grid.Region asterisk = null;
-            Grid.Region cd = null;
-            if (Settings.getInstance().isDG()) {
-                dg = Grid.getRegionAt(3, potentialCellIndex);
-                BitSet dgPositions = dg.copyPotentialPositions(grid, p.value);
-                dgPositions.clear(dg.indexOf(p.cell));
-                for (int i = dgPositions.nextSetBit(0); i >= 0; i = dgPositions.nextSetBit(i + 1)) {
-                    Cell cell = dg.getCell(i);
-                    if (!addedPotential[cell.getIndex()]) {
-                        result.add(new Potential(cell, p.value, false, p, getRegionCause(3),
-                                "the value can occur only once in the " + dg.toString()));
-                        addedPotential[cell.getIndex()] = true;
-                    }
-                }
-            }
-            if (Settings.getInstance().isWindows()) {
-                window = Grid.getRegionAt(4, potentialCellIndex);
-                BitSet windowPositions = window.copyPotentialPositions(grid, p.value);
-                windowPositions.clear(window.indexOf(p.cell));
-                for (int i = windowPositions.nextSetBit(0); i >= 0; i = windowPositions.nextSetBit(i + 1)) {
-                    Cell cell = window.getCell(i);
-                    if (!addedPotential[cell.getIndex()]) {
-                        result.add(new Potential(cell, p.value, false, p, getRegionCause(4),
-                                "the value can occur only once in the " + window.toString()));
-                        addedPotential[cell.getIndex()] = true;
-                    }
-                }
-            }
-            if (Settings.getInstance().isX() && Grid.cellRegions[potentialCellIndex][5] == 0) {
-                md = Grid.getRegionAt(5, potentialCellIndex);
-                BitSet mdPositions = md.copyPotentialPositions(grid, p.value);
-                mdPositions.clear(md.indexOf(p.cell));
-                for (int i = mdPositions.nextSetBit(0); i >= 0; i = mdPositions.nextSetBit(i + 1)) {
-                    Cell cell = md.getCell(i);
-                    if (!addedPotential[cell.getIndex()]) {
-                        result.add(new Potential(cell, p.value, false, p, getRegionCause(5),
-                                "the value can occur only once in the " + md.toString()));
-                        addedPotential[cell.getIndex()] = true;
-                    }
-                }
-            }
-            if (Settings.getInstance().isX() && Grid.cellRegions[potentialCellIndex][6] == 0) {
-                ad = Grid.getRegionAt(6, potentialCellIndex);
-                BitSet adPositions = ad.copyPotentialPositions(grid, p.value);
-                adPositions.clear(ad.indexOf(p.cell));
-                for (int i = adPositions.nextSetBit(0); i >= 0; i = adPositions.nextSetBit(i + 1)) {
-                    Cell cell = ad.getCell(i);
-                    if (!addedPotential[cell.getIndex()]) {
-                        result.add(new Potential(cell, p.value, false, p, getRegionCause(6),
-                                "the value can occur only once in the " + ad.toString()));
-                        addedPotential[cell.getIndex()] = true;
-                    }
-                }
-            }
-            if (Settings.getInstance().isGirandola() && Grid.cellRegions[potentialCellIndex][7] == 0) {
-                girandola = Grid.getRegionAt(7, potentialCellIndex);
-                BitSet girandolaPositions = girandola.copyPotentialPositions(grid, p.value);
-                girandolaPositions.clear(girandola.indexOf(p.cell));
-                for (int i = girandolaPositions.nextSetBit(0); i >= 0; i = girandolaPositions.nextSetBit(i + 1)) {
-                    Cell cell = girandola.getCell(i);
-                    if (!addedPotential[cell.getIndex()]) {
-                        result.add(new Potential(cell, p.value, false, p, getRegionCause(7),
-                                "the value can occur only once in the " + girandola.toString()));
-                        addedPotential[cell.getIndex()] = true;
-                    }
-                }
-            }
-            if (Settings.getInstance().isAsterisk() && Grid.cellRegions[potentialCellIndex][8] == 0) {
-                asterisk = Grid.getRegionAt(8, potentialCellIndex);
-                BitSet asteriskPositions = asterisk.copyPotentialPositions(grid, p.value);
-                asteriskPositions.clear(asterisk.indexOf(p.cell));
-                for (int i = asteriskPositions.nextSetBit(0); i >= 0; i = asteriskPositions.nextSetBit(i + 1)) {
-                    Cell cell = asterisk.getCell(i);
-                    if (!addedPotential[cell.getIndex()]) {
-                        result.add(new Potential(cell, p.value, false, p, getRegionCause(8),
-                                "the value can occur only once in the " + asterisk.toString()));
-                        addedPotential[cell.getIndex()] = true;
-                    }
-                }
-            }
-            if (Settings.getInstance().isCD() && Grid.cellRegions[potentialCellIndex][9] == 0) {
-                cd = Grid.getRegionAt(9, potentialCellIndex);
-                BitSet cdPositions = cd.copyPotentialPositions(grid, p.value);
-                cdPositions.clear(cd.indexOf(p.cell));
-                for (int i = cdPositions.nextSetBit(0); i >= 0; i = cdPositions.nextSetBit(i + 1)) {
-                    Cell cell = cd.getCell(i);
-                    if (!addedPotential[cell.getIndex()]) {
-                        result.add(new Potential(cell, p.value, false, p, getRegionCause(9),
-                                "the value can occur only once in the " + cd.toString()));
-                        addedPotential[cell.getIndex()] = true;
-                    }
-                }
-            }
+        if (!config.isVLatin()) {
+            if (config.isDG())
+                addRegionOffPotentials(result, potentialValue, board, Grid.getRegionAt(3, potentialCellIndex), added);
+            if (config.isWindows())
+                addRegionOffPotentials(result, potentialValue, board, Grid.getRegionAt(4, potentialCellIndex), added);
+            if (config.isX() && Grid.cellRegions[potentialCellIndex][5] == 0)
+                addRegionOffPotentials(result, potentialValue, board, Grid.getRegionAt(5, potentialCellIndex), added);
+            if (config.isX() && Grid.cellRegions[potentialCellIndex][6] == 0)
+                addRegionOffPotentials(result, potentialValue, board, Grid.getRegionAt(6, potentialCellIndex), added);
+            if (config.isGirandola() && Grid.cellRegions[potentialCellIndex][7] == 0)
+                addRegionOffPotentials(result, potentialValue, board, Grid.getRegionAt(7, potentialCellIndex), added);
+            if (config.isAsterisk() && Grid.cellRegions[potentialCellIndex][8] == 0)
+                addRegionOffPotentials(result, potentialValue, board, Grid.getRegionAt(8, potentialCellIndex), added);
+            if (config.isCD() && Grid.cellRegions[potentialCellIndex][9] == 0)
+                addRegionOffPotentials(result, potentialValue, board, Grid.getRegionAt(9, potentialCellIndex), added);
         }
 
         // @Rangsk: Added anti-king
-        if (Settings.getInstance().isAntiFerz()) {
+        if (config.isAntiFerz()) {
             Cell centerCell = Grid.getCell(potentialCellIndex);
             int centerCellX = centerCell.getX();
             int centerCellY = centerCell.getY();
@@ -751,17 +937,17 @@ public class Chaining implements IndirectHintProducer {
                 int ferzCellY = centerCellY + ferzOffsetY;
                 if (ferzCellX >= 0 && ferzCellY >= 0 && ferzCellX < 9 && ferzCellY < 9) {
                     Cell cell = Grid.getCell(ferzCellX, ferzCellY);
-                    if (!addedPotential[cell.getIndex()] && grid.hasCellPotentialValue(cell.getIndex(), p.value)) {
-                        result.add(new Potential(cell, p.value, false, p, Potential.Cause.NakedSingle,
-                                "anti-king prevents the value from being the same as " + centerCell.toString()));
-                        addedPotential[cell.getIndex()] = true;
+                    if ((added[cell.getIndex() >> 6] & (1L << cell.getIndex())) == 0 && board.isPotential(cell.getIndex(), potentialValue)) {
+                        result.add(cell.getIndex(), potentialValue, Potential.Cause.NakedSingle,
+                                "anti-king prevents the value from being the same as " + centerCell.toString(), null);
+                        added[cell.getIndex() >> 6] |= 1L << cell.getIndex();
                     }
                 }
             }
         }
 
         // @Rangsk: Added anti-knight
-        if (Settings.getInstance().isAntiKnight()) {
+        if (config.isAntiKnight()) {
             Cell centerCell = Grid.getCell(potentialCellIndex);
             int centerCellX = centerCell.getX();
             int centerCellY = centerCell.getY();
@@ -772,24 +958,24 @@ public class Chaining implements IndirectHintProducer {
                 int knightCellY = centerCellY + knightOffsetY;
                 if (knightCellX >= 0 && knightCellY >= 0 && knightCellX < 9 && knightCellY < 9) {
                     Cell cell = Grid.getCell(knightCellX, knightCellY);
-                    if (!addedPotential[cell.getIndex()] && grid.hasCellPotentialValue(cell.getIndex(), p.value)) {
-                        result.add(new Potential(cell, p.value, false, p, Potential.Cause.NakedSingle,
-                                "anti-knight prevents the value from being the same as " + centerCell.toString()));
-                        addedPotential[cell.getIndex()] = true;
+                    if ((added[cell.getIndex() >> 6] & (1L << cell.getIndex())) == 0 && board.isPotential(cell.getIndex(), potentialValue)) {
+                        result.add(cell.getIndex(), potentialValue, Potential.Cause.NakedSingle,
+                                "anti-knight prevents the value from being the same as " + centerCell.toString(), null);
+                        added[cell.getIndex() >> 6] |= 1L << cell.getIndex();
                     }
                 }
             }
         }
 
         // @Rangsk: Added non-consecutive
-        if (Settings.getInstance().isForbiddenPairs() && Settings.getInstance().whichNC() > 0) {
-            int statusNC = Settings.getInstance().whichNC();
+        if (config.isForbiddenPairs() && config.whichNC() > 0) {
+            int statusNC = config.whichNC();
             int i = potentialCellIndex;
             Cell centerCell = Grid.getCell(i);
-            int value = p.value;
+            int value = potentialValue;
             boolean isWazir = statusNC == 1 || statusNC == 2;
             boolean isNCToroidal = statusNC == 2 || statusNC == 4;
-            int[][] lookupCells = Settings.getInstance().isToroidal()
+            int[][] lookupCells = config.isToroidal()
                     ? (isWazir ? Grid.wazirCellsToroidal : Grid.ferzCellsToroidal)
                     : (isWazir ? Grid.wazirCellsRegular : Grid.ferzCellsRegular);
 
@@ -800,30 +986,50 @@ public class Chaining implements IndirectHintProducer {
                 if (isNCToroidal || value < 9) {
                     int ncValue = value == 9 ? 1 : value + 1;
                     if (grid.hasCellPotentialValue(cell.getIndex(), ncValue)) {
-                        result.add(new Potential(cell, ncValue, false, p, Potential.Cause.NakedSingle,
-                                "The value is consecutive with " + centerCell.toString()));
+                        result.add(cell.getIndex(), ncValue, Potential.Cause.NakedSingle,
+                                "The value is consecutive with " + centerCell.toString(), null);
                     }
                 }
                 if (isNCToroidal || value > 1) {
                     int ncValue = value == 1 ? 9 : value - 1;
                     if (grid.hasCellPotentialValue(cell.getIndex(), ncValue)) {
-                        result.add(new Potential(cell, ncValue, false, p, Potential.Cause.NakedSingle,
-                                "The value is consecutive with " + centerCell.toString()));
+                        result.add(cell.getIndex(), ncValue, Potential.Cause.NakedSingle,
+                                "The value is consecutive with " + centerCell.toString(), null);
                     }
                 }
             }
         }
-        return result;
+    }
+
+    /**
+     * Turn off the other potential positions of the given value in the
+     * given region, in the order of the region's cells, skipping the cells
+     * already in <tt>added</tt>, and add them to <tt>added</tt>.
+     */
+    private void addRegionOffPotentials(ImplicationCache.Implications result, int value, Bitboard board,
+            Grid.Region region, long[] added) {
+        long low = board.getLow(value) & Bitboard.getRegionLow(region) & ~added[0];
+        long high = board.getHigh(value) & Bitboard.getRegionHigh(region) & ~added[1];
+        if ((low | high) == 0)
+            return;
+        for (int i = 0; i < 9; i++) {
+            Cell cell = region.getCell(i);
+            int cellIndex = cell.getIndex();
+            if (((cellIndex < 64 ? low : high) & (1L << cellIndex)) != 0)
+                result.add(cellIndex, value, getRegionCause(region.getRegionTypeIndex()),
+                        "the value can occur only once in the " + region.toString(), null);
+        }
+        added[0] |= low;
+        added[1] |= high;
     }
 
     private void addHiddenParentsOfCell(Potential p, Grid grid, Grid source,
-            LinkedSet<Potential> offPotentials) {
+            PotentialSet offPotentials) {
     	int i = p.cell.getIndex();
     	for (int value = 1; value <= 9; value++) {
             if (source.hasCellPotentialValue(i, value) && !grid.hasCellPotentialValue(i, value)) {
                 // Add a hidden parent
-                Potential parent = new Potential(p.cell, value, false);
-                parent = offPotentials.get(parent); // Retrieve complete version
+                Potential parent = offPotentials.get(Potential.getKey(i, value, false)); // Retrieve complete version
                 if (parent == null)
                     throw new RuntimeException("Parent not found");
                 p.parents.add(parent);
@@ -832,7 +1038,7 @@ public class Chaining implements IndirectHintProducer {
     }
 
     private void addHiddenParentsOfRegion(Potential p, Grid grid, Grid source,
-            Grid.Region curRegion, LinkedSet<Potential> offPotentials) {
+            Grid.Region curRegion, PotentialSet offPotentials) {
         //Grid.Region srcRegion = Grid.getRegionAt(curRegion.getRegionTypeIndex(), p.cell.getIndex());
         int value = p.value;
         BitSet curPositions = curRegion.copyPotentialPositions(grid, value);
@@ -843,35 +1049,34 @@ public class Chaining implements IndirectHintProducer {
         for (int i = srcPositions.nextSetBit(0); i >= 0; i = srcPositions.nextSetBit(i + 1)) {
             // Add a hidden parent
             Cell curCell = curRegion.getCell(i);
-            Potential parent = new Potential(curCell, value, false);
-            parent = offPotentials.get(parent); // Retrieve complete version
+            Potential parent = offPotentials.get(Potential.getKey(curCell.getIndex(), value, false)); // Retrieve complete version
             if (parent == null)
                 throw new RuntimeException("Parent not found");
             p.parents.add(parent);
         }
     }
 
-    static Potential.Cause getRegionCause(Region region) { //still in use by collectRuleParents where for regionchaining region is used for repaint and stings
-        if (region instanceof Block && Settings.getInstance().isBlocks())
+    Potential.Cause getRegionCause(Region region) { //still in use by collectRuleParents where for regionchaining region is used for repaint and stings
+        if (region instanceof Block && config.isBlocks())
             return Potential.Cause.HiddenBlock;
         else if (region instanceof Column)
             return Potential.Cause.HiddenColumn;
          else if (region instanceof Row)
             return Potential.Cause.HiddenRow;
 //@SudokuMonster: Variants changes
-         else if (region instanceof DG && Settings.getInstance().isDG())
+         else if (region instanceof DG && config.isDG())
             return Potential.Cause.HiddenDG;
-         else if (region instanceof Window && Settings.getInstance().isWindows())
+         else if (region instanceof Window && config.isWindows())
             return Potential.Cause.HiddenWindow;
-         else if (region instanceof diagonalMain && Settings.getInstance().isX())
+         else if (region instanceof diagonalMain && config.isX())
             return Potential.Cause.HiddenMD;
-         else if (region instanceof diagonalAnti && Settings.getInstance().isX())
+         else if (region instanceof diagonalAnti && config.isX())
             return Potential.Cause.HiddenAD;
-         else if (region instanceof Girandola && Settings.getInstance().isGirandola())
+         else if (region instanceof Girandola && config.isGirandola())
             return Potential.Cause.HiddenGirandola;
-         else if (region instanceof Asterisk && Settings.getInstance().isAsterisk())
+         else if (region instanceof Asterisk && config.isAsterisk())
             return Potential.Cause.HiddenAsterisk;
-         else if (region instanceof CD && Settings.getInstance().isCD())
+         else if (region instanceof CD && config.isCD())
             return Potential.Cause.HiddenCD;
 //@SudokuMonster: Variants changes	Added to stop warning
 		return Potential.Cause.HiddenRow;		
@@ -903,39 +1108,58 @@ public class Chaining implements IndirectHintProducer {
      * @param p the potential that is assumed to be "off"
      * @return the set of potentials that must be "on"
      */
-    private Set<Potential> getOffToOn(Grid grid, Potential p, Grid source,
-            LinkedSet<Potential> offPotentials, boolean isYChainEnabled,
+    private List<Potential> getOffToOn(Grid grid, Potential p, Grid source,
+            PotentialSet offPotentials, boolean isYChainEnabled,
             boolean isXChainEnabled) {
-		Set<Potential> result = new LinkedHashSet<Potential>();
-															  
-    	int thisCellIndex = p.cell.getIndex();
-        if (isYChainEnabled) {
-            // First rule: if there is only two potentials in this cell, the other one gets on
-            BitSet potentialValues = grid.getCellPotentialValues(thisCellIndex);
-            if (potentialValues.cardinality() == 2) {
-                int otherValue = potentialValues.nextSetBit(0);
-                if (otherValue == p.value)
-                    otherValue = potentialValues.nextSetBit(otherValue + 1);
-                Potential pOn = new Potential(p.cell, otherValue, true, p,
-                        Potential.Cause.NakedSingle, "only remaining possible value in the cell");
+        ImplicationCache cache = ImplicationCache.getInstance(config);
+        int cellIndex = p.cell.getIndex();
+        ImplicationCache.Implications implications = cache.getOffToOn(grid, cellIndex, p.value);
+        if (implications == null) {
+            implications = cache.createOffToOn(grid, cellIndex, p.value);
+            addOffToOnImplications(grid, cellIndex, p.value, implications);
+        }
+        int start = isYChainEnabled ? 0 : implications.getCellRuleCount();
+        int end = isXChainEnabled ? implications.size() : implications.getCellRuleCount();
+        List<Potential> result = new ArrayList<Potential>(end - start);
+        for (int i = start; i < end; i++) {
+            Potential pOn = new Potential(implications.getCell(i), implications.getValue(i), true, p,
+                    implications.getCause(i), implications.getExplanation(i));
+            Grid.Region region = implications.getRegion(i);
+            if (region == null)
                 addHiddenParentsOfCell(pOn, grid, source, offPotentials);
-                result.add(pOn);
-            }
+            else
+                addHiddenParentsOfRegion(pOn, grid, source, region, offPotentials);
+            result.add(pOn);
         }
+        return result;
+    }
 
-        if (isXChainEnabled) {
-            // Second rule: if there are only two positions for this potential, the other one gets on
-        	int thisValue = p.value;
+    /**
+     * Find the potentials that get on if the given potential is off, in the
+     * order of {@link #getOffToOn(Grid, Potential, Grid, PotentialSet, boolean, boolean)}.
+     */
+    private void addOffToOnImplications(Grid grid, int thisCellIndex, int thisValue,
+            ImplicationCache.Implications result) {
+        // First rule: if there is only two potentials in this cell, the other one gets on
+        int potentialValues = grid.getCellPotentialMask(thisCellIndex);
+        if (Integer.bitCount(potentialValues) == 2) {
+            int otherValue = Integer.numberOfTrailingZeros(potentialValues & ~(1 << thisValue));
+            result.add(thisCellIndex, otherValue, Potential.Cause.NakedSingle,
+                    "only remaining possible value in the cell", null);
+        }
+        result.endCellRule();
+
+        // Second rule: if there are only two positions for this potential, the other one gets on
         	//SudokuMonster: Variants changes
-			for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-				if (!Settings.getInstance().isVLatin()) {
-					if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-					if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-					if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-					if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-					if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+			for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+				if (!config.isVLatin()) {
+					if (regionTypeIndex == 3 && !config.isDG()) continue;
+					if (regionTypeIndex == 4 && !config.isWindows()) continue;
+					if (regionTypeIndex == 5 && !config.isX()) continue;
+					if (regionTypeIndex == 6 && !config.isX()) continue;
+					if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+					if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+					if (regionTypeIndex == 9 && !config.isCD()) continue;
 					if (Grid.cellRegions[thisCellIndex][regionTypeIndex] < 0)
 						continue;
 				}      		
@@ -952,17 +1176,11 @@ public class Chaining implements IndirectHintProducer {
 	        			otherPosition = cellIndex;
 	        		}
 	        	} //region cells
-	        	if(otherPosition >= 0) { //exactly one other position
-                    Potential pOn = new Potential(Grid.getCell(otherPosition), thisValue, true, p,
-                            getRegionCause(regionTypeIndex),
-                            "only remaining possible position in the " + r.toString());
-                    addHiddenParentsOfRegion(pOn, grid, source, r, offPotentials);						   
-                    result.add(pOn);	   	  
+	        	if(otherPosition >= 0 && !result.contains(otherPosition, thisValue)) { //exactly one other position, not found in another region yet
+                    result.add(otherPosition, thisValue, getRegionCause(regionTypeIndex),
+                            "only remaining possible position in the " + r.toString(), r);
 	        	}
         	} // region types
-        }
-
-        return result;
     }
 
     /**
@@ -978,8 +1196,9 @@ public class Chaining implements IndirectHintProducer {
         return false;
     }
 
-    private void doCycles(Grid grid, LinkedSet<Potential> toOn, LinkedSet<Potential> toOff, boolean isYChainEnabled,
-            boolean isXChainEnabled, List<Potential> cycles, Potential source) {
+    private void doCycles(Grid grid, PotentialSet toOn, PotentialSet toOff, boolean isYChainEnabled,
+            boolean isXChainEnabled, List<Potential> cycles, Potential source, HintBound bound) {
+        double baseDifficulty = CycleHint.getBaseDifficulty(isXChainEnabled, isYChainEnabled);
         //List<Potential> pendingOn = new LinkedList<Potential>(toOn);
         //List<Potential> pendingOff = new LinkedList<Potential>(toOff);
         Queue<Potential> pendingOn = new LinkedList<Potential>(toOn);
@@ -990,11 +1209,13 @@ public class Chaining implements IndirectHintProducer {
         int length = 0; // Cycle length
         while (!pendingOn.isEmpty() || !pendingOff.isEmpty()) {
             length++;
+            if (bound != null && bound.isBeaten(baseDifficulty, length))
+                break; // The longer cycles cannot beat the best hint
             //while (!pendingOn.isEmpty()) {
                 //Potential p = pendingOn.remove(0);
             Potential p;
             while((p = pendingOn.poll()) != null) {
-                Set<Potential> makeOff = getOnToOff(grid, p, isYChainEnabled);
+                List<Potential> makeOff = getOnToOff(grid, p, isYChainEnabled);
                 for (Potential pOff : makeOff) {
                     if (!isParent(p, pOff)) {
                         // Not processed yet
@@ -1007,7 +1228,7 @@ public class Chaining implements IndirectHintProducer {
             //while (!pendingOff.isEmpty()) {
                 //Potential p = pendingOff.remove(0);
             while((p = pendingOff.poll()) != null) {
-                Set<Potential> makeOn = getOffToOn(grid, p, saveGrid, toOff, isYChainEnabled, isXChainEnabled);
+                List<Potential> makeOn = getOffToOn(grid, p, saveGrid, toOff, isYChainEnabled, isXChainEnabled);
                 for (Potential pOn : makeOn) {
                     if (length >= 4 && pOn.equals(source)) {
                         // Cycle found
@@ -1023,22 +1244,26 @@ public class Chaining implements IndirectHintProducer {
         }
     }
 
-    private void doForcingChains(Grid grid, LinkedSet<Potential> toOn,
-            LinkedSet<Potential> toOff, boolean isYChainEnabled,
-            List<Potential> chains, Potential source) {
+    private void doForcingChains(Grid grid, PotentialSet toOn,
+            PotentialSet toOff, boolean isYChainEnabled,
+            List<Potential> chains, Potential source, HintBound bound) {
+        double baseDifficulty = ForcingChainHint.getBaseDifficulty(true, isYChainEnabled);
         //List<Potential> pendingOn = new LinkedList<Potential>(toOn);
         //List<Potential> pendingOff = new LinkedList<Potential>(toOff);
         Queue<Potential> pendingOn = new LinkedList<Potential>(toOn);
         Queue<Potential> pendingOff = new LinkedList<Potential>(toOff);
+        int length = 0; // Steps, no more than the chain length
         while (!pendingOn.isEmpty() || !pendingOff.isEmpty()) {
+            length++;
+            if (bound != null && bound.isBeaten(baseDifficulty, length))
+                break; // The longer chains cannot beat the best hint
             //while (!pendingOn.isEmpty()) {
                 //Potential p = pendingOn.remove(0);
         	Potential p;
         	while((p = pendingOn.poll()) != null) {
-                Set<Potential> makeOff = getOnToOff(grid, p, isYChainEnabled);
+                List<Potential> makeOff = getOnToOff(grid, p, isYChainEnabled);
                 for (Potential pOff : makeOff) {
-                    Potential pOn = new Potential(pOff.cell, pOff.value, true); // Conjugate
-                    if (source.equals(pOn)) {
+                    if (source.getKey() == (pOff.getKey() ^ 1)) { // Conjugate
                         // Cyclic contradiction (forcing chain) found
                         if (!chains.contains(pOff))
                             chains.add(pOff);
@@ -1053,11 +1278,10 @@ public class Chaining implements IndirectHintProducer {
             //while (!pendingOff.isEmpty()) {
                 //Potential p = pendingOff.remove(0);
         	while((p = pendingOff.poll()) != null) {
-                Set<Potential> makeOn = getOffToOn(grid, p, saveGrid, toOff,
+                List<Potential> makeOn = getOffToOn(grid, p, saveGrid, toOff,
                         isYChainEnabled, true);
                 for (Potential pOn : makeOn) {
-                    Potential pOff = new Potential(pOn.cell, pOn.value, false); // Conjugate
-                    if (source.equals(pOff)) {
+                    if (source.getKey() == (pOn.getKey() ^ 1)) { // Conjugate
                         // Cyclic contradiction (forcing chain) found
                         if (!chains.contains(pOn))
                             chains.add(pOn);
@@ -1086,9 +1310,18 @@ public class Chaining implements IndirectHintProducer {
      * @return <code>null</code> on success; the first potential that would have
      * to be both "on" and "off" else.
      */
-    private Potential[] doChaining(Grid grid, LinkedSet<Potential> toOn, LinkedSet<Potential> toOff) {
+    private Potential[] doChaining(Grid grid, PotentialSet toOn, PotentialSet toOff) {
+        if (cancellationToken != null)
+            cancellationToken.checkCancelled();
     	//MD: Note that toOn potentials have higher precedence than toOff which can result in non-shortest contradiction chain finding.
-        grid.copyTo(saveGrid);
+        // Only dynamic chaining writes to the grid. Its initial state is then kept
+        // as the source of the hidden parents, and restored from the grid's journal.
+        Grid source = grid;
+        if (isDynamic) {
+            grid.copyTo(saveGrid);
+            source = saveGrid;
+        }
+        int savePoint = grid.mark();
         try {
             Queue<Potential> pendingOn = new LinkedList<Potential>(toOn);
             Queue<Potential> pendingOff = new LinkedList<Potential>(toOff);
@@ -1096,12 +1329,11 @@ public class Chaining implements IndirectHintProducer {
             do {
             	p = pendingOn.poll();
                 if (p != null) {
-                    Set<Potential> makeOff = getOnToOff(grid, p, !isNisho);
+                    List<Potential> makeOff = getOnToOff(grid, p, !isNisho);
                     for (Potential pOff : makeOff) {
-                        Potential pOn = new Potential(pOff.cell, pOff.value, true); // Conjugate
-                        if (toOn.contains(pOn)) {
+                        Potential pOn = toOn.get(pOff.getKey() ^ 1); // Conjugate, version with parents
+                        if (pOn != null) {
                             // Contradiction found
-                            pOn = toOn.get(pOn); // Retrieve version of conjugate with parents
                             return new Potential[] {pOn, pOff}; // Cannot be both on and off at the same time
                         } else if (!toOff.contains(pOff)) {
                             // Not processed yet
@@ -1113,14 +1345,13 @@ public class Chaining implements IndirectHintProducer {
                 }
                 p = pendingOff.poll();
                 if (p != null) {
-                    Set<Potential> makeOn = getOffToOn(grid, p, saveGrid, toOff, !isNisho, true);
+                    List<Potential> makeOn = getOffToOn(grid, p, source, toOff, !isNisho, true);
                     if (isDynamic)
                         p.off(grid); // writes to grid
                     for (Potential pOn : makeOn) {
-                        Potential pOff = new Potential(pOn.cell, pOn.value, false); // Conjugate
-                        if (toOff.contains(pOff)) {
+                        Potential pOff = toOff.get(pOn.getKey() ^ 1); // Conjugate, version with parents
+                        if (pOff != null) {
                             // Contradiction found
-                            pOff = toOff.get(pOff); // Retrieve version of conjugate with parents
                             return new Potential[] {pOn, pOff}; // Cannot be both on and off at the same time
                         } else if (!toOn.contains(pOn)) {
                             // Not processed yet
@@ -1131,7 +1362,7 @@ public class Chaining implements IndirectHintProducer {
                 	continue;
                 }
                 if (level > 0) {
-                    for (Potential pOff : getAdvancedPotentials(grid, saveGrid, toOff)) {
+                    for (Potential pOff : getAdvancedPotentials(grid, source, toOff)) {
                         if (!toOff.contains(pOff)) {
                             // Not processed yet
                             toOff.add(pOff);
@@ -1143,7 +1374,7 @@ public class Chaining implements IndirectHintProducer {
             } while(p != null);
             return null;
         } finally {
-            saveGrid.copyTo(grid);
+            grid.rollback(savePoint);
         }
     }
 
@@ -1151,32 +1382,32 @@ public class Chaining implements IndirectHintProducer {
      * Get all non-trivial implications (involving fished, naked/hidden sets, etc).
      */
     private Collection<Potential> getAdvancedPotentials(final Grid grid, final Grid source,
-            final LinkedSet<Potential> offPotentials) {
+            final PotentialSet offPotentials) {
         final Collection<Potential> result = new ArrayList<Potential>();
         if (otherRules == null) {
             otherRules = new ArrayList<IndirectHintProducer>();
-			if (Settings.getInstance().isVLatin()) {
-				if (Settings.getInstance().isBlocks())
-					otherRules.add(new Locking(false));
-				otherRules.add(new HiddenSet(2, false));
-				otherRules.add(new NakedSet(2));
-				otherRules.add(new Fisherman(2));
+			if (config.isVLatin()) {
+				if (config.isBlocks())
+					otherRules.add(new Locking(false, config));
+				otherRules.add(new HiddenSet(2, false, config));
+				otherRules.add(new NakedSet(2, config));
+				otherRules.add(new Fisherman(2, config));
 	//@SudokuMonster: FCPlus will control non-trivial implications added
-				if (Settings.getInstance().FCPlus() > 0) {
-					otherRules.add(new TurbotFish());
+				if (config.FCPlus() > 0) {
+					otherRules.add(new TurbotFish(config));
 					otherRules.add(new XYWing(false));
 					otherRules.add(new XYWing(true));
 				}
-				if (Settings.getInstance().FCPlus() > 1) {
-					otherRules.add(new HiddenSet(3, false));
-					otherRules.add(new NakedSet(3));
-					otherRules.add(new Fisherman(3));
-					otherRules.add(new StrongLinks(3));
+				if (config.FCPlus() > 1) {
+					otherRules.add(new HiddenSet(3, false, config));
+					otherRules.add(new NakedSet(3, config));
+					otherRules.add(new Fisherman(3, config));
+					otherRules.add(new StrongLinks(3, config));
 					otherRules.add(new WXYZWing());
 					otherRules.add(new VWXYZWing());
 					otherRules.add(new AlignedExclusion(3));
-					otherRules.add(new UniqueLoops());
-					otherRules.add(new BivalueUniversalGrave());
+					otherRules.add(new UniqueLoops(config));
+					otherRules.add(new BivalueUniversalGrave(config));
 				}
 	//            //otherRules.add(new HiddenSingle());
 	//            //otherRules.add(new Locking(true));
@@ -1201,40 +1432,44 @@ public class Chaining implements IndirectHintProducer {
 	//            //otherRules.add(new AlignedExclusion(3));
 			}
 			else {
-				otherRules.add(new VLocking());
-				otherRules.add(new HiddenSet(2, false));
-				otherRules.add(new NakedSetGen(2));
-				otherRules.add(new Fisherman(2));
+				otherRules.add(new VLocking(config));
+				otherRules.add(new HiddenSet(2, false, config));
+				otherRules.add(new NakedSetGen(2, config));
+				otherRules.add(new Fisherman(2, config));
 	//@SudokuMonster: FCPlus will control non-trivial implications added
-				if (Settings.getInstance().FCPlus() > 0) {
-					otherRules.add(new TurbotFish());
+				if (config.FCPlus() > 0) {
+					otherRules.add(new TurbotFish(config));
 					otherRules.add(new XYWing(false));
 					otherRules.add(new XYWing(true));
 				}
-				if (Settings.getInstance().FCPlus() > 1) {
-					otherRules.add(new HiddenSet(3, false));
-					otherRules.add(new NakedSetGen(3));
-					otherRules.add(new Fisherman(3));
+				if (config.FCPlus() > 1) {
+					otherRules.add(new HiddenSet(3, false, config));
+					otherRules.add(new NakedSetGen(3, config));
+					otherRules.add(new Fisherman(3, config));
 					//otherRules.add(new StrongLinks(3));
 					otherRules.add(new WXYZWing());
 				}				
 			}
             if (level < 4) {
                 if (level >= 2)
-                    otherRules.add(new Chaining(false, false, false, 0, true, 0)); // Forcing chains
+                    otherRules.add(new Chaining(false, false, false, 0, true, 0, config)); // Forcing chains
                 if (level >= 3)
-                    otherRules.add(new Chaining(true, false, false, 0, true, 0)); // Multiple forcing chains
+                    otherRules.add(new Chaining(true, false, false, 0, true, 0, config)); // Multiple forcing chains
             } else {
 //                // Dynamic Forcing Chains already cover Simple and Multiple Forcing Chains
 //                if (level >= 4)
 //                    otherRules.add(new Chaining(true, true, false, 0)); // Dynamic FC
 //                if (level >= 5)
 //                    otherRules.add(new Chaining(true, true, false, level - 3));
-                otherRules.add(new Chaining(true, true, false, nestingLimit, true, 0)); // Dynamic FC
+                otherRules.add(new Chaining(true, true, false, nestingLimit, true, 0, config)); // Dynamic FC
 //                otherRules.add(new Chaining(true, true, false, 1, true)); // Dynamic FC+
 //                otherRules.add(new Chaining(true, true, false, 2, true)); // Dynamic FC++
 //                otherRules.add(new Chaining(true, true, false, 3, true)); // Dynamic FC+++
             }
+            for (IndirectHintProducer rule : otherRules) {
+                if (rule instanceof CancellableHintProducer)
+                    ((CancellableHintProducer)rule).setCancellationToken(cancellationToken);
+            }
         }
         int index = 0;
         while (index < otherRules.size() && result.isEmpty()) {
@@ -1301,7 +1536,7 @@ public class Chaining implements IndirectHintProducer {
         p = dstOn;
         while (!p.parents.isEmpty()) {
             assert p.parents.size() == 1;
-            for (int cellIndex : p.cell.getVisibleCellIndexes()) {
+            for (int cellIndex : grid.getTopology().getVisibleCellIndexes(p.cell.getIndex())) {
             	Cell cell = Grid.getCell(cellIndex);
                 if (!cells.contains(cell) && grid.hasCellPotentialValue(cellIndex, p.value)) {
                     if (p.isOn)
@@ -1326,7 +1561,7 @@ public class Chaining implements IndirectHintProducer {
                 values.set(rp.value);
         }
 
-        return new CycleHint(this, removable, isYChain, isXChain, dstOn, dstOff);
+        return new CycleHint(owner, removable, isYChain, isXChain, dstOn, dstOff);
     }
 
     private ForcingChainHint createForcingChainHint(Grid grid, Potential target,
@@ -1345,7 +1580,7 @@ public class Chaining implements IndirectHintProducer {
             removable.put(target.cell, values);
         }
 
-        return new ForcingChainHint(this, removable, isYChain, isXChain, target);
+        return new ForcingChainHint(owner, removable, isYChain, isXChain, target);
     }
 
     private BinaryChainingHint createChainingOnHint(Grid grid, Potential dstOn, Potential dstOff,
@@ -1358,7 +1593,7 @@ public class Chaining implements IndirectHintProducer {
         if (!removable.isEmpty())
             cellRemovablePotentials.put(target.cell, removable);
 
-        return new BinaryChainingHint(this, cellRemovablePotentials, source, dstOn, dstOff,
+        return new BinaryChainingHint(owner, cellRemovablePotentials, source, dstOn, dstOff,
                 isAbsurd, isNisho);
     }
 
@@ -1369,12 +1604,12 @@ public class Chaining implements IndirectHintProducer {
         Map<Cell,BitSet> cellRemovablePotentials = new HashMap<Cell,BitSet>();
         cellRemovablePotentials.put(target.cell, SingletonBitSet.create(target.value));
 
-        return new BinaryChainingHint(this, cellRemovablePotentials, source, dstOn, dstOff,
+        return new BinaryChainingHint(owner, cellRemovablePotentials, source, dstOn, dstOff,
                 isAbsurd, isNisho);
     }
 
     private CellChainingHint createCellReductionHint(Grid grid, Cell srcCell, Potential target,
-            Map<Integer, LinkedSet<Potential>> outcomes) {
+            Map<Integer, PotentialSet> outcomes) {
 
         // Build removable potentials
         Map<Cell,BitSet> cellRemovablePotentials = new HashMap<Cell,BitSet>();
@@ -1397,11 +1632,11 @@ public class Chaining implements IndirectHintProducer {
             }
         }
 
-        return new CellChainingHint(this, cellRemovablePotentials, srcCell, chains);
+        return new CellChainingHint(owner, cellRemovablePotentials, srcCell, chains);
     }
 
     private RegionChainingHint createRegionReductionHint(Grid grid, Grid.Region region, int value,
-            Potential target, Map<Integer, LinkedSet<Potential>> outcomes) {
+            Potential target, Map<Integer, PotentialSet> outcomes) {
 
         // Build removable potentials
         Map<Cell,BitSet> cellRemovablePotentials = new HashMap<Cell,BitSet>();
@@ -1425,7 +1660,7 @@ public class Chaining implements IndirectHintProducer {
             }
         }
 
-        return new RegionChainingHint(this, cellRemovablePotentials, region, value, chains);
+        return new RegionChainingHint(owner, cellRemovablePotentials, region, value, chains);
     }
 
     public String getCommonName(ChainingHint hint) {
@@ -1486,16 +1721,38 @@ public class Chaining implements IndirectHintProducer {
             accu.add(hint);
     }
 
+    public void reset() {
+        lastHints = null;
+        if (otherRules != null) {
+            for (IndirectHintProducer rule : otherRules) {
+                if (rule instanceof StatefulHintProducer)
+                    ((StatefulHintProducer)rule).reset();
+            }
+        }
+    }
+
+    public void setCancellationToken(CancellationToken token) {
+        this.cancellationToken = token;
+        if (otherRules != null) {
+            for (IndirectHintProducer rule : otherRules) {
+                if (rule instanceof CancellableHintProducer)
+                    ((CancellableHintProducer)rule).setCancellationToken(token);
+            }
+        }
+    }
+
     public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
-        if (lastGrid != null && grid.equals(lastGrid)) {
+        if (lastHints != null && grid.equals(lastGrid)) {
             getPreviousHints(accu);
             return;
         }
-        List<ChainingHint> result = getHintList(grid);
-        lastGrid = new Grid();
+        boolean isBestHintOnly = accu instanceof SingleHintAccumulator;
+        List<ChainingHint> result = getHintList(grid, isBestHintOnly);
+        if (lastGrid == null)
+            lastGrid = new Grid();
         grid.copyTo(lastGrid);
-        //if(Settings.getInstance().getBestHintOnly()) {
-        if(accu instanceof SingleHintAccumulator) { 
+        //if(config.getBestHintOnly()) {
+        if(isBestHintOnly) { 
             lastHints = new LinkedHashSet<ChainingHint>();
             if(! result.isEmpty()) {
             	lastHints.add(result.get(0));
@@ -258,7 +258,7 @@ public abstract class ChainingHint extends IndirectHint implements Rule, HasPare
                         if (this instanceof CellChainingHint)
                             cause = Potential.Cause.NakedSingle;
                         else if (this instanceof RegionChainingHint)
-                            cause = Chaining.getRegionCause(((RegionChainingHint)this).getRegion());
+                            cause = getChainingRule().getRegionCause(((RegionChainingHint)this).getRegion());
                     }
                     if (p.isOn && cause != null) {
                         assert !cause.equals(Potential.Cause.Advanced);
@@ -337,9 +337,17 @@ public abstract class ChainingHint extends IndirectHint implements Rule, HasPare
     }
 
     protected double getLengthDifficulty() {
+        return getLengthDifficulty(getComplexity());
+    }
+
+    /**
+     * Get the difficulty added to the base difficulty of a chaining hint
+     * of the given complexity
+     */
+    static double getLengthDifficulty(int complexity) {
         double added = 0.0;
         int ceil = 4;
-        int length = getComplexity() - 2;
+        int length = complexity - 2;
         boolean isOdd = false;
         while (length > ceil) {
             added += 0.1;
@@ -551,18 +559,10 @@ public abstract class ChainingHint extends IndirectHint implements Rule, HasPare
 
     @Override
     public int hashCode() {
-        //return getRemovablePotentials().hashCode();
-        Map<Cell, BitSet> rp = getRemovablePotentials();
-        if(rp.isEmpty()) {
-        	return (isYChain ? 2 : 0) + (isXChain ? 1 : 0);
-        }
-        //return rp.entrySet().iterator().next().getKey().hashCode();
+        // Consistent with equals(): depends on the removable cells only, not on their order
         int ret = 0;
-        int n = 3;
-        for(Map.Entry<Cell, BitSet> iter : rp.entrySet()) {
-        	ret ^= iter.getKey().hashCode();
-        	if(--n == 0) break;
-        }
+        for (Cell cell : getRemovablePotentials().keySet())
+            ret ^= cell.hashCode();
         return ret;
     }
 }
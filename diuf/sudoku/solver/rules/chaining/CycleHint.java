@@ -118,13 +118,18 @@ public class CycleHint extends ChainingHint {
             return 2;
     }
 
-    public double getDifficulty() {
-        double result;
+    /**
+     * Get the difficulty of the shortest cycles with the given kinds of links
+     */
+    static double getBaseDifficulty(boolean isXChain, boolean isYChain) {
         if (isYChain && isXChain)
-            result = 7.0;
+            return 7.0;
         else
-            result = 6.5;
-        return result + getLengthDifficulty();
+            return 6.5;
+    }
+
+    public double getDifficulty() {
+        return getBaseDifficulty(isXChain, isYChain) + getLengthDifficulty();
     }
 
     @Override
@@ -0,0 +1,297 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku.solver.rules.chaining;
+
+import java.util.*;
+
+import diuf.sudoku.*;
+import diuf.sudoku.solver.*;
+
+/**
+ * Cache of the direct implications of the potentials of a grid: for each
+ * (cell, value, on/off) triplet, the potentials that are turned on or off
+ * by the cell and region rules of {@link Chaining}.
+ * <p>
+ * The searches of a step (cycles, forcing chains, multiple and dynamic
+ * chains, and the nested chainings of the higher levels) ask for the
+ * implications of the same potentials again and again. The implications
+ * of a potential only depend on the potential values of its cell, and on
+ * the positions of its value (and of the consecutive values for the NC
+ * variants) among the cells it sees. Each entry records this part of the
+ * grid when it is built, and is rebuilt only when one of these cells has
+ * changed. Hence the eliminations applied by the dynamic chainings, or by
+ * the solving steps, only invalidate the entries they affect, and the
+ * entries become valid again when the grid is rolled back.
+ * <p>
+ * Each thread has its own cache, shared by all the {@link Chaining}
+ * instances it runs, see {@link #getInstance(SolverConfig)}. The entries
+ * are built lazily by the chaining, and only store the consequences: the
+ * {@link Potential}s with their parents are created for each use.
+ */
+final class ImplicationCache {
+
+    /**
+     * The direct consequences of a potential being on or off. The first
+     * consequences come from the cell rule (Y-Links), the other ones from
+     * the regions and the variant constraints (X-Links).
+     */
+    static final class Implications {
+
+        private int size = 0;
+        private int cellRuleCount = 0;
+        private int[] cellIndexes = new int[8];
+        private int[] values = new int[8];
+        private Potential.Cause[] causes = new Potential.Cause[8];
+        private String[] explanations = new String[8];
+        private Grid.Region[] regions = new Grid.Region[8];
+
+        // Part of the grid the consequences were found in
+        private boolean isBuilt = false;
+        private int cellMask;
+        private long low;
+        private long high;
+        private long lowerLow;
+        private long lowerHigh;
+        private long upperLow;
+        private long upperHigh;
+
+        /**
+         * Add a consequence
+         * @param region the region the consequence comes from, for the
+         * hidden parents of the "off to on" implications; <tt>null</tt>
+         * for the cell rule and the variant constraints
+         */
+        void add(int cellIndex, int value, Potential.Cause cause, String explanation, Grid.Region region) {
+            if (size == values.length) {
+                int capacity = size * 2;
+                cellIndexes = Arrays.copyOf(cellIndexes, capacity);
+                values = Arrays.copyOf(values, capacity);
+                causes = Arrays.copyOf(causes, capacity);
+                explanations = Arrays.copyOf(explanations, capacity);
+                regions = Arrays.copyOf(regions, capacity);
+            }
+            cellIndexes[size] = cellIndex;
+            values[size] = value;
+            causes[size] = cause;
+            explanations[size] = explanation;
+            regions[size] = region;
+            size++;
+        }
+
+        /**
+         * Mark the end of the consequences of the cell rule
+         */
+        void endCellRule() {
+            cellRuleCount = size;
+        }
+
+        /**
+         * Whether the given potential is already a consequence
+         */
+        boolean contains(int cellIndex, int value) {
+            for (int i = 0; i < size; i++) {
+                if (cellIndexes[i] == cellIndex && values[i] == value)
+                    return true;
+            }
+            return false;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int getCellRuleCount() {
+            return cellRuleCount;
+        }
+
+        Cell getCell(int index) {
+            return Grid.getCell(cellIndexes[index]);
+        }
+
+        int getValue(int index) {
+            return values[index];
+        }
+
+        Potential.Cause getCause(int index) {
+            return causes[index];
+        }
+
+        String getExplanation(int index) {
+            return explanations[index];
+        }
+
+        Grid.Region getRegion(int index) {
+            return regions[index];
+        }
+
+        private void clear() {
+            for (int i = 0; i < size; i++) {
+                explanations[i] = null;
+                regions[i] = null;
+            }
+            size = 0;
+            cellRuleCount = 0;
+            isBuilt = false;
+        }
+
+    }
+
+    private static final ThreadLocal<ImplicationCache> caches = new ThreadLocal<ImplicationCache>() {
+        @Override
+        protected ImplicationCache initialValue() {
+            return new ImplicationCache();
+        }
+    };
+
+    private SolverConfig config = null;
+    // Entries indexed by cellIndex * 10 + value
+    private final Implications[] onToOff = new Implications[81 * 10];
+    private final Implications[] offToOn = new Implications[81 * 10];
+    // Cells the implications of a potential depend on, as Bitboard planes
+    private final long[] dependencyBits = new long[81 * 2];
+    private final long[] consecutiveBits = new long[81 * 2];
+
+    private ImplicationCache() {
+        for (int i = 0; i < onToOff.length; i++) {
+            onToOff[i] = new Implications();
+            offToOn[i] = new Implications();
+        }
+    }
+
+    /**
+     * Get the cache of the current thread, emptied if it was used with
+     * another configuration
+     */
+    static ImplicationCache getInstance(SolverConfig config) {
+        ImplicationCache cache = caches.get();
+        if (cache.config != config)
+            cache.setConfig(config);
+        return cache;
+    }
+
+    private void setConfig(SolverConfig config) {
+        this.config = config;
+        for (int i = 0; i < onToOff.length; i++) {
+            onToOff[i].clear();
+            offToOn[i].clear();
+        }
+        Arrays.fill(dependencyBits, 0L);
+        Arrays.fill(consecutiveBits, 0L);
+        int[][] consecutiveCells = null;
+        if (config.isForbiddenPairs() && config.whichNC() > 0) {
+            int statusNC = config.whichNC();
+            boolean isWazir = statusNC == 1 || statusNC == 2;
+            consecutiveCells = config.isToroidal()
+                    ? (isWazir ? Grid.wazirCellsToroidal : Grid.ferzCellsToroidal)
+                    : (isWazir ? Grid.wazirCellsRegular : Grid.ferzCellsRegular);
+        }
+        for (int i = 0; i < 81; i++) {
+            // All the regions of the cell, whether used or not, and the leaper cells
+            for (int regionTypeIndex = 0; regionTypeIndex < 10; regionTypeIndex++) {
+                if (Grid.cellRegions[i][regionTypeIndex] < 0)
+                    continue;
+                Grid.Region region = Grid.getRegionAt(regionTypeIndex, i);
+                dependencyBits[i * 2] |= Bitboard.getRegionLow(region);
+                dependencyBits[i * 2 + 1] |= Bitboard.getRegionHigh(region);
+            }
+            if (config.isAntiFerz())
+                addLeaperCells(i, Grid.ferzCellIndex);
+            if (config.isAntiKnight())
+                addLeaperCells(i, Grid.knightCellIndex);
+            if (consecutiveCells != null) {
+                for (int cellIndex : consecutiveCells[i])
+                    consecutiveBits[i * 2 + (cellIndex >> 6)] |= 1L << cellIndex;
+            }
+        }
+    }
+
+    private void addLeaperCells(int i, int[][] offsets) {
+        Cell cell = Grid.getCell(i);
+        for (int[] offset : offsets) {
+            int x = cell.getX() + offset[0];
+            int y = cell.getY() + offset[1];
+            if (x >= 0 && y >= 0 && x < 9 && y < 9) {
+                int cellIndex = Grid.getCell(x, y).getIndex();
+                dependencyBits[i * 2 + (cellIndex >> 6)] |= 1L << cellIndex;
+            }
+        }
+    }
+
+    /**
+     * Get the implications of the given potential being "on"
+     * @return the implications, or <tt>null</tt> if they are not known
+     * for the current state of the grid
+     */
+    Implications getOnToOff(Grid grid, int cellIndex, int value) {
+        Implications implications = onToOff[cellIndex * 10 + value];
+        return isValid(implications, grid, cellIndex, value) ? implications : null;
+    }
+
+    /**
+     * Get the implications of the given potential being "off"
+     * @return the implications, or <tt>null</tt> if they are not known
+     * for the current state of the grid
+     */
+    Implications getOffToOn(Grid grid, int cellIndex, int value) {
+        Implications implications = offToOn[cellIndex * 10 + value];
+        return isValid(implications, grid, cellIndex, value) ? implications : null;
+    }
+
+    /**
+     * Get an empty entry for the implications of the given potential being
+     * "on", to fill from the current state of the grid
+     */
+    Implications createOnToOff(Grid grid, int cellIndex, int value) {
+        Implications implications = onToOff[cellIndex * 10 + value];
+        build(implications, grid, cellIndex, value);
+        return implications;
+    }
+
+    /**
+     * Get an empty entry for the implications of the given potential being
+     * "off", to fill from the current state of the grid
+     */
+    Implications createOffToOn(Grid grid, int cellIndex, int value) {
+        Implications implications = offToOn[cellIndex * 10 + value];
+        build(implications, grid, cellIndex, value);
+        return implications;
+    }
+
+    private void build(Implications implications, Grid grid, int cellIndex, int value) {
+        implications.clear();
+        Bitboard board = grid.getBitboard();
+        int lowerValue = value == 1 ? 9 : value - 1;
+        int upperValue = value == 9 ? 1 : value + 1;
+        implications.cellMask = grid.getCellPotentialMask(cellIndex);
+        implications.low = board.getLow(value) & dependencyBits[cellIndex * 2];
+        implications.high = board.getHigh(value) & dependencyBits[cellIndex * 2 + 1];
+        implications.lowerLow = board.getLow(lowerValue) & consecutiveBits[cellIndex * 2];
+        implications.lowerHigh = board.getHigh(lowerValue) & consecutiveBits[cellIndex * 2 + 1];
+        implications.upperLow = board.getLow(upperValue) & consecutiveBits[cellIndex * 2];
+        implications.upperHigh = board.getHigh(upperValue) & consecutiveBits[cellIndex * 2 + 1];
+        implications.isBuilt = true;
+    }
+
+    private boolean isValid(Implications implications, Grid grid, int cellIndex, int value) {
+        if (!implications.isBuilt || implications.cellMask != grid.getCellPotentialMask(cellIndex))
+            return false;
+        Bitboard board = grid.getBitboard();
+        if (implications.low != (board.getLow(value) & dependencyBits[cellIndex * 2])
+                || implications.high != (board.getHigh(value) & dependencyBits[cellIndex * 2 + 1]))
+            return false;
+        long consecutiveLow = consecutiveBits[cellIndex * 2];
+        long consecutiveHigh = consecutiveBits[cellIndex * 2 + 1];
+        if ((consecutiveLow | consecutiveHigh) == 0)
+            return true;
+        int lowerValue = value == 1 ? 9 : value - 1;
+        int upperValue = value == 9 ? 1 : value + 1;
+        return implications.lowerLow == (board.getLow(lowerValue) & consecutiveLow)
+                && implications.lowerHigh == (board.getHigh(lowerValue) & consecutiveHigh)
+                && implications.upperLow == (board.getLow(upperValue) & consecutiveLow)
+                && implications.upperHigh == (board.getHigh(upperValue) & consecutiveHigh);
+    }
+
+}
@@ -44,6 +44,11 @@ public class Potential {
     public final Cause cause;
     public final ChainingHint nestedChain;
 
+    /**
+     * Number of distinct {@link #getKey() keys}
+     */
+    public static final int KEY_COUNT = 81 * 20;
+
 
     public Potential(Cell cell, int value, boolean isOn) {
         this.cell = cell;
@@ -131,6 +136,24 @@ public class Potential {
         return (cell.hashCode() * 9 + value) * 2 + (isOn ? 1 : 0);
     }
 
+    /**
+     * Get the key of the given (cell, value, on/off) triplet:
+     * <tt>cellIndex * 20 + value * 2 + (isOn ? 1 : 0)</tt>, between 0 and
+     * {@link #KEY_COUNT}, exclusive. The key of the conjugate potential
+     * (same cell and value, opposite flag) is <tt>key ^ 1</tt>.
+     */
+    public static int getKey(int cellIndex, int value, boolean isOn) {
+        return cellIndex * 20 + value * 2 + (isOn ? 1 : 0);
+    }
+
+    /**
+     * Get the key of this potential, equal for equal potentials
+     * @see #getKey(int, int, boolean)
+     */
+    public int getKey() {
+        return cell.getIndex() * 20 + value * 2 + (isOn ? 1 : 0);
+    }
+
     @Override
     public String toString() {
         return cell.toString() + "." + value;
@@ -0,0 +1,196 @@
+/*
+ * Project: Sudoku Explainer
+ * Copyright (C) 2006-2007 Nicolas Juillerat
+ * Available under the terms of the Lesser General Public License (LGPL)
+ */
+package diuf.sudoku.solver.rules.chaining;
+
+import java.util.*;
+
+/**
+ * Set of {@link Potential}s indexed by their {@link Potential#getKey() keys},
+ * for the chaining: a bitset of the keys answers the membership tests, and
+ * the potentials are found from their keys in a small open addressing
+ * table, so that neither the hash codes of the potentials, nor entry
+ * objects, nor conjugate potentials are needed.
+ * <p>
+ * Like {@link diuf.sudoku.tools.LinkedSet}, the iteration follows the
+ * insertion order, and {@link #get(Potential)} returns the element of the
+ * set that is equal to the given potential, that is the version with the
+ * parents. Adding a potential that is already in the set keeps its place
+ * in the iteration, but the new version is the one returned by
+ * {@link #get(Potential)}.
+ */
+final class PotentialSet extends AbstractSet<Potential> {
+
+    private final long[] bits = new long[(Potential.KEY_COUNT + 63) >> 6];
+    // Last version added for each key, by linear probing from getSlot(key)
+    private Potential[] table = new Potential[32];
+    // First version added for each key, in insertion order
+    private Potential[] order = new Potential[16];
+    private int size = 0;
+
+    private int getSlot(int key) {
+        return (key * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(table.length) + 1);
+    }
+
+    private int find(int key) {
+        int mask = table.length - 1;
+        int slot = getSlot(key);
+        while (table[slot].getKey() != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void insert(Potential p) {
+        int mask = table.length - 1;
+        int slot = getSlot(p.getKey());
+        while (table[slot] != null)
+            slot = (slot + 1) & mask;
+        table[slot] = p;
+    }
+
+    /**
+     * Fill the table again with the last versions of the potentials of the
+     * set, after a removal or when the table is half full
+     */
+    private void rebuild(int capacity) {
+        Potential[] old = table;
+        table = new Potential[capacity];
+        for (Potential p : old) {
+            if (p != null && containsKey(p.getKey()))
+                insert(p);
+        }
+    }
+
+    /**
+     * Whether a potential with the given key is in the set
+     */
+    boolean containsKey(int key) {
+        return (bits[key >> 6] & (1L << key)) != 0;
+    }
+
+    /**
+     * Get the potential of the set with the given key
+     * @return the potential, or <tt>null</tt> if none
+     */
+    Potential get(int key) {
+        return containsKey(key) ? table[find(key)] : null;
+    }
+
+    /**
+     * Get the potential of the set that is equal to the given one
+     * @return the potential, or <tt>null</tt> if none
+     */
+    Potential get(Potential p) {
+        return get(p.getKey());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Potential && containsKey(((Potential)o).getKey());
+    }
+
+    @Override
+    public boolean add(Potential p) {
+        int key = p.getKey();
+        if (containsKey(key)) {
+            table[find(key)] = p;
+            return false;
+        }
+        bits[key >> 6] |= 1L << key;
+        if (size == order.length)
+            order = Arrays.copyOf(order, size * 2);
+        order[size++] = p;
+        if (size * 2 > table.length)
+            rebuild(table.length * 2);
+        insert(p);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o))
+            return false;
+        int key = ((Potential)o).getKey();
+        for (int i = 0; i < size; i++) {
+            if (order[i].getKey() == key) {
+                removeAt(i);
+                break;
+            }
+        }
+        return true;
+    }
+
+    private void removeAt(int index) {
+        int key = order[index].getKey();
+        bits[key >> 6] &= ~(1L << key);
+        System.arraycopy(order, index + 1, order, index, size - index - 1);
+        order[--size] = null;
+        rebuild(table.length);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (!(c instanceof PotentialSet))
+            return super.retainAll(c);
+        PotentialSet other = (PotentialSet)c;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            Potential p = order[i];
+            int key = p.getKey();
+            if (other.containsKey(key))
+                order[count++] = p;
+            else
+                bits[key >> 6] &= ~(1L << key);
+        }
+        if (count == size)
+            return false;
+        Arrays.fill(order, count, size, null);
+        size = count;
+        rebuild(table.length);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(table, null);
+        Arrays.fill(bits, 0L);
+        Arrays.fill(order, 0, size, null);
+        size = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Potential> iterator() {
+        return new Iterator<Potential>() {
+
+            private int next = 0;
+            private boolean canRemove = false;
+
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            public Potential next() {
+                if (next >= size)
+                    throw new NoSuchElementException();
+                canRemove = true;
+                return order[next++];
+            }
+
+            public void remove() {
+                if (!canRemove)
+                    throw new IllegalStateException();
+                canRemove = false;
+                removeAt(--next);
+            }
+
+        };
+    }
+
+}
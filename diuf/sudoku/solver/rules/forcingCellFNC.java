@@ -19,6 +19,12 @@ import diuf.sudoku.tools.*;
  * http://forum.enjoysudoku.com/sudokuncexplainer-to-solve-and-rate-sudoku-non-consecutive-t36949.html#p285476
  */
 public class forcingCellFNC implements IndirectHintProducer {
+
+    private final SolverConfig config;
+
+    public forcingCellFNC(SolverConfig config) {
+        this.config = config;
+    }
 	
 	public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
         int firstValue, valueIndex;
@@ -33,7 +39,7 @@ public class forcingCellFNC implements IndirectHintProducer {
 				valueIndex = firstValue;
 				for (int ncValuesIndex = 1; ncValuesIndex < ncValuesCard; ncValuesIndex++)
 					valueIndex = potentialNC.nextSetBit(valueIndex + 1);
-				if ((valueIndex - firstValue) == ( ncValuesCard - 1 ) || (Settings.getInstance().whichNC() == 4 && (valueIndex - firstValue) == 8))
+				if ((valueIndex - firstValue) == ( ncValuesCard - 1 ) || (config.whichNC() == 4 && (valueIndex - firstValue) == 8))
 					if (ncValuesCard == 2) {
 						//Found double consecutive claiming forcing cell
 						forcingCellFNCHint hint = createHint1(grid, ncCell, firstValue, valueIndex);
@@ -43,7 +49,7 @@ public class forcingCellFNC implements IndirectHintProducer {
 					else {
 						//Found triple consecutive claiming forcing cell
 						//For NC+ check for 100000011, 110000001
-						if ((Settings.getInstance().whichNC() == 4 && (valueIndex - firstValue) == 8)) {//NC+ check
+						if ((config.whichNC() == 4 && (valueIndex - firstValue) == 8)) {//NC+ check
 							if (potentialNC.nextSetBit(firstValue + 1) == (firstValue + 1)) {
 								forcingCellFNCHint hint = createHint2(grid, ncCell, firstValue, ncValuesCard);
 								if (hint.isWorth())
@@ -56,16 +62,16 @@ public class forcingCellFNC implements IndirectHintProducer {
 							}
 							continue;
 						}
-						if ((Settings.getInstance().whichNC() == 3 && (valueIndex - firstValue) == 8))
+						if ((config.whichNC() == 3 && (valueIndex - firstValue) == 8))
 								continue;
 						forcingCellFNCHint hint = createHint2(grid, ncCell, firstValue + 1, ncValuesCard);
 						if (hint.isWorth())
 							accu.add(hint);
 					}
-				if ((valueIndex - firstValue) == 2 || (Settings.getInstance().whichNC() == 4 && (valueIndex - firstValue) == 7 && ncValuesCard ==2)) {
+				if ((valueIndex - firstValue) == 2 || (config.whichNC() == 4 && (valueIndex - firstValue) == 7 && ncValuesCard ==2)) {
 					//Found double middle claiming forcing cell
 					//For NC+ check for 100000010 and 010000001
-					if ((Settings.getInstance().whichNC() == 4 && (valueIndex - firstValue) == 7)) {//NC+ check
+					if ((config.whichNC() == 4 && (valueIndex - firstValue) == 7)) {//NC+ check
 							if (potentialNC.nextSetBit(firstValue + 1) == 8) {
 								forcingCellFNCHint hint = createHint2(grid, ncCell, 9, ncValuesCard);
 								if (hint.isWorth())
@@ -91,7 +97,7 @@ public class forcingCellFNC implements IndirectHintProducer {
         Map<Cell,BitSet> removablePotentials = new HashMap<Cell,BitSet>();
        CellSet victims = new CellSet(Grid.ferzCellsRegular[ncCell.getIndex()]);
 	   CellSet buddies = new CellSet(ncCell.getVisibleCells());
-	   if (Settings.getInstance().isToroidal())
+	   if (config.isToroidal())
 		   victims = new CellSet(Grid.wazirCellsToroidal[ncCell.getIndex()]);
 	   victims.retainAll(buddies);
         for (Cell cell : victims) {
@@ -112,7 +118,7 @@ public class forcingCellFNC implements IndirectHintProducer {
         Map<Cell,BitSet> removablePotentials = new HashMap<Cell,BitSet>();
        CellSet victims = new CellSet(Grid.ferzCellsRegular[ncCell.getIndex()]);
 	   CellSet buddies = new CellSet(ncCell.getVisibleCells());
-	   if (Settings.getInstance().isToroidal())
+	   if (config.isToroidal())
 		   victims = new CellSet(Grid.ferzCellsToroidal[ncCell.getIndex()]);
 	   if (isBuddies == 3)
 	   	   victims.retainAll(buddies);
@@ -19,6 +19,12 @@ import diuf.sudoku.tools.*;
  * http://forum.enjoysudoku.com/sudokuncexplainer-to-solve-and-rate-sudoku-non-consecutive-t36949.html#p285476
  */
 public class forcingCellNC implements IndirectHintProducer {
+
+    private final SolverConfig config;
+
+    public forcingCellNC(SolverConfig config) {
+        this.config = config;
+    }
 	
 	public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
         int firstValue, valueIndex;
@@ -33,7 +39,7 @@ public class forcingCellNC implements IndirectHintProducer {
 				valueIndex = firstValue;
 				for (int ncValuesIndex = 1; ncValuesIndex < ncValuesCard; ncValuesIndex++)
 					valueIndex = potentialNC.nextSetBit(valueIndex + 1);
-				if ((valueIndex - firstValue) == ( ncValuesCard - 1 ) || (Settings.getInstance().whichNC() == 2 && (valueIndex - firstValue) == 8))
+				if ((valueIndex - firstValue) == ( ncValuesCard - 1 ) || (config.whichNC() == 2 && (valueIndex - firstValue) == 8))
 					if (ncValuesCard == 2) {
 						//Found double consecutive claiming forcing cell
 						forcingCellNCHint hint = createHint1(grid, ncCell, firstValue, valueIndex);
@@ -43,7 +49,7 @@ public class forcingCellNC implements IndirectHintProducer {
 					else {
 						//Found triple consecutive claiming forcing cell
 						//For NC+ check for 100000011, 110000001
-						if ((Settings.getInstance().whichNC() == 2 && (valueIndex - firstValue) == 8)) {//NC+ check
+						if ((config.whichNC() == 2 && (valueIndex - firstValue) == 8)) {//NC+ check
 							if (potentialNC.nextSetBit(firstValue + 1) == (firstValue + 1)) {
 								forcingCellNCHint hint = createHint2(grid, ncCell, firstValue);
 								if (hint.isWorth())
@@ -56,16 +62,16 @@ public class forcingCellNC implements IndirectHintProducer {
 							}
 							continue;
 						}
-						if ((Settings.getInstance().whichNC() == 1 && (valueIndex - firstValue) == 8))
+						if ((config.whichNC() == 1 && (valueIndex - firstValue) == 8))
 								continue;
 						forcingCellNCHint hint = createHint2(grid, ncCell, firstValue + 1);
 						if (hint.isWorth())
 							accu.add(hint);
 					}
-				if ((valueIndex - firstValue) == 2 || (Settings.getInstance().whichNC() == 2 && (valueIndex - firstValue) == 7 && ncValuesCard ==2)) {
+				if ((valueIndex - firstValue) == 2 || (config.whichNC() == 2 && (valueIndex - firstValue) == 7 && ncValuesCard ==2)) {
 					//Found double middle claiming forcing cell
 					//For NC+ check for 100000010 and 010000001
-					if ((Settings.getInstance().whichNC() == 2 && (valueIndex - firstValue) == 7)) {//NC+ check
+					if ((config.whichNC() == 2 && (valueIndex - firstValue) == 7)) {//NC+ check
 							if (potentialNC.nextSetBit(firstValue + 1) == 8) {
 								forcingCellNCHint hint = createHint2(grid, ncCell, 9);
 								if (hint.isWorth())
@@ -90,7 +96,7 @@ public class forcingCellNC implements IndirectHintProducer {
         // Build list of removable potentials
         Map<Cell,BitSet> removablePotentials = new HashMap<Cell,BitSet>();
        CellSet victims = new CellSet(Grid.wazirCellsRegular[ncCell.getIndex()]);
-	   if (Settings.getInstance().isToroidal())
+	   if (config.isToroidal())
 		   victims = new CellSet(Grid.wazirCellsToroidal[ncCell.getIndex()]);
         for (Cell cell : victims) {
             if (grid.hasCellPotentialValue(cell.getIndex(), value1))
@@ -109,7 +115,7 @@ public class forcingCellNC implements IndirectHintProducer {
         // Build list of removable potentials
         Map<Cell,BitSet> removablePotentials = new HashMap<Cell,BitSet>();
        CellSet victims = new CellSet(Grid.wazirCellsRegular[ncCell.getIndex()]);
-	   if (Settings.getInstance().isToroidal())
+	   if (config.isToroidal())
 		   victims = new CellSet(Grid.wazirCellsToroidal[ncCell.getIndex()]);
         for (Cell cell : victims) {
             if (grid.hasCellPotentialValue(cell.getIndex(), value1))
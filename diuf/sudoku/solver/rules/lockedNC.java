@@ -19,14 +19,20 @@ import diuf.sudoku.tools.*;
  * http://forum.enjoysudoku.com/sudokuncexplainer-to-solve-and-rate-sudoku-non-consecutive-t36949.html#p285476
  */
 public class lockedNC implements IndirectHintProducer {
+
+    private final SolverConfig config;
+
+    public lockedNC(SolverConfig config) {
+        this.config = config;
+    }
 	
 	public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
-		boolean isNCNonToroidal = Settings.getInstance().whichNC() == 1;
+		boolean isNCNonToroidal = config.whichNC() == 1;
         for (int value = 1; value <= 9; value++) {
-			for (int regionTypeIndex = 4; regionTypeIndex >= (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex--) {
+			for (int regionTypeIndex = 4; regionTypeIndex >= (config.isBlocks() ? 0 : 1); regionTypeIndex--) {
 				//DG doesn't have cells in proximity
 				if (regionTypeIndex == 3) continue;
-				if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
+				if (regionTypeIndex == 4 && !config.isWindows()) continue;
 				int regionsNumber = Grid.getRegions(regionTypeIndex).length;
 				if (regionTypeIndex == 4) {
 					regionsNumber = Math.min(regionsNumber, 4);
@@ -59,7 +65,7 @@ public class lockedNC implements IndirectHintProducer {
 	private lockedNCHint createHint(Grid grid, Cell[] cells, int value1, int value2, Grid.Region region, int value) {
         Map<Cell,BitSet> removablePotentials = null;
 		if (cells.length > 0) {
-			int[][] cellsLookup = Settings.getInstance().isToroidal() ? Grid.wazirCellsToroidal : Grid.wazirCellsRegular;
+			int[][] cellsLookup = config.isToroidal() ? Grid.wazirCellsToroidal : Grid.wazirCellsRegular;
 			CellSet victims = new CellSet(cellsLookup[cells[0].getIndex()]);
 			victims.add(cells[0]);
 			for (int i = 1; i < cells.length; i++) {
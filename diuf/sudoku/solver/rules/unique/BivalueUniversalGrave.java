@@ -18,28 +18,31 @@ import diuf.sudoku.tools.*;
  */
 public class BivalueUniversalGrave implements IndirectHintProducer {
 
-    private final Grid temp = new Grid();
+    private final SolverConfig config;
+
+    public BivalueUniversalGrave(SolverConfig config) {
+        this.config = config;
+    }
 
     public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
-        grid.copyTo(temp);
         List<Cell> bugCells = new ArrayList<Cell>();
         Map<Cell, BitSet> bugValues = new HashMap<Cell, BitSet>();
         BitSet allBugValues = new BitSet(10);
         CellSet commonCells = null;
-		if (Settings.getInstance().islkSudokuBUG()) {
+		if (config.islkSudokuBUG()) {
 			// lksudoku handle the case of type 2, a cell with another on every region
 			CellSet allExtraCells = null;
 			int onlyValue = 0;
 			boolean oneValue = true;
-			for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-				if (!Settings.getInstance().isVLatin()) {
-					if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-					if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-					if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-					if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-					if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+			for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+				if (!config.isVLatin()) {
+					if (regionTypeIndex == 3 && !config.isDG()) continue;
+					if (regionTypeIndex == 4 && !config.isWindows()) continue;
+					if (regionTypeIndex == 5 && !config.isX()) continue;
+					if (regionTypeIndex == 6 && !config.isX()) continue;
+					if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+					if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+					if (regionTypeIndex == 9 && !config.isCD()) continue;
 				}																			   
 				Grid.Region[] regions = Grid.getRegions(regionTypeIndex);
 				for (Grid.Region region : regions) {
@@ -54,7 +57,7 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
 							for (int index = positions.nextSetBit(0); index >= 0;
 									index = positions.nextSetBit(index + 1)) {
 								Cell cell = region.getCell(index);
-								int cellCardinality = grid.getCellPotentialValues(cell.getIndex()).cardinality();
+								int cellCardinality = grid.getCellPotentialCount(cell.getIndex());
 								if (cellCardinality >= 3)
 									newBugCells.add(cell);
 							}
@@ -82,7 +85,6 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
 									bugValues.put(cell, new BitSet(10));
 								bugValues.get(cell).set(value);
 								allBugValues.set(value);
-								temp.removeCellPotentialValue(cell.getIndex(), value);
 								if (commonCells == null)
 									commonCells = new CellSet(cell.getVisibleCells());
 								else
@@ -106,7 +108,6 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
 					bugCells.add(cell);
 					bugValues.put(cell, new BitSet(10));
 					bugValues.get(cell).set(onlyValue);
-					temp.removeCellPotentialValue(cell.getIndex(), onlyValue);
 					
 					if (commonCells == null)
 						commonCells = new CellSet(cell.getVisibleCells());
@@ -121,15 +122,15 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
 			}
 		}
 		else {
-			for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-				if (!Settings.getInstance().isVLatin()) {
-					if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-					if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-					if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-					if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-					if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+			for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+				if (!config.isVLatin()) {
+					if (regionTypeIndex == 3 && !config.isDG()) continue;
+					if (regionTypeIndex == 4 && !config.isWindows()) continue;
+					if (regionTypeIndex == 5 && !config.isX()) continue;
+					if (regionTypeIndex == 6 && !config.isX()) continue;
+					if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+					if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+					if (regionTypeIndex == 9 && !config.isCD()) continue;
 				}																			   
 				Grid.Region[] regions = Grid.getRegions(regionTypeIndex);
 				for (Grid.Region region : regions) {
@@ -144,7 +145,7 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
 							for (int index = positions.nextSetBit(0); index >= 0;
 									index = positions.nextSetBit(index + 1)) {
 								Cell cell = region.getCell(index);
-								int cellCardinality = grid.getCellPotentialValues(cell.getIndex()).cardinality();
+								int cellCardinality = grid.getCellPotentialCount(cell.getIndex());
 								if (cellCardinality >= 3)
 									newBugCells.add(cell);
 							}
@@ -162,7 +163,6 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
 									bugValues.put(cell, new BitSet(10));
 								bugValues.get(cell).set(value);
 								allBugValues.set(value);
-								temp.removeCellPotentialValue(cell.getIndex(), value);
 								if (commonCells == null)
 									commonCells = new CellSet(cell.getVisibleCells());
 								else
@@ -181,43 +181,19 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
 				} // for i
 			} // for regionType
 		}
-        // When bug values have been removed, all remaining empty cells must have
-        // exactly two potential values. Check it
-        for (int i = 0; i < 81; i++) {
-            if (temp.getCellValue(i) == 0 && temp.getCellPotentialValues(i).cardinality() != 2)
-                return; // Not a BUG
-        }
-        // When bug values have been removed, all remaining candidates must have
-        // two positions in each region
-        for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-        	if (!Settings.getInstance().isVLatin()) {
-				if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-				if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-				if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-				if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-				if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
-			}
-            Grid.Region[] regions = Grid.getRegions(regionTypeIndex);
-            for (Grid.Region region : regions) {
-                for (int value = 1; value <= 9; value++) {
-                    // Possible positions of a value in a region (row/column/block):
-                    BitSet positions = region.getPotentialPositions(temp, value);
-                    int cardinality = positions.cardinality();
-                    if (cardinality != 0 && cardinality != 2)
-                        return; // Not a BUG
-                }
-            }
-        }
+        if (!isBugPattern(grid, bugValues))
+            return; // Not a BUG
 		//if the puzzles has forbidden pairs check all cells in the abscenece of BUG positions if they have restrictions
 		//A restricted cell may not be part of the deadly pattern and therefore this pattern will be rejected
-		if (Settings.getInstance().isAntiFerz() || Settings.getInstance().isAntiKnight() || Settings.getInstance().whichNC() > 0)
+		if (config.isAntiFerz() || config.isAntiKnight() || config.whichNC() > 0)
 			for (int i = 0; i < 81; i++)
-				if (temp.getCellValue(i) == 0 && temp.getCellPotentialValues(i).cardinality() == 2){
-					BitSet cellValues = temp.getCellPotentialValues(i);
-					int v1 = cellValues.nextSetBit(0);
-					int v2 = cellValues.nextSetBit(v1 + 1);
+				if (grid.getCellValue(i) == 0) {
+					int cellValues = grid.getCellPotentialMask(i);
+					BitSet cellBugValues = bugValues.get(Grid.getCell(i));
+					if (cellBugValues != null)
+						cellValues &= ~Grid.bitSetToMask(cellBugValues);
+					int v1 = Integer.numberOfTrailingZeros(cellValues);
+					int v2 = Integer.numberOfTrailingZeros(cellValues & ~(1 << v1));
 					if (isRestricted(grid, i, v1, v2))
 						return; // Possibly not a BUG
 				}
@@ -239,10 +215,56 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
         }
     }
 
+    /**
+     * Check that the grid is a BUG once the bug values are removed: all empty
+     * cells are left with two potential values, and all values with two positions
+     * in each region. The bug values are removed temporarily, the grid is restored
+     * on return.
+     */
+    private boolean isBugPattern(Grid grid, Map<Cell, BitSet> bugValues) {
+        int savePoint = grid.mark();
+        try {
+            for (Map.Entry<Cell, BitSet> entry : bugValues.entrySet())
+                grid.removeCellPotentialValues(entry.getKey().getIndex(), entry.getValue());
+            // When bug values have been removed, all remaining empty cells must have
+            // exactly two potential values. Check it
+            for (int i = 0; i < 81; i++) {
+                if (grid.getCellValue(i) == 0 && grid.getCellPotentialCount(i) != 2)
+                    return false; // Not a BUG
+            }
+            // When bug values have been removed, all remaining candidates must have
+            // two positions in each region
+            for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+            	if (!config.isVLatin()) {
+					if (regionTypeIndex == 3 && !config.isDG()) continue;
+					if (regionTypeIndex == 4 && !config.isWindows()) continue;
+					if (regionTypeIndex == 5 && !config.isX()) continue;
+					if (regionTypeIndex == 6 && !config.isX()) continue;
+					if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+					if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+					if (regionTypeIndex == 9 && !config.isCD()) continue;
+				}
+                Grid.Region[] regions = Grid.getRegions(regionTypeIndex);
+                for (Grid.Region region : regions) {
+                    for (int value = 1; value <= 9; value++) {
+                        // Possible positions of a value in a region (row/column/block):
+                        BitSet positions = region.getPotentialPositions(grid, value);
+                        int cardinality = positions.cardinality();
+                        if (cardinality != 0 && cardinality != 2)
+                            return false; // Not a BUG
+                    }
+                }
+            }
+            return true;
+        } finally {
+            grid.rollback(savePoint);
+        }
+    }
+
     //checks if loop cells can be restricted by forbidden pairs removing the deadly pattern
 	private boolean isRestricted(Grid grid, int cellIndex, int v1, int v2) {
-		if (Settings.getInstance().isAntiFerz() || Settings.getInstance().isAntiKnight()){
-			CellSet visible = new CellSet (Grid.antiVisibleCellsSet[cellIndex]);
+		if (config.isAntiFerz() || config.isAntiKnight()){
+			CellSet visible = new CellSet (grid.getTopology().getAntiVisibleCells(cellIndex));
 			for (Cell vCell : visible) {
 				if (grid.hasCellPotentialValue(vCell.getIndex(), v1)){
 					return true;
@@ -252,29 +274,29 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
 				}
 			}
 		}
-		if (Settings.getInstance().whichNC() > 0){
+		if (config.whichNC() > 0){
 			int[] ncVisible = null;
-			if (Settings.getInstance().whichNC() < 3)
-				if (Settings.getInstance().isToroidal())
+			if (config.whichNC() < 3)
+				if (config.isToroidal())
 					ncVisible = Grid.wazirCellsToroidal[cellIndex];
 				else
 					ncVisible = Grid.wazirCellsRegular[cellIndex];
-			else if (Settings.getInstance().whichNC() > 2)
-				if (Settings.getInstance().isToroidal())
+			else if (config.whichNC() > 2)
+				if (config.isToroidal())
 					ncVisible = Grid.ferzCellsToroidal[cellIndex];
 				else
 					ncVisible = Grid.ferzCellsRegular[cellIndex];	
 			for (int nextVisible : ncVisible){
-				if (v1 < 9 || Settings.getInstance().whichNC() == 2  || Settings.getInstance().whichNC() == 4)
+				if (v1 < 9 || config.whichNC() == 2  || config.whichNC() == 4)
 					if (grid.hasCellPotentialValue(nextVisible, v1 == 9 ? 1 : v1 + 1))
 						return true;
-				if (v1 > 1 || Settings.getInstance().whichNC() == 2  || Settings.getInstance().whichNC() == 4)
+				if (v1 > 1 || config.whichNC() == 2  || config.whichNC() == 4)
 					if (grid.hasCellPotentialValue(nextVisible, v1 == 1 ? 9 : v1 - 1))
 						return true;
-				if (v2 < 9 || Settings.getInstance().whichNC() == 2  || Settings.getInstance().whichNC() == 4)
+				if (v2 < 9 || config.whichNC() == 2  || config.whichNC() == 4)
 					if (grid.hasCellPotentialValue(nextVisible, v2 == 9 ? 1 : v2 + 1))
 						return true;
-				if (v2 >1 || Settings.getInstance().whichNC() == 2  || Settings.getInstance().whichNC() == 4)
+				if (v2 >1 || config.whichNC() == 2  || config.whichNC() == 4)
 					if (grid.hasCellPotentialValue(nextVisible, v2 == 1 ? 9 : v2 - 1))
 						return true;
 			}
@@ -318,18 +340,18 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
 
         // lksudoku: start with degree iteration to find smallest degree first
         // Iterate on degree
-        if (Settings.getInstance().islkSudokuBUG()) {
+        if (config.islkSudokuBUG()) {
 		for (int degree = 2; degree <= 6; degree++) {
 	        //for (Class<? extends Grid.Region> regionType : grid.getRegionTypes()) {			
-			for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-				if (!Settings.getInstance().isVLatin()) {
-					if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-					if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-					if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-					if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-					if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+			for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+				if (!config.isVLatin()) {
+					if (regionTypeIndex == 3 && !config.isDG()) continue;
+					if (regionTypeIndex == 4 && !config.isWindows()) continue;
+					if (regionTypeIndex == 5 && !config.isX()) continue;
+					if (regionTypeIndex == 6 && !config.isX()) continue;
+					if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+					if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+					if (regionTypeIndex == 9 && !config.isCD()) continue;
 				}
 				// Look for a region of this type shared by bugCells
 				Grid.Region region = null;
@@ -382,7 +404,7 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
 								if (nakedSet != null) {
 									// One of bugCells form a naked set with nakedCells[]
 									// Look for cells not part of the naked set, sharing the region
-									if (Settings.getInstance().isVLatin()){
+									if (config.isVLatin()){
 										Set<Cell> erasable = new HashSet<Cell>(regionCells);
 										for (Cell cell : nakedCells)
 											erasable.remove(cell); // exclude cells of the naked set
@@ -450,15 +472,15 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
         } // for (degree)
 		}
 		else {
-        for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-        	if (!Settings.getInstance().isVLatin()) {
-				if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-				if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-				if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-				if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-				if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+        for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+        	if (!config.isVLatin()) {
+				if (regionTypeIndex == 3 && !config.isDG()) continue;
+				if (regionTypeIndex == 4 && !config.isWindows()) continue;
+				if (regionTypeIndex == 5 && !config.isX()) continue;
+				if (regionTypeIndex == 6 && !config.isX()) continue;
+				if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+				if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+				if (regionTypeIndex == 9 && !config.isCD()) continue;
 			}
             // Look for a region of this type shared by bugCells
             Grid.Region region = null;
@@ -562,15 +584,15 @@ public class BivalueUniversalGrave implements IndirectHintProducer {
             return; // No BUG type 4
 
         //for (Class<? extends Grid.Region> regionType : Grid.getRegionTypes()) {
-        for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-        	if (!Settings.getInstance().isVLatin()) {
-				if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-				if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-				if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-				if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-				if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+        for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+        	if (!config.isVLatin()) {
+				if (regionTypeIndex == 3 && !config.isDG()) continue;
+				if (regionTypeIndex == 4 && !config.isWindows()) continue;
+				if (regionTypeIndex == 5 && !config.isX()) continue;
+				if (regionTypeIndex == 6 && !config.isX()) continue;
+				if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+				if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+				if (regionTypeIndex == 9 && !config.isCD()) continue;
 			}
             // Look for a region of this type shared by all bugCells
             Grid.Region region = null;
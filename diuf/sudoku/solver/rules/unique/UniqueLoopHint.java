@@ -17,13 +17,15 @@ public abstract class UniqueLoopHint extends IndirectHint implements Rule {
     protected final List<Cell> loop;
     protected final int v1;
     protected final int v2;
+    protected final int revisedRating;
 
     public UniqueLoopHint(UniqueLoops rule, List<Cell> loop, int v1, int v2,
-            Map<Cell, BitSet> removablePotentials) {
+            Map<Cell, BitSet> removablePotentials, int revisedRating) {
         super(rule, removablePotentials);
         this.loop = loop;
         this.v1 = v1;
         this.v2 = v2;
+        this.revisedRating = revisedRating;
     }
 
     @Override
@@ -104,7 +106,7 @@ public abstract class UniqueLoopHint extends IndirectHint implements Rule {
 
     public double getDifficulty() {
         double result = 4.5;
-		if (Settings.getInstance().revisedRating() == 1) {
+		if (revisedRating == 1) {
 			result += (loop.size() / 2 - 2) * 0.1; // 4.5 for UR(UL4) - 5.0 for UL14
 		}
 		else {//Original Rating 4.5 UR, 4.6 UL6, 4.7 UL8, 5.0 UL10+
@@ -17,8 +17,8 @@ public class UniqueLoopType1Hint extends UniqueLoopHint {
 
 
     public UniqueLoopType1Hint(UniqueLoops rule, List<Cell> loop, int v1, int v2,
-            Map<Cell, BitSet> removablePotentials, Cell target) {
-        super(rule, loop, v1, v2, removablePotentials);
+            Map<Cell, BitSet> removablePotentials, Cell target, int revisedRating) {
+        super(rule, loop, v1, v2, removablePotentials, revisedRating);
         this.target = target;
     }
 
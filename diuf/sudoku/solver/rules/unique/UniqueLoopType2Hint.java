@@ -17,8 +17,8 @@ public class UniqueLoopType2Hint extends UniqueLoopHint {
 
 
     public UniqueLoopType2Hint(UniqueLoops rule, List<Cell> loop, int v1, int v2,
-            Map<Cell, BitSet> removablePotentials, Cell[] cells, int value) {
-        super(rule, loop, v1, v2, removablePotentials);
+            Map<Cell, BitSet> removablePotentials, Cell[] cells, int value, int revisedRating) {
+        super(rule, loop, v1, v2, removablePotentials, revisedRating);
         this.cells = cells;
         this.value = value;
     }
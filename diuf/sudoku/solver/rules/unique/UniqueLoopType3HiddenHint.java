@@ -27,8 +27,8 @@ public class UniqueLoopType3HiddenHint extends UniqueLoopHint {
 
     public UniqueLoopType3HiddenHint(UniqueLoops rule, List<Cell> loop, int v1, int v2,
             Map<Cell, BitSet> removablePotentials, Cell c1, Cell c2, int[] otherValues, BitSet hiddenValues,
-            Grid.Region region, int[] indexes) {
-        super(rule, loop, v1, v2, removablePotentials);
+            Grid.Region region, int[] indexes, int revisedRating) {
+        super(rule, loop, v1, v2, removablePotentials, revisedRating);
         this.c1 = c1;
         this.c2 = c2;
         this.otherValues = otherValues;
@@ -40,7 +40,7 @@ public class UniqueLoopType3HiddenHint extends UniqueLoopHint {
     @Override
     public double getDifficulty() {
         double toAdd = hiddenIndexes.length;
-		if (Settings.getInstance().revisedRating() == 1)
+		if (revisedRating == 1)
 			toAdd = toAdd * 0.1;//Pair=0.1, Quad=0.3
 		else
 			toAdd = (toAdd - 1) * 0.1;//Original rating Pair=0.0, Quad=0.2
@@ -23,8 +23,8 @@ public class UniqueLoopType3NakedHint extends UniqueLoopHint {
 
     public UniqueLoopType3NakedHint(UniqueLoops rule, List<Cell> loop, int v1, int v2,
             Map<Cell, BitSet> removablePotentials, Cell c1, Cell c2, int[] otherValues,
-            Grid.Region region, Cell[] cells, int[] values) {
-        super(rule, loop, v1, v2, removablePotentials);
+            Grid.Region region, Cell[] cells, int[] values, int revisedRating) {
+        super(rule, loop, v1, v2, removablePotentials, revisedRating);
         this.c1 = c1;
         this.c2 = c2;
         this.otherValues = otherValues;
@@ -22,8 +22,8 @@ public class UniqueLoopType4Hint extends UniqueLoopHint {
 
     public UniqueLoopType4Hint(UniqueLoops rule, List<Cell> loop, int lockValue,
             int remValue, Map<Cell, BitSet> removablePotentials, Cell c1, Cell c2,
-            Grid.Region region) {
-        super(rule, loop, lockValue, remValue, removablePotentials);
+            Grid.Region region, int revisedRating) {
+        super(rule, loop, lockValue, remValue, removablePotentials, revisedRating);
         this.c1 = c1;
         this.c2 = c2;
         this.lockValue = lockValue;
@@ -16,14 +16,23 @@ import diuf.sudoku.tools.*;
  * Support types 1-4.
  * Skewed (non-orthogonal) loops (very rare) are also detected.
  */
-public class UniqueLoops implements IndirectHintProducer {
+public class UniqueLoops implements IndirectHintProducer, StatefulHintProducer {
 
     private Grid lastGrid = new Grid();
     private List<UniqueLoopHint> lastResult = null;
+    private final SolverConfig config;
+
+    public UniqueLoops(SolverConfig config) {
+        this.config = config;
+    }
+
+    public void reset() {
+        lastResult = null;
+    }
 
     public void getHints(Grid grid, HintsAccumulator accu) throws InterruptedException {
         List<UniqueLoopHint> hints;
-        if (grid.equals(lastGrid))
+        if (lastResult != null && grid.equals(lastGrid))
             hints = lastResult;
         else {
             hints = getHints(grid);
@@ -52,6 +61,7 @@ public class UniqueLoops implements IndirectHintProducer {
 
     private List<UniqueLoopHint> getHints(Grid grid) {
         List<UniqueLoopHint> result = new ArrayList<UniqueLoopHint>();
+        Set<UniqueLoopHint> resultSet = new HashSet<UniqueLoopHint>();
         for (int i = 0; i < 81; i++) {
             BitSet potentials = grid.getCellPotentialValues(i);
             if (potentials.cardinality() == 2) {
@@ -66,20 +76,20 @@ public class UniqueLoops implements IndirectHintProducer {
                     // Potential loop found. Check validity
                     if (isValidLoop(grid, loop)) {
 						//If there are forbidden pairs make sure that there are no restrictions
-						if (Settings.getInstance().isAntiFerz() || Settings.getInstance().isAntiKnight() || Settings.getInstance().whichNC() > 0)
+						if (config.isAntiFerz() || config.isAntiKnight() || config.whichNC() > 0)
 							if (isRestricted(grid, loop, v1, v2))
 								continue;
                         // This is a unique loop. Get cells with more than 2 potentials
                         List<Cell> extraCells = new ArrayList<Cell>(2);
                         for (Cell loopCell : loop) {
-                            if (grid.getCellPotentialValues(loopCell.getIndex()).cardinality() > 2)
+                            if (grid.getCellPotentialCount(loopCell.getIndex()) > 2)
                                 extraCells.add(loopCell);
                         }
                         if (extraCells.size() == 1) {
                             // Try a type-1 hint
                             UniqueLoopHint hint = createType1Hint(loop, extraCells.get(0), v1, v2);
-                            if (!result.contains(hint) && hint.isWorth())
-                                result.add(hint);
+                            if (!resultSet.contains(hint) && hint.isWorth())
+                                addHint(result, resultSet, hint);
                         } else if (extraCells.size() > 2) {
                             // Only type 2 is possible
                             BitSet extraValues = new BitSet(10);
@@ -89,8 +99,8 @@ public class UniqueLoops implements IndirectHintProducer {
                             extraValues.clear(v2);
                             assert extraValues.cardinality() == 1;
                             UniqueLoopHint hint = createType2Hint(grid, loop, extraCells, v1, v2);
-                            if (!result.contains(hint) && hint.isWorth())
-                                result.add(hint);
+                            if (!resultSet.contains(hint) && hint.isWorth())
+                                addHint(result, resultSet, hint);
                         } else if (extraCells.size() == 2) {
                             Cell r1 = extraCells.get(0);
                             Cell r2 = extraCells.get(1);
@@ -101,20 +111,20 @@ public class UniqueLoops implements IndirectHintProducer {
                             if (rPotentials.cardinality() == 1) {
                                 // Try type 2 hint
                                 UniqueLoopHint hint = createType2Hint(grid, loop, extraCells, v1, v2);
-                                if (!result.contains(hint) && hint.isWorth())
-                                    result.add(hint);
+                                if (!resultSet.contains(hint) && hint.isWorth())
+                                    addHint(result, resultSet, hint);
                             } else if (rPotentials.cardinality() >= 2) {
                                 // Try type 3 hint
                                 Collection<UniqueLoopHint> hints = createType3Hints(grid, loop, r1, r2, v1, v2);
                                 for (UniqueLoopHint hint : hints) {
-                                    if (!result.contains(hint) && hint.isWorth())
-                                        result.add(hint);
+                                    if (!resultSet.contains(hint) && hint.isWorth())
+                                        addHint(result, resultSet, hint);
                                 }
                             }
                             // Try type 4 hint
                             UniqueLoopHint hint = createType4Hint(grid, loop, r1, r2, v1, v2);
-                            if (hint != null && !result.contains(hint) && hint.isWorth())
-                                result.add(hint);
+                            if (hint != null && !resultSet.contains(hint) && hint.isWorth())
+                                addHint(result, resultSet, hint);
                         } else {
                             // Huh ? 0 rescue cell ? Sudoku has two solutions !!
                             // Do nothing (this is not our business)
@@ -126,6 +136,11 @@ public class UniqueLoops implements IndirectHintProducer {
         return result;
     }
 
+    private void addHint(List<UniqueLoopHint> result, Set<UniqueLoopHint> resultSet, UniqueLoopHint hint) {
+        resultSet.add(hint);
+        result.add(hint);
+    }
+
     /**
      * Check for potential loops with the given start and next cell.
      * @param grid the grid to search the loop in
@@ -145,17 +160,17 @@ public class UniqueLoops implements IndirectHintProducer {
             List<Cell> loop, int allowedEx, BitSet exValues,
             int lastRegionTypeIndex, Collection<List<Cell>> results) {
         loop.add(cell);
-		if (Settings.getInstance().islkSudokuURUL()) {
+		if (config.islkSudokuURUL()) {
 //@SudokuMonster: Variants changes //regionTypeIndex < 3 && regionTypeIndex checks in all 6 loops
-        for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-        	if (!Settings.getInstance().isVLatin()) {
-				if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-				if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-				if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-				if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-				if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+        for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+        	if (!config.isVLatin()) {
+				if (regionTypeIndex == 3 && !config.isDG()) continue;
+				if (regionTypeIndex == 4 && !config.isWindows()) continue;
+				if (regionTypeIndex == 5 && !config.isX()) continue;
+				if (regionTypeIndex == 6 && !config.isX()) continue;
+				if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+				if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+				if (regionTypeIndex == 9 && !config.isCD()) continue;
 				if (Grid.cellRegions[cell.getIndex()][regionTypeIndex] < 0)
 						continue;
 			}
@@ -198,15 +213,15 @@ public class UniqueLoops implements IndirectHintProducer {
 		}
 		else {
         exValues = (BitSet)exValues.clone(); // Ensure we cleanup ourself
-        for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-        	if (!Settings.getInstance().isVLatin()) {
-				if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-				if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-				if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-				if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-				if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+        for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+        	if (!config.isVLatin()) {
+				if (regionTypeIndex == 3 && !config.isDG()) continue;
+				if (regionTypeIndex == 4 && !config.isWindows()) continue;
+				if (regionTypeIndex == 5 && !config.isX()) continue;
+				if (regionTypeIndex == 6 && !config.isX()) continue;
+				if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+				if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+				if (regionTypeIndex == 9 && !config.isCD()) continue;
 				if (Grid.cellRegions[cell.getIndex()][regionTypeIndex] < 0)
 						continue;
 			}
@@ -268,15 +283,15 @@ public class UniqueLoops implements IndirectHintProducer {
         HashSet<Grid.Region> visitedEven = new HashSet<Grid.Region>();
         boolean isOdd = false;
         for (Cell cell : loop) {
-			for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-				if (!Settings.getInstance().isVLatin()) {
-					if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-					if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-					if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-					if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-					if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+			for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+				if (!config.isVLatin()) {
+					if (regionTypeIndex == 3 && !config.isDG()) continue;
+					if (regionTypeIndex == 4 && !config.isWindows()) continue;
+					if (regionTypeIndex == 5 && !config.isX()) continue;
+					if (regionTypeIndex == 6 && !config.isX()) continue;
+					if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+					if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+					if (regionTypeIndex == 9 && !config.isCD()) continue;
 					if (Grid.cellRegions[cell.getIndex()][regionTypeIndex] < 0)
 						continue;
 				}           
@@ -302,8 +317,8 @@ public class UniqueLoops implements IndirectHintProducer {
     //checks if loop cells can be restricted by forbidden pairs removing the deadly pattern
 	private boolean isRestricted(Grid grid, List<Cell> loop, int v1, int v2) {
 		for (Cell cell : loop) {
-			if (Settings.getInstance().isAntiFerz() || Settings.getInstance().isAntiKnight()){
-				CellSet visible = new CellSet (Grid.antiVisibleCellsSet[cell.getIndex()]);
+			if (config.isAntiFerz() || config.isAntiKnight()){
+				CellSet visible = new CellSet (grid.getTopology().getAntiVisibleCells(cell.getIndex()));
 				for (Cell vCell : visible) {
 					if (grid.hasCellPotentialValue(vCell.getIndex(), v1)){
 						return true;
@@ -313,29 +328,29 @@ public class UniqueLoops implements IndirectHintProducer {
 					}
 				}
 			}
-			if (Settings.getInstance().whichNC() > 0){
+			if (config.whichNC() > 0){
 				int[] ncVisible = null;
-				if (Settings.getInstance().whichNC() < 3)
-					if (Settings.getInstance().isToroidal())
+				if (config.whichNC() < 3)
+					if (config.isToroidal())
 						ncVisible = Grid.wazirCellsToroidal[cell.getIndex()];
 					else
 						ncVisible = Grid.wazirCellsRegular[cell.getIndex()];
-				else if (Settings.getInstance().whichNC() > 2)
-					if (Settings.getInstance().isToroidal())
+				else if (config.whichNC() > 2)
+					if (config.isToroidal())
 						ncVisible = Grid.ferzCellsToroidal[cell.getIndex()];
 					else
 						ncVisible = Grid.ferzCellsRegular[cell.getIndex()];							
 				for (int nextVisible : ncVisible){
-					if (v1 < 9 || Settings.getInstance().whichNC() == 2  || Settings.getInstance().whichNC() == 4)
+					if (v1 < 9 || config.whichNC() == 2  || config.whichNC() == 4)
 						if (grid.hasCellPotentialValue(nextVisible, v1 == 9 ? 1 : v1 + 1))
 							return true;
-					if (v1 > 1 || Settings.getInstance().whichNC() == 2  || Settings.getInstance().whichNC() == 4)
+					if (v1 > 1 || config.whichNC() == 2  || config.whichNC() == 4)
 						if (grid.hasCellPotentialValue(nextVisible, v1 == 1 ? 9 : v1 - 1))
 							return true;
-					if (v2 < 9 || Settings.getInstance().whichNC() == 2  || Settings.getInstance().whichNC() == 4)
+					if (v2 < 9 || config.whichNC() == 2  || config.whichNC() == 4)
 						if (grid.hasCellPotentialValue(nextVisible, v2 == 9 ? 1 : v2 + 1))
 							return true;
-					if (v2 >1 || Settings.getInstance().whichNC() == 2  || Settings.getInstance().whichNC() == 4)
+					if (v2 >1 || config.whichNC() == 2  || config.whichNC() == 4)
 						if (grid.hasCellPotentialValue(nextVisible, v2 == 1 ? 9 : v2 - 1))
 							return true;
 				}
@@ -352,7 +367,7 @@ public class UniqueLoops implements IndirectHintProducer {
         values.set(v2);
         removable.put(rescueCell, values);
         UniqueLoopType1Hint hint = new UniqueLoopType1Hint(this, loop, v1, v2, removable,
-                rescueCell);
+                rescueCell, config.revisedRating());
         return hint;
     }
 
@@ -380,7 +395,7 @@ public class UniqueLoops implements IndirectHintProducer {
         }
         Cell[] cells = new Cell[extraCells.size()];
         extraCells.toArray(cells);
-        return new UniqueLoopType2Hint(this, loop, v1, v2, removable, cells, value);
+        return new UniqueLoopType2Hint(this, loop, v1, v2, removable, cells, value, config.revisedRating());
     }
 
     private boolean containsFirst(int[] indexes, int index1, int index2) {
@@ -403,17 +418,17 @@ public class UniqueLoops implements IndirectHintProducer {
         extra.clear(v1);
         extra.clear(v2);
         // Look for Naked and hidden Sets. Iterate on degree
-		if (Settings.getInstance().islkSudokuURUL()) {
+		if (config.islkSudokuURUL()) {
         for (int degree = 2; degree <= 7; degree++) {
-			for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-				if (!Settings.getInstance().isVLatin()) {
-					if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-					if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-					if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-					if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-					if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+			for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+				if (!config.isVLatin()) {
+					if (regionTypeIndex == 3 && !config.isDG()) continue;
+					if (regionTypeIndex == 4 && !config.isWindows()) continue;
+					if (regionTypeIndex == 5 && !config.isX()) continue;
+					if (regionTypeIndex == 6 && !config.isX()) continue;
+					if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+					if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+					if (regionTypeIndex == 9 && !config.isCD()) continue;
 					if (Grid.cellRegions[c1.getIndex()][regionTypeIndex] < 0 || Grid.cellRegions[c2.getIndex()][regionTypeIndex] < 0)
 						continue;
 				}
@@ -512,15 +527,15 @@ public class UniqueLoops implements IndirectHintProducer {
 		}
 		else {
         for (int degree = extra.cardinality(); degree <= 7; degree++) {
-			for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-				if (!Settings.getInstance().isVLatin()) {
-					if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-					if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-					if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-					if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-					if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-					if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+			for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+				if (!config.isVLatin()) {
+					if (regionTypeIndex == 3 && !config.isDG()) continue;
+					if (regionTypeIndex == 4 && !config.isWindows()) continue;
+					if (regionTypeIndex == 5 && !config.isX()) continue;
+					if (regionTypeIndex == 6 && !config.isX()) continue;
+					if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+					if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+					if (regionTypeIndex == 9 && !config.isCD()) continue;
 					if (Grid.cellRegions[c1.getIndex()][regionTypeIndex] < 0 || Grid.cellRegions[c2.getIndex()][regionTypeIndex] < 0)
 						continue;
 				}
@@ -655,7 +670,7 @@ public class UniqueLoops implements IndirectHintProducer {
                 indexes[j++] = i;
         }
         return new UniqueLoopType3HiddenHint(this, loop, v1, v2, removable, c1, c2, oValues, hiddenValues,
-                region, indexes);
+                region, indexes, config.revisedRating());
     }
 
     private UniqueLoopHint createType3NakedHint(Grid grid, List<Cell> loop, int v1, int v2, BitSet otherValues,
@@ -676,7 +691,7 @@ public class UniqueLoops implements IndirectHintProducer {
         }
         // Build removable potentials
 		Map<Cell,BitSet> removable = new HashMap<Cell,BitSet>();
-		if (Settings.getInstance().isVLatin()){
+		if (config.isVLatin()){
 			for (int i = 0; i < 9; i++) {
 				Cell otherCell = region.getCell(i);
 				if (!Arrays.asList(cells).contains(otherCell)
@@ -723,7 +738,7 @@ public class UniqueLoops implements IndirectHintProducer {
 			}			
 		}
         return new UniqueLoopType3NakedHint(this, loop, v1, v2, removable, c1, c2,
-                oValues, region, cells, nValues);
+                oValues, region, cells, nValues, config.revisedRating());
     }
 
     private UniqueLoopHint createType4Hint(Grid grid, List<Cell> loop, Cell c1, Cell c2,
@@ -731,15 +746,15 @@ public class UniqueLoops implements IndirectHintProducer {
         // Look for v1 or v2 locked in a region of c1 and c2
         Grid.Region r1 = null;
         Grid.Region r2 = null;
-        for (int regionTypeIndex = (Settings.getInstance().isBlocks() ? 0 : 1); regionTypeIndex < (Settings.getInstance().isVLatin() ? 3 : 10); regionTypeIndex++) {
-        	if (!Settings.getInstance().isVLatin()) {
-				if (regionTypeIndex == 3 && !Settings.getInstance().isDG()) continue;
-				if (regionTypeIndex == 4 && !Settings.getInstance().isWindows()) continue;
-				if (regionTypeIndex == 5 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 6 && !Settings.getInstance().isX()) continue;
-				if (regionTypeIndex == 7 && !Settings.getInstance().isGirandola()) continue;
-				if (regionTypeIndex == 8 && !Settings.getInstance().isAsterisk()) continue;
-				if (regionTypeIndex == 9 && !Settings.getInstance().isCD()) continue;
+        for (int regionTypeIndex = (config.isBlocks() ? 0 : 1); regionTypeIndex < (config.isVLatin() ? 3 : 10); regionTypeIndex++) {
+        	if (!config.isVLatin()) {
+				if (regionTypeIndex == 3 && !config.isDG()) continue;
+				if (regionTypeIndex == 4 && !config.isWindows()) continue;
+				if (regionTypeIndex == 5 && !config.isX()) continue;
+				if (regionTypeIndex == 6 && !config.isX()) continue;
+				if (regionTypeIndex == 7 && !config.isGirandola()) continue;
+				if (regionTypeIndex == 8 && !config.isAsterisk()) continue;
+				if (regionTypeIndex == 9 && !config.isCD()) continue;
 					if (Grid.cellRegions[c1.getIndex()][regionTypeIndex] < 0 || Grid.cellRegions[c2.getIndex()][regionTypeIndex] < 0)
 						continue;
 			}
@@ -782,7 +797,7 @@ public class UniqueLoops implements IndirectHintProducer {
         }
         if (region != null)
             return new UniqueLoopType4Hint(this, loop, lockValue, remValue, removable,
-                    c1, c2, region);
+                    c1, c2, region, config.revisedRating());
         return null;
     }
 
@@ -8,6 +8,7 @@ package diuf.sudoku.test;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static diuf.sudoku.Settings.*;
 
@@ -36,7 +37,9 @@ public class serate {
         System.err.println("SYNOPSIS");
         System.err.println("  serate [--after=FORMAT] [--before=FORMAT] [--format=FORMAT]");
         System.err.println("    [--techs=TECHSTRING] [--showArguments] [--start=FORMAT]");
-        System.err.println("    [--revisedRating=N] [--threads=N] [--totalTime] [--batch=N]");
+        System.err.println("    [--revisedRating=N] [--threads=N] [--cache=N] [--totalTime] [--batch=N]");
+        System.err.println("    [--timeLimit=SECONDS] [--stepLimit=N] [--stopAbove=X.Y] [--stopBelow=X.Y]");
+        System.err.println("    [--speculate]");
         System.err.println("    [--isBlocks=N] [--isDG=N] [--isWindows=N] [--isX=N]");
         System.err.println("    [--isGirandola=N] [--isAsterisk=N] [--isCD=N]");		
 		System.err.println("    [--isAntiKnight=N] [--isAntiKing=N] [--isToroidal=N] [--isNC=N]");
@@ -59,6 +62,9 @@ public class serate {
         System.err.println("OPTIONS");
         System.err.println("  -a, --after=FORMAT");
         System.err.println("      Format the output after each step according to FORMAT. Default is empty.");
+        System.err.println("  -A, --stopAbove=X.Y");
+        System.err.println("      Stop rating a puzzle once its rating reaches X.Y. %r, %p and %d are then");
+        System.err.println("      the ratings found so far; see %x.");
         System.err.println("  -b, --before=FORMAT");
         System.err.println("      Format the output before each step according to FORMAT. Default is empty.");
         System.err.println("  -B, --batch=N");
@@ -69,16 +75,25 @@ public class serate {
         System.err.println("  	  Control Non-Consecutive constraints 0: disable (default)");
         System.err.println("  	                                      1: NC (1,9 not included)");
         System.err.println("  	                                      2: NC+ (1,9 included)");
+        System.err.println("  -C, --cache=N");
+        System.err.println("      Remember the steps found for up to N intermediate grids and reuse them when");
+        System.err.println("      another puzzle reaches the same grid. Default 0=disabled. The number of hits");
+        System.err.println("      and misses is written to the standard error at the end.");
         System.err.println("  -d, --diamond");
         System.err.println("      Terminate rating if the puzzle is not a diamond.");
         System.err.println("  -D, --isDG=N");
         System.err.println("  	  Enable/disable Disjoint Group constraints. 0:disable (default), 1:enabled");
+        System.err.println("  -e, --speculate");
+        System.err.println("      Start the chaining techniques of each step in other threads while the");
+        System.err.println("      simpler techniques run. Uses more cores; the ratings are unchanged.");
         System.err.println("  -E, --isCD=N");
         System.err.println("  	  Enable/disable Center Dot group constraints. 0:disable (default), 1:enabled");
         System.err.println("  -f, --format=FORMAT");
         System.err.println("      Format the output for each input puzzle according to FORMAT.  Format");
         System.err.println("      conversion are %CHARACTER; all other characters are output unchanged.");
         System.err.println("      The default format is %r/%p/%d.  The format conversions are:");
+        System.err.println("        %c  The canonical form of the puzzle in 81-character form, the same for");
+        System.err.println("            all the equivalent puzzles. '-' for variants and Sukakus. (SF)");
         System.err.println("        %d  The diamond rating.  This is the highest ER of the methods leading");
         System.err.println("            to the first candidate elimination. (F)");
         System.err.println("        %D  The diamond rating technique name.  This is the name of technique with highest rating of the methods leading");
@@ -107,6 +122,10 @@ public class serate {
         System.err.println("             rating of the methods leading to the first cell placement. (F)");
         System.err.println("        %U  The diamond rating technique shortened name.  This is the SHORT name of technique with highest rating of the methods leading");
         System.err.println("            to the first candidate elimination. (F)");
+        System.err.println("        %x  The puzzle rating as %r, or \"timed out at >= X.Y\" when the rating");
+        System.err.println("            stopped on --timeLimit or --stepLimit, X.Y being the highest ER found,");
+        System.err.println("            \">= X.Y\" when it stopped on --stopAbove and \"< X.Y\" with the");
+        System.err.println("            --stopBelow bound when it stopped on --stopBelow. (F)");
         System.err.println("        %%  The % character.");
         System.err.println("  -G, --islkSudokuBUG=N");
         System.err.println("  	  Fix to BUG algorithm by lkSudoku. 0=disabled	1=enabled (default)");
@@ -120,6 +139,12 @@ public class serate {
         System.err.println("  	  Enable/disable Anti-King constraints. 0:disable (default), 1:enabled");
         System.err.println("  -K, --isAsterisk=N");
         System.err.println("  	  Enable/disable Asterisk group constraints. 0:disable (default), 1:enabled");
+        System.err.println("  -l, --stepLimit=N");
+        System.err.println("      Stop rating a puzzle after N steps. Default 0=no limit. See %x.");
+        System.err.println("  -L, --timeLimit=SECONDS");
+        System.err.println("      Stop rating a puzzle after SECONDS seconds, checked during the long searches");
+        System.err.println("      such as the nested forcing chains. Default 0=no limit. %r is then the highest");
+        System.err.println("      ER found so far, a lower bound of the rating; see %x.");
         System.err.println("  -m, --man");
         System.err.println("      List detailed info in displayed man page form.");
         System.err.println("  -n, --isAntiKnight=N");
@@ -146,6 +171,9 @@ public class serate {
         System.err.println("      Show parameters used");
         System.err.println("  -t, --threads=N");
         System.err.println("      Maximal degree of parallelism. Default 0=auto. 1=no parallelism; -1=unlimited");
+        System.err.println("      With N > 1, N puzzles are rated at the same time and the output is written");
+        System.err.println("      in the input order (not with the step log), and the forcing chains of each");
+        System.err.println("      puzzle are searched with up to N threads from a pool shared by the puzzles.");
         System.err.println("  -T, --totalTime");
         System.err.println("      The time required to process all puzzles parsed to standard output");
         System.err.println("  -U, --islkSudokuURUL=NAME");
@@ -162,6 +190,10 @@ public class serate {
         System.err.println("  	  Enable/disable Windows constraints. 0:disable (default), 1:enabled");
         System.err.println("  -X, --isX=N");
         System.err.println("  	  Enable/disable X diagonal constraints. 0:disable (default), 1:enabled");
+        System.err.println("  -Z, --stopBelow=X.Y");
+        System.err.println("      Stop rating a puzzle once its rating is known to stay below X.Y, that is");
+        System.err.println("      when the rest can be solved with naked singles (with X.Y above 2.3).");
+        System.err.println("      %r, %p and %d are then the ratings found so far; see %x.");
         System.err.println("");
         System.err.println("INVOCATION");
         System.err.println("");
@@ -221,7 +253,7 @@ public class serate {
     static void usage(String option, int argument) {
         System.err.println("serate: " + option + ((argument == 1) ? ": option argument expected" : ": unknown option"));
         System.err.println("Usage: serate [--input=FILE] [--after=FORMAT] [--before=FORMAT] [--format=FORMAT]");
-        System.err.println("    [--revisedRating=N] [--output=FILE][--start=FORMAT] [--threads=N] [--showArguments]");
+        System.err.println("    [--revisedRating=N] [--output=FILE][--start=FORMAT] [--threads=N] [--cache=N] [--showArguments]");
         System.err.println("    [--batch=N] [--pearl] [--totalTime] [--diamond] [--techs=TECHSTRING] [puzzle ...]");
        System.exit(2);
     }
@@ -312,7 +344,10 @@ public class serate {
         boolean         showArguments = false;
         BufferedReader  reader = null;
         PrintWriter     writer = null;
+        ExecutorService executor = null; //rating threads, see --threads
+        int             exitCode = 0;
         int             numThreads = 1;
+        int             cacheSize = 0;
             //@SudokuMonster: 
         int             revisedRating = 0;//New revised Rating
         int             batchSolving = 0;//Batch soving mode
@@ -433,6 +468,18 @@ public class serate {
                         c = 's';
                     else if (s.equals("threads"))
                         c = 't';
+                    else if (s.equals("cache"))
+                        c = 'C';
+                    else if (s.equals("timeLimit"))
+                        c = 'L';
+                    else if (s.equals("stepLimit"))
+                        c = 'l';
+                    else if (s.equals("stopAbove"))
+                        c = 'A';
+                    else if (s.equals("stopBelow"))
+                        c = 'Z';
+                    else if (s.equals("speculate"))
+                        c = 'e';
             //@SudokuMonster: 
                     else if (s.equals("techs"))
                     c = '~';
@@ -456,6 +503,11 @@ public class serate {
 				case 'c':
                 case 's':
                 case 't':
+                case 'C':
+                case 'L':
+                case 'l':
+                case 'A':
+                case 'Z':
                 case 'f':
                 case 'i':
                 case 'o':
@@ -522,6 +574,24 @@ public class serate {
                     if(numThreads == 0) numThreads = Runtime.getRuntime().availableProcessors();
                     if(numThreads < 1) numThreads = 1; //no parallel processing
                     break;
+                case 'C':
+                    cacheSize = Integer.parseInt(v);
+                    break;
+                case 'L':
+                    timeLimit = (long)(Double.parseDouble(v) * 1000);
+                    break;
+                case 'l':
+                    stepLimit = Integer.parseInt(v);
+                    break;
+                case 'A':
+                    stopAbove = Double.parseDouble(v);
+                    break;
+                case 'e':
+                    Settings.getInstance().setSpeculative(true);
+                    break;
+                case 'Z':
+                    stopBelow = Double.parseDouble(v);
+                    break;
             //@SudokuMonster: 
                 case 'V':
                     System.out.println(VER);
@@ -655,6 +725,21 @@ public class serate {
             //@SudokuMonster: The following is to default to the default set of techniques even if variants
 			if (!isTechs)
 				Settings.getInstance().Settings_Variants();
+            if (cacheSize > 0)
+                transpositionTable = new TranspositionTable(cacheSize); //shared by the sessions of all threads
+            //rate several puzzles at the same time, each in its own thread
+            Deque<Future<String>> pending = null; //reorder buffer: the outputs in input order
+            int ordinal = 0;
+            if (numThreads > 1 && !Settings.getInstance().isLog()) {
+                executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r);
+                        thread.setDaemon(true); //don't keep the JVM alive if main leaves early
+                        return thread;
+                    }
+                });
+                pending = new ArrayDeque<Future<String>>();
+            }
             //loop over input puzzles
 			for (;;) {
                 if (reader != null) {
@@ -667,32 +752,49 @@ public class serate {
                 else
                     break;
                 if (puzzle.length() < 81) continue; //silently ignore short input lines or parameters
-                {
+                if (executor == null) {
                     //process puzzle
-                    Grid grid = new Grid();
-					grid.fromString(puzzle);
-                    formatter.setPuzzleLine(puzzle);
-                    grid.adjustPencilmarks();
-                    //t = System.currentTimeMillis();
-                    Solver solver = new Solver(grid);
-                    solver.want = want;
-                    if (puzzle.length() >= 81 && puzzle.length() < 729) {
-                        solver.rebuildPotentialValues();
-                    }
-                    if (batchSolving < 1) {
-                        // Step mode, no batch
-                        solver.getDifficulty(formatter);
-                    } else {
-                        // Batch mode
-                        solver.getBatchDifficulty(formatter);
-                    }
-                    //t = System.currentTimeMillis() - t;
+                    ratePuzzle(puzzle, formatter, want, batchSolving);
                 }
+                else {
+                    final String puzzleLine = puzzle;
+                    final int puzzleOrdinal = ++ordinal;
+                    final Formatter puzzleFormatter = formatter.newPuzzleFormatter(puzzleOrdinal);
+                    final char puzzleWant = want;
+                    final int puzzleBatchSolving = batchSolving;
+                    pending.add(executor.submit(new Callable<String>() {
+                        public String call() {
+                            try {
+                                ratePuzzle(puzzleLine, puzzleFormatter, puzzleWant, puzzleBatchSolving);
+                            }
+                            catch (Throwable ex) {
+                                //name the puzzle, the main thread only sees the exception
+                                throw new RuntimeException("puzzle " + puzzleOrdinal + ": " + puzzleLine, ex);
+                            }
+                            return puzzleFormatter.getBufferedOutput();
+                        }
+                    }));
+                    //keep a few puzzles ahead of the slowest one, write the others as they complete in order
+                    while (pending.size() > numThreads * 4 || (!pending.isEmpty() && pending.peek().isDone()))
+                        writeOutput(writer, pending.poll().get());
+                }
+            }
+            if (executor != null) {
+                while (!pending.isEmpty())
+                    writeOutput(writer, pending.poll().get());
             }
         }
         catch(FileNotFoundException ex) {
             ex.printStackTrace();
         }
+        catch (InterruptedException ex) {
+            ex.printStackTrace();
+        }
+        catch (ExecutionException ex) { // --threads
+            System.err.println("serate: failed to rate " + ex.getCause().getMessage());
+            ex.getCause().getCause().printStackTrace();
+            exitCode = 1;
+        }
         catch (IOException ex) {
             ex.printStackTrace();
         }
@@ -700,9 +802,16 @@ public class serate {
             ex.printStackTrace();
         }
         finally {
+            //stop the rating threads, also the ones still busy with the puzzles after a failure
+            if (executor != null)
+                executor.shutdownNow();
             try {
                 if (totalTime)
                     System.out.println("totalTime: " + Formatter.getTimeString(tt));
+                if (transpositionTable != null)
+                    System.err.println("cache: " + transpositionTable.getHitCount() + " hits, "
+                            + transpositionTable.getMissCount() + " misses, "
+                            + transpositionTable.size() + " grids");
                 if (reader != null)
                     reader.close();
                 if (writer != null)
@@ -712,13 +821,68 @@ public class serate {
                 ex.printStackTrace();
             }
         }
+        if (exitCode != 0)
+            System.exit(exitCode);
         //debug/improve counters
         //System.err.printf("Update = %d\tRead = %d\tGetPP = %d\n", Grid.numCellPencilmarksUpdate, Grid.numCellPencilmarksRead, Grid.numGetPP);
     } //main
+
+    // The steps found for the grids met so far, see --cache
+    private static TranspositionTable transpositionTable = null;
+
+    // The budget of each puzzle in milliseconds and steps, see --timeLimit and --stepLimit
+    private static long timeLimit = 0;
+    private static int stepLimit = 0;
+
+    // The thresholds of the early exit, see --stopAbove and --stopBelow
+    private static double stopAbove = 0.0;
+    private static double stopBelow = 0.0;
+
+    // The hint producers, built once per rating thread once the settings are known
+    private static final ThreadLocal<SolverSession> sessions = new ThreadLocal<SolverSession>() {
+        @Override
+        protected SolverSession initialValue() {
+            SolverSession session = new SolverSession(SolverConfig.fromSettings());
+            session.setTranspositionTable(transpositionTable);
+            return session;
+        }
+    };
+
+    private static void ratePuzzle(String puzzle, Formatter formatter, char want, int batchSolving) {
+        Grid grid = new Grid();
+        grid.fromString(puzzle);
+        formatter.setPuzzleLine(puzzle);
+        grid.adjustPencilmarks();
+        //t = System.currentTimeMillis();
+        Solver solver = sessions.get().newSolver(grid);
+        solver.want = want;
+        solver.setTimeLimit(timeLimit);
+        solver.setStepLimit(stepLimit);
+        solver.setStopAbove(stopAbove);
+        solver.setStopBelow(stopBelow);
+        if (puzzle.length() >= 81 && puzzle.length() < 729) {
+            solver.rebuildPotentialValues();
+        }
+        if (batchSolving < 1) {
+            // Step mode, no batch
+            solver.getDifficulty(formatter);
+        } else {
+            // Batch mode
+            solver.getBatchDifficulty(formatter);
+        }
+        //t = System.currentTimeMillis() - t;
+    }
+
+    private static void writeOutput(PrintWriter writer, String output) {
+        if (output.isEmpty()) return;
+        writer.print(output);
+        writer.flush();
+    }
     
     
     public static class Formatter {
         private PrintWriter writer;
+        private StringWriter buffer; //the output of a puzzle rated in a worker thread
         private String formatStart; //before each puzzle
         private String formatAfter; //after each step
         private String formatBefore; //before each step
@@ -729,6 +893,7 @@ public class serate {
         private long puzzleBeginTime;
         
         private int ordinal;
+        private String canonicalForm; //%c, computed before each puzzle when used
         
         public Formatter(PrintWriter writer, String formatStart, String formatAfter, String formatBefore, String formatFinal) {
             this.writer = writer;
@@ -846,6 +1011,11 @@ public class serate {
         public void beforePuzzle(Solver solver) {
             puzzleBeginTime = System.currentTimeMillis();
             ordinal++;
+            canonicalForm = null;
+            if(formatStart.contains("%c") || formatFinal.contains("%c")) {
+                CanonicalForm form = solver.getGrid().getCanonicalForm();
+                canonicalForm = form == null ? "-" : form.toString();
+            }
             
             if(formatStart.isEmpty()) return;
             String s = new String();
@@ -859,6 +1029,9 @@ public class serate {
                         case 'M':
                             s += solver.getGrid().toStringMultilinePencilmarks();
                             break;
+                        case 'c':
+                            s += canonicalForm;
+                            break;
                         case 'g':
                             s += puzzleLine;
                             break;
@@ -907,6 +1080,9 @@ public class serate {
                         case 'D':
                             s += solver.EDtN;
                             break;
+                        case 'c':
+                            s += canonicalForm;
+                            break;
                         case 'd':
                             s += ratingToString(solver.diamond);
                             break;
@@ -945,6 +1121,16 @@ public class serate {
                         case 'r':
                             s += ratingToString(solver.difficulty);
                             break;
+                        case 'x':
+                            if (solver.timedOut)
+                                s += "timed out at >= " + ratingToString(solver.difficulty);
+                            else if (solver.stoppedAbove)
+                                s += ">= " + ratingToString(solver.difficulty);
+                            else if (solver.stoppedBelow)
+                                s += "< " + ratingToString(stopBelow);
+                            else
+                                s += ratingToString(solver.difficulty);
+                            break;
                         case 't':
                             s += '\t';
                             break;
@@ -1009,5 +1195,26 @@ public class serate {
         public void setPuzzleLine(String puzzleLine) {
             this.puzzleLine = puzzleLine;
         }
+
+        /**
+         * Get a formatter with the same formats that keeps its output in memory,
+         * for a puzzle rated in a worker thread.
+         * @param ordinal the ordinal of the puzzle, counting from 1
+         * @return the formatter, see {@link #getBufferedOutput()}
+         */
+        public Formatter newPuzzleFormatter(int ordinal) {
+            StringWriter puzzleBuffer = new StringWriter();
+            Formatter result = new Formatter(new PrintWriter(puzzleBuffer), formatStart, formatAfter, formatBefore, formatFinal);
+            result.buffer = puzzleBuffer;
+            result.ordinal = ordinal - 1; //incremented before the puzzle
+            return result;
+        }
+
+        /**
+         * Get the output of a formatter created by {@link #newPuzzleFormatter(int)}
+         */
+        public String getBufferedOutput() {
+            return buffer.toString();
+        }
     } //class Formatter
 }
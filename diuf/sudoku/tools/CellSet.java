@@ -6,64 +6,203 @@ package diuf.sudoku.tools;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
+import diuf.sudoku.Bitboard;
 import diuf.sudoku.Cell;
 import diuf.sudoku.Grid;
 
 /**
+ * A set of the 81 cells of the grid, stored in two longs: bit <tt>i</tt> of
+ * the low word for cell <tt>i</tt> (0..63), bit <tt>i - 64</tt> of the high
+ * word for cell <tt>i</tt> (64..80), as in {@link Bitboard}.
+ * <p>
+ * Besides the {@link Set} methods, the set operations with another CellSet
+ * ({@link #and(CellSet)}, {@link #or(CellSet)}, {@link #andNot(CellSet)},
+ * {@link #set(CellSet)}) and the index queries ({@link #cardinality()},
+ * {@link #nextIndex(int)}, {@link #forEachIndex(IndexVisitor)}) allocate nothing.
+ * @see ImmutableCellSet
  * @author Mladen Dobrichev, 2019
  *
  */
 public class CellSet implements Set<Cell> {
 
-	public final BitSet bits = new BitSet();
-	
+	/**
+	 * Receives the cell indexes of a set, see {@link CellSet#forEachIndex(IndexVisitor)}
+	 */
+	public interface IndexVisitor {
+		void visit(int cellIndex);
+	}
+
+	private long low;
+	private long high;
+
+	public CellSet() {
+	}
+
+	public CellSet(long low, long high) {
+		this.low = low;
+		this.high = high;
+	}
+
 	public CellSet(CellSet c) {
-		//bits.clear();
-		bits.or(c.bits);
+		low = c.low;
+		high = c.high;
 	}
 
 	public CellSet(BitSet b) {
-		bits.or(b);
+		for (int i = b.nextSetBit(0); i >= 0; i = b.nextSetBit(i + 1))
+			setIndex(i);
 	}
 
 	public CellSet(Collection<?> c) {
 		for(Object cell : c) {
-			bits.set(((Cell)cell).getIndex());
+			setIndex(((Cell)cell).getIndex());
 		}
 	}
-	
+
 	public CellSet(int[] c) {
 		for(int i : c) {
-			bits.set(i);
+			setIndex(i);
 		}
 	}
-	
+
 	public CellSet(Cell[] c) {
 		for(Cell i : c) {
-			bits.set(i.getIndex());
+			setIndex(i.getIndex());
 		}
 	}
-	
+
+	private void setIndex(int i) {
+		if (i < 64)
+			low |= 1L << i;
+		else
+			high |= 1L << (i - 64);
+	}
+
+	private void clearIndex(int i) {
+		if (i < 64)
+			low &= ~(1L << i);
+		else
+			high &= ~(1L << (i - 64));
+	}
+
+	/**
+	 * Get the cells 0 to 63 of this set
+	 */
+	public long getLow() {
+		return low;
+	}
+
+	/**
+	 * Get the cells 64 to 80 of this set
+	 */
+	public long getHigh() {
+		return high;
+	}
+
+	public boolean containsIndex(int i) {
+		if (i < 64)
+			return (low & (1L << i)) != 0;
+		return (high & (1L << (i - 64))) != 0;
+	}
+
+	/**
+	 * Make this set a copy of the given one
+	 */
+	public void set(CellSet c) {
+		low = c.low;
+		high = c.high;
+	}
+
+	/**
+	 * Keep only the cells that are also in the given set
+	 */
+	public void and(CellSet c) {
+		low &= c.low;
+		high &= c.high;
+	}
+
+	/**
+	 * Add all the cells of the given set
+	 */
+	public void or(CellSet c) {
+		low |= c.low;
+		high |= c.high;
+	}
+
+	/**
+	 * Remove all the cells of the given set
+	 */
+	public void andNot(CellSet c) {
+		low &= ~c.low;
+		high &= ~c.high;
+	}
+
+	/**
+	 * Remove all the cells of the given region
+	 */
+	public void andNot(Grid.Region region) {
+		low &= ~Bitboard.getRegionLow(region);
+		high &= ~Bitboard.getRegionHigh(region);
+	}
+
+	/**
+	 * Get the number of cells in this set
+	 */
+	public int cardinality() {
+		return Long.bitCount(low) + Long.bitCount(high);
+	}
+
+	/**
+	 * Get the first cell index of this set that is greater or equal to the given one
+	 * @param from the index to start from, inclusive
+	 * @return the cell index, or -1 if there is none
+	 */
+	public int nextIndex(int from) {
+		if (from < 64) {
+			long word = low & (-1L << from);
+			if (word != 0)
+				return Long.numberOfTrailingZeros(word);
+			from = 64;
+		}
+		if (from >= 81)
+			return -1;
+		long word = high & (-1L << (from - 64));
+		if (word != 0)
+			return 64 + Long.numberOfTrailingZeros(word);
+		return -1;
+	}
+
+	/**
+	 * Call the visitor with each cell index of this set, in increasing order
+	 */
+	public void forEachIndex(IndexVisitor visitor) {
+		for (long word = low; word != 0; word &= word - 1)
+			visitor.visit(Long.numberOfTrailingZeros(word));
+		for (long word = high; word != 0; word &= word - 1)
+			visitor.visit(64 + Long.numberOfTrailingZeros(word));
+	}
+
 	@Override
 	public boolean add(Cell cell) {
 		int i = cell.getIndex();
 //		boolean ret = bits.get(i);
 //		bits.set(i);
 //		return ret;
-		bits.set(i);
+		setIndex(i);
 		return false;
 	}
 
 	@Override
 	public boolean addAll(Collection<? extends Cell> c) {
 		if(c instanceof CellSet) {
-			bits.or(((CellSet) c).bits);
+			or((CellSet) c);
 		}
 		else {
 			for(Cell cell : c) {
-				bits.set(cell.getIndex());
+				setIndex(cell.getIndex());
 			}
 		}
 		return false;
@@ -71,51 +210,49 @@ public class CellSet implements Set<Cell> {
 
 	@Override
 	public void clear() {
-		bits.clear();
+		low = 0;
+		high = 0;
 	}
 
 	@Override
 	public boolean contains(Object o) {
 		if(o instanceof Cell) {
-			return bits.get(((Cell)o).getIndex());
+			return containsIndex(((Cell)o).getIndex());
 		}
 		else if(o instanceof CellSet) {
-			BitSet cl = (BitSet)(((CellSet) o).bits.clone());
-			cl.andNot(bits);
-			return cl.isEmpty();
+			CellSet c = (CellSet) o;
+			return (c.low & ~low) == 0 && (c.high & ~high) == 0;
 		}
 		throw new ClassCastException();
 		//return false;
 	}
-	
+
 	public boolean containsCell(Cell c) {
-		return bits.get(c.getIndex());
+		return containsIndex(c.getIndex());
 	}
 
 	@Override
 	public boolean containsAll(Collection<?> c) {
 		if(c instanceof CellSet) {
-			BitSet cl = (BitSet)(((CellSet) c).bits.clone());
-			cl.andNot(bits);
-			return cl.isEmpty();
+			return contains(c);
 		}
 		//for(Cell cell : (Collection<Cell>)c) {
 		//	if(!bits.get(cell.getIndex())) return false;
 		//}
 		for(Object cell : c) {
-			if(!bits.get(((Cell)cell).getIndex())) return false;
+			if(!containsIndex(((Cell)cell).getIndex())) return false;
 		}
 		return true;
 	}
 
 	//has at least one bit set in both this and given CellSet
 	public boolean containsAny(CellSet c) {
-		return bits.intersects(c.bits);
+		return (low & c.low) != 0 || (high & c.high) != 0;
 	}
 
 	@Override
 	public boolean isEmpty() {
-		return bits.isEmpty();
+		return (low | high) == 0;
 	}
 
 	@Override
@@ -126,11 +263,11 @@ public class CellSet implements Set<Cell> {
 	@Override
 	public boolean remove(Object o) {
 		if(o instanceof Cell) {
-			bits.clear(((Cell)o).getIndex());
+			clearIndex(((Cell)o).getIndex());
 			return false;
 		}
 		else if(o instanceof CellSet) {
-			bits.andNot(((CellSet) o).bits);
+			andNot((CellSet) o);
 			return false;
 		}
 		throw new ClassCastException();
@@ -139,14 +276,14 @@ public class CellSet implements Set<Cell> {
 	@Override
 	public boolean removeAll(Collection<?> c) {
 		if(c instanceof CellSet) {
-			bits.andNot(((CellSet) c).bits);
+			andNot((CellSet) c);
 			return false;
 		}
 		//for(Cell cell : (Collection<Cell>)c) {
 		//	bits.clear(cell.getIndex());
 		//}
 		for(Object cell : c) {
-			bits.clear(((Cell)cell).getIndex());
+			clearIndex(((Cell)cell).getIndex());
 		}
 		return false;
 	}
@@ -154,26 +291,26 @@ public class CellSet implements Set<Cell> {
 	@Override
 	public boolean retainAll(Collection<?> c) {
 		if(c instanceof CellSet) {
-			bits.and(((CellSet) c).bits);
+			and((CellSet) c);
 			return false;
 		}
 		//CellSet other = new CellSet((Collection<Cell>)c);
 		CellSet other = new CellSet(c);
-		bits.and(other.bits);
+		and(other);
 		return false;
 	}
 
 	@Override
 	public int size() {
-		return bits.size();
+		return cardinality();
 	}
 
 	@Override
 	public Object[] toArray() {
-		Cell[] ret = new Cell[bits.cardinality()];
+		Cell[] ret = new Cell[cardinality()];
 		int i = 0;
 		for(Cell c : this) {
-			ret[i] = c;
+			ret[i++] = c;
 		}
 		return ret;
 	}
@@ -187,13 +324,21 @@ public class CellSet implements Set<Cell> {
 		private int previous = -1;
 		@Override
 		public boolean hasNext() {
-			return bits.nextSetBit(previous + 1) != -1;
+			return nextIndex(previous + 1) != -1;
 		}
 
 		@Override
 		public Cell next() {
-			previous = bits.nextSetBit(previous + 1);
+			int next = nextIndex(previous + 1);
+			if (next < 0)
+				throw new NoSuchElementException();
+			previous = next;
 			return Grid.getCell(previous);
 		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
 	}
 }
@@ -0,0 +1,85 @@
+/**
+ * 
+ */
+package diuf.sudoku.tools;
+
+import java.util.Collection;
+
+import diuf.sudoku.Cell;
+import diuf.sudoku.Grid;
+
+/**
+ * A {@link CellSet} that cannot be modified, for the sets shared by the
+ * whole solver such as the visible cells of each cell. Any attempt to
+ * change it throws an {@link UnsupportedOperationException}; copy it with
+ * {@link CellSet#CellSet(CellSet)} or {@link CellSet#set(CellSet)} first.
+ */
+public final class ImmutableCellSet extends CellSet {
+
+	public ImmutableCellSet(int[] c) {
+		super(c);
+	}
+
+	public ImmutableCellSet(CellSet c) {
+		super(c);
+	}
+
+	public ImmutableCellSet(long low, long high) {
+		super(low, high);
+	}
+
+	@Override
+	public void set(CellSet c) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void and(CellSet c) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void or(CellSet c) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void andNot(CellSet c) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void andNot(Grid.Region region) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean add(Cell cell) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Cell> c) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		throw new UnsupportedOperationException();
+	}
+}